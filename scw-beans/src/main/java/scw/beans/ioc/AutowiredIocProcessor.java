@@ -18,12 +18,7 @@ public class AutowiredIocProcessor extends AbstractFieldIocProcessor {
 	protected void processInternal(BeanDefinition beanDefinition, Object bean, BeanFactory beanFactory) throws BeansException {
 		Autowired s = getField().getSetter().getAnnotation(Autowired.class);
 		if (s != null) {
-			String name = s.value();
-			if (name.length() == 0) {
-				name = getField().getSetter().getType()
-						.getName();
-			}
-
+			String name = getBeanName();
 			if(s.required()){//是否是强制依赖
 				if(!beanFactory.isInstance(name)){
 					throw new NotSupportedException(getField().getSetter().toString());
@@ -44,6 +39,20 @@ public class AutowiredIocProcessor extends AbstractFieldIocProcessor {
 		}
 	}
 	
+	/**
+	 * 需要注入的bean的名称
+	 * 
+	 * @return 如果字段上不存在{@link Autowired}返回空
+	 */
+	public String getBeanName() {
+		Autowired autowired = getField().getSetter().getAnnotation(Autowired.class);
+		if (autowired == null) {
+			return null;
+		}
+
+		return autowired.value().length() == 0 ? getField().getSetter().getType().getName() : autowired.value();
+	}
+
 	private static boolean exists(Object instance, Field field) {
 		java.lang.reflect.Field refField = null;
 		if(field.isSupportGetter() && field.getGetter().getField() != null) {
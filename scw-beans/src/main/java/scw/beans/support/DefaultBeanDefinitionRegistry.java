@@ -1,7 +1,7 @@
 package scw.beans.support;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import scw.beans.BeanDefinition;
 import scw.beans.BeanDefinitionRegistry;
@@ -13,7 +13,7 @@ import scw.util.alias.DefaultAliasRegistry;
 
 public class DefaultBeanDefinitionRegistry extends DefaultAliasRegistry implements BeanDefinitionRegistry{
 	private static Logger logger = LoggerFactory.getLogger(DefaultBeanDefinitionRegistry.class);
-	private volatile Map<String, BeanDefinition> beanDefinitionMap = new HashMap<String, BeanDefinition>();
+	private volatile Map<String, BeanDefinition> beanDefinitionMap = new ConcurrentHashMap<String, BeanDefinition>();
 	
 	public DefaultBeanDefinitionRegistry(){
 		super(true);
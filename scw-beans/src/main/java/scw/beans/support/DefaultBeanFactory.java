@@ -4,8 +4,15 @@ import java.lang.reflect.AnnotatedElement;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import scw.aop.ConfigurableAop;
 import scw.aop.support.DefaultConfigurableAop;
@@ -45,6 +52,8 @@ import scw.util.Result;
 public class DefaultBeanFactory extends AbstractConfigurableContext
 		implements ConfigurableBeanFactory, ServiceLoaderFactory, Init, Destroy {
 	private static Logger logger = LoggerFactory.getLogger(DefaultBeanFactory.class);
+	public static final String PARALLEL_INITIALIZATION_PROPERTY = "beans.parallel.init";
+	public static final String PARALLEL_INITIALIZATION_THREADS_PROPERTY = "beans.parallel.init.threads";
 	private final DefaultEventDispatcher<BeanlifeCycleEvent> beanLifeCycleEventDispatcher = new DefaultEventDispatcher<BeanlifeCycleEvent>(
 			true);
 	private final DefaultConfigurableAop aop = new DefaultConfigurableAop();
@@ -53,6 +62,17 @@ public class DefaultBeanFactory extends AbstractConfigurableContext
 	private ClassLoaderProvider classLoaderProvider;
 	private volatile boolean initialized;
 	private List<BeanFactoryPostProcessor> beanFactoryPostProcessors = new ArrayList<BeanFactoryPostProcessor>(8);
+	private Boolean parallelInitialization;
+	private int initializationParallelism;
+	private final Map<String, Long> initializationTimes = new ConcurrentHashMap<String, Long>();
+	/**
+	 * 正在初始化的单例
+	 */
+	private final Map<String, Initialization> initializingMap = new ConcurrentHashMap<String, Initialization>();
+	/**
+	 * 等待中的线程 -> 被等待的线程，用来检测死锁
+	 */
+	private final Map<Thread, Thread> waitingMap = new HashMap<Thread, Thread>();
 
 	public DefaultBeanFactory() {
 		super(true);
@@ -235,6 +255,7 @@ public class DefaultBeanFactory extends AbstractConfigurableContext
 	public <T> T getInstance(String name) {
 		Object object = getSingleton(name);
 		if (object != null) {
+			awaitInitialization(name);
 			return (T) object;
 		}
 
@@ -243,20 +264,79 @@ public class DefaultBeanFactory extends AbstractConfigurableContext
 			return null;
 		}
 
-		Result<Object> result;
-		if (definition.isSingleton()) {
-			result = singletonBeanRegistry.getSingleton(definition);
-		} else {
-			result = new Result<Object>(true, definition.create());
+		if (!definition.isSingleton()) {
+			object = definition.create();
+			init(definition, object);
+			return (T) object;
 		}
 
+		String id = definition.getId();
+		// 在注册到单例容器之前标记为正在初始化，其他线程拿到的单例要等初始化完成
+		Result<Object> result = singletonBeanRegistry.getSingleton(id, () -> {
+			Object instance = definition.create();
+			initializingMap.put(id, new Initialization());
+			return instance;
+		});
 		object = result.getResult();
 		if (result.isActive()) {
-			init(definition, object);
+			Initialization initialization = initializingMap.get(id);
+			try {
+				init(definition, object);
+			} finally {
+				initializingMap.remove(id);
+				initialization.done();
+			}
+		} else {
+			awaitInitialization(id);
 		}
 		return (T) object;
 	}
 
+	/**
+	 * 如果单例正在被其他线程初始化就等待它完成<br/>
+	 * 当前线程正在创建单例(持有单例锁)，或者对方线程(间接)在等待当前线程时不等待，和串行初始化的循环依赖一样返回未初始化完的实例，否则会死锁
+	 * 
+	 * @param name
+	 */
+	private void awaitInitialization(String name) {
+		if (initializingMap.isEmpty()) {
+			return;
+		}
+
+		Initialization initialization = initializingMap.get(name);
+		if (initialization == null) {
+			BeanDefinition definition = getDefinition(name);
+			if (definition == null) {
+				return;
+			}
+			initialization = initializingMap.get(definition.getId());
+		}
+
+		Thread current = Thread.currentThread();
+		if (initialization == null || initialization.owner == current || Thread.holdsLock(getSingletonMutex())) {
+			return;
+		}
+
+		synchronized (waitingMap) {
+			for (Thread thread = initialization.owner; thread != null; thread = waitingMap.get(thread)) {
+				if (thread == current) {
+					return;
+				}
+			}
+			waitingMap.put(current, initialization.owner);
+		}
+
+		try {
+			initialization.await();
+		} catch (InterruptedException e) {
+			current.interrupt();
+		} finally {
+			synchronized (waitingMap) {
+				waitingMap.remove(current);
+			}
+		}
+	}
+
 	public boolean isInstance(String name) {
 		if (containsSingleton(name)) {
 			return true;
@@ -347,11 +427,13 @@ public class DefaultBeanFactory extends AbstractConfigurableContext
 			configure(this);
 			
 			// TODO 初始化所有单例(原来是想全部懒加载，但是后来出现问题了)
+			List<String> singletonIds = new ArrayList<String>();
 			for (String id : beanDefinitionRegistry.getDefinitionIds()) {
 				if (isSingleton(id) && isInstance(id)) {
-					getInstance(id);
+					singletonIds.add(id);
 				}
 			}
+			initializeSingletons(singletonIds);
 
 			// 处理静态依赖
 			for (Class<?> clazz : getContextClassesLoader()) {
@@ -363,6 +445,90 @@ public class DefaultBeanFactory extends AbstractConfigurableContext
 		}
 	}
 
+	/**
+	 * 是否并行初始化单例，默认使用配置beans.parallel.init(默认为false)
+	 * 
+	 * @return
+	 */
+	public boolean isParallelInitialization() {
+		return parallelInitialization == null
+				? getEnvironment().getValue(PARALLEL_INITIALIZATION_PROPERTY, boolean.class, false)
+				: parallelInitialization;
+	}
+
+	public void setParallelInitialization(Boolean parallelInitialization) {
+		this.parallelInitialization = parallelInitialization;
+	}
+
+	/**
+	 * 并行初始化时的线程数，默认使用配置beans.parallel.init.threads(默认为cpu数量)
+	 * 
+	 * @return
+	 */
+	public int getInitializationParallelism() {
+		return initializationParallelism > 0 ? initializationParallelism
+				: getEnvironment().getValue(PARALLEL_INITIALIZATION_THREADS_PROPERTY, int.class,
+						Runtime.getRuntime().availableProcessors());
+	}
+
+	public void setInitializationParallelism(int initializationParallelism) {
+		this.initializationParallelism = initializationParallelism;
+	}
+
+	/**
+	 * 启动时每个单例的初始化耗时(毫秒)，按耗时倒序<br/>
+	 * 串行初始化时包含了其中创建的依赖的耗时
+	 * 
+	 * @return
+	 */
+	public Map<String, Long> getInitializationTimes() {
+		List<Entry<String, Long>> entries = new ArrayList<Entry<String, Long>>(initializationTimes.entrySet());
+		entries.sort((o1, o2) -> Long.compare(o2.getValue(), o1.getValue()));
+		Map<String, Long> map = new LinkedHashMap<String, Long>();
+		for (Entry<String, Long> entry : entries) {
+			map.put(entry.getKey(), TimeUnit.NANOSECONDS.toMillis(entry.getValue()));
+		}
+		return map;
+	}
+
+	protected void initializeSingletons(List<String> ids) throws Throwable {
+		long t = System.currentTimeMillis();
+		boolean parallel = isParallelInitialization() && ids.size() > 1;
+		if (parallel) {
+			new ParallelSingletonInitializer(this, ids).initialize(getInitializationParallelism(),
+					(id) -> initializeSingleton(id));
+		} else {
+			for (String id : ids) {
+				initializeSingleton(id);
+			}
+		}
+
+		if (logger.isInfoEnabled()) {
+			Map<String, Long> times = getInitializationTimes();
+			StringBuilder sb = new StringBuilder();
+			int count = 0;
+			for (Entry<String, Long> entry : times.entrySet()) {
+				if (count++ == 10) {
+					break;
+				}
+				sb.append(count == 1 ? "" : ", ").append(entry.getKey()).append("=").append(entry.getValue())
+						.append("ms");
+			}
+			logger.info("Initialized {} singletons {} in {}ms, slowest: [{}]", ids.size(),
+					parallel ? "in parallel" : "serially", System.currentTimeMillis() - t, sb);
+		}
+	}
+
+	private void initializeSingleton(String id) {
+		long t = System.nanoTime();
+		getInstance(id);
+		t = System.nanoTime() - t;
+		initializationTimes.put(id, t);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Initialized singleton [{}] in {}ms", id, TimeUnit.NANOSECONDS.toMillis(t));
+		}
+	}
+
 	@Override
 	public boolean isInitialized() {
 		return initialized;
@@ -456,4 +622,17 @@ public class DefaultBeanFactory extends AbstractConfigurableContext
 	protected final NoArgsInstanceFactory getTargetInstanceFactory() {
 		return this;
 	}
+
+	private static final class Initialization {
+		private final Thread owner = Thread.currentThread();
+		private final CountDownLatch latch = new CountDownLatch(1);
+
+		void await() throws InterruptedException {
+			latch.await();
+		}
+
+		void done() {
+			latch.countDown();
+		}
+	}
 }
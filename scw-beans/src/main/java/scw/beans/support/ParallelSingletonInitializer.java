@@ -0,0 +1,231 @@
+package scw.beans.support;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Consumer;
+
+import scw.beans.BeanDefinition;
+import scw.beans.ioc.AutowiredIocProcessor;
+import scw.beans.ioc.Ioc;
+import scw.beans.ioc.IocProcessor;
+import scw.core.parameter.ParameterDescriptors;
+import scw.logger.Logger;
+import scw.logger.LoggerFactory;
+
+/**
+ * 并行初始化单例<br/>
+ * 根据构造参数和{@link scw.beans.annotation.Autowired}建立依赖关系，依赖的bean初始化完成后才会初始化当前bean，没有依赖关系的bean在ForkJoinPool中并行初始化<br/>
+ * 循环依赖的bean会被合并为一组在同一个线程中按原来的顺序初始化
+ * 依赖关系图看不到的依赖(如在init中通过beanFactory获取的bean)由{@link DefaultBeanFactory#getInstance(String)}等待其他线程初始化完成
+ *
+ * @author shuchaowen
+ *
+ */
+final class ParallelSingletonInitializer {
+	private static Logger logger = LoggerFactory.getLogger(ParallelSingletonInitializer.class);
+
+	private final DefaultBeanFactory beanFactory;
+	private final Map<String, Set<String>> dependencies = new LinkedHashMap<String, Set<String>>();
+	private final Map<String, Integer> orderMap = new HashMap<String, Integer>();
+
+	// tarjan
+	private final Map<String, Integer> indexMap = new HashMap<String, Integer>();
+	private final Map<String, Integer> lowLinkMap = new HashMap<String, Integer>();
+	private final List<String> stack = new ArrayList<String>();
+	private final Set<String> onStack = new LinkedHashSet<String>();
+	private final Map<String, Group> groupMap = new HashMap<String, Group>();
+	private final List<Group> groups = new ArrayList<Group>();
+
+	ParallelSingletonInitializer(DefaultBeanFactory beanFactory, Collection<String> ids) {
+		this.beanFactory = beanFactory;
+		for (String id : ids) {
+			dependencies.put(id, new LinkedHashSet<String>());
+			orderMap.put(id, orderMap.size());
+		}
+
+		for (String id : ids) {
+			BeanDefinition definition = beanFactory.getDefinition(id);
+			if (definition != null) {
+				resolveDependencies(id, definition);
+			}
+		}
+
+		for (String id : ids) {
+			if (!indexMap.containsKey(id)) {
+				connect(id);
+			}
+		}
+	}
+
+	private void resolveDependencies(String id, BeanDefinition definition) {
+		Set<String> names = new LinkedHashSet<String>();
+		// 无法确定会使用哪一个构造方法，所有构造方法的参数都认为是依赖
+		for (ParameterDescriptors parameterDescriptors : definition) {
+			for (Class<?> type : parameterDescriptors.getTypes()) {
+				names.add(type.getName());
+			}
+		}
+
+		// 非静态的@Bean方法依赖所在类的实例
+		if (definition instanceof MethodBeanDefinition) {
+			MethodBeanDefinition methodBeanDefinition = (MethodBeanDefinition) definition;
+			if (!Modifier.isStatic(methodBeanDefinition.getMethod().getModifiers())) {
+				names.add(methodBeanDefinition.getMethodTargetClass().getName());
+			}
+		}
+
+		Class<?> targetClass = definition.getTargetClass();
+		if (targetClass != null) {
+			for (Ioc ioc : Ioc.forClass(targetClass)) {
+				for (IocProcessor processor : ioc.getDependence().getIocProcessors()) {
+					if (processor instanceof AutowiredIocProcessor) {
+						names.add(((AutowiredIocProcessor) processor).getBeanName());
+					}
+				}
+			}
+		}
+
+		Set<String> depends = dependencies.get(id);
+		for (String name : names) {
+			String dependId = resolveId(name);
+			if (dependId != null && !dependId.equals(id)) {
+				depends.add(dependId);
+			}
+		}
+	}
+
+	private String resolveId(String name) {
+		if (name == null) {
+			return null;
+		}
+
+		if (dependencies.containsKey(name)) {
+			return name;
+		}
+
+		// 不使用getDefinition判断，避免懒加载无关的定义
+		if (!beanFactory.containsDefinition(name)) {
+			return null;
+		}
+
+		BeanDefinition definition = beanFactory.getDefinition(name);
+		return definition != null && dependencies.containsKey(definition.getId()) ? definition.getId() : null;
+	}
+
+	/**
+	 * tarjan强连通分量算法，生成的分组顺序中依赖总是在前面
+	 */
+	private void connect(String id) {
+		int index = indexMap.size();
+		indexMap.put(id, index);
+		lowLinkMap.put(id, index);
+		stack.add(id);
+		onStack.add(id);
+
+		for (String depend : dependencies.get(id)) {
+			if (!indexMap.containsKey(depend)) {
+				connect(depend);
+				lowLinkMap.put(id, Math.min(lowLinkMap.get(id), lowLinkMap.get(depend)));
+			} else if (onStack.contains(depend)) {
+				lowLinkMap.put(id, Math.min(lowLinkMap.get(id), indexMap.get(depend)));
+			}
+		}
+
+		if (lowLinkMap.get(id).equals(indexMap.get(id))) {
+			Group group = new Group();
+			String member;
+			do {
+				member = stack.remove(stack.size() - 1);
+				onStack.remove(member);
+				group.members.add(member);
+				groupMap.put(member, group);
+			} while (!member.equals(id));
+			group.members.sort(Comparator.comparing(orderMap::get));
+			groups.add(group);
+		}
+	}
+
+	/**
+	 * 循环依赖的bean
+	 *
+	 * @return
+	 */
+	public List<List<String>> getCycles() {
+		List<List<String>> cycles = new ArrayList<List<String>>();
+		for (Group group : groups) {
+			if (group.members.size() > 1) {
+				cycles.add(group.members);
+			}
+		}
+		return cycles;
+	}
+
+	public Set<String> getDependencies(String id) {
+		return dependencies.get(id);
+	}
+
+	/**
+	 * @param parallelism
+	 * @param initializer 初始化一个bean
+	 * @throws Throwable 任意一个bean初始化失败
+	 */
+	public void initialize(int parallelism, final Consumer<String> initializer) throws Throwable {
+		for (List<String> cycle : getCycles()) {
+			logger.warn("Circular dependency {} will be initialized serially", cycle);
+		}
+
+		final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		ForkJoinPool pool = new ForkJoinPool(parallelism, (p) -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+			thread.setName(DefaultBeanFactory.class.getSimpleName() + "-init-" + thread.getPoolIndex());
+			thread.setContextClassLoader(classLoader);
+			return thread;
+		}, null, false);
+		try {
+			Map<Group, CompletableFuture<Void>> futures = new LinkedHashMap<Group, CompletableFuture<Void>>();
+			for (final Group group : groups) {
+				Set<CompletableFuture<Void>> depends = new LinkedHashSet<CompletableFuture<Void>>();
+				for (String member : group.members) {
+					for (String depend : dependencies.get(member)) {
+						Group dependGroup = groupMap.get(depend);
+						if (dependGroup != group) {
+							depends.add(futures.get(dependGroup));
+						}
+					}
+				}
+
+				CompletableFuture<Void> future = CompletableFuture
+						.allOf(depends.toArray(new CompletableFuture[0])).thenRunAsync(() -> {
+							for (String member : group.members) {
+								initializer.accept(member);
+							}
+						}, pool);
+				futures.put(group, future);
+			}
+
+			try {
+				CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).join();
+			} catch (CompletionException e) {
+				throw e.getCause() == null ? e : e.getCause();
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private static final class Group {
+		private final List<String> members = new ArrayList<String>(1);
+	}
+}
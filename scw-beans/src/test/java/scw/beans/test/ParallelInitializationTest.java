@@ -0,0 +1,129 @@
+package scw.beans.test;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import scw.beans.BeanFactory;
+import scw.beans.annotation.Autowired;
+import scw.beans.support.DefaultBeanDefinition;
+import scw.beans.support.DefaultBeanFactory;
+import scw.context.Init;
+
+public class ParallelInitializationTest {
+	private static final long SLEEP = 300;
+
+	@Test
+	public void test() throws Throwable {
+		DefaultBeanFactory beanFactory = new DefaultBeanFactory();
+		beanFactory.setParallelInitialization(true);
+		beanFactory.setInitializationParallelism(4);
+		for (Class<?> clazz : new Class<?>[] { SlowA.class, SlowB.class, SlowC.class, CycleX.class,
+				CycleY.class }) {
+			beanFactory.registerDefinition(new DefaultBeanDefinition(beanFactory, clazz));
+		}
+
+		beanFactory.init();
+		try {
+			SlowC c = beanFactory.getInstance(SlowC.class);
+			assertTrue(c.initialized);
+			assertTrue(c.dependenciesInitialized);
+			assertTrue(beanFactory.getInstance(CycleX.class).y == beanFactory.getInstance(CycleY.class));
+			assertTrue(beanFactory.getInstance(CycleY.class).x == beanFactory.getInstance(CycleX.class));
+
+			// A和B并行初始化
+			SlowA a = beanFactory.getInstance(SlowA.class);
+			SlowB b = beanFactory.getInstance(SlowB.class);
+			assertTrue(a.start < b.end && b.start < a.end);
+			Map<String, Long> times = beanFactory.getInitializationTimes();
+			assertTrue(times.get(SlowA.class.getName()) >= SLEEP);
+			assertTrue(times.get(SlowB.class.getName()) >= SLEEP);
+			System.out.println(times);
+		} finally {
+			beanFactory.destroy();
+		}
+	}
+
+	@Test
+	public void lookup() throws Throwable {
+		DefaultBeanFactory beanFactory = new DefaultBeanFactory();
+		beanFactory.setParallelInitialization(true);
+		beanFactory.setInitializationParallelism(4);
+		for (Class<?> clazz : new Class<?>[] { SlowA.class, Lookup.class }) {
+			beanFactory.registerDefinition(new DefaultBeanDefinition(beanFactory, clazz));
+		}
+
+		beanFactory.init();
+		try {
+			// Lookup在init中才获取SlowA，依赖关系图中没有这条边，两者会被并行初始化
+			assertTrue(beanFactory.getInstance(Lookup.class).initialized);
+		} finally {
+			beanFactory.destroy();
+		}
+	}
+
+	public static class SlowA implements Init {
+		private volatile boolean initialized;
+		private volatile long start;
+		private volatile long end;
+
+		public void init() throws Throwable {
+			start = System.currentTimeMillis();
+			TimeUnit.MILLISECONDS.sleep(SLEEP);
+			end = System.currentTimeMillis();
+			initialized = true;
+		}
+	}
+
+	public static class SlowB implements Init {
+		private volatile boolean initialized;
+		private volatile long start;
+		private volatile long end;
+
+		public void init() throws Throwable {
+			start = System.currentTimeMillis();
+			TimeUnit.MILLISECONDS.sleep(SLEEP);
+			end = System.currentTimeMillis();
+			initialized = true;
+		}
+	}
+
+	public static class SlowC implements Init {
+		@Autowired
+		private SlowA a;
+		@Autowired
+		private SlowB b;
+		private volatile boolean dependenciesInitialized;
+		private volatile boolean initialized;
+
+		public void init() throws Throwable {
+			dependenciesInitialized = a.initialized && b.initialized;
+			initialized = true;
+		}
+	}
+
+	public static class CycleX {
+		@Autowired
+		private CycleY y;
+	}
+
+	public static class CycleY {
+		@Autowired
+		private CycleX x;
+	}
+
+	public static class Lookup implements Init {
+		@Autowired
+		private BeanFactory beanFactory;
+		private volatile boolean initialized;
+
+		public void init() throws Throwable {
+			// 等SlowA开始初始化
+			TimeUnit.MILLISECONDS.sleep(SLEEP / 3);
+			initialized = beanFactory.getInstance(SlowA.class).initialized;
+		}
+	}
+}
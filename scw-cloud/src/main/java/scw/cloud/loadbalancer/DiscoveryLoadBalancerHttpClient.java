@@ -2,6 +2,7 @@ package scw.cloud.loadbalancer;
 
 import java.net.URI;
 import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
 
 import scw.cloud.ServiceInstance;
 import scw.http.HttpMethod;
@@ -38,18 +39,24 @@ public class DiscoveryLoadBalancerHttpClient extends DefaultHttpClient{
 			UriComponentsBuilder builder = UriComponentsBuilder.fromUri(url);
 			builder = builder.host(server.getService().getHost());
 			builder = builder.port(server.getService().getPort());
+			long start = System.nanoTime();
 			try {
-				return super.execute(builder.build().toUri(), method, requestFactory, requestCallback,
-						responseExtractor);
+				HttpResponseEntity<T> response = super.execute(builder.build().toUri(), method, requestFactory,
+						requestCallback, responseExtractor);
+				loadbalancer.stat(server, State.SUCCESS, System.nanoTime() - start, TimeUnit.NANOSECONDS);
+				return response;
 			} catch (HttpClientException e) {
 				errorSets.add(server.getId());
-				loadbalancer.stat(server, State.FAILED);
+				loadbalancer.stat(server, State.FAILED, System.nanoTime() - start, TimeUnit.NANOSECONDS);
 				server = loadbalancer.choose(host, new ServerAccept<ServiceInstance>() {
 					
 					public boolean accept(Server<ServiceInstance> server) {
 						return !errorSets.contains(server.getId());
 					}
 				});
+			} catch (RuntimeException e) {
+				loadbalancer.stat(server, State.DISCARD);
+				throw e;
 			}
 		}
 		return super.execute(url, method, requestFactory, requestCallback,
@@ -1,7 +1,21 @@
 package scw.cloud.loadbalancer;
 
+import java.util.concurrent.TimeUnit;
+
 public interface LoadBalancer<T> {
 	Server<T> choose(ServerAccept<T> accept);
 
 	void stat(Server<T> server, State state);
+
+	/**
+	 * 统计请求的结果和耗时，每一次{@link #choose(ServerAccept)}之后都应该调用一次
+	 * 
+	 * @param server
+	 * @param state
+	 * @param latency  请求的耗时，小于0表示未知
+	 * @param timeUnit
+	 */
+	default void stat(Server<T> server, State state, long latency, TimeUnit timeUnit) {
+		stat(server, state);
+	}
 }
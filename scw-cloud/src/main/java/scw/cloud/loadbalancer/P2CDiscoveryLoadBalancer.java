@@ -0,0 +1,70 @@
+package scw.cloud.loadbalancer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import scw.boot.support.ApplicationUtils;
+import scw.cloud.DiscoveryClient;
+import scw.cloud.ServiceInstance;
+import scw.env.Environment;
+
+/**
+ * 二选一的方案，每个服务名使用一个{@link P2CLoadBalancer}
+ * 
+ * @author shuchaowen
+ *
+ */
+public class P2CDiscoveryLoadBalancer implements DiscoveryLoadBalancer {
+	private final DiscoveryClient discoveryClient;
+	private final String name;
+	private final ConcurrentHashMap<String, P2CLoadBalancer<ServiceInstance>> loadBalancerMap = new ConcurrentHashMap<String, P2CLoadBalancer<ServiceInstance>>();
+
+	public P2CDiscoveryLoadBalancer(DiscoveryClient discoveryClient, Environment environment) {
+		this(discoveryClient, ApplicationUtils.getApplicatoinName(environment));
+	}
+
+	public P2CDiscoveryLoadBalancer(DiscoveryClient discoveryClient, String name) {
+		this.discoveryClient = discoveryClient;
+		this.name = name;
+	}
+
+	/**
+	 * 可以重写此方法来修改参数
+	 * 
+	 * @param name
+	 * @return
+	 */
+	protected P2CLoadBalancer<ServiceInstance> createLoadBalancer(String name) {
+		return new P2CLoadBalancer<ServiceInstance>(new DiscoverySupplier(discoveryClient, name));
+	}
+
+	private P2CLoadBalancer<ServiceInstance> getLoadBalancer(String name) {
+		return loadBalancerMap.computeIfAbsent(name, (key) -> createLoadBalancer(key));
+	}
+
+	public Server<ServiceInstance> choose(ServerAccept<ServiceInstance> accept) {
+		return getLoadBalancer(name).choose(accept);
+	}
+
+	public Server<ServiceInstance> choose(String name, ServerAccept<ServiceInstance> accept) {
+		return getLoadBalancer(name).choose(accept);
+	}
+
+	public void stat(Server<ServiceInstance> server, State state) {
+		stat(server, state, -1, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void stat(Server<ServiceInstance> server, State state, long latency, TimeUnit timeUnit) {
+		// 只交给选出此服务的负载均衡，不同的服务名可能存在相同id的实例
+		ServiceInstance instance = server.getService();
+		if (instance == null || instance.getName() == null) {
+			return;
+		}
+
+		P2CLoadBalancer<ServiceInstance> loadBalancer = loadBalancerMap.get(instance.getName());
+		if (loadBalancer != null) {
+			loadBalancer.stat(server, state, latency, timeUnit);
+		}
+	}
+}
@@ -0,0 +1,280 @@
+package scw.cloud.loadbalancer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import scw.core.Assert;
+import scw.core.utils.CollectionUtils;
+import scw.logger.Logger;
+import scw.logger.LoggerFactory;
+
+/**
+ * 二选一(power of two choices)负载均衡<br/>
+ * 随机选出两个服务，选择负载较小的一个，负载=延迟的EWMA(peak-EWMA，出现更大的延迟时立即生效)*(进行中的请求数+1)/权重<br/>
+ * 没有新的统计数据时延迟会随时间衰减，所以因为一次慢请求而不再被选中的服务过一段时间后会重新被选中(探测)<br/>
+ * 连续失败达到阈值的服务会被暂时剔除，剔除时间按指数增长，恢复后成功一次才会重置，所有服务都被剔除时忽略剔除状态<br/>
+ * 需要在每次{@link #choose(ServerAccept)}后调用{@link #stat(Server, State, long, TimeUnit)}，否则进行中的请求数会不准确
+ * 
+ * @author shuchaowen
+ *
+ * @param <T>
+ */
+public class P2CLoadBalancer<T> implements LoadBalancer<T> {
+	private static Logger logger = LoggerFactory.getLogger(P2CLoadBalancer.class);
+	private final ServerSupplier<T> serverSupplier;
+	private final ConcurrentHashMap<String, ServerStats> statsMap = new ConcurrentHashMap<String, ServerStats>();
+	/**
+	 * EWMA的衰减时间(纳秒)，也是没有新数据时延迟衰减的时间常数
+	 */
+	private long decayTime = TimeUnit.SECONDS.toNanos(10);
+	/**
+	 * 没有统计数据时的默认延迟(纳秒)
+	 */
+	private long defaultLatency = TimeUnit.MILLISECONDS.toNanos(10);
+	private int failureThreshold = 5;
+	private long baseEjectionTime = TimeUnit.SECONDS.toNanos(10);
+	private long maxEjectionTime = TimeUnit.MINUTES.toNanos(5);
+
+	public P2CLoadBalancer(ServerSupplier<T> serverSupplier) {
+		Assert.requiredArgument(serverSupplier != null, "serverSupplier");
+		this.serverSupplier = serverSupplier;
+	}
+
+	public ServerSupplier<T> getServerSupplier() {
+		return serverSupplier;
+	}
+
+	public long getDecayTime(TimeUnit timeUnit) {
+		return timeUnit.convert(decayTime, TimeUnit.NANOSECONDS);
+	}
+
+	public void setDecayTime(long decayTime, TimeUnit timeUnit) {
+		Assert.requiredArgument(decayTime > 0, "decayTime");
+		this.decayTime = timeUnit.toNanos(decayTime);
+	}
+
+	public void setDefaultLatency(long defaultLatency, TimeUnit timeUnit) {
+		Assert.requiredArgument(defaultLatency >= 0, "defaultLatency");
+		this.defaultLatency = timeUnit.toNanos(defaultLatency);
+	}
+
+	public int getFailureThreshold() {
+		return failureThreshold;
+	}
+
+	/**
+	 * @param failureThreshold 连续失败多少次后剔除，小于等于0表示不剔除
+	 */
+	public void setFailureThreshold(int failureThreshold) {
+		this.failureThreshold = failureThreshold;
+	}
+
+	/**
+	 * 设置剔除的时间，第n次剔除的时间为baseEjectionTime * 2^(n-1)，最大为maxEjectionTime
+	 * 
+	 * @param baseEjectionTime
+	 * @param maxEjectionTime
+	 * @param timeUnit
+	 */
+	public void setEjectionTime(long baseEjectionTime, long maxEjectionTime, TimeUnit timeUnit) {
+		Assert.requiredArgument(baseEjectionTime > 0, "baseEjectionTime");
+		Assert.requiredArgument(maxEjectionTime >= baseEjectionTime, "maxEjectionTime");
+		this.baseEjectionTime = timeUnit.toNanos(baseEjectionTime);
+		this.maxEjectionTime = timeUnit.toNanos(maxEjectionTime);
+	}
+
+	private ServerStats getStats(Server<T> server) {
+		return statsMap.computeIfAbsent(server.getId(), (id) -> new ServerStats());
+	}
+
+	public Server<T> choose(ServerAccept<T> accept) {
+		List<Server<T>> servers = serverSupplier.getServers();
+		if (CollectionUtils.isEmpty(servers)) {
+			return null;
+		}
+
+		long now = System.nanoTime();
+		List<Server<T>> candidates = new ArrayList<Server<T>>(servers.size());
+		List<Server<T>> ejected = null;
+		for (Server<T> server : servers) {
+			if (server == null || server.getWeight() < 0) {
+				continue;
+			}
+
+			if (accept != null && !accept.accept(server)) {
+				continue;
+			}
+
+			if (getStats(server).isEjected(now)) {
+				if (ejected == null) {
+					ejected = new ArrayList<Server<T>>();
+				}
+				ejected.add(server);
+				continue;
+			}
+			candidates.add(server);
+		}
+		prune(servers);
+
+		if (candidates.isEmpty()) {
+			if (ejected == null) {
+				return null;
+			}
+			// 全部被剔除时不再剔除，避免没有服务可用
+			candidates = ejected;
+		}
+
+		Server<T> server;
+		if (candidates.size() == 1) {
+			server = candidates.get(0);
+		} else {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			int a = random.nextInt(candidates.size());
+			int b = random.nextInt(candidates.size() - 1);
+			if (b >= a) {
+				b++;
+			}
+
+			Server<T> first = candidates.get(a);
+			Server<T> second = candidates.get(b);
+			server = getLoad(first, now) <= getLoad(second, now) ? first : second;
+		}
+
+		getStats(server).inflight.incrementAndGet();
+		return server;
+	}
+
+	/**
+	 * 移除已经下线的服务的统计数据<br/>
+	 * 选择时会为列表中的服务创建统计数据，所以数量多于服务列表时说明存在已下线的服务
+	 */
+	private void prune(List<Server<T>> servers) {
+		if (statsMap.size() <= servers.size()) {
+			return;
+		}
+
+		Set<String> ids = new HashSet<String>(servers.size());
+		for (Server<T> server : servers) {
+			if (server != null) {
+				ids.add(server.getId());
+			}
+		}
+		statsMap.keySet().retainAll(ids);
+	}
+
+	private double getLoad(Server<T> server, long now) {
+		ServerStats stats = getStats(server);
+		int weight = server.getWeight();
+		return stats.getLatency(now) * (stats.inflight.get() + 1) / (weight <= 0 ? 1 : weight);
+	}
+
+	public void stat(Server<T> server, State state) {
+		stat(server, state, -1, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void stat(Server<T> server, State state, long latency, TimeUnit timeUnit) {
+		ServerStats stats = statsMap.get(server.getId());
+		if (stats == null) {
+			// 不是由此负载均衡选出的
+			return;
+		}
+
+		stats.release();
+		if (state == State.DISCARD) {
+			return;
+		}
+
+		long now = System.nanoTime();
+		if (latency >= 0) {
+			stats.observe(now, timeUnit.toNanos(latency));
+		}
+
+		if (state == State.SUCCESS) {
+			stats.success();
+		} else if (state == State.FAILED) {
+			long ejectionTime = stats.failure(now);
+			if (ejectionTime > 0) {
+				logger.warn("Eject server [{}] for {}ms", server.getId(),
+						TimeUnit.NANOSECONDS.toMillis(ejectionTime));
+			}
+		}
+	}
+
+	private final class ServerStats {
+		private final AtomicInteger inflight = new AtomicInteger();
+		private double latency = -1;
+		private long lastObserveTime;
+		private int consecutiveFailures;
+		private int ejectionCount;
+		private long ejectedUntil;
+
+		void release() {
+			// 不能小于0，防止调用了多次stat
+			while (true) {
+				int current = inflight.get();
+				if (current <= 0 || inflight.compareAndSet(current, current - 1)) {
+					return;
+				}
+			}
+		}
+
+		/**
+		 * 距离上次统计的时间越长延迟越小，防止服务因为一次慢请求而永远不会被选中
+		 */
+		synchronized double getLatency(long now) {
+			if (latency < 0) {
+				return defaultLatency;
+			}
+			return latency * Math.exp(-(double) Math.max(0, now - lastObserveTime) / decayTime);
+		}
+
+		synchronized void observe(long now, long rtt) {
+			if (latency < 0) {
+				latency = rtt;
+			} else if (rtt > latency) {
+				// peak-EWMA: 延迟变大时立即生效
+				latency = rtt;
+			} else {
+				double w = Math.exp(-(double) Math.max(0, now - lastObserveTime) / decayTime);
+				latency = latency * w + rtt * (1 - w);
+			}
+			lastObserveTime = now;
+		}
+
+		synchronized boolean isEjected(long now) {
+			return ejectedUntil != 0 && now - ejectedUntil < 0;
+		}
+
+		synchronized void success() {
+			consecutiveFailures = 0;
+			ejectionCount = 0;
+			ejectedUntil = 0;
+		}
+
+		/**
+		 * @return 剔除的时间，0表示没有剔除
+		 */
+		synchronized long failure(long now) {
+			consecutiveFailures++;
+			if (failureThreshold <= 0 || consecutiveFailures < failureThreshold || isEjected(now)) {
+				return 0;
+			}
+
+			consecutiveFailures = 0;
+			long time = baseEjectionTime << Math.min(ejectionCount, 20);
+			if (time <= 0 || time > maxEjectionTime) {
+				time = maxEjectionTime;
+			}
+			ejectionCount++;
+			ejectedUntil = now + time;
+			return time;
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package scw.cloud.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import scw.cloud.loadbalancer.P2CLoadBalancer;
+import scw.cloud.loadbalancer.Server;
+import scw.cloud.loadbalancer.State;
+
+public class P2CLoadBalancerTest {
+
+	private static List<Server<String>> servers(int size) {
+		List<Server<String>> servers = new ArrayList<Server<String>>();
+		for (int i = 0; i < size; i++) {
+			final String id = "server" + i;
+			servers.add(new Server<String>() {
+
+				public String getId() {
+					return id;
+				}
+
+				public int getWeight() {
+					return 1;
+				}
+
+				public String getService() {
+					return id;
+				}
+			});
+		}
+		return servers;
+	}
+
+	@Test
+	public void latency() {
+		List<Server<String>> servers = servers(3);
+		P2CLoadBalancer<String> loadBalancer = new P2CLoadBalancer<String>(() -> servers);
+		int slow = 0;
+		for (int i = 0; i < 3000; i++) {
+			Server<String> server = loadBalancer.choose(null);
+			boolean isSlow = server.getId().equals("server0");
+			if (isSlow) {
+				slow++;
+			}
+			loadBalancer.stat(server, State.SUCCESS, isSlow ? 100 : 1, TimeUnit.MILLISECONDS);
+		}
+		// 有了延迟数据后慢的服务的负载总是更高，只会在开始时被选中
+		assertTrue("slow=" + slow, slow < 100);
+	}
+
+	@Test
+	public void recovery() throws InterruptedException {
+		List<Server<String>> servers = servers(2);
+		P2CLoadBalancer<String> loadBalancer = new P2CLoadBalancer<String>(() -> servers);
+		loadBalancer.setDecayTime(20, TimeUnit.MILLISECONDS);
+		Server<String> slow = servers.get(0);
+		loadBalancer.choose((server) -> server == slow);
+		loadBalancer.stat(slow, State.SUCCESS, 100, TimeUnit.MILLISECONDS);
+
+		// 慢的服务没有新的数据，延迟衰减后会重新被选中
+		long deadline = System.currentTimeMillis() + 5000;
+		boolean recovered = false;
+		while (!recovered && System.currentTimeMillis() < deadline) {
+			Server<String> server = loadBalancer.choose(null);
+			recovered = server == slow;
+			loadBalancer.stat(server, State.SUCCESS, 1, TimeUnit.MILLISECONDS);
+			Thread.sleep(1);
+		}
+		assertTrue(recovered);
+	}
+
+	@Test
+	public void ejection() {
+		List<Server<String>> servers = servers(2);
+		P2CLoadBalancer<String> loadBalancer = new P2CLoadBalancer<String>(() -> servers);
+		loadBalancer.setFailureThreshold(2);
+		Server<String> failed = servers.get(0);
+		for (int i = 0; i < 2; i++) {
+			loadBalancer.choose((server) -> server == failed);
+			loadBalancer.stat(failed, State.FAILED, 1, TimeUnit.MILLISECONDS);
+		}
+
+		for (int i = 0; i < 100; i++) {
+			Server<String> server = loadBalancer.choose(null);
+			assertEquals("server1", server.getId());
+			loadBalancer.stat(server, State.SUCCESS, 1, TimeUnit.MILLISECONDS);
+		}
+
+		// 全部被剔除时依然可以选择
+		assertEquals(failed, loadBalancer.choose((server) -> server == failed));
+	}
+
+	@Test
+	public void prune() {
+		List<Server<String>> servers = servers(2);
+		List<Server<String>> current = new ArrayList<Server<String>>(servers);
+		P2CLoadBalancer<String> loadBalancer = new P2CLoadBalancer<String>(() -> current);
+		loadBalancer.setFailureThreshold(2);
+		Server<String> failed = servers.get(0);
+		for (int i = 0; i < 2; i++) {
+			loadBalancer.choose((server) -> server == failed);
+			loadBalancer.stat(failed, State.FAILED);
+		}
+
+		// 下线后统计数据被移除，重新上线时不再处于剔除状态
+		current.remove(failed);
+		loadBalancer.stat(loadBalancer.choose(null), State.DISCARD);
+		current.add(failed);
+		boolean chosen = false;
+		for (int i = 0; i < 100 && !chosen; i++) {
+			Server<String> server = loadBalancer.choose(null);
+			chosen = server == failed;
+			loadBalancer.stat(server, State.DISCARD);
+		}
+		assertTrue(chosen);
+	}
+}
@@ -13,6 +13,14 @@ public interface CompensatePolicy {
 	@Nullable
 	String getLastUnfinishedId(String group);
 
+	/**
+	 * 和{@link #getLastUnfinishedId(String)}一样，但只返回创建时间早于补偿时间的任务，刚创建的任务可能还在正常执行中
+	 * @param group
+	 * @return
+	 */
+	@Nullable
+	String getCompensableId(String group);
+
 	/**
 	 * 添加不一个存在的任务
 	 * @param group
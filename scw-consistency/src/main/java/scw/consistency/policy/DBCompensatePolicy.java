@@ -9,7 +9,6 @@ import scw.codec.support.Base64;
 import scw.context.annotation.Provider;
 import scw.core.Ordered;
 import scw.core.utils.CollectionUtils;
-import scw.core.utils.XTime;
 import scw.db.DB;
 import scw.db.locks.TableLockFactory;
 import scw.io.SerializerException;
@@ -39,7 +38,7 @@ public class DBCompensatePolicy extends StorageCompensatePolicy{
 	
 	@Override
 	public Enumeration<String> getUnfinishedGroups() {
-		Sql sql = new SimpleSql("select `group` from " + TABLE_NAME + " where cts<? group by `group` order by cts desc", (System.currentTimeMillis() - XTime.ONE_MINUTE * getCompenstBeforeMinute()));
+		Sql sql = new SimpleSql("select `group` from " + TABLE_NAME + " where cts<? group by `group` order by cts desc", getCompensateTime());
 		List<String> groups = db.query(String.class, sql).shared();
 		if(CollectionUtils.isEmpty(groups)){
 			return Collections.emptyEnumeration();
@@ -54,6 +53,12 @@ public class DBCompensatePolicy extends StorageCompensatePolicy{
 		return db.query(String.class, sql).first();
 	}
 
+	@Override
+	public String getCompensableId(String group) {
+		Sql sql = new SimpleSql("select `id` from " + TABLE_NAME + " where `group`=? and cts<? order by cts desc limit 0,1", group, getCompensateTime());
+		return db.query(String.class, sql).first();
+	}
+
 	@Override
 	public boolean add(String group, String id, Runnable runnable) {
 		if(!isDone(group, id)){
@@ -16,7 +16,6 @@ import scw.core.Assert;
 import scw.core.utils.ArrayUtils;
 import scw.core.utils.CollectionUtils;
 import scw.core.utils.StringUtils;
-import scw.core.utils.XTime;
 import scw.io.FileUtils;
 import scw.io.SerializerException;
 import scw.locks.FileLockFactory;
@@ -48,7 +47,7 @@ public class FileCompensatePolicy extends StorageCompensatePolicy {
 
 	@Override
 	public Enumeration<String> getUnfinishedGroups() {
-		long t = System.currentTimeMillis();
+		long t = getCompensateTime();
 		/**
 		 * 获取5分钟前的补偿文件列表
 		 */
@@ -56,7 +55,7 @@ public class FileCompensatePolicy extends StorageCompensatePolicy {
 
 			@Override
 			public boolean accept(File pathname) {
-				return pathname.isFile() && pathname.getName().endsWith(SUFFIX) && pathname.lastModified() < (t - XTime.ONE_MINUTE * getCompenstBeforeMinute());
+				return pathname.isFile() && pathname.getName().endsWith(SUFFIX) && pathname.lastModified() < t;
 			}
 		});
 
@@ -86,13 +85,27 @@ public class FileCompensatePolicy extends StorageCompensatePolicy {
 
 	@Override
 	public String getLastUnfinishedId(String group) {
+		return getLastUnfinishedId(group, Long.MAX_VALUE);
+	}
+
+	@Override
+	public String getCompensableId(String group) {
+		return getLastUnfinishedId(group, getCompensateTime());
+	}
+
+	/**
+	 * @param group
+	 * @param before 只查找修改时间早于此时间的文件
+	 * @return
+	 */
+	private String getLastUnfinishedId(String group, long before) {
 		String prefix = URLCodec.UTF_8.encode(group);
 		File[] files = directory.listFiles(new FileFilter() {
 
 			@Override
 			public boolean accept(File pathname) {
 				return pathname.isFile() && pathname.getName().endsWith(SUFFIX)
-						&& pathname.getName().startsWith(prefix + CONNECTOR);
+						&& pathname.getName().startsWith(prefix + CONNECTOR) && pathname.lastModified() < before;
 			}
 		});
 
@@ -0,0 +1,460 @@
+package scw.consistency.policy;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+
+import scw.context.Destroy;
+import scw.core.Assert;
+import scw.core.Constants;
+import scw.core.utils.CollectionUtils;
+import scw.io.SerializerException;
+import scw.locks.LockFactory;
+import scw.locks.ReentrantLockFactory;
+
+/**
+ * 使用追加写的日志文件保存补偿任务，内存中维护按时间排序的索引<br/>
+ * 添加和删除都只是在文件末尾追加一条记录，获取未完成的分组和任务不需要访问文件系统，启动时顺序读取一次日志文件重建索引<br/>
+ * 已删除的记录超过阈值并且多于存活的记录时会重写日志文件<br/>
+ * 日志文件只能被一个进程使用，所以使用的是进程内的锁
+ *
+ * @author shuchaowen
+ *
+ */
+public class JournalCompensatePolicy extends StorageCompensatePolicy implements Destroy {
+	private static final String JOURNAL_NAME = "compensate.journal";
+	private static final byte ADD = 1;
+	private static final byte REMOVE = 2;
+
+	private final File file;
+	private final LockFactory lockFactory = new ReentrantLockFactory();
+	private final Map<String, Record> records = new HashMap<String, Record>();
+	private final Map<String, TreeSet<Record>> groupIndex = new HashMap<String, TreeSet<Record>>();
+	/**
+	 * 每个分组中最早的记录
+	 */
+	private final TreeSet<Record> heads = new TreeSet<Record>();
+	private RandomAccessFile journal;
+	private long sequence;
+	/**
+	 * 日志文件中已经无效的记录数量
+	 */
+	private int garbage;
+	private boolean sync = true;
+	private int compactThreshold = 10000;
+
+	public JournalCompensatePolicy(File directory) throws IOException {
+		Assert.requiredArgument(directory != null && directory.isDirectory(), "directory");
+		logger.info("using: " + directory);
+		this.file = new File(directory, JOURNAL_NAME);
+		load();
+		this.journal = new RandomAccessFile(file, "rw");
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public boolean isSync() {
+		return sync;
+	}
+
+	/**
+	 * 添加任务后是否立即刷新到磁盘, 默认为true
+	 *
+	 * @param sync
+	 */
+	public void setSync(boolean sync) {
+		this.sync = sync;
+	}
+
+	public int getCompactThreshold() {
+		return compactThreshold;
+	}
+
+	public void setCompactThreshold(int compactThreshold) {
+		Assert.requiredArgument(compactThreshold > 0, "compactThreshold");
+		this.compactThreshold = compactThreshold;
+	}
+
+	/**
+	 * 未完成的任务数量
+	 *
+	 * @return
+	 */
+	public synchronized int size() {
+		return records.size();
+	}
+
+	private static String getKey(String group, String id) {
+		return group + CONNECTOR + id;
+	}
+
+	private void load() throws IOException {
+		if (!file.exists()) {
+			return;
+		}
+
+		long position = 0;
+		DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			while (true) {
+				byte type;
+				try {
+					type = input.readByte();
+				} catch (EOFException e) {
+					break;
+				}
+
+				try {
+					byte[] group = readBytes(input);
+					byte[] id = readBytes(input);
+					long length = 1 + 4 + group.length + id.length;
+					String groupName = new String(group, Constants.UTF_8);
+					String idName = new String(id, Constants.UTF_8);
+					if (type == ADD) {
+						long time = input.readLong();
+						int dataLength = input.readInt();
+						input.readFully(new byte[dataLength]);
+						length += 8 + 4;
+						Record record = new Record(groupName, idName, time, sequence++);
+						record.offset = position + length;
+						record.length = dataLength;
+						length += dataLength;
+						Record old = records.get(getKey(groupName, idName));
+						if (old != null) {
+							unindex(old);
+							garbage++;
+						}
+						index(record);
+					} else if (type == REMOVE) {
+						Record record = records.get(getKey(groupName, idName));
+						if (record != null) {
+							unindex(record);
+						}
+						garbage += 2;
+					} else {
+						throw new IOException("Unknown record type " + type + " at " + position);
+					}
+					position += length;
+				} catch (EOFException e) {
+					// 写入时进程退出，丢弃最后一条不完整的记录
+					logger.warn("Truncate incomplete record at {} in {}", position, file);
+					break;
+				}
+			}
+		} finally {
+			input.close();
+		}
+
+		if (position != file.length()) {
+			RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+			try {
+				randomAccessFile.setLength(position);
+			} finally {
+				randomAccessFile.close();
+			}
+		}
+		logger.info("Loaded {} unfinished compensates from {}", records.size(), file);
+	}
+
+	private static byte[] readBytes(DataInputStream input) throws IOException {
+		byte[] bytes = new byte[input.readUnsignedShort()];
+		input.readFully(bytes);
+		return bytes;
+	}
+
+	private static void writeBytes(DataOutputStream output, String value) throws IOException {
+		byte[] bytes = value.getBytes(Constants.UTF_8);
+		if (bytes.length > 0xFFFF) {
+			throw new IOException("Too long: " + value);
+		}
+		output.writeShort(bytes.length);
+		output.write(bytes);
+	}
+
+	private void index(Record record) {
+		records.put(getKey(record.group, record.id), record);
+		TreeSet<Record> set = groupIndex.get(record.group);
+		if (set == null) {
+			set = new TreeSet<Record>();
+			groupIndex.put(record.group, set);
+		}
+
+		if (!set.isEmpty()) {
+			heads.remove(set.first());
+		}
+		set.add(record);
+		heads.add(set.first());
+	}
+
+	private void unindex(Record record) {
+		records.remove(getKey(record.group, record.id));
+		TreeSet<Record> set = groupIndex.get(record.group);
+		heads.remove(set.first());
+		set.remove(record);
+		if (set.isEmpty()) {
+			groupIndex.remove(record.group);
+		} else {
+			heads.add(set.first());
+		}
+	}
+
+	/**
+	 * 写入一条添加的记录
+	 *
+	 * @return 数据在文件中的位置
+	 */
+	private long append(RandomAccessFile journal, Record record, byte[] data) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length + 64);
+		DataOutputStream output = new DataOutputStream(buffer);
+		output.writeByte(ADD);
+		writeBytes(output, record.group);
+		writeBytes(output, record.id);
+		output.writeLong(record.time);
+		output.writeInt(data.length);
+		long position = journal.length();
+		long offset = position + output.size();
+		output.write(data);
+		write(journal, position, buffer.toByteArray());
+		return offset;
+	}
+
+	/**
+	 * 写入失败时删除已经写入的部分，避免后面的记录无法读取
+	 */
+	private static void write(RandomAccessFile journal, long position, byte[] bytes) throws IOException {
+		journal.seek(position);
+		try {
+			journal.write(bytes);
+		} catch (IOException e) {
+			try {
+				journal.setLength(position);
+			} catch (IOException e1) {
+				e.addSuppressed(e1);
+			}
+			throw e;
+		}
+	}
+
+	@Override
+	public Lock getLock(String group, String id) {
+		checkParameter(group, id);
+		return lockFactory.getLock(getKey(group, id));
+	}
+
+	@Override
+	public synchronized Enumeration<String> getUnfinishedGroups() {
+		long time = getCompensateTime();
+		List<String> groups = new ArrayList<String>();
+		for (Record record : heads) {
+			if (record.time >= time) {
+				break;
+			}
+			groups.add(record.group);
+		}
+
+		if (groups.isEmpty()) {
+			return Collections.emptyEnumeration();
+		}
+		return CollectionUtils.toEnumeration(groups.iterator());
+	}
+
+	@Override
+	public synchronized String getLastUnfinishedId(String group) {
+		TreeSet<Record> set = groupIndex.get(group);
+		return set == null ? null : set.first().id;
+	}
+
+	/**
+	 * 分组内按创建时间排序，最早的任务还不能补偿时后面的也不能
+	 */
+	@Override
+	public synchronized String getCompensableId(String group) {
+		TreeSet<Record> set = groupIndex.get(group);
+		if (set == null) {
+			return null;
+		}
+
+		Record record = set.first();
+		return record.time < getCompensateTime() ? record.id : null;
+	}
+
+	@Override
+	public boolean add(String group, String id, Runnable runnable) {
+		checkParameter(group, id);
+		byte[] data;
+		try {
+			data = getSerializer().serialize(runnable);
+		} catch (SerializerException e) {
+			logger.error(e, "serializer fail");
+			return false;
+		}
+
+		synchronized (this) {
+			if (records.containsKey(getKey(group, id))) {
+				return false;
+			}
+
+			Record record = new Record(group, id, System.currentTimeMillis(), sequence++);
+			try {
+				record.offset = append(journal, record, data);
+				record.length = data.length;
+				if (sync) {
+					journal.getFD().sync();
+				}
+			} catch (IOException e) {
+				logger.error(e, "write fail");
+				return false;
+			}
+			index(record);
+			return true;
+		}
+	}
+
+	@Override
+	protected Runnable getRunnable(String group, String id) {
+		checkParameter(group, id);
+		byte[] data;
+		synchronized (this) {
+			Record record = records.get(getKey(group, id));
+			if (record == null) {
+				return null;
+			}
+
+			data = new byte[record.length];
+			try {
+				journal.seek(record.offset);
+				journal.readFully(data);
+			} catch (IOException e) {
+				logger.error(e, "read fail group [{}] id [{}]", group, id);
+				return null;
+			}
+		}
+
+		try {
+			return getSerializer().deserialize(data);
+		} catch (SerializerException | ClassNotFoundException e) {
+			logger.error(e, "deserialize fail group [{}] id [{}]", group, id);
+			return null;
+		}
+	}
+
+	@Override
+	public synchronized boolean exists(String group, String id) {
+		checkParameter(group, id);
+		return records.containsKey(getKey(group, id));
+	}
+
+	@Override
+	public synchronized boolean remove(String group, String id) {
+		checkParameter(group, id);
+		Record record = records.get(getKey(group, id));
+		if (record == null) {
+			return false;
+		}
+
+		try {
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+			DataOutputStream output = new DataOutputStream(buffer);
+			output.writeByte(REMOVE);
+			writeBytes(output, group);
+			writeBytes(output, id);
+			write(journal, journal.length(), buffer.toByteArray());
+		} catch (IOException e) {
+			logger.error(e, "write fail");
+			return false;
+		}
+
+		unindex(record);
+		garbage += 2;
+		if (garbage >= compactThreshold && garbage > records.size()) {
+			try {
+				compact();
+			} catch (IOException e) {
+				logger.error(e, "compact journal fail: {}", file);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 只保留未完成的任务重写日志文件
+	 */
+	private void compact() throws IOException {
+		File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+		List<Record> list = new ArrayList<Record>(records.values());
+		Collections.sort(list);
+		long[] offsets = new long[list.size()];
+		RandomAccessFile temp = new RandomAccessFile(tempFile, "rw");
+		try {
+			temp.setLength(0);
+			for (int i = 0; i < list.size(); i++) {
+				Record record = list.get(i);
+				byte[] data = new byte[record.length];
+				journal.seek(record.offset);
+				journal.readFully(data);
+				offsets[i] = append(temp, record, data);
+			}
+			temp.getFD().sync();
+		} finally {
+			temp.close();
+		}
+
+		journal.close();
+		try {
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			journal = new RandomAccessFile(file, "rw");
+		}
+
+		for (int i = 0; i < list.size(); i++) {
+			list.get(i).offset = offsets[i];
+		}
+		logger.info("Compacted journal {}, removed {} records, remaining {}", file, garbage, list.size());
+		garbage = 0;
+	}
+
+	public synchronized void destroy() throws IOException {
+		journal.close();
+	}
+
+	private static final class Record implements Comparable<Record> {
+		private final String group;
+		private final String id;
+		private final long time;
+		private final long sequence;
+		private long offset;
+		private int length;
+
+		Record(String group, String id, long time, long sequence) {
+			this.group = group;
+			this.id = id;
+			this.time = time;
+			this.sequence = sequence;
+		}
+
+		@Override
+		public int compareTo(Record o) {
+			int value = Long.compare(time, o.time);
+			return value == 0 ? Long.compare(sequence, o.sequence) : value;
+		}
+	}
+}
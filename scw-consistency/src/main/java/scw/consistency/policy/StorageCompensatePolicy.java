@@ -1,6 +1,7 @@
 package scw.consistency.policy;
 
 import scw.core.Assert;
+import scw.core.utils.XTime;
 import scw.io.JavaSerializer;
 import scw.io.Serializer;
 
@@ -23,6 +24,14 @@ public abstract class StorageCompensatePolicy extends AbstractCompensatePolicy{
 		this.compenstBeforeMinute = compenstBeforeMinute;
 	}
 
+	/**
+	 * 创建时间早于此时间(毫秒)的任务才会被补偿
+	 * @return
+	 */
+	protected long getCompensateTime() {
+		return System.currentTimeMillis() - XTime.ONE_MINUTE * getCompenstBeforeMinute();
+	}
+
 	public Serializer getSerializer() {
 		return serializer;
 	}
@@ -7,6 +7,12 @@ import scw.consistency.CompensatePolicy;
 import scw.logger.Logger;
 import scw.logger.LoggerFactory;
 
+/**
+ * 每次只执行分组中的一个任务
+ * 
+ * @see CompensateWorker
+ */
+@Deprecated
 public class CompensateThread extends Thread {
 	private static Logger logger = LoggerFactory
 			.getLogger(CompensateThread.class);
@@ -26,7 +32,7 @@ public class CompensateThread extends Thread {
 	@Override
 	public void run() {
 		super.run();
-		String id = compenstPolicy.getLastUnfinishedId(group);
+		String id = compenstPolicy.getCompensableId(group);
 		if (id == null) {
 			return;
 		}
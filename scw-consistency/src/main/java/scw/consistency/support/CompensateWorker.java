@@ -0,0 +1,198 @@
+package scw.consistency.support;
+
+import java.util.Enumeration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+import scw.consistency.CompensatePolicy;
+import scw.core.Assert;
+import scw.logger.Logger;
+import scw.logger.LoggerFactory;
+
+/**
+ * 补偿任务的执行者<br/>
+ * 不同的分组在有界的线程池中并行执行，同一个分组同一时间只会有一个线程按顺序执行，执行失败时停止执行该分组后面的任务，等待下一次重试
+ *
+ * @author shuchaowen
+ *
+ */
+public class CompensateWorker implements Runnable {
+	private static Logger logger = LoggerFactory.getLogger(CompensateWorker.class);
+	private static final AtomicInteger WORKER_COUNT = new AtomicInteger();
+
+	private final CompensatePolicy compensatePolicy;
+	private final long lockTimeout;
+	private final TimeUnit lockTimeUnit;
+	private final ThreadPoolExecutor executor;
+	private final Set<String> activeGroups = ConcurrentHashMap.newKeySet();
+
+	private final AtomicLong compensatedCount = new AtomicLong();
+	private final AtomicLong failedCount = new AtomicLong();
+	private volatile int backlog;
+	private volatile long lastScanTime;
+
+	/**
+	 * @param compensatePolicy
+	 * @param parallelism      同时执行的分组数量
+	 * @param lockTimeout      获取任务锁的最长等待时间
+	 * @param lockTimeUnit
+	 */
+	public CompensateWorker(CompensatePolicy compensatePolicy, int parallelism, long lockTimeout,
+			TimeUnit lockTimeUnit) {
+		Assert.requiredArgument(compensatePolicy != null, "compensatePolicy");
+		Assert.requiredArgument(parallelism > 0, "parallelism");
+		this.compensatePolicy = compensatePolicy;
+		this.lockTimeout = lockTimeout;
+		this.lockTimeUnit = lockTimeUnit;
+		String name = getClass().getSimpleName() + "-" + WORKER_COUNT.incrementAndGet();
+		AtomicInteger threadCount = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), (runnable) -> {
+					// 守护进程自动退出
+					Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	public CompensatePolicy getCompensatePolicy() {
+		return compensatePolicy;
+	}
+
+	/**
+	 * 扫描未完成的分组并提交执行, 正在执行中的分组会被跳过
+	 */
+	@Override
+	public void run() {
+		int count = 0;
+		Enumeration<String> groups = compensatePolicy.getUnfinishedGroups();
+		while (groups.hasMoreElements()) {
+			String group = groups.nextElement();
+			if (group == null) {
+				continue;
+			}
+
+			count++;
+			if (activeGroups.add(group)) {
+				try {
+					executor.execute(() -> {
+						try {
+							compensate(group);
+						} finally {
+							activeGroups.remove(group);
+						}
+					});
+				} catch (RuntimeException e) {
+					activeGroups.remove(group);
+					throw e;
+				}
+			}
+		}
+
+		this.backlog = count;
+		this.lastScanTime = System.currentTimeMillis();
+		if (count > 0) {
+			logger.info("Compensate backlog groups={}, active={}, queued={}, compensated={}, failed={}", count,
+					activeGroups.size(), executor.getQueue().size(), compensatedCount.get(), failedCount.get());
+		}
+	}
+
+	/**
+	 * 按顺序执行一个分组中的所有任务，遇到刚创建的任务时停止
+	 *
+	 * @param group
+	 */
+	protected void compensate(String group) {
+		String previous = null;
+		while (!executor.isShutdown()) {
+			String id = compensatePolicy.getCompensableId(group);
+			// 与上一个相同说明没有完成
+			if (id == null || id.equals(previous) || !compensate(group, id)) {
+				return;
+			}
+			previous = id;
+		}
+	}
+
+	/**
+	 * @return 是否已完成
+	 */
+	private boolean compensate(String group, String id) {
+		Lock lock = compensatePolicy.getLock(group, id);
+		try {
+			if (!lock.tryLock(lockTimeout, lockTimeUnit)) {
+				return false;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+
+		Runnable runnable = null;
+		try {
+			// 可能已经在等待锁的期间执行完成了
+			if (compensatePolicy.isDone(group, id)) {
+				return true;
+			}
+
+			runnable = compensatePolicy.get(group, id);
+			if (runnable == null) {
+				logger.error("Compenst fail group [{}] id [{}], runner not found", group, id);
+				failedCount.incrementAndGet();
+				return false;
+			}
+
+			runnable.run();
+			compensatePolicy.done(group, id);
+			compensatedCount.incrementAndGet();
+			return true;
+		} catch (Throwable e) {
+			failedCount.incrementAndGet();
+			logger.error(e, "Compenst fail group [{}] id [{}] runner [{}]", group, id, runnable);
+			return false;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 上一次扫描时未完成的分组数量
+	 *
+	 * @return
+	 */
+	public int getBacklog() {
+		return backlog;
+	}
+
+	public long getLastScanTime() {
+		return lastScanTime;
+	}
+
+	/**
+	 * 正在执行或等待执行的分组数量
+	 *
+	 * @return
+	 */
+	public int getActiveGroupCount() {
+		return activeGroups.size();
+	}
+
+	public long getCompensatedCount() {
+		return compensatedCount.get();
+	}
+
+	public long getFailedCount() {
+		return failedCount.get();
+	}
+
+	public void shutdown() {
+		executor.shutdown();
+	}
+}
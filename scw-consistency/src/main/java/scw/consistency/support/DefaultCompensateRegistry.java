@@ -1,10 +1,7 @@
 package scw.consistency.support;
 
-import java.util.Enumeration;
 import java.util.Timer;
 import java.util.TimerTask;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import scw.consistency.CompensateException;
@@ -26,19 +23,10 @@ public class DefaultCompensateRegistry implements CompensateRegistry {
 			.getLogger(DefaultCompensateRegistry.class);
 	//守护进程自动退出
 	private static Timer timer = new Timer(DefaultCompensateRegistry.class.getName(), true);
-	private static ExecutorService executorService = Executors.newWorkStealingPool();
-	
-	static{
-		Runtime.getRuntime().addShutdownHook(new Thread(){
-			@Override
-			public void run() {
-				executorService.shutdownNow();
-			}
-		});
-	}
 	
 	private final CompensatePolicy compenstPolicy;
 	private final long period;
+	private final CompensateWorker worker;
 	private RetryOperations retryOperations = new RetryTemplate();
 	
 	public DefaultCompensateRegistry(CompensatePolicy compenstPolicy) {
@@ -50,11 +38,25 @@ public class DefaultCompensateRegistry implements CompensateRegistry {
 	 * @param period 重试间隔时间(分钟)
 	 */
 	public DefaultCompensateRegistry(CompensatePolicy compenstPolicy, int period) {
+		this(compenstPolicy, period, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param compenstPolicy
+	 * @param period 重试间隔时间(分钟)
+	 * @param parallelism 同时补偿的分组数量
+	 */
+	public DefaultCompensateRegistry(CompensatePolicy compenstPolicy, int period, int parallelism) {
 		this.compenstPolicy = compenstPolicy;
 		this.period = TimeUnit.MINUTES.toMillis(period);
+		this.worker = new CompensateWorker(compenstPolicy, parallelism, this.period, TimeUnit.MILLISECONDS);
 		timer.schedule(new CompenstTimerTask(), this.period, this.period);
 	}
 	
+	public CompensateWorker getWorker() {
+		return worker;
+	}
+
 	public RetryOperations getRetryOperations() {
 		return retryOperations;
 	}
@@ -108,16 +110,10 @@ public class DefaultCompensateRegistry implements CompensateRegistry {
 		
 		@Override
 		public void run() {
-			Enumeration<String> groups = compenstPolicy.getUnfinishedGroups();
-			while(groups.hasMoreElements()){
-				String group = groups.nextElement();
-				if(group == null){
-					continue;
-				}
-				
-				logger.debug("create compenst [{}] thread", group);
-				CompensateThread compenstThread = new CompensateThread(compenstPolicy, group, period, TimeUnit.MILLISECONDS);
-				executorService.submit(compenstThread);
+			try {
+				worker.run();
+			} catch (Throwable e) {
+				logger.error(e, "Compenst scan error");
 			}
 		}
 	}
@@ -0,0 +1,203 @@
+package scw.consistency.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import scw.consistency.policy.JournalCompensatePolicy;
+import scw.consistency.support.CompensateWorker;
+
+public class JournalCompensatePolicyTest {
+	private static final Map<String, List<String>> EXECUTED = new ConcurrentHashMap<String, List<String>>();
+
+	@Test
+	public void journal() throws Throwable {
+		File directory = Files.createTempDirectory("compensate").toFile();
+		JournalCompensatePolicy policy = new JournalCompensatePolicy(directory);
+		try {
+			assertTrue(policy.add("order", "1", new Task("order", "1")));
+			assertFalse(policy.add("order", "1", new Task("order", "1")));
+			assertTrue(policy.add("order", "2", new Task("order", "2")));
+			assertTrue(policy.add("pay", "1", new Task("pay", "1")));
+			assertEquals("1", policy.getLastUnfinishedId("order"));
+			assertTrue(policy.done("order", "1"));
+			assertFalse(policy.done("order", "1"));
+			assertEquals("2", policy.getLastUnfinishedId("order"));
+		} finally {
+			policy.destroy();
+		}
+
+		// 模拟写入时进程退出
+		RandomAccessFile file = new RandomAccessFile(policy.getFile(), "rw");
+		try {
+			file.seek(file.length());
+			file.write(new byte[] { 1, 0, 5, 'o' });
+		} finally {
+			file.close();
+		}
+
+		policy = new JournalCompensatePolicy(directory);
+		try {
+			assertEquals(2, policy.size());
+			assertEquals("2", policy.getLastUnfinishedId("order"));
+			assertEquals("1", policy.getLastUnfinishedId("pay"));
+			assertTrue(policy.get("order", "2") instanceof Task);
+			assertTrue(policy.isDone("order", "1"));
+			assertTrue(policy.add("order", "3", new Task("order", "3")));
+		} finally {
+			policy.destroy();
+		}
+
+		policy = new JournalCompensatePolicy(directory);
+		try {
+			assertEquals(3, policy.size());
+			policy.setCompactThreshold(2);
+			long length = policy.getFile().length();
+			policy.done("pay", "1");
+			policy.done("order", "2");
+			assertTrue(policy.getFile().length() < length);
+			assertEquals("3", policy.getLastUnfinishedId("order"));
+			assertNull(policy.getLastUnfinishedId("pay"));
+			assertEquals("order", ((Task) policy.get("order", "3")).group);
+		} finally {
+			policy.destroy();
+		}
+	}
+
+	/**
+	 * 分组之间并行，分组内按添加的顺序执行
+	 */
+	@Test
+	public void worker() throws Throwable {
+		File directory = Files.createTempDirectory("compensate").toFile();
+		JournalCompensatePolicy policy = new ImmediatePolicy(directory);
+		policy.setSync(false);
+		int groups = 8;
+		int ids = 200;
+		for (int i = 0; i < ids; i++) {
+			for (int g = 0; g < groups; g++) {
+				policy.add("worker" + g, String.valueOf(i), new Task("worker" + g, String.valueOf(i)));
+			}
+		}
+
+		TimeUnit.MILLISECONDS.sleep(10);
+		CompensateWorker worker = new CompensateWorker(policy, 4, 1, TimeUnit.SECONDS);
+		try {
+			worker.run();
+			assertEquals(groups, worker.getBacklog());
+			long deadline = System.currentTimeMillis() + 10000;
+			while (policy.size() > 0 && System.currentTimeMillis() < deadline) {
+				TimeUnit.MILLISECONDS.sleep(10);
+			}
+			assertEquals(0, policy.size());
+			assertEquals(groups * ids, worker.getCompensatedCount());
+			for (int g = 0; g < groups; g++) {
+				List<String> executed = EXECUTED.get("worker" + g);
+				List<String> expected = new ArrayList<String>(executed);
+				Collections.sort(expected, (a, b) -> Integer.compare(Integer.parseInt(a), Integer.parseInt(b)));
+				assertEquals(ids, executed.size());
+				assertEquals(expected, executed);
+			}
+		} finally {
+			worker.shutdown();
+			policy.destroy();
+		}
+	}
+
+	/**
+	 * 刚创建的任务不会被补偿
+	 */
+	@Test
+	public void fresh() throws Throwable {
+		File directory = Files.createTempDirectory("compensate").toFile();
+		FixedTimePolicy policy = new FixedTimePolicy(directory);
+		CompensateWorker worker = new CompensateWorker(policy, 1, 1, TimeUnit.SECONDS);
+		try {
+			policy.add("fresh", "1", new Task("fresh", "1"));
+			TimeUnit.MILLISECONDS.sleep(10);
+			policy.compensateTime = System.currentTimeMillis();
+			TimeUnit.MILLISECONDS.sleep(10);
+			policy.add("fresh", "2", new Task("fresh", "2"));
+			assertEquals("1", policy.getCompensableId("fresh"));
+
+			worker.run();
+			long deadline = System.currentTimeMillis() + 10000;
+			while (worker.getActiveGroupCount() > 0 && System.currentTimeMillis() < deadline) {
+				TimeUnit.MILLISECONDS.sleep(10);
+			}
+			assertEquals(1, worker.getCompensatedCount());
+			assertTrue(policy.isDone("fresh", "1"));
+			assertFalse(policy.isDone("fresh", "2"));
+			assertNull(policy.getCompensableId("fresh"));
+			assertEquals("2", policy.getLastUnfinishedId("fresh"));
+		} finally {
+			worker.shutdown();
+			policy.destroy();
+		}
+	}
+
+	private static final class FixedTimePolicy extends JournalCompensatePolicy {
+		private volatile long compensateTime;
+
+		FixedTimePolicy(File directory) throws IOException {
+			super(directory);
+		}
+
+		@Override
+		protected long getCompensateTime() {
+			return compensateTime;
+		}
+	}
+
+	/**
+	 * 添加后立即可以补偿
+	 */
+	private static final class ImmediatePolicy extends JournalCompensatePolicy {
+
+		ImmediatePolicy(File directory) throws IOException {
+			super(directory);
+		}
+
+		@Override
+		public int getCompenstBeforeMinute() {
+			return 0;
+		}
+	}
+
+	private static final class Task implements Runnable, Serializable {
+		private static final long serialVersionUID = 1L;
+		private final String group;
+		private final String id;
+
+		Task(String group, String id) {
+			this.group = group;
+			this.id = id;
+		}
+
+		@Override
+		public void run() {
+			EXECUTED.computeIfAbsent(group, (key) -> new CopyOnWriteArrayList<String>()).add(id);
+		}
+
+		@Override
+		public String toString() {
+			return group + ":" + id;
+		}
+	}
+}
@@ -51,7 +51,9 @@ public class ClassScannerClassesLoader extends
 		}
 
 		long t = System.currentTimeMillis();
-		Set<Class<?>> classes = classScanner.getClasses(packageName, classLoader, this);
+		// ClassResolver#match已经由scanner处理，没有自定义的TypeFilter且未被继承时传入空，使用索引时不需要解析class文件
+		TypeFilter filter = (typeFilter == null && getClass() == ClassScannerClassesLoader.class) ? null : this;
+		Set<Class<?>> classes = classScanner.getClasses(packageName, classLoader, filter);
 		if(logger.isDebugEnabled()){
 			logger.debug("scanner package " + packageName + " use time " + (System.currentTimeMillis() - t) + "ms");
 		}
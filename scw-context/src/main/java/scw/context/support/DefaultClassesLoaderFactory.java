@@ -31,7 +31,7 @@ public class DefaultClassesLoaderFactory implements ClassesLoaderFactory, TypeFi
 
 	private ClassesLoader getClassesLoaderInternal(final String packageName) {
 		if (cacheMap == null) {
-			return new ClassScannerClassesLoader(classScanner, this, packageName, this);
+			return new ClassScannerClassesLoader(classScanner, this, packageName, null);
 		} else {
 			ClassesLoader classesLoader = cacheMap.get(packageName);
 			if (classesLoader != null) {
@@ -54,7 +54,7 @@ public class DefaultClassesLoaderFactory implements ClassesLoaderFactory, TypeFi
 				}
 			}
 
-			classesLoader = new ClassScannerClassesLoader(classScanner, this, packageName, this);
+			classesLoader = new ClassScannerClassesLoader(classScanner, this, packageName, null);
 			ClassesLoader cache = cacheMap.putIfAbsent(packageName, classesLoader);
 			if (cache != null) {
 				classesLoader = cache;
@@ -2,6 +2,12 @@ package scw.aop;
 
 import scw.core.reflect.MethodInvoker;
 
+/**
+ * 判断拦截器是否拦截此方法<br/>
+ * 结果会按(声明类, 方法)缓存，所以只应该根据{@link MethodInvoker#getDeclaringClass()}和{@link MethodInvoker#getMethod()}判断, 参数只有长度是可靠的
+ * 
+ * @see scw.aop.support.MethodInterceptorChain
+ */
 public interface MethodInterceptorAccept {
 	boolean isAccept(MethodInvoker invoker, Object[] args);
 }
@@ -5,6 +5,9 @@ import java.lang.reflect.Method;
 
 import net.sf.cglib.proxy.MethodProxy;
 import scw.aop.MethodInterceptor;
+import scw.aop.support.AbstractMethodInterceptors;
+import scw.aop.support.MethodInterceptorChain;
+import scw.lang.NestedExceptionUtils;
 
 public class CglibMethodInterceptor implements net.sf.cglib.proxy.MethodInterceptor, Serializable {
 	private static final long serialVersionUID = 1L;
@@ -17,6 +20,21 @@ public class CglibMethodInterceptor implements net.sf.cglib.proxy.MethodIntercep
 	}
 
 	public Object intercept(Object obj, Method method, Object[] args, MethodProxy methodProxy) throws Throwable {
+		if (methodInterceptor instanceof AbstractMethodInterceptors
+				&& ((AbstractMethodInterceptors) methodInterceptor).getInstance() == null) {
+			MethodInterceptorChain chain = ((AbstractMethodInterceptors) methodInterceptor)
+					.getMethodInterceptorChain(targetClass, method);
+			// 没有拦截器时直接调用，不用创建invoker
+			if (chain.isEmpty()) {
+				try {
+					return methodProxy.invokeSuper(obj, args);
+				} catch (Throwable e) {
+					throw NestedExceptionUtils.excludeInvalidNestedExcpetion(e);
+				}
+			}
+			return chain.invoke(new CglibProxyInvoker(obj, targetClass, method, methodProxy), args);
+		}
+
 		CglibProxyInvoker invoker = new CglibProxyInvoker(obj, targetClass, method, methodProxy);
 		if (methodInterceptor == null) {
 			return invoker.invoke(args);
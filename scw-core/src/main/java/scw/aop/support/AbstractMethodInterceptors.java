@@ -1,13 +1,27 @@
 package scw.aop.support;
 
 import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import scw.aop.MethodInterceptor;
+import scw.aop.ProxyInstanceTarget;
+import scw.core.reflect.DefaultMethodInvoker;
 import scw.core.reflect.MethodInvoker;
+import scw.core.utils.ArrayUtils;
+import scw.core.utils.ObjectUtils;
+import scw.util.ConcurrentReferenceHashMap;
 
 public abstract class AbstractMethodInterceptors implements Iterable<MethodInterceptor>, Serializable, MethodInterceptor {
 	private static final long serialVersionUID = 1L;
+	/**
+	 * 拦截器之间可以互相嵌套，任意一个发生变化时所有已解析的拦截器链都失效
+	 */
+	private static final AtomicInteger VERSION = new AtomicInteger();
 	private Object instance;
+	private transient volatile Map<ChainKey, MethodInterceptorChain> chainCache;
+	private transient volatile int chainVersion;
 
 	public Object getInstance() {
 		return instance;
@@ -17,14 +31,82 @@ public abstract class AbstractMethodInterceptors implements Iterable<MethodInter
 		this.instance = instance;
 	}
 
+	/**
+	 * 拦截器发生变化时调用
+	 */
+	protected static void modified() {
+		VERSION.incrementAndGet();
+	}
+
+	/**
+	 * 获取此方法的拦截器链, 按(声明类, 方法)缓存
+	 * 
+	 * @param declaringClass
+	 * @param method
+	 * @return
+	 */
+	public MethodInterceptorChain getMethodInterceptorChain(Class<?> declaringClass, Method method) {
+		int version = VERSION.get();
+		Map<ChainKey, MethodInterceptorChain> cache = this.chainCache;
+		if (cache == null || chainVersion != version) {
+			synchronized (this) {
+				cache = this.chainCache;
+				if (cache == null || chainVersion != version) {
+					cache = new ConcurrentReferenceHashMap<ChainKey, MethodInterceptorChain>();
+					this.chainCache = cache;
+					this.chainVersion = version;
+				}
+			}
+		}
+
+		ChainKey key = new ChainKey(declaringClass, method);
+		MethodInterceptorChain chain = cache.get(key);
+		if (chain == null) {
+			chain = MethodInterceptorChain.build(iterator(), new DefaultMethodInvoker(null, declaringClass, method));
+			cache.put(key, chain);
+		}
+		return chain;
+	}
+
 	public Object intercept(MethodInvoker invoker, Object[] args) throws Throwable {
-		MethodInvoker wrapper;
-		if(instance == null){
-			wrapper = new MethodInterceptorsInvoker(invoker, iterator());
-		}else{
-			wrapper = new InstanceMethodInterceptorsInvoker(invoker, iterator(), instance);
+		MethodInvoker invokerToUse = invoker;
+		if (instance != null) {
+			if (ArrayUtils.isEmpty(args)
+					&& invoker.getMethod().getName().equals(ProxyInstanceTarget.PROXY_TARGET_METHOD_NAME)) {
+				return instance;
+			}
+			invokerToUse = new DefaultMethodInvoker(instance, invoker.getDeclaringClass(), invoker.getMethod(), true);
 		}
-		return wrapper.invoke(args);
+		return getMethodInterceptorChain(invokerToUse.getDeclaringClass(), invokerToUse.getMethod()).invoke(invokerToUse,
+				args);
 	}
-}
 
+	private static final class ChainKey {
+		private final Class<?> declaringClass;
+		private final Method method;
+
+		ChainKey(Class<?> declaringClass, Method method) {
+			this.declaringClass = declaringClass;
+			this.method = method;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+
+			if (!(obj instanceof ChainKey)) {
+				return false;
+			}
+
+			ChainKey other = (ChainKey) obj;
+			return declaringClass == other.declaringClass && ObjectUtils.nullSafeEquals(method, other.method);
+		}
+
+		@Override
+		public int hashCode() {
+			return ObjectUtils.nullSafeHashCode(method) * 31 + ObjectUtils.nullSafeHashCode(declaringClass);
+		}
+	}
+}
@@ -21,6 +21,7 @@ public class ConfigurableMethodInterceptor extends AbstractMethodInterceptors im
 	@Override
 	public void configure(ServiceLoaderFactory serviceLoaderFactory) {
 		serviceList.configure(serviceLoaderFactory);
+		modified();
 	}
 
 	public Iterator<MethodInterceptor> iterator() {
@@ -70,10 +71,12 @@ public class ConfigurableMethodInterceptor extends AbstractMethodInterceptors im
 	public void addMethodInterceptor(MethodInterceptor methodInterceptor){
 		init();
 		this.interceptors.add(methodInterceptor);
+		modified();
 	}
 	
 	public void addFirstMethodInterceptor(MethodInterceptor methodInterceptor){
 		init();
 		this.interceptors.add(0, methodInterceptor);
+		modified();
 	}
 }
@@ -8,6 +8,12 @@ import scw.core.reflect.DefaultMethodInvoker;
 import scw.core.reflect.MethodInvoker;
 import scw.core.utils.ArrayUtils;
 
+/**
+ * 每一次拦截都会创建新的对象并重新判断{@link scw.aop.MethodInterceptorAccept}
+ * 
+ * @see MethodInterceptorChain
+ */
+@Deprecated
 public class InstanceMethodInterceptorsInvoker extends MethodInterceptorsInvoker {
 	private static final long serialVersionUID = 1L;
 	private final Object instance;
@@ -0,0 +1,143 @@
+package scw.aop.support;
+
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import scw.aop.MethodInterceptor;
+import scw.aop.MethodInterceptorAccept;
+import scw.core.reflect.MethodInvoker;
+
+/**
+ * 一个方法的拦截器链，创建时就已经过滤了不接受此方法的拦截器<br/>
+ * 每次调用只会创建一个游标对象，按下标依次执行拦截器
+ *
+ * @author shuchaowen
+ *
+ */
+public final class MethodInterceptorChain implements Serializable {
+	private static final long serialVersionUID = 1L;
+	private static final MethodInterceptor[] EMPTY_INTERCEPTORS = new MethodInterceptor[0];
+	public static final MethodInterceptorChain EMPTY = new MethodInterceptorChain(EMPTY_INTERCEPTORS);
+
+	private final MethodInterceptor[] interceptors;
+
+	private MethodInterceptorChain(MethodInterceptor[] interceptors) {
+		this.interceptors = interceptors;
+	}
+
+	public int size() {
+		return interceptors.length;
+	}
+
+	public boolean isEmpty() {
+		return interceptors.length == 0;
+	}
+
+	/**
+	 * 解析出可以拦截此方法的拦截器
+	 *
+	 * @param iterator
+	 * @param invoker  用来判断{@link MethodInterceptorAccept}
+	 * @return
+	 */
+	public static MethodInterceptorChain build(Iterator<MethodInterceptor> iterator, MethodInvoker invoker) {
+		if (iterator == null || !iterator.hasNext()) {
+			return EMPTY;
+		}
+
+		Object[] args = new Object[invoker.getMethod().getParameterCount()];
+		MethodInterceptor[] interceptors = new MethodInterceptor[8];
+		int size = 0;
+		while (iterator.hasNext()) {
+			MethodInterceptor interceptor = iterator.next();
+			if (interceptor == null) {
+				continue;
+			}
+
+			if (interceptor instanceof MethodInterceptorAccept
+					&& !((MethodInterceptorAccept) interceptor).isAccept(invoker, args)) {
+				continue;
+			}
+
+			if (size == interceptors.length) {
+				interceptors = Arrays.copyOf(interceptors, size * 2);
+			}
+			interceptors[size++] = interceptor;
+		}
+		return size == 0 ? EMPTY : new MethodInterceptorChain(Arrays.copyOf(interceptors, size));
+	}
+
+	public Object invoke(MethodInvoker invoker, Object[] args) throws Throwable {
+		if (interceptors.length == 0) {
+			return invoker.invoke(args);
+		}
+		return new ChainMethodInvoker(invoker, interceptors).invoke(args);
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(interceptors);
+	}
+
+	/**
+	 * 一次调用的游标，传递给每个拦截器的都是同一个对象<br/>
+	 * 调用返回后会恢复下标，所以拦截器可以多次调用(如重试)，但不能并发调用
+	 *
+	 * @author shuchaowen
+	 *
+	 */
+	private static final class ChainMethodInvoker implements MethodInvoker, Serializable {
+		private static final long serialVersionUID = 1L;
+		private final MethodInvoker source;
+		private final MethodInterceptor[] interceptors;
+		private int index;
+
+		ChainMethodInvoker(MethodInvoker source, MethodInterceptor[] interceptors) {
+			this.source = source;
+			this.interceptors = interceptors;
+		}
+
+		public Object invoke(Object... args) throws Throwable {
+			int current = index;
+			if (current >= interceptors.length) {
+				return source.invoke(args);
+			}
+
+			index = current + 1;
+			try {
+				return interceptors[current].intercept(this, args);
+			} finally {
+				index = current;
+			}
+		}
+
+		public Object getInstance() {
+			return source.getInstance();
+		}
+
+		public Class<?> getDeclaringClass() {
+			return source.getDeclaringClass();
+		}
+
+		public Method getMethod() {
+			return source.getMethod();
+		}
+
+		@Override
+		public String toString() {
+			return source.toString();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return source.equals(obj);
+		}
+
+		@Override
+		public int hashCode() {
+			return source.hashCode();
+		}
+	}
+}
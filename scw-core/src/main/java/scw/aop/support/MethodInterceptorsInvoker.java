@@ -7,6 +7,12 @@ import scw.aop.MethodInterceptorAccept;
 import scw.core.reflect.MethodInvoker;
 import scw.core.reflect.MethodInvokerWrapper;
 
+/**
+ * 每一次拦截都会创建新的对象并重新判断{@link scw.aop.MethodInterceptorAccept}
+ * 
+ * @see MethodInterceptorChain
+ */
+@Deprecated
 public class MethodInterceptorsInvoker extends MethodInvokerWrapper implements MethodInterceptor{
 	private static final long serialVersionUID = 1L;
 	private final Iterator<MethodInterceptor> iterator;
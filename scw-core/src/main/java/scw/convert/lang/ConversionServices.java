@@ -1,6 +1,7 @@
 package scw.convert.lang;
 
 import java.util.Iterator;
+import java.util.Map;
 import java.util.TreeSet;
 
 import scw.convert.ConfigurableConversionService;
@@ -8,20 +9,29 @@ import scw.convert.ConversionService;
 import scw.convert.ConversionServiceAware;
 import scw.convert.ConverterNotFoundException;
 import scw.convert.TypeDescriptor;
+import scw.core.utils.ObjectUtils;
 import scw.instance.Configurable;
 import scw.instance.ConfigurableServices;
 import scw.instance.ServiceLoaderFactory;
 import scw.lang.LinkedThreadLocal;
+import scw.lang.Nullable;
+import scw.util.ConcurrentReferenceHashMap;
 
 public class ConversionServices extends ConvertibleConditionalComparator<Object>
 		implements ConfigurableConversionService, Comparable<Object>, ConversionServiceAware,
 		Iterable<ConversionService>, Configurable {
 	private static final LinkedThreadLocal<ConversionService> NESTED = new LinkedThreadLocal<ConversionService>(
 			ConversionServices.class.getName());
+	private static final Object NO_MATCH = new Object();
 	private ConfigurableServices<ConversionService> conversionServices = new ConfigurableServices<>(
 			ConversionService.class, (s) -> aware(s), () -> new TreeSet<>(this));
 	private ConversionService awareConversionService = this;
 	private ConversionService parentConversionService;
+	/**
+	 * 缓存(sourceType, targetType)对应的转换服务，不存在时缓存为{@link #NO_MATCH}
+	 */
+	private final Map<ConverterCacheKey, Object> cache = new ConcurrentReferenceHashMap<ConverterCacheKey, Object>();
+	private volatile int version;
 
 	public ConversionServices() {
 	}
@@ -43,11 +53,21 @@ public class ConversionServices extends ConvertibleConditionalComparator<Object>
 
 	public void addConversionService(ConversionService conversionService) {
 		conversionServices.addService(conversionService);
+		clearCache();
 	}
 
 	@Override
 	public void configure(ServiceLoaderFactory serviceLoaderFactory) {
 		conversionServices.configure(serviceLoaderFactory);
+		clearCache();
+	}
+
+	/**
+	 * 清空转换服务的查找缓存, 服务发生变化时调用
+	 */
+	public synchronized void clearCache() {
+		version++;
+		cache.clear();
 	}
 
 	@Override
@@ -55,22 +75,74 @@ public class ConversionServices extends ConvertibleConditionalComparator<Object>
 		return conversionServices.iterator();
 	}
 
-	public final boolean canConvert(TypeDescriptor sourceType, TypeDescriptor targetType) {
+	/**
+	 * 查找可以转换的服务，结果会被缓存
+	 * 
+	 * @return 不存在时返回空
+	 */
+	@Nullable
+	protected final ConversionService getConversionService(@Nullable TypeDescriptor sourceType,
+			TypeDescriptor targetType) {
+		ConverterCacheKey key = new ConverterCacheKey(sourceType, targetType);
+		Object cached = cache.get(key);
+		if (cached == NO_MATCH) {
+			return null;
+		}
+
+		if (cached != null) {
+			ConversionService service = (ConversionService) cached;
+			// 嵌套调用中缓存的服务可能正在使用，此时重新查找
+			if (!NESTED.exists(service) && canConvert(service, sourceType, targetType)) {
+				return service;
+			}
+		}
+
+		int version = this.version;
+		boolean skipped = false;
 		for (ConversionService service : this) {
 			if (NESTED.exists(service)) {
+				skipped = true;
 				continue;
 			}
 
-			NESTED.set(service);
-			try {
-				if (service.canConvert(sourceType, targetType)) {
-					return true;
+			if (canConvert(service, sourceType, targetType)) {
+				// 跳过了嵌套中的服务时不一定是真正的第一个，不能缓存
+				if (!skipped) {
+					putCache(key, service, version);
 				}
-			} finally {
-				NESTED.remove(service);
+				return service;
 			}
 		}
 
+		if (!skipped) {
+			putCache(key, NO_MATCH, version);
+		}
+		return null;
+	}
+
+	private void putCache(ConverterCacheKey key, Object value, int version) {
+		cache.put(key, value);
+		// 查找期间服务发生了变化
+		if (version != this.version) {
+			cache.remove(key);
+		}
+	}
+
+	private static boolean canConvert(ConversionService service, TypeDescriptor sourceType,
+			TypeDescriptor targetType) {
+		NESTED.set(service);
+		try {
+			return service.canConvert(sourceType, targetType);
+		} finally {
+			NESTED.remove(service);
+		}
+	}
+
+	public final boolean canConvert(TypeDescriptor sourceType, TypeDescriptor targetType) {
+		if (getConversionService(sourceType, targetType) != null) {
+			return true;
+		}
+
 		if (parentConversionService != null && parentConversionService.canConvert(sourceType, targetType)) {
 			return true;
 		}
@@ -84,16 +156,11 @@ public class ConversionServices extends ConvertibleConditionalComparator<Object>
 			sourceTypeToUse = TypeDescriptor.forObject(source);
 		}
 
-		for (ConversionService service : this) {
-			if (NESTED.exists(service)) {
-				continue;
-			}
-
+		ConversionService service = getConversionService(sourceType, targetType);
+		if (service != null) {
 			NESTED.set(service);
 			try {
-				if (service.canConvert(sourceType, targetType)) {
-					return service.convert(source, sourceTypeToUse, targetType);
-				}
+				return service.convert(source, sourceTypeToUse, targetType);
 			} finally {
 				NESTED.remove(service);
 			}
@@ -118,4 +185,34 @@ public class ConversionServices extends ConvertibleConditionalComparator<Object>
 		}
 		return -1;
 	}
+
+	private static final class ConverterCacheKey {
+		private final TypeDescriptor sourceType;
+		private final TypeDescriptor targetType;
+
+		ConverterCacheKey(TypeDescriptor sourceType, TypeDescriptor targetType) {
+			this.sourceType = sourceType;
+			this.targetType = targetType;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+
+			if (!(other instanceof ConverterCacheKey)) {
+				return false;
+			}
+
+			ConverterCacheKey otherKey = (ConverterCacheKey) other;
+			return ObjectUtils.nullSafeEquals(sourceType, otherKey.sourceType)
+					&& ObjectUtils.nullSafeEquals(targetType, otherKey.targetType);
+		}
+
+		@Override
+		public int hashCode() {
+			return ObjectUtils.nullSafeHashCode(sourceType) * 29 + ObjectUtils.nullSafeHashCode(targetType);
+		}
+	}
 }
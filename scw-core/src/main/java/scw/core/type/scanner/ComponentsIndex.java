@@ -0,0 +1,192 @@
+package scw.core.type.scanner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+import scw.core.Constants;
+import scw.core.utils.ClassUtils;
+import scw.core.utils.StringUtils;
+import scw.env.Sys;
+import scw.lang.Nullable;
+import scw.logger.Logger;
+import scw.logger.LoggerFactory;
+import scw.util.ConcurrentReferenceHashMap;
+
+/**
+ * 编译时生成的组件索引(由scw-indexer生成)<br/>
+ * 只有一个包所在的所有classpath根目录(或jar)都存在索引时才会使用索引，否则还是需要扫描
+ *
+ * @author shuchaowen
+ *
+ */
+public final class ComponentsIndex {
+	private static Logger logger = LoggerFactory.getLogger(ComponentsIndex.class);
+	public static final String COMPONENTS_RESOURCE_LOCATION = "META-INF/scw.components";
+	/**
+	 * 忽略索引，总是扫描
+	 */
+	public static final String IGNORE_INDEX_PROPERTY = "scw.components.index.ignore";
+
+	private static final ConcurrentReferenceHashMap<ClassLoader, ComponentsIndex> CACHE = new ConcurrentReferenceHashMap<ClassLoader, ComponentsIndex>();
+	private static final ComponentsIndex EMPTY = new ComponentsIndex(null, Collections.<String>emptySet(),
+			Collections.<String, Set<String>>emptyMap());
+
+	private final ClassLoader classLoader;
+	private final Set<String> roots;
+	private final Map<String, Set<String>> components;
+
+	private ComponentsIndex(ClassLoader classLoader, Set<String> roots, Map<String, Set<String>> components) {
+		this.classLoader = classLoader;
+		this.roots = roots;
+		this.components = components;
+	}
+
+	/**
+	 * @param classLoader
+	 * @return 不存在索引时返回空
+	 */
+	@Nullable
+	public static ComponentsIndex getInstance(@Nullable ClassLoader classLoader) {
+		if (Sys.env.getValue(IGNORE_INDEX_PROPERTY, boolean.class, false)) {
+			return null;
+		}
+
+		ClassLoader loader = classLoader == null ? ClassUtils.getDefaultClassLoader() : classLoader;
+		ComponentsIndex index = CACHE.get(loader);
+		if (index == null) {
+			index = load(loader);
+			ComponentsIndex old = CACHE.putIfAbsent(loader, index);
+			if (old != null) {
+				index = old;
+			}
+		}
+		return index == EMPTY ? null : index;
+	}
+
+	private static ComponentsIndex load(ClassLoader classLoader) {
+		Set<String> roots = new HashSet<String>();
+		Map<String, Set<String>> components = new HashMap<String, Set<String>>();
+		try {
+			Enumeration<URL> urls = classLoader.getResources(COMPONENTS_RESOURCE_LOCATION);
+			while (urls.hasMoreElements()) {
+				URL url = urls.nextElement();
+				Properties properties = new Properties();
+				InputStream inputStream = url.openStream();
+				try {
+					Reader reader = new InputStreamReader(inputStream, Constants.UTF_8);
+					properties.load(reader);
+				} finally {
+					inputStream.close();
+				}
+
+				for (String name : properties.stringPropertyNames()) {
+					Set<String> annotations = new LinkedHashSet<String>();
+					for (String annotation : StringUtils.commonSplit(properties.getProperty(name))) {
+						annotations.add(annotation);
+					}
+					components.put(name, annotations);
+				}
+
+				String location = url.toString();
+				roots.add(location.substring(0, location.length() - COMPONENTS_RESOURCE_LOCATION.length()));
+			}
+		} catch (IOException e) {
+			logger.error(e, "Unable to load components index from [{}]", COMPONENTS_RESOURCE_LOCATION);
+			return EMPTY;
+		}
+
+		if (roots.isEmpty()) {
+			return EMPTY;
+		}
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Loaded {} components from {} index", components.size(), roots.size());
+		}
+		return new ComponentsIndex(classLoader, roots, components);
+	}
+
+	/**
+	 * 包所在的所有classpath根目录是否都存在索引
+	 *
+	 * @param packageName
+	 * @return
+	 */
+	public boolean isIndexed(String packageName) {
+		if (StringUtils.isEmpty(packageName)) {
+			return false;
+		}
+
+		String path = ClassUtils.convertClassNameToResourcePath(packageName);
+		if (!path.endsWith("/")) {
+			path = path + "/";
+		}
+
+		try {
+			Enumeration<URL> urls = classLoader.getResources(path);
+			if (!urls.hasMoreElements()) {
+				return false;
+			}
+
+			while (urls.hasMoreElements()) {
+				String location = urls.nextElement().toString();
+				if (!roots.contains(location.substring(0, location.length() - path.length()))) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Components index not found for [{}]", location);
+					}
+					return false;
+				}
+			}
+		} catch (IOException e) {
+			logger.error(e, "Unable to resolve package [{}]", packageName);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * 获取包(包含子包)中的类和它们的注解
+	 *
+	 * @param packageName
+	 * @return 按类名排序的类名和注解的集合
+	 */
+	public Map<String, Set<String>> getComponents(String packageName) {
+		String prefix = packageName.endsWith(".") ? packageName : (packageName + ".");
+		Map<String, Set<String>> map = new TreeMap<String, Set<String>>();
+		for (Entry<String, Set<String>> entry : components.entrySet()) {
+			if (entry.getKey().startsWith(prefix)) {
+				map.put(entry.getKey(), entry.getValue());
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * 获取包(包含子包)中直接声明了此注解的类
+	 *
+	 * @param packageName
+	 * @param annotationName
+	 * @return
+	 */
+	public Set<String> getCandidateTypes(String packageName, String annotationName) {
+		Set<String> names = new LinkedHashSet<String>();
+		for (Entry<String, Set<String>> entry : getComponents(packageName).entrySet()) {
+			if (entry.getValue().contains(annotationName)) {
+				names.add(entry.getKey());
+			}
+		}
+		return names;
+	}
+}
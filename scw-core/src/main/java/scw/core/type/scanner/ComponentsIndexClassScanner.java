@@ -0,0 +1,67 @@
+package scw.core.type.scanner;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import scw.core.type.classreading.MetadataReader;
+import scw.core.type.classreading.MetadataReaderFactory;
+import scw.core.type.filter.TypeFilter;
+import scw.core.utils.ClassUtils;
+import scw.io.DefaultResourceLoader;
+import scw.lang.Ignore;
+
+/**
+ * 使用{@link ComponentsIndex}获取类，不需要遍历classpath和解析每一个class文件<br/>
+ * 只有指定了{@link TypeFilter}时才会去读取class文件
+ *
+ * @author shuchaowen
+ *
+ */
+public class ComponentsIndexClassScanner extends ClassResolver implements ClassScanner {
+	public static final ComponentsIndexClassScanner INSTANCE = new ComponentsIndexClassScanner();
+
+	/**
+	 * @return 如果不存在索引或索引不完整返回空，此时应该扫描classpath
+	 */
+	public Set<Class<?>> getClasses(String packageName, ClassLoader classLoader, TypeFilter typeFilter) {
+		ComponentsIndex index = ComponentsIndex.getInstance(classLoader);
+		if (index == null || !index.isIndexed(packageName)) {
+			return null;
+		}
+
+		ClassLoader loader = classLoader == null ? ClassUtils.getDefaultClassLoader() : classLoader;
+		MetadataReaderFactory metadataReaderFactory = typeFilter == null ? null
+				: getMetadataReaderFactory(new DefaultResourceLoader(loader), loader);
+		Map<String, Set<String>> components = index.getComponents(packageName);
+		Set<Class<?>> classes = new LinkedHashSet<Class<?>>();
+		for (Entry<String, Set<String>> entry : components.entrySet()) {
+			// 与ClassResolver#match一致，注解类型不会被写入索引
+			if (entry.getValue().contains(Deprecated.class.getName())
+					|| entry.getValue().contains(Ignore.class.getName())) {
+				continue;
+			}
+
+			if (typeFilter != null) {
+				try {
+					MetadataReader reader = metadataReaderFactory.getMetadataReader(entry.getKey());
+					if (!typeFilter.match(reader, metadataReaderFactory)) {
+						continue;
+					}
+				} catch (IOException e) {
+					continue;
+				} catch (NoClassDefFoundError e) {
+					continue;
+				}
+			}
+
+			Class<?> clazz = ClassUtils.getClass(entry.getKey(), loader);
+			if (clazz != null && accept(clazz)) {
+				classes.add(clazz);
+			}
+		}
+		return classes;
+	}
+}
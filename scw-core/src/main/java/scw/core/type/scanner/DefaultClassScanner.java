@@ -29,8 +29,11 @@ public class DefaultClassScanner implements
 				all.addAll(classes);
 			}
 		}
-		Set<Class<?>> classes = ClassPathClassScanner.INSTANCE.getClasses(
-				packageName, classLoader, typeFilter);
+		// 优先使用编译时生成的索引
+		Set<Class<?>> classes = ComponentsIndexClassScanner.INSTANCE.getClasses(packageName, classLoader, typeFilter);
+		if (classes == null) {
+			classes = ClassPathClassScanner.INSTANCE.getClasses(packageName, classLoader, typeFilter);
+		}
 		if (classes != null) {
 			all.addAll(classes);
 		}
@@ -0,0 +1,244 @@
+package scw.event.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import scw.core.Assert;
+import scw.event.Event;
+import scw.logger.Logger;
+import scw.logger.LoggerFactory;
+
+/**
+ * 异步批量的事件分发服务<br/>
+ * 事件先放入一个有界的环形缓冲区(ArrayBlockingQueue)，再由executor批量取出后分发，缓冲区满时根据{@link BackpressurePolicy}处理<br/>
+ * 注意：如果使用{@link BackpressurePolicy#BLOCK}，不要在监听器中向同一个dispatcher发布事件，否则缓冲区满时会死锁
+ *
+ * @author shuchaowen
+ *
+ * @param <T>
+ */
+public class BatchAsyncEventDispatcher<T extends Event> extends DefaultEventDispatcher<T> {
+	private static Logger logger = LoggerFactory.getLogger(BatchAsyncEventDispatcher.class);
+
+	/**
+	 * 缓冲区满时的处理策略
+	 */
+	public static enum BackpressurePolicy {
+		/**
+		 * 阻塞发布者直到缓冲区有空闲
+		 */
+		BLOCK,
+		/**
+		 * 丢弃该事件
+		 */
+		DROP,
+		/**
+		 * 在发布者线程中同步分发
+		 */
+		CALLER_RUNS
+	}
+
+	private final BlockingQueue<PendingEvent<T>> queue;
+	private final Executor executor;
+	private final int batchSize;
+	private final BackpressurePolicy backpressurePolicy;
+	private final AtomicBoolean draining = new AtomicBoolean(false);
+
+	private final AtomicLong publishedCount = new AtomicLong();
+	private final AtomicLong dispatchedCount = new AtomicLong();
+	private final AtomicLong droppedCount = new AtomicLong();
+	private final AtomicLong callerRunsCount = new AtomicLong();
+	private final AtomicLong failureCount = new AtomicLong();
+	private final AtomicLong totalDispatchLatency = new AtomicLong();
+	private final AtomicLong maxDispatchLatency = new AtomicLong();
+
+	/**
+	 * 使用一个守护线程进行分发
+	 *
+	 * @param concurrent
+	 * @param capacity
+	 * @param name
+	 *            线程名称
+	 */
+	public BatchAsyncEventDispatcher(boolean concurrent, int capacity, String name) {
+		this(concurrent, capacity, 128, Executors.newSingleThreadExecutor((runnable) -> {
+			Thread thread = new Thread(runnable, name);
+			thread.setDaemon(true);
+			return thread;
+		}), BackpressurePolicy.BLOCK);
+	}
+
+	public BatchAsyncEventDispatcher(boolean concurrent, int capacity, int batchSize, Executor executor,
+			BackpressurePolicy backpressurePolicy) {
+		super(concurrent);
+		Assert.isTrue(capacity > 0, "capacity must be greater than 0");
+		Assert.isTrue(batchSize > 0, "batchSize must be greater than 0");
+		Assert.requiredArgument(executor != null, "executor");
+		Assert.requiredArgument(backpressurePolicy != null, "backpressurePolicy");
+		this.queue = new ArrayBlockingQueue<PendingEvent<T>>(capacity);
+		this.batchSize = batchSize;
+		this.executor = executor;
+		this.backpressurePolicy = backpressurePolicy;
+	}
+
+	public final int getBatchSize() {
+		return batchSize;
+	}
+
+	public final BackpressurePolicy getBackpressurePolicy() {
+		return backpressurePolicy;
+	}
+
+	@Override
+	public void publishEvent(T event) {
+		Assert.requiredArgument(event != null, "event");
+		publishedCount.incrementAndGet();
+		PendingEvent<T> pendingEvent = new PendingEvent<T>(event);
+		if (queue.offer(pendingEvent)) {
+			scheduleDrain();
+			return;
+		}
+
+		switch (backpressurePolicy) {
+		case DROP:
+			droppedCount.incrementAndGet();
+			if (logger.isDebugEnabled()) {
+				logger.debug("Event queue is full, drop event: {}", event);
+			}
+			break;
+		case CALLER_RUNS:
+			callerRunsCount.incrementAndGet();
+			dispatch(pendingEvent);
+			break;
+		default:
+			scheduleDrain();
+			try {
+				queue.put(pendingEvent);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			}
+			scheduleDrain();
+			break;
+		}
+	}
+
+	private void scheduleDrain() {
+		if (draining.compareAndSet(false, true)) {
+			try {
+				executor.execute(() -> drain());
+			} catch (RejectedExecutionException e) {
+				draining.set(false);
+				throw e;
+			}
+		}
+	}
+
+	private void drain() {
+		List<PendingEvent<T>> batch = new ArrayList<PendingEvent<T>>(Math.min(batchSize, 1024));
+		try {
+			while (queue.drainTo(batch, batchSize) > 0) {
+				for (PendingEvent<T> pendingEvent : batch) {
+					dispatch(pendingEvent);
+				}
+				batch.clear();
+			}
+		} finally {
+			draining.set(false);
+		}
+
+		// 在重置draining前可能有新的事件入队
+		if (!queue.isEmpty()) {
+			scheduleDrain();
+		}
+	}
+
+	private void dispatch(PendingEvent<T> pendingEvent) {
+		try {
+			super.publishEvent(pendingEvent.event);
+		} catch (Throwable e) {
+			failureCount.incrementAndGet();
+			logger.error(e, "Dispatch event error: {}", pendingEvent.event);
+		} finally {
+			dispatchedCount.incrementAndGet();
+			long latency = System.nanoTime() - pendingEvent.createTime;
+			totalDispatchLatency.addAndGet(latency);
+			long max;
+			while ((max = maxDispatchLatency.get()) < latency && !maxDispatchLatency.compareAndSet(max, latency)) {
+			}
+		}
+	}
+
+	/**
+	 * 当前缓冲区中等待分发的事件数量
+	 *
+	 * @return
+	 */
+	public int getQueueDepth() {
+		return queue.size();
+	}
+
+	public int getRemainingCapacity() {
+		return queue.remainingCapacity();
+	}
+
+	public long getPublishedCount() {
+		return publishedCount.get();
+	}
+
+	public long getDispatchedCount() {
+		return dispatchedCount.get();
+	}
+
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	public long getCallerRunsCount() {
+		return callerRunsCount.get();
+	}
+
+	/**
+	 * 分发时监听器抛出异常的事件数量
+	 *
+	 * @return
+	 */
+	public long getFailureCount() {
+		return failureCount.get();
+	}
+
+	/**
+	 * 从发布到分发完成的最大耗时(纳秒)
+	 *
+	 * @return
+	 */
+	public long getMaxDispatchLatency() {
+		return maxDispatchLatency.get();
+	}
+
+	/**
+	 * 从发布到分发完成的平均耗时(纳秒)
+	 *
+	 * @return
+	 */
+	public long getAverageDispatchLatency() {
+		long count = dispatchedCount.get();
+		return count == 0 ? 0 : totalDispatchLatency.get() / count;
+	}
+
+	private static final class PendingEvent<T> {
+		private final T event;
+		private final long createTime = System.nanoTime();
+
+		public PendingEvent(T event) {
+			this.event = event;
+		}
+	}
+}
@@ -1,7 +1,6 @@
 package scw.event.support;
 
 import java.util.Collection;
-import java.util.Iterator;
 
 import scw.core.Assert;
 import scw.event.Event;
@@ -58,25 +57,29 @@ public class DefaultEventDispatcher<T extends Event> implements EventDispatcher<
 		return eventRegistration;
 	}
 
-	public void publishEvent(T event) {
-		Assert.requiredArgument(event != null, "event");
-		publishEvent(event, getEventListeners().iterator());
-	}
-	
 	/**
-	 * 使用此方法的原因是即便发生了异常也将所有的listener通知一遍
-	 * @param event
-	 * @param iterator
+	 * 即便发生了异常也将所有的listener通知一遍，最后抛出第一个异常(其他异常会以suppressed的方式附加)
 	 */
-	private void publishEvent(T event, Iterator<EventRegistrationInternal> iterator) {
-		if(iterator.hasNext()) {
-			EventRegistrationInternal registration = iterator.next();
+	public void publishEvent(T event) {
+		Assert.requiredArgument(event != null, "event");
+		Throwable error = null;
+		for (EventRegistrationInternal registration : getEventListeners()) {
 			try {
 				registration.getEventListener().onEvent(event);
-			} finally {
-				publishEvent(event, iterator);
+			} catch (RuntimeException | Error e) {
+				if (error == null) {
+					error = e;
+				} else {
+					error.addSuppressed(e);
+				}
 			}
 		}
+
+		if (error instanceof RuntimeException) {
+			throw (RuntimeException) error;
+		} else if (error != null) {
+			throw (Error) error;
+		}
 	}
 
 	private class EventRegistrationInternal implements EventRegistration {
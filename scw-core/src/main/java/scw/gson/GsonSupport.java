@@ -1,5 +1,7 @@
 package scw.gson;
 
+import java.io.Reader;
+
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
@@ -29,6 +31,12 @@ public final class GsonSupport extends AbstractJSONSupport {
 		return new GsonElement(gsonJsonElement, gson, EmptyJsonElement.INSTANCE);
 	}
 
+	@Override
+	public JsonElement parseJson(Reader reader) {
+		com.google.gson.JsonElement gsonJsonElement = gson.fromJson(reader, com.google.gson.JsonElement.class);
+		return new GsonElement(gsonJsonElement, gson, EmptyJsonElement.INSTANCE);
+	}
+
 	@Override
 	protected String toJsonStringInternal(Object obj) {
 		return gson.toJson(obj);
@@ -1,17 +1,32 @@
 package scw.instance.support;
 
-import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import scw.core.Assert;
 import scw.core.utils.StringUtils;
 import scw.instance.SingletonRegistry;
 import scw.util.Creator;
 import scw.util.Result;
 
+/**
+ * 读取不加锁，注册和删除在{@link #getSingletonMutex()}上同步<br/>
+ * 单例可能在多个线程中并行初始化，所以不能使用非线程安全的map
+ * 
+ * @author shuchaowen
+ *
+ */
 public class DefaultSingletonRegistry implements SingletonRegistry {
-	private volatile Map<String, Object> singletionMap = new LinkedHashMap<String, Object>();
+	private final Map<String, Object> singletionMap = new ConcurrentHashMap<String, Object>();
+	/**
+	 * 注册顺序，销毁时需要倒序
+	 */
+	private final Set<String> singletonNames = new LinkedHashSet<String>();
 
 	public void registerSingleton(String beanName, Object singletonObject) {
+		Assert.requiredArgument(singletonObject != null, "singletonObject");
 		synchronized (singletionMap) {
 			Object old = singletionMap.get(beanName);
 			if (old != null) {
@@ -20,6 +35,7 @@ public class DefaultSingletonRegistry implements SingletonRegistry {
 			}
 
 			singletionMap.put(beanName, singletonObject);
+			singletonNames.add(beanName);
 		}
 	}
 
@@ -33,13 +49,14 @@ public class DefaultSingletonRegistry implements SingletonRegistry {
 
 	public String[] getSingletonNames() {
 		synchronized (singletionMap) {
-			return StringUtils.toStringArray(singletionMap.keySet());
+			return StringUtils.toStringArray(singletonNames);
 		}
 	}
 
 	public void removeSingleton(String name) {
 		synchronized (singletionMap) {
 			singletionMap.remove(name);
+			singletonNames.remove(name);
 		}
 	}
 
@@ -56,7 +73,9 @@ public class DefaultSingletonRegistry implements SingletonRegistry {
 				object = (T) singletionMap.get(name);
 				if (object == null) {
 					object = creater.create();
-					registerSingleton(name, object);
+					if (object != null) {
+						registerSingleton(name, object);
+					}
 					return new Result<T>(true, object);
 				}
 			}
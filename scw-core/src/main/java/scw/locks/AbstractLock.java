@@ -19,13 +19,20 @@ public abstract class AbstractLock implements Lock{
 		this.sleepTime = sleepTime;
 	}
 
-	public boolean tryLock(long period, TimeUnit timeUnit)
+	/**
+	 * 每{@link #getSleepTime()}ms试一次，直到超时
+	 */
+	public boolean tryLock(long time, TimeUnit timeUnit)
 			throws InterruptedException {
-		boolean b = false;
-		while (!(b = tryLock())) {
-			timeUnit.sleep(period);
+		long deadline = System.nanoTime() + timeUnit.toNanos(time);
+		while (!tryLock()) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				return false;
+			}
+			TimeUnit.NANOSECONDS.sleep(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(sleepTime)));
 		}
-		return b;
+		return true;
 	}
 
 	/**
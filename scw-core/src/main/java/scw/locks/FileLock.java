@@ -2,6 +2,8 @@ package scw.locks;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import scw.core.Constants;
 import scw.io.FileUtils;
@@ -16,6 +18,23 @@ import scw.util.XUtils;
  */
 public class FileLock extends AbstractLock{
 	private static Logger logger = LoggerFactory.getLogger(FileLock.class);
+	/**
+	 * 当前进程持有的锁文件，退出时删除<br/>
+	 * 不使用{@link File#deleteOnExit()}，因为它会一直保存所有注册过的文件
+	 */
+	private static final Set<File> LOCKED_FILES = ConcurrentHashMap.newKeySet();
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(FileLock.class.getSimpleName() + "-cleaner") {
+			@Override
+			public void run() {
+				for (File file : LOCKED_FILES) {
+					file.delete();
+				}
+			}
+		});
+	}
+
 	private final File file;
 	private final String version;
 	
@@ -26,7 +45,6 @@ public class FileLock extends AbstractLock{
 	public FileLock(File file, String version) {
 		this.file = file;
 		this.version = version;
-		file.deleteOnExit();
 	}
 
 	@Override
@@ -44,6 +62,7 @@ public class FileLock extends AbstractLock{
 			return false;
 		}
 		
+		LOCKED_FILES.add(file);
 		try {
 			FileUtils.write(file, version, Constants.UTF_8_NAME);
 		} catch (IOException e) {
@@ -60,6 +79,7 @@ public class FileLock extends AbstractLock{
 				String version = FileUtils.readFileToString(file, Constants.UTF_8_NAME);
 				if(this.version.equals(version)) {
 					file.delete();
+					LOCKED_FILES.remove(file);
 				}
 			} catch (IOException e) {
 				//ignore 解锁失败
@@ -1,27 +1,115 @@
 package scw.locks;
 
 import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 
 import scw.codec.support.URLCodec;
 import scw.core.Assert;
 import scw.io.FileUtils;
 
-public class FileLockFactory implements LockFactory{
+/**
+ * 使用文件实现的锁<br/>
+ * 同一个进程中的线程先获取内存中的锁(引用计数的锁表，不会一直增长)再获取文件锁，只有一个线程会轮询文件
+ * 
+ * @author shuchaowen
+ *
+ */
+public class FileLockFactory implements LockFactory {
 	private final File directory;
-	
+	private final MemoryLockFactory localLockFactory = new ReentrantLockFactory();
+
 	public FileLockFactory() {
 		this(new File(FileUtils.getTempDirectory()));
 	}
-	
+
 	public FileLockFactory(File directory) {
 		Assert.requiredArgument(directory != null && directory.exists() && directory.isDirectory(), "directory");
 		this.directory = directory;
 	}
-	
+
 	@Override
 	public Lock getLock(String name) {
-		return new FileLock(new File(directory, URLCodec.UTF_8.encode(name) + ".lock"));
+		return new LocalFileLock(localLockFactory.getLock(name),
+				new FileLock(new File(directory, URLCodec.UTF_8.encode(name) + ".lock")));
 	}
 
+	private static final class LocalFileLock implements Lock {
+		private final Lock localLock;
+		private final FileLock fileLock;
+
+		LocalFileLock(Lock localLock, FileLock fileLock) {
+			this.localLock = localLock;
+			this.fileLock = fileLock;
+		}
+
+		public void lock() {
+			localLock.lock();
+			try {
+				fileLock.lock();
+			} catch (RuntimeException e) {
+				localLock.unlock();
+				throw e;
+			}
+		}
+
+		public void lockInterruptibly() throws InterruptedException {
+			localLock.lockInterruptibly();
+			boolean success = false;
+			try {
+				fileLock.lockInterruptibly();
+				success = true;
+			} finally {
+				if (!success) {
+					localLock.unlock();
+				}
+			}
+		}
+
+		public boolean tryLock() {
+			if (!localLock.tryLock()) {
+				return false;
+			}
+
+			boolean success = false;
+			try {
+				success = fileLock.tryLock();
+				return success;
+			} finally {
+				if (!success) {
+					localLock.unlock();
+				}
+			}
+		}
+
+		public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+			long deadline = System.nanoTime() + unit.toNanos(time);
+			if (!localLock.tryLock(time, unit)) {
+				return false;
+			}
+
+			boolean success = false;
+			try {
+				success = fileLock.tryLock(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+				return success;
+			} finally {
+				if (!success) {
+					localLock.unlock();
+				}
+			}
+		}
+
+		public void unlock() {
+			try {
+				fileLock.unlock();
+			} finally {
+				localLock.unlock();
+			}
+		}
+
+		public Condition newCondition() {
+			throw new UnsupportedOperationException();
+		}
+	}
 }
@@ -1,38 +1,200 @@
 package scw.locks;
 
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 
-import scw.util.CacheableSupplier;
-import scw.util.Supplier;
-
+/**
+ * 引用计数的锁表<br/>
+ * 加锁(包括正在等待)时引用计数加一，解锁后减一，没有引用时从锁表中删除，所以不会因为锁的名称不同(如用户id)而一直增长<br/>
+ * 同一时刻相同名称的锁使用的是同一个由{@link #createLock(String)}创建的锁<br/>
+ * {@link Lock#newCondition()}返回的Condition在每次使用时才获取当前锁对象上对应的Condition，使用Condition时一定持有锁，所以锁对象不会在使用期间被删除
+ * 
+ * @see StripedLockFactory
+ * @author shuchaowen
+ *
+ */
 public abstract class MemoryLockFactory implements LockFactory {
-	private volatile ConcurrentHashMap<String, Supplier<Lock>> lockMap = new ConcurrentHashMap<String, Supplier<Lock>>();
+	private final ConcurrentHashMap<String, LockEntry> lockMap = new ConcurrentHashMap<String, LockEntry>();
 
 	public final Lock getLock(String name) {
-		Supplier<Lock> supplier = lockMap.get(name);
-		if (supplier == null) {
-			Supplier<Lock> newSupplier = new LockSupplier(name);
-			newSupplier = new CacheableSupplier<Lock>(newSupplier);
-			supplier = lockMap.putIfAbsent(name, newSupplier);
-			if (supplier == null) {
-				supplier = newSupplier;
+		return new ReferenceCountedLock(name);
+	}
+
+	protected abstract Lock createLock(String name);
+
+	/**
+	 * 当前正在使用(已加锁或正在等待)的锁的数量
+	 * 
+	 * @return
+	 */
+	public int size() {
+		return lockMap.size();
+	}
+
+	private Lock acquire(String name) {
+		return lockMap.compute(name, (key, entry) -> {
+			if (entry == null) {
+				entry = new LockEntry(createLock(key));
 			}
+			entry.references++;
+			return entry;
+		}).lock;
+	}
+
+	private void release(String name) {
+		lockMap.computeIfPresent(name, (key, entry) -> --entry.references == 0 ? null : entry);
+	}
+
+	private LockEntry getEntry(String name) {
+		LockEntry entry = lockMap.get(name);
+		if (entry == null) {
+			throw new IllegalMonitorStateException(name);
 		}
-		return supplier.get();
+		return entry;
 	}
 
-	protected abstract Lock createLock(String name);
-	
-	private final class LockSupplier implements Supplier<Lock>{
+	private static final class LockEntry {
+		private final Lock lock;
+		// 只在ConcurrentHashMap.compute中修改
+		private int references;
+		private Map<Object, Condition> conditions;
+
+		LockEntry(Lock lock) {
+			this.lock = lock;
+		}
+
+		synchronized Condition getCondition(Object key) {
+			if (conditions == null) {
+				conditions = new IdentityHashMap<Object, Condition>(4);
+			}
+			return conditions.computeIfAbsent(key, (k) -> lock.newCondition());
+		}
+	}
+
+	private final class ReferenceCountedLock implements Lock {
 		private final String name;
-		
-		public LockSupplier(String name){
+
+		ReferenceCountedLock(String name) {
 			this.name = name;
 		}
-		
-		public Lock get() {
-			return createLock(name);
+
+		public void lock() {
+			Lock lock = acquire(name);
+			try {
+				lock.lock();
+			} catch (RuntimeException e) {
+				release(name);
+				throw e;
+			}
+		}
+
+		public void lockInterruptibly() throws InterruptedException {
+			Lock lock = acquire(name);
+			boolean success = false;
+			try {
+				lock.lockInterruptibly();
+				success = true;
+			} finally {
+				if (!success) {
+					release(name);
+				}
+			}
+		}
+
+		public boolean tryLock() {
+			Lock lock = acquire(name);
+			boolean success = false;
+			try {
+				success = lock.tryLock();
+				return success;
+			} finally {
+				if (!success) {
+					release(name);
+				}
+			}
+		}
+
+		public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+			Lock lock = acquire(name);
+			boolean success = false;
+			try {
+				success = lock.tryLock(time, unit);
+				return success;
+			} finally {
+				if (!success) {
+					release(name);
+				}
+			}
+		}
+
+		public void unlock() {
+			LockEntry entry = getEntry(name);
+			// 解锁失败(如未持有锁)时不减少引用
+			entry.lock.unlock();
+			release(name);
+		}
+
+		public Condition newCondition() {
+			return new ReferenceCountedCondition(name);
+		}
+
+		@Override
+		public String toString() {
+			return "ReferenceCountedLock(" + name + ")";
+		}
+	}
+
+	/**
+	 * 持有锁时锁对象一定存在，await期间也不会减少引用，所以只需要在使用时获取锁对象上对应的Condition<br/>
+	 * 锁对象被删除时不存在等待的线程，重新创建的锁对象上的Condition与之前的是等价的
+	 */
+	private final class ReferenceCountedCondition implements Condition {
+		private final String name;
+
+		ReferenceCountedCondition(String name) {
+			this.name = name;
+		}
+
+		private Condition getCondition() {
+			return getEntry(name).getCondition(this);
+		}
+
+		public void await() throws InterruptedException {
+			getCondition().await();
+		}
+
+		public void awaitUninterruptibly() {
+			getCondition().awaitUninterruptibly();
+		}
+
+		public long awaitNanos(long nanosTimeout) throws InterruptedException {
+			return getCondition().awaitNanos(nanosTimeout);
+		}
+
+		public boolean await(long time, TimeUnit unit) throws InterruptedException {
+			return getCondition().await(time, unit);
+		}
+
+		public boolean awaitUntil(Date deadline) throws InterruptedException {
+			return getCondition().awaitUntil(deadline);
+		}
+
+		public void signal() {
+			getCondition().signal();
+		}
+
+		public void signalAll() {
+			getCondition().signalAll();
+		}
+
+		@Override
+		public String toString() {
+			return "ReferenceCountedCondition(" + name + ")";
 		}
 	}
 }
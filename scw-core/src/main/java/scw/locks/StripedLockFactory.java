@@ -0,0 +1,62 @@
+package scw.locks;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import scw.core.Assert;
+import scw.env.Sys;
+import scw.util.Supplier;
+
+/**
+ * 分段锁，使用固定数量的锁，名称按hash映射到其中一个<br/>
+ * 内存占用是固定的且没有额外的开销，但不同的名称可能会使用同一个锁(只会降低并发，不会影响正确性)，同一个线程按不同的名称嵌套加锁时可能死锁
+ * 
+ * @see MemoryLockFactory
+ * @author shuchaowen
+ *
+ */
+public class StripedLockFactory implements LockFactory {
+	private static final int DEFAULT_STRIPES = Sys.env.getValue("lock.stripes", int.class, 1024);
+
+	private final Lock[] locks;
+	private final int mask;
+
+	public StripedLockFactory() {
+		this(DEFAULT_STRIPES);
+	}
+
+	public StripedLockFactory(int stripes) {
+		this(stripes, () -> new ReentrantLock());
+	}
+
+	/**
+	 * @param stripes      锁的数量，会向上取整为2的幂
+	 * @param lockSupplier
+	 */
+	public StripedLockFactory(int stripes, Supplier<? extends Lock> lockSupplier) {
+		Assert.requiredArgument(stripes > 0 && stripes <= (1 << 30), "stripes");
+		Assert.requiredArgument(lockSupplier != null, "lockSupplier");
+		int size = Integer.highestOneBit(stripes);
+		if (size < stripes) {
+			size <<= 1;
+		}
+
+		this.locks = new Lock[size];
+		this.mask = size - 1;
+		for (int i = 0; i < size; i++) {
+			locks[i] = lockSupplier.get();
+		}
+	}
+
+	public int getStripes() {
+		return locks.length;
+	}
+
+	@Override
+	public Lock getLock(String name) {
+		int h = name.hashCode();
+		// 和HashMap一样将高位混合到低位
+		h ^= (h >>> 16);
+		return locks[h & mask];
+	}
+}
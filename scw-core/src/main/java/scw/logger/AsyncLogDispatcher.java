@@ -0,0 +1,264 @@
+package scw.logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import scw.core.Assert;
+import scw.util.FormatUtils;
+
+/**
+ * 异步日志的分发器<br/>
+ * 使用无锁的环形缓冲区(多生产者单消费者)，缓冲区中的事件对象是预先创建并重复使用的，记录日志的线程通过CAS获取一个位置，写入后发布，由一个后台线程按顺序格式化并输出<br/>
+ * 缓冲区已满时的处理方式见{@link AsyncQueueFullPolicy}
+ *
+ * @author shuchaowen
+ *
+ */
+public final class AsyncLogDispatcher implements Runnable {
+	private static final int SPIN_TRIES = 100;
+	private static final int YIELD_TRIES = 100;
+	private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+	/**
+	 * 关闭时最长等待剩余日志输出的时间
+	 */
+	private static final long SHUTDOWN_TIMEOUT = TimeUnit.SECONDS.toMillis(3);
+
+	private final LogEvent[] events;
+	private final int mask;
+	private final AsyncQueueFullPolicy policy;
+	/**
+	 * 已经被生产者获取的最大序号
+	 */
+	private final AtomicLong claimSequence = new AtomicLong(-1);
+	/**
+	 * 已经处理完的最大序号, 只由消费线程修改
+	 */
+	private final AtomicLong consumedSequence = new AtomicLong(-1);
+	private final LongAdder discardCount = new LongAdder();
+	private final Thread thread;
+	private volatile boolean running = true;
+
+	/**
+	 * @param bufferSize 缓冲区大小，会向上取整为2的幂
+	 * @param policy     缓冲区已满时的处理策略
+	 */
+	public AsyncLogDispatcher(int bufferSize, AsyncQueueFullPolicy policy) {
+		Assert.requiredArgument(bufferSize > 0, "bufferSize");
+		Assert.requiredArgument(policy != null, "policy");
+		int size = 2;
+		while (size < bufferSize) {
+			size <<= 1;
+		}
+
+		this.events = new LogEvent[size];
+		for (int i = 0; i < size; i++) {
+			events[i] = new LogEvent();
+		}
+		this.mask = size - 1;
+		this.policy = policy;
+		this.thread = new Thread(this, "scw-async-logger");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public int getBufferSize() {
+		return events.length;
+	}
+
+	public AsyncQueueFullPolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * 缓冲区中还未处理的日志数量
+	 *
+	 * @return
+	 */
+	public long getPendingCount() {
+		return claimSequence.get() - consumedSequence.get();
+	}
+
+	/**
+	 * 因缓冲区已满而丢弃的日志数量(还未被报告的)
+	 *
+	 * @return
+	 */
+	public long getDiscardCount() {
+		return discardCount.sum();
+	}
+
+	/**
+	 * @return 是否成功放入缓冲区
+	 */
+	public boolean publish(Logger logger, Level level, Throwable e, String format, Object[] args) {
+		if (!running) {
+			// 已经关闭了，直接输出
+			logger.log(level, e, format, args);
+			return true;
+		}
+
+		long sequence;
+		int tries = 0;
+		while (true) {
+			long current = claimSequence.get();
+			long next = current + 1;
+			if (next - events.length > consumedSequence.get()) {
+				// 缓冲区已满，消费线程自身记录日志时不能等待，否则会死锁
+				if (policy == AsyncQueueFullPolicy.DISCARD
+						|| (policy == AsyncQueueFullPolicy.DROP_DEBUG && level.intValue() < Level.INFO.intValue())
+						|| Thread.currentThread() == thread) {
+					discardCount.increment();
+					return false;
+				}
+
+				if (tries++ < YIELD_TRIES) {
+					Thread.yield();
+				} else {
+					LockSupport.parkNanos(PARK_NANOS);
+				}
+				continue;
+			}
+
+			if (claimSequence.compareAndSet(current, next)) {
+				sequence = next;
+				break;
+			}
+		}
+
+		LogEvent event = events[(int) sequence & mask];
+		event.logger = logger;
+		event.level = level;
+		event.throwable = e;
+		event.format = format;
+		event.args = args;
+		event.millis = System.currentTimeMillis();
+		event.threadId = (int) Thread.currentThread().getId();
+		// 发布
+		event.sequence = sequence;
+		return true;
+	}
+
+	@Override
+	public void run() {
+		long next = consumedSequence.get() + 1;
+		int idle = 0;
+		while (true) {
+			LogEvent event = events[(int) next & mask];
+			if (event.sequence == next) {
+				try {
+					event.dispatch();
+				} catch (Throwable e) {
+					e.printStackTrace();
+				} finally {
+					event.clear();
+				}
+				consumedSequence.lazySet(next);
+				next++;
+				idle = 0;
+				continue;
+			}
+
+			if (!running && claimSequence.get() < next) {
+				break;
+			}
+
+			reportDiscard();
+			if (idle < SPIN_TRIES) {
+				idle++;
+			} else if (idle < SPIN_TRIES + YIELD_TRIES) {
+				idle++;
+				Thread.yield();
+			} else {
+				LockSupport.parkNanos(PARK_NANOS);
+			}
+		}
+		reportDiscard();
+	}
+
+	private void reportDiscard() {
+		if (discardCount.sum() == 0) {
+			return;
+		}
+
+		long count = discardCount.sumThenReset();
+		if (count > 0) {
+			// 直接使用jdk的日志记录器，避免再次进入缓冲区
+			LoggerFactory.getRootLogger().warning("Async logger buffer is full, discarded " + count + " events");
+		}
+	}
+
+	/**
+	 * 等待缓冲区中已有的日志处理完成
+	 *
+	 * @param timeout
+	 * @param unit
+	 * @return 是否在超时前处理完成
+	 */
+	public boolean flush(long timeout, TimeUnit unit) {
+		long target = claimSequence.get();
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (consumedSequence.get() < target) {
+			if (!thread.isAlive() || System.nanoTime() - deadline > 0) {
+				return false;
+			}
+			LockSupport.parkNanos(PARK_NANOS);
+		}
+		return true;
+	}
+
+	/**
+	 * 停止并等待剩余的日志输出完成
+	 */
+	public void destroy() {
+		running = false;
+		LockSupport.unpark(thread);
+		try {
+			thread.join(SHUTDOWN_TIMEOUT);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * 可重复使用的日志事件
+	 */
+	private static final class LogEvent {
+		private Logger logger;
+		private Level level;
+		private Throwable throwable;
+		private String format;
+		private Object[] args;
+		private long millis;
+		private int threadId;
+		private volatile long sequence = -1;
+
+		void dispatch() {
+			if (logger instanceof JdkLogger) {
+				// 保留记录日志时的时间和线程
+				java.util.logging.Logger targetLogger = ((JdkLogger) logger).getTargetLogger();
+				LogRecord record = new LogRecord(level, FormatUtils.formatPlaceholder(format, null, args));
+				record.setLoggerName(targetLogger.getName());
+				record.setMillis(millis);
+				record.setThreadID(threadId);
+				record.setThrown(throwable);
+				record.setSourceClassName(null);
+				record.setSourceMethodName(null);
+				targetLogger.log(record);
+			} else {
+				logger.log(level, throwable, format, args);
+			}
+		}
+
+		void clear() {
+			logger = null;
+			level = null;
+			throwable = null;
+			format = null;
+			args = null;
+		}
+	}
+}
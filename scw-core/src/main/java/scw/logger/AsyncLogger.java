@@ -0,0 +1,56 @@
+package scw.logger;
+
+import java.util.logging.Level;
+
+import scw.core.Assert;
+
+/**
+ * 异步的日志记录器，调用线程只将日志事件放入{@link AsyncLogDispatcher}的环形缓冲区，格式化和输出都在后台线程中执行<br/>
+ * 注意：参数会在后台线程中才调用toString，所以日志参数在记录后不应该再被修改
+ * 
+ * @author shuchaowen
+ *
+ */
+public class AsyncLogger implements Logger {
+	private final Logger logger;
+	private final AsyncLogDispatcher dispatcher;
+
+	public AsyncLogger(Logger logger, AsyncLogDispatcher dispatcher) {
+		Assert.requiredArgument(logger != null, "logger");
+		Assert.requiredArgument(dispatcher != null, "dispatcher");
+		this.logger = logger;
+		this.dispatcher = dispatcher;
+	}
+
+	public Logger getTargetLogger() {
+		return logger;
+	}
+
+	public AsyncLogDispatcher getDispatcher() {
+		return dispatcher;
+	}
+
+	@Override
+	public String getName() {
+		return logger.getName();
+	}
+
+	@Override
+	public boolean isLoggable(Level level) {
+		return logger.isLoggable(level);
+	}
+
+	@Override
+	public void log(Level level, Throwable e, String msg, Object... args) {
+		if (!isLoggable(level)) {
+			return;
+		}
+
+		dispatcher.publish(logger, level, e, msg, args);
+	}
+
+	@Override
+	public String toString() {
+		return "async " + logger;
+	}
+}
@@ -0,0 +1,22 @@
+package scw.logger;
+
+/**
+ * 异步日志的缓冲区已满时的处理策略
+ * 
+ * @author shuchaowen
+ * @see AsyncLogDispatcher
+ */
+public enum AsyncQueueFullPolicy {
+	/**
+	 * 等待直到缓冲区有空闲位置
+	 */
+	BLOCK,
+	/**
+	 * 丢弃低于INFO级别(DEBUG、TRACE)的日志，其他级别的等待
+	 */
+	DROP_DEBUG,
+	/**
+	 * 丢弃所有日志
+	 */
+	DISCARD;
+}
@@ -24,6 +24,10 @@ public final class LoggerFactory {
 	private volatile static Map<String, Logger> loggerMap = new HashMap<String, Logger>();
 
 	private static final LevelManager LEVEL_MANAGER;
+	/**
+	 * 开启异步日志时使用的分发器
+	 */
+	private static final AsyncLogDispatcher ASYNC_DISPATCHER;
 
 	static {
 		PropertyFactory propertyFactory = SystemPropertyFactory.INSTANCE;
@@ -53,6 +57,21 @@ public final class LoggerFactory {
 			}
 		}
 		
+		// 异步日志，默认不开启
+		if (propertyFactory.getValue("scw.logger.async", boolean.class, false)) {
+			ASYNC_DISPATCHER = new AsyncLogDispatcher(
+					propertyFactory.getValue("scw.logger.async.buffer.size", int.class, 8192),
+					AsyncQueueFullPolicy.valueOf(propertyFactory
+							.getValue("scw.logger.async.policy", String.class, AsyncQueueFullPolicy.BLOCK.name())
+							.toUpperCase()));
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> ASYNC_DISPATCHER.destroy(),
+					AsyncLogDispatcher.class.getSimpleName() + "-shutdown"));
+			ROOT_LOGGER.info("Use async logger, buffer size [" + ASYNC_DISPATCHER.getBufferSize() + "], policy ["
+					+ ASYNC_DISPATCHER.getPolicy() + "]");
+		} else {
+			ASYNC_DISPATCHER = null;
+		}
+
 		if (LOGGER_FACTORY == null) {
 			//使用jdk自身的日志系统
 			java.util.logging.Logger logger = ROOT_LOGGER;
@@ -106,6 +125,16 @@ public final class LoggerFactory {
 		return LOGGER_FACTORY;
 	}
 
+	/**
+	 * 开启异步日志(scw.logger.async=true)时使用的分发器
+	 * 
+	 * @return 未开启时为空
+	 */
+	@Nullable
+	public static AsyncLogDispatcher getAsyncDispatcher() {
+		return ASYNC_DISPATCHER;
+	}
+
 	/**
 	 * 获取一个日志记录器
 	 * 
@@ -131,6 +160,10 @@ public final class LoggerFactory {
 					} else {
 						cacheLogger = LOGGER_FACTORY.getLogger(name);
 					}
+
+					if (ASYNC_DISPATCHER != null) {
+						cacheLogger = new AsyncLogger(cacheLogger, ASYNC_DISPATCHER);
+					}
 					loggerMap.put(name, cacheLogger);
 				}
 			}
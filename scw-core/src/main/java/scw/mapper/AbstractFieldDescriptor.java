@@ -4,6 +4,8 @@ import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 import scw.core.annotation.AnnotatedElementWrapper;
 import scw.core.annotation.AnnotationArrayAnnotatedElement;
@@ -16,6 +18,13 @@ public abstract class AbstractFieldDescriptor extends AnnotatedElementWrapper<An
 	private final Class<?> declaringClass;
 	private final Field field;
 	private final Method method;
+	/**
+	 * 延迟生成的访问器，生成失败时为空并使用反射
+	 */
+	private volatile Function<Object, Object> getter;
+	private volatile boolean getterResolved;
+	private volatile BiConsumer<Object, Object> setter;
+	private volatile boolean setterResolved;
 
 	public AbstractFieldDescriptor(Class<?> declaringClass, Field field, Method method) {
 		super(new AnnotationArrayAnnotatedElement(MultiAnnotatedElement.forAnnotatedElements(method, field)));
@@ -100,7 +109,32 @@ public abstract class AbstractFieldDescriptor extends AnnotatedElementWrapper<An
 		return sb.toString();
 	}
 	
+	private Function<Object, Object> getGetter() {
+		if (!getterResolved) {
+			getter = FieldAccessorFactory.getGetter(getField(), getMethod());
+			getterResolved = true;
+		}
+		return getter;
+	}
+
+	private BiConsumer<Object, Object> getSetter() {
+		if (!setterResolved) {
+			setter = FieldAccessorFactory.getSetter(getField(), getMethod());
+			setterResolved = true;
+		}
+		return setter;
+	}
+
 	public Object get(Object instance) {
+		Function<Object, Object> getter = getGetter();
+		if (getter != null) {
+			try {
+				return getter.apply(instance);
+			} catch (Exception e) {
+				throw new RuntimeException(toString(), NestedExceptionUtils.excludeInvalidNestedExcpetion(e));
+			}
+		}
+
 		Method method = getMethod();
 		if (method != null) {
 			ReflectionUtils.makeAccessible(method);
@@ -124,6 +158,16 @@ public abstract class AbstractFieldDescriptor extends AnnotatedElementWrapper<An
 	}
 
 	public void set(Object instance, Object value) {
+		BiConsumer<Object, Object> setter = getSetter();
+		if (setter != null) {
+			try {
+				setter.accept(instance, value);
+			} catch (Exception e) {
+				throw new RuntimeException(toString() + " value [" + value + "]", NestedExceptionUtils.excludeInvalidNestedExcpetion(e));
+			}
+			return;
+		}
+
 		Method method = getMethod();
 		if (method != null) {
 			ReflectionUtils.makeAccessible(method);
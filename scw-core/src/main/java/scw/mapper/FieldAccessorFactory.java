@@ -0,0 +1,254 @@
+package scw.mapper;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import scw.core.reflect.ReflectionUtils;
+import scw.lang.Nullable;
+import scw.logger.Logger;
+import scw.logger.LoggerFactory;
+import scw.util.ConcurrentReferenceHashMap;
+
+/**
+ * 生成字段的访问器，用来代替每次调用都使用反射<br/>
+ * 非静态的get/set方法使用LambdaMetafactory生成实现类(与手写的lambda一样可以被jit内联)，字段和静态方法使用MethodHandle<br/>
+ * 参数为基本类型的set方法也使用MethodHandle，和反射一样支持拓宽转换(如Integer设置到long)<br/>
+ * 生成的访问器按Field/Method缓存，无法生成时(如模块未开放)返回空，由调用者回退为反射
+ *
+ * @author shuchaowen
+ *
+ */
+public final class FieldAccessorFactory {
+	private static Logger logger = LoggerFactory.getLogger(FieldAccessorFactory.class);
+	/**
+	 * 无法生成时缓存的值，避免重复尝试
+	 */
+	private static final Object UNSUPPORTED = new Object();
+	private static final Map<Member, Object> GETTER_CACHE = new ConcurrentReferenceHashMap<Member, Object>();
+	private static final Map<Member, Object> SETTER_CACHE = new ConcurrentReferenceHashMap<Member, Object>();
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	/**
+	 * java9+
+	 */
+	private static final Method PRIVATE_LOOKUP_IN_METHOD;
+	/**
+	 * java8
+	 */
+	private static final Constructor<Lookup> LOOKUP_CONSTRUCTOR;
+
+	static {
+		Method privateLookupIn = null;
+		Constructor<Lookup> constructor = null;
+		try {
+			privateLookupIn = MethodHandles.class.getMethod("privateLookupIn", Class.class, Lookup.class);
+		} catch (NoSuchMethodException e) {
+			try {
+				constructor = Lookup.class.getDeclaredConstructor(Class.class, int.class);
+				constructor.setAccessible(true);
+			} catch (Throwable e1) {
+				constructor = null;
+			}
+		}
+		PRIVATE_LOOKUP_IN_METHOD = privateLookupIn;
+		LOOKUP_CONSTRUCTOR = constructor;
+	}
+
+	private FieldAccessorFactory() {
+	}
+
+	/**
+	 * @param field
+	 * @param method 优先使用
+	 * @return 无法生成时返回空
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	public static Function<Object, Object> getGetter(@Nullable Field field, @Nullable Method method) {
+		Member member = method == null ? field : method;
+		if (member == null) {
+			return null;
+		}
+
+		Object getter = GETTER_CACHE.get(member);
+		if (getter == null) {
+			try {
+				getter = method == null ? createFieldGetter(field) : createMethodGetter(method);
+			} catch (Throwable e) {
+				if (logger.isDebugEnabled()) {
+					logger.debug(e, "Unable to create getter for {}, use reflection", member);
+				}
+				getter = UNSUPPORTED;
+			}
+			GETTER_CACHE.put(member, getter);
+		}
+		return getter == UNSUPPORTED ? null : (Function<Object, Object>) getter;
+	}
+
+	/**
+	 * @param field
+	 * @param method 优先使用
+	 * @return 无法生成时返回空
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	public static BiConsumer<Object, Object> getSetter(@Nullable Field field, @Nullable Method method) {
+		Member member = method == null ? field : method;
+		if (member == null) {
+			return null;
+		}
+
+		Object setter = SETTER_CACHE.get(member);
+		if (setter == null) {
+			try {
+				setter = method == null ? createFieldSetter(field) : createMethodSetter(method);
+			} catch (Throwable e) {
+				if (logger.isDebugEnabled()) {
+					logger.debug(e, "Unable to create setter for {}, use reflection", member);
+				}
+				setter = UNSUPPORTED;
+			}
+			SETTER_CACHE.put(member, setter);
+		}
+		return setter == UNSUPPORTED ? null : (BiConsumer<Object, Object>) setter;
+	}
+
+	/**
+	 * 获取拥有目标类全部访问权限的Lookup，生成的lambda会定义在目标类所在的类加载器中
+	 */
+	private static Lookup privateLookup(Class<?> targetClass) throws Throwable {
+		if (PRIVATE_LOOKUP_IN_METHOD != null) {
+			return (Lookup) PRIVATE_LOOKUP_IN_METHOD.invoke(null, targetClass, MethodHandles.lookup());
+		}
+
+		if (LOOKUP_CONSTRUCTOR != null) {
+			return LOOKUP_CONSTRUCTOR.newInstance(targetClass,
+					Lookup.PUBLIC | Lookup.PRIVATE | Lookup.PROTECTED | Lookup.PACKAGE);
+		}
+		throw new UnsupportedOperationException("private lookup");
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Function<Object, Object> createMethodGetter(Method method) throws Throwable {
+		if (method.getParameterCount() != 0 || method.getReturnType() == void.class) {
+			throw new IllegalArgumentException("Not a getter: " + method);
+		}
+
+		if (Modifier.isStatic(method.getModifiers())) {
+			ReflectionUtils.makeAccessible(method);
+			MethodHandle handle = MethodHandles.dropArguments(MethodHandles.lookup().unreflect(method), 0,
+					Object.class);
+			return new MethodHandleGetter(handle.asType(GETTER_TYPE));
+		}
+
+		Lookup lookup = privateLookup(method.getDeclaringClass());
+		MethodHandle handle = lookup.unreflect(method);
+		CallSite callSite = LambdaMetafactory.metafactory(lookup, "apply", MethodType.methodType(Function.class),
+				GETTER_TYPE.erase(), handle, handle.type().wrap());
+		return (Function<Object, Object>) callSite.getTarget().invoke();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static BiConsumer<Object, Object> createMethodSetter(Method method) throws Throwable {
+		if (method.getParameterCount() != 1) {
+			throw new IllegalArgumentException("Not a setter: " + method);
+		}
+
+		if (Modifier.isStatic(method.getModifiers())) {
+			ReflectionUtils.makeAccessible(method);
+			MethodHandle handle = MethodHandles.lookup().unreflect(method);
+			handle = MethodHandles.dropArguments(handle, 0, Object.class);
+			return new MethodHandleSetter(handle.asType(SETTER_TYPE));
+		}
+
+		Lookup lookup = privateLookup(method.getDeclaringClass());
+		MethodHandle handle = lookup.unreflect(method);
+		Class<?> parameterType = method.getParameterTypes()[0];
+		if (parameterType.isPrimitive()) {
+			// lambda会先强转为包装类型，Integer无法设置到long
+			return new MethodHandleSetter(handle.asType(SETTER_TYPE));
+		}
+
+		MethodType instantiatedType = MethodType.methodType(void.class, method.getDeclaringClass(), parameterType);
+		CallSite callSite = LambdaMetafactory.metafactory(lookup, "accept", MethodType.methodType(BiConsumer.class),
+				SETTER_TYPE, handle, instantiatedType);
+		return (BiConsumer<Object, Object>) callSite.getTarget().invoke();
+	}
+
+	private static Function<Object, Object> createFieldGetter(Field field) throws Throwable {
+		ReflectionUtils.makeAccessible(field);
+		MethodHandle handle = MethodHandles.lookup().unreflectGetter(field);
+		if (Modifier.isStatic(field.getModifiers())) {
+			handle = MethodHandles.dropArguments(handle, 0, Object.class);
+		}
+		return new MethodHandleGetter(handle.asType(GETTER_TYPE));
+	}
+
+	private static BiConsumer<Object, Object> createFieldSetter(Field field) throws Throwable {
+		ReflectionUtils.makeAccessible(field);
+		MethodHandle handle = MethodHandles.lookup().unreflectSetter(field);
+		if (Modifier.isStatic(field.getModifiers())) {
+			handle = MethodHandles.dropArguments(handle, 0, Object.class);
+		}
+		return new MethodHandleSetter(handle.asType(SETTER_TYPE));
+	}
+
+	private static RuntimeException rethrow(Throwable e) {
+		if (e instanceof RuntimeException) {
+			return (RuntimeException) e;
+		}
+
+		if (e instanceof Error) {
+			throw (Error) e;
+		}
+		return new UndeclaredThrowableException(e);
+	}
+
+	private static final class MethodHandleGetter implements Function<Object, Object> {
+		private final MethodHandle handle;
+
+		MethodHandleGetter(MethodHandle handle) {
+			this.handle = handle;
+		}
+
+		@Override
+		public Object apply(Object instance) {
+			try {
+				return handle.invokeExact(instance);
+			} catch (Throwable e) {
+				throw rethrow(e);
+			}
+		}
+	}
+
+	private static final class MethodHandleSetter implements BiConsumer<Object, Object> {
+		private final MethodHandle handle;
+
+		MethodHandleSetter(MethodHandle handle) {
+			this.handle = handle;
+		}
+
+		@Override
+		public void accept(Object instance, Object value) {
+			try {
+				handle.invokeExact(instance, value);
+			} catch (Throwable e) {
+				throw rethrow(e);
+			}
+		}
+	}
+}
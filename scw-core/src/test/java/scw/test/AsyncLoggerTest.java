@@ -0,0 +1,146 @@
+package scw.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.StreamHandler;
+
+import org.junit.Test;
+
+import scw.logger.AsyncLogDispatcher;
+import scw.logger.AsyncLogger;
+import scw.logger.AsyncQueueFullPolicy;
+import scw.logger.CustomFormatter;
+import scw.logger.CustomLevel;
+import scw.logger.JdkLogger;
+import scw.logger.Logger;
+
+public class AsyncLoggerTest {
+
+	@Test
+	public void policy() throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(1);
+		List<String> messages = new ArrayList<String>();
+		Logger target = new Logger() {
+
+			@Override
+			public String getName() {
+				return "test";
+			}
+
+			@Override
+			public boolean isLoggable(Level level) {
+				return true;
+			}
+
+			@Override
+			public void log(Level level, Throwable e, String msg, Object... args) {
+				try {
+					latch.await();
+				} catch (InterruptedException e1) {
+				}
+				messages.add(level.getName() + ":" + args[0]);
+			}
+		};
+
+		AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(4, AsyncQueueFullPolicy.DROP_DEBUG);
+		try {
+			Logger logger = new AsyncLogger(target, dispatcher);
+			try {
+				// 第一个被消费线程取出后阻塞
+				for (int i = 0; i < 10; i++) {
+					logger.debug("{}", i);
+					TimeUnit.MILLISECONDS.sleep(i == 0 ? 100 : 0);
+				}
+				// 正在处理的也占用一个位置
+				assertEquals(6, dispatcher.getDiscardCount());
+			} finally {
+				latch.countDown();
+			}
+			logger.info("{}", 10);
+			assertTrue(dispatcher.flush(10, TimeUnit.SECONDS));
+			assertEquals(5, messages.size());
+			assertEquals("DEBUG:0", messages.get(0));
+			assertEquals("DEBUG:3", messages.get(3));
+			assertEquals("INFO:10", messages.get(4));
+		} finally {
+			dispatcher.destroy();
+		}
+	}
+
+	/**
+	 * 同步和异步的吞吐量对比<br/>
+	 * 突发的日志数量小于缓冲区大小时异步只需要放入缓冲区，持续超过后台线程处理能力时异步的吞吐量受限于后台线程
+	 */
+	@Test
+	public void benchmark() throws InterruptedException {
+		final int threads = 4;
+		java.util.logging.Logger jdkLogger = java.util.logging.Logger
+				.getLogger(AsyncLoggerTest.class.getName() + ".benchmark");
+		jdkLogger.setUseParentHandlers(false);
+		StreamHandler handler = new StreamHandler(new OutputStream() {
+
+			@Override
+			public void write(int b) {
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+			}
+		}, new CustomFormatter());
+		handler.setLevel(Level.ALL);
+		jdkLogger.addHandler(handler);
+		JdkLogger syncLogger = new JdkLogger(jdkLogger);
+		syncLogger.setLevel(CustomLevel.INFO);
+
+		AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(1 << 16, AsyncQueueFullPolicy.BLOCK);
+		try {
+			AsyncLogger asyncLogger = new AsyncLogger(syncLogger, dispatcher);
+			for (int count : new int[] { 10000, 10000, 10000, 100000 }) {
+				long total = threads * count;
+				long sync = run(syncLogger, threads, count);
+				long async = run(asyncLogger, threads, count);
+				long drained = System.nanoTime();
+				assertTrue(dispatcher.flush(1, TimeUnit.MINUTES));
+				drained = async + System.nanoTime() - drained;
+				System.out.println("events: " + total + ", sync: " + opsPerSecond(total, sync) + " ops/s, async caller: "
+						+ opsPerSecond(total, async) + " ops/s, async drained: " + opsPerSecond(total, drained)
+						+ " ops/s");
+			}
+		} finally {
+			dispatcher.destroy();
+			jdkLogger.removeHandler(handler);
+		}
+	}
+
+	private static long opsPerSecond(long count, long nanos) {
+		return count * TimeUnit.SECONDS.toNanos(1) / Math.max(1, nanos);
+	}
+
+	private static long run(Logger logger, int threads, int count) throws InterruptedException {
+		Thread[] array = new Thread[threads];
+		for (int i = 0; i < threads; i++) {
+			array[i] = new Thread(() -> {
+				for (int j = 0; j < count; j++) {
+					logger.info("request [{}] took {}ms", j, 10);
+				}
+			});
+		}
+
+		long t = System.nanoTime();
+		for (Thread thread : array) {
+			thread.start();
+		}
+
+		for (Thread thread : array) {
+			thread.join();
+		}
+		return System.nanoTime() - t;
+	}
+}
@@ -0,0 +1,104 @@
+package scw.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import scw.convert.ConversionService;
+import scw.convert.TypeDescriptor;
+import scw.convert.lang.ConversionServices;
+import scw.convert.lang.ConverterConversionService;
+import scw.convert.support.DefaultConversionService;
+
+public class ConversionServiceTest {
+	private static final TypeDescriptor STRING = TypeDescriptor.valueOf(String.class);
+
+	/**
+	 * 添加服务后缓存的结果失效
+	 */
+	@Test
+	public void cache() {
+		ConversionServices conversionServices = new ConversionServices();
+		TypeDescriptor target = TypeDescriptor.valueOf(Level.class);
+		assertFalse(conversionServices.canConvert(STRING, target));
+		assertFalse(conversionServices.canConvert(STRING, target));
+
+		conversionServices.addConversionService(
+				new ConverterConversionService(String.class, Level.class, (s) -> Level.valueOf(s)));
+		assertTrue(conversionServices.canConvert(STRING, target));
+		assertEquals(Level.HIGH, conversionServices.convert("HIGH", STRING, target));
+	}
+
+	/**
+	 * 常用转换的耗时
+	 */
+	@Test
+	public void benchmark() {
+		ConversionService conversionService = new DefaultConversionService();
+		Entity entity = new Entity();
+		entity.setId(1);
+		entity.setName("a");
+		TypeDescriptor entityType = TypeDescriptor.valueOf(Entity.class);
+		TypeDescriptor mapType = TypeDescriptor.valueOf(Map.class);
+		Date date = new Date();
+		TypeDescriptor dateType = TypeDescriptor.valueOf(Date.class);
+
+		assertEquals(1, conversionService.convert("1", STRING, TypeDescriptor.valueOf(Integer.class)));
+		assertEquals(TimeUnit.SECONDS,
+				conversionService.convert("SECONDS", STRING, TypeDescriptor.valueOf(TimeUnit.class)));
+		assertEquals(String.valueOf(date), conversionService.convert(date, dateType, STRING));
+		Map<?, ?> map = (Map<?, ?>) conversionService.convert(entity, entityType, mapType);
+		assertEquals(1, map.get("id"));
+		assertEquals("a", map.get("name"));
+
+		run("String->Integer", () -> conversionService.convert("1", STRING, TypeDescriptor.valueOf(Integer.class)));
+		run("Date->String", () -> conversionService.convert(date, dateType, STRING));
+		run("String->Enum",
+				() -> conversionService.convert("SECONDS", STRING, TypeDescriptor.valueOf(TimeUnit.class)));
+		run("Entity->Map", () -> conversionService.convert(entity, entityType, mapType));
+	}
+
+	private static void run(String name, Runnable runnable) {
+		int count = 100000;
+		for (int i = 0; i < count; i++) {
+			runnable.run();
+		}
+
+		long t = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			runnable.run();
+		}
+		System.out.println(name + ": " + (System.nanoTime() - t) / count + "ns/op");
+	}
+
+	public static enum Level {
+		LOW, HIGH
+	}
+
+	public static class Entity {
+		private int id;
+		private String name;
+
+		public int getId() {
+			return id;
+		}
+
+		public void setId(int id) {
+			this.id = id;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+	}
+}
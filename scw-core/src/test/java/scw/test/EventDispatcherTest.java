@@ -0,0 +1,70 @@
+package scw.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import scw.event.ObjectEvent;
+import scw.event.support.BatchAsyncEventDispatcher;
+import scw.event.support.BatchAsyncEventDispatcher.BackpressurePolicy;
+import scw.event.support.DefaultEventDispatcher;
+
+public class EventDispatcherTest {
+	@Test
+	public void errorIsolation() {
+		DefaultEventDispatcher<ObjectEvent<Integer>> dispatcher = new DefaultEventDispatcher<ObjectEvent<Integer>>(
+				false);
+		AtomicInteger count = new AtomicInteger();
+		for (int i = 0; i < 10000; i++) {
+			dispatcher.registerListener((event) -> {
+				if (count.incrementAndGet() % 2 == 0) {
+					throw new IllegalStateException("test");
+				}
+			});
+		}
+
+		try {
+			dispatcher.publishEvent(new ObjectEvent<Integer>(1));
+			fail("Expected the first listener error to be rethrown");
+		} catch (IllegalStateException e) {
+			assertEquals(4999, e.getSuppressed().length);
+		}
+		assertEquals(10000, count.get());
+	}
+
+	@Test
+	public void batch() throws InterruptedException {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			BatchAsyncEventDispatcher<ObjectEvent<Integer>> dispatcher = new BatchAsyncEventDispatcher<ObjectEvent<Integer>>(
+					false, 16, 128, executor, BackpressurePolicy.BLOCK);
+			CountDownLatch latch = new CountDownLatch(1000);
+			dispatcher.registerListener((event) -> {
+				latch.countDown();
+				if (event.getSource() == 0) {
+					throw new IllegalStateException("test");
+				}
+			});
+			dispatcher.registerListener((event) -> latch.countDown());
+
+			for (int i = 0; i < 500; i++) {
+				dispatcher.publishEvent(new ObjectEvent<Integer>(i));
+			}
+			latch.await(10, TimeUnit.SECONDS);
+			assertEquals(0, latch.getCount());
+			assertEquals(1, dispatcher.getFailureCount());
+			System.out.println("queue depth: " + dispatcher.getQueueDepth() + ", average latency: "
+					+ dispatcher.getAverageDispatchLatency() + "ns, max latency: "
+					+ dispatcher.getMaxDispatchLatency() + "ns");
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package scw.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+import scw.mapper.Copy;
+import scw.mapper.Field;
+import scw.mapper.FieldAccessorFactory;
+import scw.mapper.Fields;
+import scw.mapper.MapperUtils;
+
+public class FieldAccessorTest {
+
+	@Test
+	public void accessor() throws Exception {
+		Fields fields = MapperUtils.getMapper().getFields(Bean.class);
+		Bean bean = new Bean();
+		Field id = fields.find("id", null);
+		id.getSetter().set(bean, 10);
+		assertEquals(10, bean.getId());
+		assertEquals(10, id.getGetter().get(bean));
+
+		Field name = fields.find("name", null);
+		name.getSetter().set(bean, "a");
+		assertEquals("a", name.getGetter().get(bean));
+
+		// 没有get/set方法的私有字段
+		Field value = fields.find("value", null);
+		value.getSetter().set(bean, 1L);
+		assertEquals(1L, value.getGetter().get(bean));
+
+		Method getId = Bean.class.getMethod("getId");
+		Function<Object, Object> getter = FieldAccessorFactory.getGetter(null, getId);
+		assertNotNull(getter);
+		assertEquals(10, getter.apply(bean));
+		BiConsumer<Object, Object> setter = FieldAccessorFactory.getSetter(null,
+				Bean.class.getMethod("setId", int.class));
+		assertNotNull(setter);
+		setter.accept(bean, 20);
+		assertEquals(20, bean.getId());
+
+		try {
+			id.getSetter().set(bean, null);
+			assertTrue(false);
+		} catch (RuntimeException e) {
+			// 基本类型不能设置为空
+		}
+	}
+
+	/**
+	 * 和反射一样，基本类型支持拓宽转换
+	 */
+	@Test
+	public void widening() throws Exception {
+		Bean bean = new Bean();
+		BiConsumer<Object, Object> setter = FieldAccessorFactory.getSetter(null,
+				Bean.class.getMethod("setCount", long.class));
+		assertNotNull(setter);
+		setter.accept(bean, 5);
+		assertEquals(5L, bean.getCount());
+
+		setter = FieldAccessorFactory.getSetter(Bean.class.getDeclaredField("value"), null);
+		assertNotNull(setter);
+		setter.accept(bean, 6);
+		assertEquals(6L, MapperUtils.getMapper().getFields(Bean.class).find("value", null).getGetter().get(bean));
+
+		Field count = MapperUtils.getMapper().getFields(Bean.class).find("count", null);
+		count.getSetter().set(bean, 7);
+		assertEquals(7L, count.getGetter().get(bean));
+	}
+
+	/**
+	 * 对比反射和生成的访问器的耗时
+	 */
+	@Test
+	public void benchmark() throws Exception {
+		int count = 1000000;
+		Bean source = new Bean();
+		source.setId(1);
+		source.setName("name");
+		Method getName = Bean.class.getMethod("getName");
+		Method setName = Bean.class.getMethod("setName", String.class);
+		Function<Object, Object> getter = FieldAccessorFactory.getGetter(null, getName);
+		BiConsumer<Object, Object> setter = FieldAccessorFactory.getSetter(null, setName);
+		Bean target = new Bean();
+		for (int i = 0; i < count; i++) {
+			setName.invoke(target, getName.invoke(source));
+			setter.accept(target, getter.apply(source));
+		}
+
+		long t = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			setName.invoke(target, getName.invoke(source));
+		}
+		long reflection = System.nanoTime() - t;
+
+		t = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			setter.accept(target, getter.apply(source));
+		}
+		long accessor = System.nanoTime() - t;
+
+		t = System.nanoTime();
+		for (int i = 0; i < count / 10; i++) {
+			Copy.copy(new Bean(), source);
+		}
+		long copy = System.nanoTime() - t;
+		System.out.println("reflection: " + reflection / count + "ns/op, accessor: " + accessor / count
+				+ "ns/op, copy: " + copy * 10 / count + "ns/op");
+		assertEquals("name", target.getName());
+	}
+
+	public static class Bean {
+		private int id;
+		private String name;
+		@SuppressWarnings("unused")
+		private long value;
+		private long count;
+
+		public int getId() {
+			return id;
+		}
+
+		public void setId(int id) {
+			this.id = id;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public void setCount(long count) {
+			this.count = count;
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package scw.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.junit.Test;
+
+import scw.locks.LockFactory;
+import scw.locks.ReentrantLockFactory;
+import scw.locks.StripedLockFactory;
+
+public class LockFactoryTest {
+
+	@Test
+	public void referenceCounted() throws InterruptedException {
+		ReentrantLockFactory lockFactory = new ReentrantLockFactory();
+		Lock lock = lockFactory.getLock("a");
+		lock.lock();
+		lock.lock();
+		assertEquals(1, lockFactory.size());
+
+		AtomicBoolean locked = new AtomicBoolean(true);
+		Thread thread = new Thread(() -> locked.set(lockFactory.getLock("a").tryLock()));
+		thread.start();
+		thread.join();
+		assertFalse(locked.get());
+
+		lock.unlock();
+		assertEquals(1, lockFactory.size());
+		lock.unlock();
+		assertEquals(0, lockFactory.size());
+
+		for (int i = 0; i < 1000; i++) {
+			Lock l = lockFactory.getLock("key" + i);
+			assertTrue(l.tryLock(1, TimeUnit.SECONDS));
+			l.unlock();
+		}
+		assertEquals(0, lockFactory.size());
+	}
+
+	@Test
+	public void condition() throws InterruptedException {
+		ReentrantLockFactory lockFactory = new ReentrantLockFactory();
+		Lock lock = lockFactory.getLock("a");
+		// 在锁对象被删除前后创建的Condition都可以使用
+		Condition condition = lock.newCondition();
+		for (int i = 0; i < 2; i++) {
+			AtomicBoolean ready = new AtomicBoolean();
+			Thread thread = new Thread(() -> {
+				Lock l = lockFactory.getLock("a");
+				l.lock();
+				try {
+					ready.set(true);
+					condition.signalAll();
+				} finally {
+					l.unlock();
+				}
+			});
+
+			lock.lock();
+			try {
+				thread.start();
+				while (!ready.get()) {
+					assertTrue(condition.await(5, TimeUnit.SECONDS) || ready.get());
+				}
+			} finally {
+				lock.unlock();
+			}
+			thread.join();
+			assertEquals(0, lockFactory.size());
+		}
+	}
+
+	@Test
+	public void striped() {
+		StripedLockFactory lockFactory = new StripedLockFactory(100);
+		assertEquals(128, lockFactory.getStripes());
+		assertTrue(lockFactory.getLock("a") == lockFactory.getLock("a"));
+	}
+
+	/**
+	 * 锁竞争的简单性能对比(没有使用jmh)
+	 */
+	@Test
+	public void contention() throws InterruptedException {
+		LockFactory unbounded = new LockFactory() {
+			private final ConcurrentHashMap<String, Lock> map = new ConcurrentHashMap<String, Lock>();
+
+			@Override
+			public Lock getLock(String name) {
+				return map.computeIfAbsent(name, (key) -> new ReentrantLock());
+			}
+		};
+
+		int threads = Runtime.getRuntime().availableProcessors() * 2;
+		for (int keys : new int[] { 16, 100000 }) {
+			for (int round = 0; round < 2; round++) {
+				long unboundedTime = contention(unbounded, threads, keys);
+				long referenceTime = contention(new ReentrantLockFactory(), threads, keys);
+				long stripedTime = contention(new StripedLockFactory(), threads, keys);
+				System.out.println("threads=" + threads + ", keys=" + keys + ", unbounded=" + unboundedTime
+						+ "ms, referenceCounted=" + referenceTime + "ms, striped=" + stripedTime + "ms");
+			}
+		}
+	}
+
+	private static long contention(LockFactory lockFactory, int threads, int keys) throws InterruptedException {
+		int count = 100000;
+		int[] counters = new int[keys];
+		CountDownLatch latch = new CountDownLatch(threads);
+		long t = System.currentTimeMillis();
+		for (int i = 0; i < threads; i++) {
+			new Thread(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (int j = 0; j < count; j++) {
+					int key = random.nextInt(keys);
+					Lock lock = lockFactory.getLock("key" + key);
+					lock.lock();
+					try {
+						counters[key]++;
+					} finally {
+						lock.unlock();
+					}
+				}
+				latch.countDown();
+			}).start();
+		}
+		latch.await();
+		long time = System.currentTimeMillis() - t;
+
+		long total = 0;
+		for (int counter : counters) {
+			total += counter;
+		}
+		assertEquals((long) threads * count, total);
+		return time;
+	}
+}
@@ -0,0 +1,123 @@
+package scw.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import scw.aop.MethodInterceptor;
+import scw.aop.MethodInterceptorAccept;
+import scw.aop.support.ConfigurableMethodInterceptor;
+import scw.aop.support.MethodInterceptorsInvoker;
+import scw.aop.support.ProxyUtils;
+import scw.core.reflect.MethodInvoker;
+
+public class MethodInterceptorChainTest {
+
+	@Test
+	public void chain() {
+		List<String> records = new ArrayList<String>();
+		ConfigurableMethodInterceptor interceptors = new ConfigurableMethodInterceptor();
+		interceptors.addMethodInterceptor(new RecordInterceptor("a", records));
+		interceptors.addMethodInterceptor(new RejectInterceptor());
+		// 重试一次
+		interceptors.addMethodInterceptor((invoker, args) -> {
+			invoker.invoke(args);
+			return invoker.invoke(args);
+		});
+		interceptors.addMethodInterceptor(new RecordInterceptor("b", records));
+		Service service = (Service) ProxyUtils.getFactory().getProxy(Service.class, null, interceptors).create();
+		assertEquals(2, service.add(1));
+		assertEquals(Arrays.asList("a", "b", "b"), records);
+
+		// 添加后重新解析
+		records.clear();
+		interceptors.addFirstMethodInterceptor(new RecordInterceptor("c", records));
+		assertEquals(2, service.add(1));
+		assertEquals(Arrays.asList("c", "a", "b", "b"), records);
+	}
+
+	/**
+	 * 对比每次调用分配的内存
+	 */
+	@Test
+	public void allocation() {
+		List<MethodInterceptor> list = new ArrayList<MethodInterceptor>();
+		for (int i = 0; i < 4; i++) {
+			list.add((invoker, args) -> invoker.invoke(args));
+		}
+		list.add(new RejectInterceptor());
+
+		ConfigurableMethodInterceptor interceptors = new ConfigurableMethodInterceptor();
+		list.forEach((interceptor) -> interceptors.addMethodInterceptor(interceptor));
+		Service chain = (Service) ProxyUtils.getFactory().getProxy(Service.class, null, interceptors).create();
+
+		@SuppressWarnings("deprecation")
+		MethodInterceptor legacyInterceptor = (invoker, args) -> new MethodInterceptorsInvoker(invoker,
+				list.iterator()).invoke(args);
+		Service legacy = (Service) ProxyUtils.getFactory().getProxy(Service.class, null, legacyInterceptor)
+				.create();
+
+		long chainBytes = allocatedBytesPerCall(chain);
+		long legacyBytes = allocatedBytesPerCall(legacy);
+		System.out.println("legacy: " + legacyBytes + "B/op, chain: " + chainBytes + "B/op");
+		assertTrue(chainBytes < legacyBytes);
+	}
+
+	@SuppressWarnings("restriction")
+	private static long allocatedBytesPerCall(Service service) {
+		com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		int count = 100000;
+		for (int i = 0; i < count; i++) {
+			service.add(i);
+		}
+
+		long threadId = Thread.currentThread().getId();
+		long bytes = threadMXBean.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < count; i++) {
+			service.add(i);
+		}
+		return (threadMXBean.getThreadAllocatedBytes(threadId) - bytes) / count;
+	}
+
+	public static class Service {
+		public int add(int value) {
+			return value + 1;
+		}
+	}
+
+	private static final class RecordInterceptor implements MethodInterceptor {
+		private final String name;
+		private final List<String> records;
+
+		RecordInterceptor(String name, List<String> records) {
+			this.name = name;
+			this.records = records;
+		}
+
+		@Override
+		public Object intercept(MethodInvoker invoker, Object[] args) throws Throwable {
+			records.add(name);
+			return invoker.invoke(args);
+		}
+	}
+
+	private static final class RejectInterceptor implements MethodInterceptor, MethodInterceptorAccept {
+
+		@Override
+		public boolean isAccept(MethodInvoker invoker, Object[] args) {
+			return false;
+		}
+
+		@Override
+		public Object intercept(MethodInvoker invoker, Object[] args) throws Throwable {
+			throw new IllegalStateException("rejected");
+		}
+	}
+}
@@ -73,4 +73,16 @@ public abstract class AbstractDataOperationsWrapper implements DataOperations {
 	public void delete(Collection<String> keys) {
 		getDataOperations().delete(keys);
 	}
+
+	public void set(Map<String, ?> valueMap, int exp) {
+		getDataOperations().set(valueMap, exp);
+	}
+
+	public long touch(Collection<String> keys, int exp) {
+		return getDataOperations().touch(keys, exp);
+	}
+
+	public Map<String, Long> incr(Map<String, Long> deltaMap) {
+		return getDataOperations().incr(deltaMap);
+	}
 }
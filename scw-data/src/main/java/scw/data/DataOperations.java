@@ -1,4 +1,51 @@
 package scw.data;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
 public interface DataOperations extends TemporaryStorage, Storage, TemporaryCounter, Counter {
+	/**
+	 * 批量设置
+	 * 
+	 * @param valueMap
+	 * @param exp      过期时间(秒)，小于等于0表示不过期
+	 */
+	default void set(Map<String, ?> valueMap, int exp) {
+		for (Entry<String, ?> entry : valueMap.entrySet()) {
+			set(entry.getKey(), exp, entry.getValue());
+		}
+	}
+
+	/**
+	 * 批量修改过期时间
+	 * 
+	 * @param keys
+	 * @param exp  过期时间(秒)
+	 * @return 存在的key的数量
+	 */
+	default long touch(Collection<String> keys, int exp) {
+		long count = 0;
+		for (String key : keys) {
+			if (touch(key, exp)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * 批量自增, 不存在时的结果为增量(与redis的incrby一致)
+	 * 
+	 * @param deltaMap key和增量
+	 * @return key和自增后的值
+	 */
+	default Map<String, Long> incr(Map<String, Long> deltaMap) {
+		Map<String, Long> valueMap = new LinkedHashMap<String, Long>(deltaMap.size());
+		for (Entry<String, Long> entry : deltaMap.entrySet()) {
+			valueMap.put(entry.getKey(), incr(entry.getKey(), entry.getValue(), entry.getValue()));
+		}
+		return valueMap;
+	}
 }
@@ -87,6 +87,10 @@ public abstract class AbstractMemoryData implements MemoryData {
 		setValue(SerializerUtils.clone(value));
 	}
 
+	public Object peek() {
+		return getValue();
+	}
+
 	protected abstract boolean setValue(Object value);
 
 	protected abstract Object getValue();
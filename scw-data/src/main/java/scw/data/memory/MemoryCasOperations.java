@@ -20,6 +20,7 @@ public class MemoryCasOperations implements CASOperations {
 		MemoryData memoryData = memoryDataManager.createDefaultMemoryCache(key);
 		if (memoryData.set(new CAS<Object>(cas, value))) {
 			memoryData.setExpire(exp);
+			memoryDataManager.afterWrite(key, memoryData);
 			return true;
 		}
 		return false;
@@ -38,12 +39,14 @@ public class MemoryCasOperations implements CASOperations {
 		MemoryData memoryData = memoryDataManager.createDefaultMemoryCache(key);
 		memoryData.set(value);
 		memoryData.setExpire(exp);
+		memoryDataManager.afterWrite(key, memoryData);
 	}
 
 	public boolean add(String key, Object value, int exp) {
 		MemoryData memoryData = memoryDataManager.createDefaultMemoryCache(key);
 		if (memoryData.setIfAbsent(value)) {
 			memoryData.setExpire(exp);
+			memoryDataManager.afterWrite(key, memoryData);
 			return true;
 		}
 		return false;
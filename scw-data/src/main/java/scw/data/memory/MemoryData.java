@@ -45,4 +45,11 @@ public interface MemoryData {
 	boolean setIfAbsent(CAS<Object> value);
 
 	boolean isExpire();
+
+	/**
+	 * 获取当前的值(不会克隆)，一般用于计算权重
+	 * 
+	 * @return
+	 */
+	Object peek();
 }
@@ -1,21 +1,44 @@
 package scw.data.memory;
 
 import java.util.Iterator;
-import java.util.Map.Entry;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
 import scw.context.Destroy;
-import scw.data.cas.CAS;
+import scw.core.Assert;
 import scw.env.Sys;
+import scw.lang.Nullable;
 import scw.logger.Logger;
 import scw.logger.LoggerFactory;
 
+/**
+ * 内存缓存的管理<br/>
+ * 可以限制最大的数量(或权重), 超出时使用分段LRU(SLRU)淘汰：新数据先进入试用区，再次访问时晋升到保护区，优先淘汰试用区中最久未使用的数据<br/>
+ * 过期数据由后台分批清理, 每秒只检查一部分, 一个清理周期内检查完所有的数据
+ *
+ * @author shuchaowen
+ *
+ */
 public final class MemoryDataManager implements Destroy {
 	// 单位：秒
 	private static final int DEFAULT_CLEAR_PERIOD = Sys.env
 			.getValue("memory.temporary.cache.clear.period", int.class, 60);
+	/**
+	 * 默认的最大数量，0表示不限制
+	 */
+	private static final long DEFAULT_MAXIMUM_SIZE = Sys.env.getValue("memory.temporary.cache.max.size", long.class,
+			0L);
+	/**
+	 * 每次清理过期数据时最少检查的数量
+	 */
+	private static final int MIN_SWEEP_SIZE = 100;
+	/**
+	 * 保护区占最大容量的比例
+	 */
+	private static final double PROTECTED_RATIO = 0.8;
 	private static final Timer TIMER = new Timer(MemoryDataManager.class.getSimpleName(), true);
 
 	private static Logger logger = LoggerFactory.getLogger(MemoryDataManager.class);
@@ -29,9 +52,24 @@ public final class MemoryDataManager implements Destroy {
 		});
 	}
 
-	private final ConcurrentHashMap<String, MemoryData> cacheMap = new ConcurrentHashMap<String, MemoryData>();
+	private final ConcurrentHashMap<String, Node> cacheMap = new ConcurrentHashMap<String, Node>();
+	private final int clearPeriodSecond;
+	private final long maximumWeight;
+	private final long maximumProtectedWeight;
+	private final Weigher weigher;
+	private final ReentrantLock evictionLock = new ReentrantLock();
+	// 试用区和保护区，队头是最久未使用的
+	private final Node probation = new Node(null, null);
+	private final Node protectedQueue = new Node(null, null);
+	private long weightedSize;
+	private long protectedWeightedSize;
 	private TimerTask timerTask;
 
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+	private final LongAdder expiredCount = new LongAdder();
+
 	public MemoryDataManager() {
 		this(DEFAULT_CLEAR_PERIOD);
 	}
@@ -41,78 +79,344 @@ public final class MemoryDataManager implements Destroy {
 	 *            单位：秒
 	 */
 	public MemoryDataManager(int clearPeriodSecond) {
+		this(clearPeriodSecond, DEFAULT_MAXIMUM_SIZE, null);
+	}
+
+	/**
+	 * @param clearPeriodSecond
+	 *            单位：秒
+	 * @param maximumWeight
+	 *            最大的权重，如果未指定weigher那么就是最大的数量，小于等于0表示不限制
+	 * @param weigher
+	 *            为空时每一项的权重都为1
+	 */
+	public MemoryDataManager(int clearPeriodSecond, long maximumWeight, @Nullable Weigher weigher) {
+		this.clearPeriodSecond = Math.max(1, clearPeriodSecond);
+		this.maximumWeight = Math.max(0, maximumWeight);
+		this.maximumProtectedWeight = (long) (this.maximumWeight * PROTECTED_RATIO);
+		this.weigher = weigher;
+		probation.prev = probation.next = probation;
+		protectedQueue.prev = protectedQueue.next = protectedQueue;
 		this.timerTask = new ClearExpireKeyTask();
-		int period = Math.max(1, clearPeriodSecond);
-		TIMER.schedule(timerTask, period * 1000L, period * 1000L);
+		TIMER.schedule(timerTask, 1000L, 1000L);
+	}
+
+	public boolean isBounded() {
+		return maximumWeight > 0;
+	}
+
+	public long getMaximumWeight() {
+		return maximumWeight;
 	}
 
 	public MemoryData getMemoryCache(String key) {
-		MemoryData memoryData = cacheMap.get(key);
-		if (memoryData == null) {
+		Node node = cacheMap.get(key);
+		if (node == null || node.data.isExpire()) {
+			missCount.increment();
 			return null;
 		}
 
-		if (memoryData.isExpire()) {
-			return null;
+		hitCount.increment();
+		afterRead(node);
+		return node.data;
+	}
+
+	public MemoryData createDefaultMemoryCache(String key) {
+		return create(key, new DefaultMemoryData());
+	}
+
+	public MemoryData createCounterMemoryCache(String key) {
+		return create(key, new CounterMemoryData());
+	}
+
+	private MemoryData create(String key, MemoryData memoryData) {
+		Node node = new Node(key, memoryData);
+		Node old = cacheMap.putIfAbsent(key, node);
+		if (old != null) {
+			afterRead(old);
+			return old.data;
 		}
 
+		if (isBounded()) {
+			evictionLock.lock();
+			try {
+				// 可能在加锁前已经被删除了
+				if (!node.removed) {
+					node.weight = weigh(key, memoryData);
+					link(probation, node);
+					weightedSize += node.weight;
+					evict();
+				}
+			} finally {
+				evictionLock.unlock();
+			}
+		}
 		return memoryData;
 	}
 
-	public MemoryData createDefaultMemoryCache(String key) {
-		MemoryData memoryData = new DefaultMemoryData();
-		MemoryData old = cacheMap.putIfAbsent(key, memoryData);
-		return old == null ? memoryData : old;
+	/**
+	 * 修改值之后调用，用于重新计算权重
+	 *
+	 * @param key
+	 * @param memoryData
+	 */
+	public void afterWrite(String key, MemoryData memoryData) {
+		if (!isBounded() || weigher == null) {
+			return;
+		}
+
+		Node node = cacheMap.get(key);
+		if (node == null || node.data != memoryData) {
+			return;
+		}
+
+		int weight = weigh(key, memoryData);
+		evictionLock.lock();
+		try {
+			if (node.removed || node.weight == weight) {
+				return;
+			}
+
+			if (node.queue == protectedQueue) {
+				protectedWeightedSize += weight - node.weight;
+			}
+			weightedSize += weight - node.weight;
+			node.weight = weight;
+			evict();
+		} finally {
+			evictionLock.unlock();
+		}
 	}
 
-	public MemoryData createCounterMemoryCache(String key) {
-		MemoryData memoryData = new CounterMemoryData();
-		MemoryData old = cacheMap.putIfAbsent(key, memoryData);
-		return old == null ? memoryData : old;
+	private int weigh(String key, MemoryData memoryData) {
+		if (weigher == null) {
+			return 1;
+		}
+
+		int weight = weigher.weigh(key, memoryData.peek());
+		Assert.isTrue(weight >= 0, "weight must be greater than or equal to 0");
+		return weight;
+	}
+
+	private void afterRead(Node node) {
+		if (!isBounded()) {
+			return;
+		}
+
+		// 读操作不等待锁，竞争激烈时丢弃一部分访问记录也不会影响淘汰的效果
+		if (evictionLock.tryLock()) {
+			try {
+				if (node.removed || node.queue == null) {
+					return;
+				}
+
+				unlink(node);
+				if (node.queue == probation) {
+					protectedWeightedSize += node.weight;
+				}
+				link(protectedQueue, node);
+				// 保护区已满，将最久未使用的降级到试用区
+				while (protectedWeightedSize > maximumProtectedWeight && protectedQueue.next != protectedQueue) {
+					Node demote = protectedQueue.next;
+					unlink(demote);
+					protectedWeightedSize -= demote.weight;
+					link(probation, demote);
+				}
+			} finally {
+				evictionLock.unlock();
+			}
+		}
+	}
+
+	private void evict() {
+		while (weightedSize > maximumWeight) {
+			Node victim = probation.next != probation ? probation.next : protectedQueue.next;
+			if (victim == protectedQueue) {
+				break;
+			}
+
+			cacheMap.remove(victim.key, victim);
+			remove(victim);
+			evictionCount.increment();
+			if (logger.isTraceEnabled()) {
+				logger.trace("Evicting key:{}", victim.key);
+			}
+		}
+	}
+
+	private static void link(Node queue, Node node) {
+		Node tail = queue.prev;
+		node.prev = tail;
+		node.next = queue;
+		tail.next = node;
+		queue.prev = node;
+		node.queue = queue;
+	}
+
+	private static void unlink(Node node) {
+		node.prev.next = node.next;
+		node.next.prev = node.prev;
+		node.prev = null;
+		node.next = null;
+	}
+
+	/**
+	 * 从淘汰队列中移除，调用前需要先从cacheMap中移除
+	 *
+	 * @param node
+	 */
+	private void remove(Node node) {
+		if (!isBounded()) {
+			return;
+		}
+
+		evictionLock.lock();
+		try {
+			if (node.removed) {
+				return;
+			}
+
+			node.removed = true;
+			if (node.queue != null) {
+				unlink(node);
+				if (node.queue == protectedQueue) {
+					protectedWeightedSize -= node.weight;
+				}
+				weightedSize -= node.weight;
+				node.queue = null;
+			}
+		} finally {
+			evictionLock.unlock();
+		}
 	}
 
 	public boolean delete(String key) {
-		return cacheMap.remove(key) != null;
+		Node node = cacheMap.remove(key);
+		if (node == null) {
+			return false;
+		}
+
+		remove(node);
+		return true;
 	}
 
 	public boolean delete(String key, long cas) {
-		MemoryData memoryData = getMemoryCache(key);
-		if (memoryData == null) {
+		Node node = cacheMap.get(key);
+		if (node == null || node.data.isExpire()) {
 			return false;
 		}
 
-		if (memoryData.incrCasAndCompare(cas)) {
-			return cacheMap.remove(key) != null;
+		if (node.data.incrCasAndCompare(cas) && cacheMap.remove(key, node)) {
+			remove(node);
+			return true;
 		}
 		return false;
 	}
 
+	/**
+	 * 当前的数量(包含已过期但还未清理的)
+	 *
+	 * @return
+	 */
+	public int size() {
+		return cacheMap.size();
+	}
+
+	/**
+	 * 当前的总权重，未限制容量时为0
+	 *
+	 * @return
+	 */
+	public long getWeightedSize() {
+		evictionLock.lock();
+		try {
+			return weightedSize;
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	public double getHitRate() {
+		long hit = getHitCount();
+		long total = hit + getMissCount();
+		return total == 0 ? 1.0 : (double) hit / total;
+	}
+
+	/**
+	 * 因容量不足而淘汰的数量
+	 *
+	 * @return
+	 */
+	public long getEvictionCount() {
+		return evictionCount.sum();
+	}
+
+	/**
+	 * 后台清理的过期数据的数量
+	 *
+	 * @return
+	 */
+	public long getExpiredCount() {
+		return expiredCount.sum();
+	}
+
 	public void destroy() {
 		if (timerTask != null) {
 			timerTask.cancel();
 		}
 	}
 
+	private static final class Node {
+		private final String key;
+		private final MemoryData data;
+		private Node prev;
+		private Node next;
+		// 所在的队列, 为空说明还未加入
+		private Node queue;
+		private int weight;
+		private boolean removed;
+
+		Node(String key, MemoryData data) {
+			this.key = key;
+			this.data = data;
+		}
+	}
+
 	private final class ClearExpireKeyTask extends TimerTask {
+		private Iterator<Node> iterator;
 
 		@Override
 		public void run() {
 			try {
-				Iterator<Entry<String, MemoryData>> iterator = cacheMap.entrySet().iterator();
-				while (iterator.hasNext()) {
-					Entry<String, MemoryData> entry = iterator.next();
-					MemoryData memoryData = entry.getValue();
-					if (memoryData.isExpire()) {
-						CAS<?> cas = memoryData.get();
-						long c = 0;
-						if (cas != null) {
-							c = cas.getCas();
-						}
+				// 每次只检查一部分，在一个清理周期内检查完所有的数据
+				int count = Math.max(MIN_SWEEP_SIZE, cacheMap.size() / clearPeriodSecond + 1);
+				if (iterator == null) {
+					iterator = cacheMap.values().iterator();
+				}
+
+				for (int i = 0; i < count; i++) {
+					if (!iterator.hasNext()) {
+						// 已经检查完一轮，下次重新开始
+						iterator = null;
+						break;
+					}
 
-						boolean b = memoryData.incrCasAndCompare(c);
-						if (b) {
-							iterator.remove();
-							logger.debug("Deleting expired key:{}", entry.getKey());
+					Node node = iterator.next();
+					MemoryData memoryData = node.data;
+					// 过期的数据cas会被视为0，和0比较成功说明在此期间没有被重新写入
+					if (memoryData.isExpire() && memoryData.incrCasAndCompare(0)) {
+						if (cacheMap.remove(node.key, node)) {
+							remove(node);
+							expiredCount.increment();
+							logger.debug("Deleting expired key:{}", node.key);
 						}
 					}
 				}
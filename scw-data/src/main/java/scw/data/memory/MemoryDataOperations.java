@@ -49,17 +49,23 @@ public final class MemoryDataOperations implements DataOperations {
 	public void set(String key, Object value) {
 		MemoryData memoryData = memoryDataManager.createDefaultMemoryCache(key);
 		memoryData.set(value);
+		memoryDataManager.afterWrite(key, memoryData);
 	}
 
 	public void set(String key, int exp, Object value) {
 		MemoryData memoryData = memoryDataManager.createDefaultMemoryCache(key);
 		memoryData.set(value);
 		memoryData.setExpire(exp);
+		memoryDataManager.afterWrite(key, memoryData);
 	}
 
 	public boolean add(String key, Object value) {
 		MemoryData memoryData = memoryDataManager.createDefaultMemoryCache(key);
-		return memoryData.setIfAbsent(value);
+		if (!memoryData.setIfAbsent(value)) {
+			return false;
+		}
+		memoryDataManager.afterWrite(key, memoryData);
+		return true;
 	}
 
 	public boolean add(String key, int exp, Object value) {
@@ -68,6 +74,7 @@ public final class MemoryDataOperations implements DataOperations {
 			return false;
 		}
 		memoryData.setExpire(exp);
+		memoryDataManager.afterWrite(key, memoryData);
 		return true;
 	}
 
@@ -78,6 +85,7 @@ public final class MemoryDataOperations implements DataOperations {
 		}
 
 		memoryData.setExpire(exp);
+		memoryData.touch();
 		return true;
 	}
 
@@ -146,6 +154,15 @@ public final class MemoryDataOperations implements DataOperations {
 		}
 	}
 
+	/**
+	 * 可以通过它获取命中率、淘汰数量等统计信息
+	 * 
+	 * @return
+	 */
+	public MemoryDataManager getMemoryDataManager() {
+		return memoryDataManager;
+	}
+
 	public CASOperations getCASOperations() {
 		return memoryCasOperations;
 	}
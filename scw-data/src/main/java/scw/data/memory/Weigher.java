@@ -0,0 +1,19 @@
+package scw.data.memory;
+
+import scw.lang.Nullable;
+
+/**
+ * 计算缓存项的权重(如占用的字节数)，用于{@link MemoryDataManager}的容量限制
+ *
+ * @author shuchaowen
+ *
+ */
+@FunctionalInterface
+public interface Weigher {
+	/**
+	 * @param key
+	 * @param value 当前的值, 还未设置值时为空
+	 * @return 不能小于0
+	 */
+	int weigh(String key, @Nullable Object value);
+}
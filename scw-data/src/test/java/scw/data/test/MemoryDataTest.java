@@ -0,0 +1,109 @@
+package scw.data.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import scw.data.cas.CAS;
+import scw.data.memory.MemoryDataManager;
+import scw.data.memory.MemoryDataOperations;
+
+public class MemoryDataTest {
+	@Test
+	public void maximumSize() {
+		MemoryDataManager manager = new MemoryDataManager(60, 100, null);
+		MemoryDataOperations operations = new MemoryDataOperations(manager);
+		try {
+			operations.set("hot", "hot");
+			for (int i = 0; i < 10000; i++) {
+				operations.set("key" + i, i);
+				// 经常访问的数据会进入保护区，不会被淘汰
+				assertNotNull(operations.get("hot"));
+			}
+			operations.incr("counter", 1, 1);
+			operations.getCASOperations().set("cas", "cas", 0);
+
+			assertTrue(manager.size() <= 100);
+			assertEquals(100, manager.getWeightedSize());
+			assertEquals(10003 - 100, manager.getEvictionCount());
+			assertEquals("hot", operations.get("hot"));
+			assertEquals(9999, (int) operations.get("key9999"));
+			assertNull(operations.get("key0"));
+			assertEquals(2, operations.incr("counter", 1, 1));
+			CAS<String> cas = operations.getCASOperations().get("cas");
+			assertEquals("cas", cas.getValue());
+			assertTrue(manager.getHitRate() > 0.9);
+		} finally {
+			manager.destroy();
+		}
+	}
+
+	@Test
+	public void weigher() {
+		MemoryDataManager manager = new MemoryDataManager(60, 100,
+				(key, value) -> value == null ? 0 : value.toString().length());
+		MemoryDataOperations operations = new MemoryDataOperations(manager);
+		try {
+			operations.set("a", "0123456789");
+			operations.set("b", "0123456789");
+			assertEquals(20, manager.getWeightedSize());
+			// 重新计算权重，超出容量后淘汰最久未使用的a
+			operations.set("b", "0123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890");
+			assertNull(operations.get("a"));
+			assertEquals(91, manager.getWeightedSize());
+			operations.delete("b");
+			assertEquals(0, manager.getWeightedSize());
+		} finally {
+			manager.destroy();
+		}
+	}
+
+	@Test
+	public void batch() {
+		MemoryDataOperations operations = new MemoryDataOperations();
+		try {
+			Map<String, Object> valueMap = new HashMap<String, Object>();
+			valueMap.put("a", "a");
+			valueMap.put("b", "b");
+			operations.set(valueMap, 60);
+			assertEquals(valueMap, operations.get(Arrays.asList("a", "b", "c")));
+			assertEquals(2, operations.touch(Arrays.asList("a", "b", "c"), 120));
+
+			Map<String, Long> deltaMap = new HashMap<String, Long>();
+			deltaMap.put("x", 1L);
+			deltaMap.put("y", 2L);
+			operations.incr(deltaMap);
+			Map<String, Long> result = operations.incr(deltaMap);
+			assertEquals(2L, (long) result.get("x"));
+			assertEquals(4L, (long) result.get("y"));
+		} finally {
+			operations.getMemoryDataManager().destroy();
+		}
+	}
+
+	@Test
+	public void expire() throws InterruptedException {
+		MemoryDataManager manager = new MemoryDataManager(1);
+		MemoryDataOperations operations = new MemoryDataOperations(manager);
+		try {
+			operations.set("a", 1, "a");
+			// 清理任务删除过期数据后不能让它重新出现
+			for (int i = 0; i < 8; i++) {
+				Thread.sleep(500L);
+				if (i >= 3) {
+					assertNull(operations.get("a"));
+				}
+			}
+			assertEquals(0, manager.size());
+		} finally {
+			manager.destroy();
+		}
+	}
+}
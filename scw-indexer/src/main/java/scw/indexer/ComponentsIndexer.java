@@ -0,0 +1,180 @@
+package scw.indexer;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.NoSuchFileException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * 在编译时生成组件索引(META-INF/scw.components)，运行时存在索引时可以不再扫描classpath<br/>
+ * 索引中包含所有可以被扫描到的类(public的非注解类型)和它们直接声明的注解，格式为：类名=注解1,注解2<br/>
+ * 将此模块加入编译时的classpath即可生效(建议使用optional依赖)
+ *
+ * @author shuchaowen
+ *
+ */
+public class ComponentsIndexer extends AbstractProcessor {
+	/**
+	 * 与scw.core.type.scanner.ComponentsIndex中的一致
+	 */
+	public static final String COMPONENTS_RESOURCE_LOCATION = "META-INF/scw.components";
+
+	private final Map<String, Set<String>> components = new TreeMap<String, Set<String>>();
+
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		return Collections.singleton("*");
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (Element element : roundEnv.getRootElements()) {
+			if (element instanceof TypeElement) {
+				index((TypeElement) element);
+			}
+		}
+
+		if (roundEnv.processingOver()) {
+			try {
+				writeIndex();
+			} catch (IOException e) {
+				processingEnv.getMessager().printMessage(Kind.ERROR,
+						"Unable to write " + COMPONENTS_RESOURCE_LOCATION + ": " + e);
+			}
+		}
+		// 不声明任何注解，不影响其他的processor
+		return false;
+	}
+
+	private void index(TypeElement element) {
+		if (!element.getModifiers().contains(Modifier.PUBLIC)) {
+			return;
+		}
+
+		if (element.getKind() != ElementKind.ANNOTATION_TYPE) {
+			Set<String> annotations = new LinkedHashSet<String>();
+			for (AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
+				Element annotationElement = annotationMirror.getAnnotationType().asElement();
+				if (annotationElement instanceof TypeElement) {
+					annotations.add(processingEnv.getElementUtils().getBinaryName((TypeElement) annotationElement)
+							.toString());
+				}
+			}
+			components.put(processingEnv.getElementUtils().getBinaryName(element).toString(), annotations);
+		}
+
+		// 扫描时也会包含public的内部类
+		for (Element enclosed : element.getEnclosedElements()) {
+			if (enclosed instanceof TypeElement) {
+				index((TypeElement) enclosed);
+			}
+		}
+	}
+
+	private void writeIndex() throws IOException {
+		Map<String, Set<String>> index = readExistingIndex();
+		// 增量编译时移除已经被删除的类
+		Iterator<String> iterator = index.keySet().iterator();
+		while (iterator.hasNext()) {
+			String name = iterator.next();
+			if (!components.containsKey(name)
+					&& processingEnv.getElementUtils().getTypeElement(name.replace('$', '.')) == null) {
+				iterator.remove();
+			}
+		}
+		index.putAll(components);
+		if (index.isEmpty()) {
+			return;
+		}
+
+		FileObject fileObject = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+				COMPONENTS_RESOURCE_LOCATION);
+		Writer writer = new OutputStreamWriter(fileObject.openOutputStream(), "UTF-8");
+		try {
+			for (Entry<String, Set<String>> entry : index.entrySet()) {
+				writer.write(entry.getKey());
+				writer.write('=');
+				boolean first = true;
+				for (String annotation : entry.getValue()) {
+					if (!first) {
+						writer.write(',');
+					}
+					writer.write(annotation);
+					first = false;
+				}
+				writer.write('\n');
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * 增量编译时只会处理修改过的类，需要保留之前的索引，已经不存在的类会在合并时移除
+	 *
+	 * @return
+	 */
+	private Map<String, Set<String>> readExistingIndex() {
+		Map<String, Set<String>> index = new TreeMap<String, Set<String>>();
+		try {
+			FileObject fileObject = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "",
+					COMPONENTS_RESOURCE_LOCATION);
+			Properties properties = new Properties();
+			Reader reader = new BufferedReader(new InputStreamReader(fileObject.openInputStream(), "UTF-8"));
+			try {
+				properties.load(reader);
+			} finally {
+				reader.close();
+			}
+
+			for (String name : properties.stringPropertyNames()) {
+				Set<String> annotations = new TreeSet<String>();
+				for (String annotation : properties.getProperty(name).split(",")) {
+					annotation = annotation.trim();
+					if (annotation.length() != 0) {
+						annotations.add(annotation);
+					}
+				}
+				index.put(name, annotations);
+			}
+		} catch (FileNotFoundException e) {
+			// 第一次编译
+		} catch (NoSuchFileException e) {
+			// 第一次编译
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Kind.WARNING,
+					"Unable to read existing " + COMPONENTS_RESOURCE_LOCATION + ": " + e);
+		}
+		return index;
+	}
+}
@@ -0,0 +1,247 @@
+package scw.indexer.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import scw.core.Constants;
+import scw.core.type.scanner.ClassPathClassScanner;
+import scw.core.type.scanner.ComponentsIndex;
+import scw.core.type.scanner.ComponentsIndexClassScanner;
+import scw.core.type.scanner.DefaultClassScanner;
+import scw.indexer.ComponentsIndexer;
+
+public class ComponentsIndexerTest {
+
+	@Test
+	public void processor() throws IOException {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		Assume.assumeTrue(compiler != null);
+
+		Path src = Files.createTempDirectory("indexer-src");
+		Path out = Files.createTempDirectory("indexer-out");
+		write(src.resolve("sample/Service.java"), "package sample;\n"
+				+ "@FunctionalInterface public interface Service { void run();\n"
+				+ "  class Inner {}\n" + "}\n");
+		write(src.resolve("sample/Old.java"), "package sample;\n" + "@Deprecated public class Old { static class Hidden {} }\n"
+				+ "class PackagePrivate {}\n");
+		write(src.resolve("sample/Marker.java"), "package sample;\n" + "public @interface Marker {}\n");
+
+		StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, Constants.UTF_8);
+		try {
+			Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjects(
+					src.resolve("sample/Service.java").toFile(), src.resolve("sample/Old.java").toFile(),
+					src.resolve("sample/Marker.java").toFile());
+			JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null,
+					Arrays.asList("-d", out.toString()), null, units);
+			task.setProcessors(Arrays.asList(new ComponentsIndexer()));
+			assertTrue(task.call());
+		} finally {
+			fileManager.close();
+		}
+
+		Properties properties = new Properties();
+		InputStream inputStream = new FileInputStream(
+				out.resolve(ComponentsIndexer.COMPONENTS_RESOURCE_LOCATION).toFile());
+		try {
+			properties.load(inputStream);
+		} finally {
+			inputStream.close();
+		}
+
+		assertEquals(new TreeSet<String>(Arrays.asList("sample.Service", "sample.Service$Inner", "sample.Old")),
+				properties.stringPropertyNames());
+		assertEquals(FunctionalInterface.class.getName(), properties.getProperty("sample.Service"));
+		assertEquals(Deprecated.class.getName(), properties.getProperty("sample.Old"));
+		assertEquals("", properties.getProperty("sample.Service$Inner"));
+
+		// 使用索引加载, @Deprecated会被忽略
+		URLClassLoader classLoader = new URLClassLoader(new URL[] { out.toUri().toURL() });
+		try {
+			Set<String> names = names(ComponentsIndexClassScanner.INSTANCE.getClasses("sample", classLoader, null));
+			assertEquals(new TreeSet<String>(Arrays.asList("sample.Service", "sample.Service$Inner")), names);
+			assertEquals(names, names(ClassPathClassScanner.INSTANCE.getClasses("sample", classLoader, null)));
+		} finally {
+			classLoader.close();
+		}
+	}
+
+	@Test
+	public void incremental() throws IOException {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		Assume.assumeTrue(compiler != null);
+
+		Path src = Files.createTempDirectory("indexer-src");
+		Path out = Files.createTempDirectory("indexer-out");
+		write(src.resolve("sample/Service.java"), "package sample;\n" + "public class Service {}\n");
+		write(src.resolve("sample/Removed.java"), "package sample;\n" + "public class Removed {}\n");
+		compile(compiler, out, src.resolve("sample/Service.java"), src.resolve("sample/Removed.java"));
+
+		// 删除Removed后只编译新增的类，构建工具会删除过期的class文件
+		Files.delete(src.resolve("sample/Removed.java"));
+		Files.delete(out.resolve("sample/Removed.class"));
+		write(src.resolve("sample/Added.java"), "package sample;\n" + "public class Added {}\n");
+		compile(compiler, out, src.resolve("sample/Added.java"));
+
+		Properties properties = new Properties();
+		InputStream inputStream = new FileInputStream(
+				out.resolve(ComponentsIndexer.COMPONENTS_RESOURCE_LOCATION).toFile());
+		try {
+			properties.load(inputStream);
+		} finally {
+			inputStream.close();
+		}
+		assertEquals(new TreeSet<String>(Arrays.asList("sample.Service", "sample.Added")),
+				properties.stringPropertyNames());
+	}
+
+	private static void compile(JavaCompiler compiler, Path out, Path... sources) throws IOException {
+		StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, Constants.UTF_8);
+		try {
+			File[] files = new File[sources.length];
+			for (int i = 0; i < sources.length; i++) {
+				files[i] = sources[i].toFile();
+			}
+			JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null,
+					Arrays.asList("-d", out.toString(), "-classpath", out.toString()), null,
+					fileManager.getJavaFileObjects(files));
+			task.setProcessors(Arrays.asList(new ComponentsIndexer()));
+			assertTrue(task.call());
+		} finally {
+			fileManager.close();
+		}
+	}
+
+	/**
+	 * 以scw-core中所有的类作为示例应用，比较扫描和使用索引的耗时
+	 */
+	@Test
+	public void startup() throws IOException {
+		File location = new File(Constants.class.getProtectionDomain().getCodeSource().getLocation().getPath());
+		Assume.assumeTrue(location.isDirectory());
+
+		Path sample = Files.createTempDirectory("indexer-sample");
+		copy(location.toPath(), sample);
+		URL[] urls = new URL[] { sample.toUri().toURL() };
+		ClassLoader parent = ClassLoader.getSystemClassLoader().getParent();
+
+		// 没有索引时回退为扫描
+		URLClassLoader classLoader = new URLClassLoader(urls, parent);
+		Set<Class<?>> scanned;
+		try {
+			assertTrue(ComponentsIndex.getInstance(classLoader) == null);
+			scanned = new DefaultClassScanner().getClasses("scw", classLoader, null);
+			assertFalse(scanned.isEmpty());
+		} finally {
+			classLoader.close();
+		}
+
+		writeIndex(sample, scanned);
+		for (int i = 0; i < 2; i++) {
+			long scanTime = System.nanoTime();
+			classLoader = new URLClassLoader(urls, parent);
+			Set<String> scanNames;
+			try {
+				scanNames = names(ClassPathClassScanner.INSTANCE.getClasses("scw", classLoader, null));
+				scanTime = System.nanoTime() - scanTime;
+			} finally {
+				classLoader.close();
+			}
+
+			long indexTime = System.nanoTime();
+			classLoader = new URLClassLoader(urls, parent);
+			Set<String> indexNames;
+			try {
+				indexNames = names(new DefaultClassScanner().getClasses("scw", classLoader, null));
+				indexTime = System.nanoTime() - indexTime;
+			} finally {
+				classLoader.close();
+			}
+
+			assertEquals(scanNames, indexNames);
+			System.out.println("classes: " + indexNames.size() + ", scan: " + scanTime / 1000000 + "ms, index: "
+					+ indexTime / 1000000 + "ms, saved: " + (scanTime - indexTime) / 1000000 + "ms");
+		}
+	}
+
+	private static Set<String> names(Set<Class<?>> classes) {
+		Set<String> names = new TreeSet<String>();
+		for (Class<?> clazz : classes) {
+			names.add(clazz.getName());
+		}
+		return names;
+	}
+
+	private static void write(Path path, String content) throws IOException {
+		Files.createDirectories(path.getParent());
+		Files.write(path, content.getBytes(Constants.UTF_8));
+	}
+
+	/**
+	 * 与ComponentsIndexer生成的格式一致
+	 */
+	private static void writeIndex(Path root, Set<Class<?>> classes) throws IOException {
+		Path path = root.resolve(ComponentsIndexer.COMPONENTS_RESOURCE_LOCATION);
+		Files.createDirectories(path.getParent());
+		Writer writer = new OutputStreamWriter(Files.newOutputStream(path), Constants.UTF_8);
+		try {
+			for (Class<?> clazz : classes) {
+				writer.write(clazz.getName());
+				writer.write('=');
+				for (int i = 0; i < clazz.getDeclaredAnnotations().length; i++) {
+					if (i != 0) {
+						writer.write(',');
+					}
+					writer.write(clazz.getDeclaredAnnotations()[i].annotationType().getName());
+				}
+				writer.write('\n');
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static void copy(final Path source, final Path target) throws IOException {
+		Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				Files.createDirectories(target.resolve(source.relativize(dir).toString()));
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				Files.copy(file, target.resolve(source.relativize(file).toString()),
+						StandardCopyOption.REPLACE_EXISTING);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+}
@@ -1,5 +1,8 @@
 package scw.jackson;
 
+import java.io.IOException;
+import java.io.Reader;
+
 import scw.env.Sys;
 import scw.json.AbstractJSONSupport;
 import scw.json.EmptyJsonElement;
@@ -54,6 +57,18 @@ public class JacksonJSONSupport extends AbstractJSONSupport {
 				mapper);
 	}
 
+	@Override
+	public JsonElement parseJson(Reader reader) throws IOException {
+		JsonNode jsonNode;
+		try {
+			jsonNode = mapper.readTree(reader);
+		} catch (JsonProcessingException e) {
+			throw new JSONException(e);
+		}
+		return new JacksonJsonElement(EmptyJsonElement.INSTANCE, jsonNode,
+				mapper);
+	}
+
 	@Override
 	protected String toJsonStringInternal(Object obj) {
 		try {
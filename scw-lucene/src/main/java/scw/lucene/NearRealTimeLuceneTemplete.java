@@ -0,0 +1,180 @@
+package scw.lucene;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.Directory;
+
+import scw.context.Destroy;
+import scw.convert.ConversionService;
+import scw.core.Assert;
+import scw.logger.Logger;
+import scw.logger.LoggerFactory;
+
+/**
+ * 长期持有一个IndexWriter并使用SearcherManager做近实时搜索<br/>
+ * 写入的数据在下一次刷新(默认1秒)后可以被搜索到，需要立即可见时调用{@link #refresh()}<br/>
+ * 所有的写操作共用一个IndexWriter，所以不参与事务，也无法单独回滚
+ *
+ * @author shuchaowen
+ *
+ */
+public class NearRealTimeLuceneTemplete extends DefaultLuceneTemplete implements Destroy {
+	private static Logger logger = LoggerFactory.getLogger(NearRealTimeLuceneTemplete.class);
+
+	private final IndexWriter indexWriter;
+	private final SearcherManager searcherManager;
+	private final ScheduledExecutorService scheduledExecutorService;
+	private final long commitInterval;
+
+	/**
+	 * 每1秒刷新一次，每1分钟提交一次
+	 */
+	public NearRealTimeLuceneTemplete(Directory directory, IndexWriterConfig indexWriterConfig,
+			ConversionService conversionService) throws IOException {
+		this(directory, indexWriterConfig, conversionService, 1000, 60000, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * 刷新到磁盘的策略(内存大小、文档数量等)使用{@link IndexWriterConfig}配置
+	 *
+	 * @param directory
+	 * @param indexWriterConfig
+	 * @param conversionService
+	 * @param refreshInterval   刷新搜索的间隔
+	 * @param commitInterval    提交的间隔，小于等于0时每次写入后都提交
+	 * @param timeUnit
+	 * @throws IOException
+	 */
+	public NearRealTimeLuceneTemplete(Directory directory, IndexWriterConfig indexWriterConfig,
+			ConversionService conversionService, long refreshInterval, long commitInterval, TimeUnit timeUnit)
+			throws IOException {
+		super(directory, indexWriterConfig.getAnalyzer(), conversionService);
+		Assert.requiredArgument(refreshInterval > 0, "refreshInterval");
+		this.indexWriter = new IndexWriter(directory, indexWriterConfig);
+		try {
+			this.searcherManager = new SearcherManager(indexWriter, new SearcherFactory());
+		} catch (IOException e) {
+			indexWriter.close();
+			throw e;
+		}
+
+		this.commitInterval = commitInterval;
+		this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+			Thread thread = new Thread(runnable, getClass().getSimpleName() + "-" + directory);
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduledExecutorService.scheduleWithFixedDelay(() -> {
+			try {
+				searcherManager.maybeRefresh();
+			} catch (Throwable e) {
+				logger.error(e, "refresh error: {}", directory);
+			}
+		}, refreshInterval, refreshInterval, timeUnit);
+
+		if (commitInterval > 0) {
+			scheduledExecutorService.scheduleWithFixedDelay(() -> {
+				try {
+					commit();
+				} catch (Throwable e) {
+					logger.error(e, "commit error: {}", directory);
+				}
+			}, commitInterval, commitInterval, timeUnit);
+		}
+	}
+
+	/**
+	 * 返回共享的IndexWriter，不能关闭
+	 */
+	@Override
+	public IndexWriter getIndexWrite() {
+		return indexWriter;
+	}
+
+	/**
+	 * 返回一个新的近实时IndexReader，使用完后需要关闭
+	 */
+	@Override
+	protected IndexReader getIndexReader() throws IOException {
+		return DirectoryReader.open(indexWriter);
+	}
+
+	public SearcherManager getSearcherManager() {
+		return searcherManager;
+	}
+
+	@Override
+	public <T> T indexWriter(IndexWriterExecutor<T> indexWriterExecutor) throws IOException {
+		T value = indexWriterExecutor.execute(indexWriter);
+		if (commitInterval <= 0) {
+			commit();
+		}
+		return value;
+	}
+
+	@Override
+	public <T> T indexReader(final IndexReaderExecutor<T> indexReaderExecutor) throws IOException {
+		return indexSearcher(new IndexSearchExecutor<T>() {
+
+			public T execute(IndexReader indexReader, IndexSearcher indexSearcher) throws IOException {
+				return indexReaderExecutor.execute(indexReader);
+			}
+		});
+	}
+
+	/**
+	 * 执行期间持有的IndexSearcher不会被关闭，执行完成后释放
+	 */
+	@Override
+	public <T> T indexSearcher(IndexSearchExecutor<T> indexSearchExecutor) throws IOException {
+		IndexSearcher indexSearcher = searcherManager.acquire();
+		try {
+			return indexSearchExecutor.execute(indexSearcher.getIndexReader(), indexSearcher);
+		} finally {
+			searcherManager.release(indexSearcher);
+		}
+	}
+
+	/**
+	 * 让之前的写入立即可以被搜索到
+	 *
+	 * @throws IOException
+	 */
+	public void refresh() throws IOException {
+		searcherManager.maybeRefreshBlocking();
+	}
+
+	/**
+	 * 提交未提交的修改
+	 *
+	 * @throws IOException
+	 */
+	public void commit() throws IOException {
+		if (indexWriter.hasUncommittedChanges()) {
+			indexWriter.commit();
+		}
+	}
+
+	public void destroy() throws IOException {
+		scheduledExecutorService.shutdown();
+		try {
+			searcherManager.close();
+		} finally {
+			try {
+				commit();
+			} finally {
+				indexWriter.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package scw.lucene.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.junit.Test;
+
+import scw.convert.support.DefaultConversionService;
+import scw.lucene.NearRealTimeLuceneTemplete;
+
+public class NearRealTimeLuceneTempleteTest {
+
+	@Test
+	public void search() throws Exception {
+		NearRealTimeLuceneTemplete templete = new NearRealTimeLuceneTemplete(new ByteBuffersDirectory(),
+				new IndexWriterConfig(new StandardAnalyzer()), new DefaultConversionService(), 1, 1, TimeUnit.HOURS);
+		try {
+			write(templete, "1");
+			assertEquals(0, count(templete, "1"));
+			templete.refresh();
+			assertEquals(1, count(templete, "1"));
+
+			// 执行期间持有的searcher不受刷新影响
+			int count = templete.indexSearcher((indexReader, indexSearcher) -> {
+				write(templete, "2");
+				templete.refresh();
+				assertEquals(1, count(templete, "2"));
+				return indexSearcher.count(new TermQuery(new Term("id", "2")));
+			});
+			assertEquals(0, count);
+		} finally {
+			templete.destroy();
+		}
+	}
+
+	private static void write(NearRealTimeLuceneTemplete templete, String id) throws IOException {
+		templete.indexWriter((indexWriter) -> {
+			Document document = new Document();
+			document.add(new StringField("id", id, Store.YES));
+			return indexWriter.addDocument(document);
+		});
+	}
+
+	private static int count(NearRealTimeLuceneTemplete templete, String id) throws IOException {
+		return templete.indexSearcher(
+				(indexReader, indexSearcher) -> indexSearcher.count(new TermQuery(new Term("id", id))));
+	}
+}
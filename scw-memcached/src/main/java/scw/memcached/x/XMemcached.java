@@ -62,6 +62,19 @@ public final class XMemcached implements Memcached {
 		}
 	}
 
+	/**
+	 * 使用noreply协议，不等待每个key的响应
+	 */
+	public void set(Map<String, ?> valueMap, int exp) {
+		try {
+			for (Entry<String, ?> entry : valueMap.entrySet()) {
+				memcachedClient.setWithNoReply(entry.getKey(), Math.max(0, exp), entry.getValue());
+			}
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
 	public boolean add(String key, Object value) {
 		if (value == null) {
 			return false;
@@ -0,0 +1,416 @@
+package scw.messageing.session;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import scw.context.Destroy;
+import scw.core.Assert;
+import scw.data.TemporaryStorage;
+import scw.lang.Nullable;
+import scw.logger.Logger;
+import scw.logger.LoggerFactory;
+import scw.messageing.Message;
+
+/**
+ * 分布式的session管理<br/>
+ * session只保存在建立连接的节点上，在{@link TemporaryStorage}中记录session所在的节点，发送给本节点的session时直接发送，发送给其他节点的session时由{@link #publish(String, List)}转发<br/>
+ * 发往同一个节点的消息会合并后一次转发，转发是异步的，转发失败只记录日志<br/>
+ * 每个节点定时刷新有过期时间的心跳，只有心跳过期的节点上的session记录才会被删除<br/>
+ * session记录与心跳的过期时间相同并随心跳一起刷新，节点宕机后它的session记录也会过期<br/>
+ * {@link #sessionIds()}只包含本节点的session
+ *
+ * @author shuchaowen
+ *
+ */
+public abstract class DistributedSessionManager extends LocalSessionManager implements Destroy {
+	private static Logger logger = LoggerFactory.getLogger(DistributedSessionManager.class);
+	public static final String DEFAULT_KEY_PREFIX = "scw:messageing:session:";
+
+	private final String nodeId;
+	private final TemporaryStorage storage;
+	private final ConcurrentHashMap<String, Batch> batchMap = new ConcurrentHashMap<String, Batch>();
+	private final ExecutorService executorService;
+	private String keyPrefix = DEFAULT_KEY_PREFIX;
+	private int batchSize = 128;
+	private int heartbeatPeriod = 10;
+	private volatile boolean started;
+	private ScheduledExecutorService heartbeatExecutor;
+
+	/**
+	 * @param nodeId  当前节点的id, 每个节点必须不同
+	 * @param storage 保存session所在的节点
+	 */
+	public DistributedSessionManager(String nodeId, TemporaryStorage storage) {
+		Assert.requiredArgument(nodeId != null, "nodeId");
+		Assert.requiredArgument(storage != null, "storage");
+		this.nodeId = nodeId;
+		this.storage = storage;
+		this.executorService = Executors.newCachedThreadPool((runnable) -> {
+			Thread thread = new Thread(runnable, getClass().getSimpleName() + "-" + nodeId);
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	public final String getNodeId() {
+		return nodeId;
+	}
+
+	public final TemporaryStorage getStorage() {
+		return storage;
+	}
+
+	public String getKeyPrefix() {
+		return keyPrefix;
+	}
+
+	public void setKeyPrefix(String keyPrefix) {
+		Assert.requiredArgument(keyPrefix != null, "keyPrefix");
+		this.keyPrefix = keyPrefix;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * 一次转发的最大消息数量
+	 *
+	 * @param batchSize
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "batchSize must be greater than 0");
+		this.batchSize = batchSize;
+	}
+
+	public int getHeartbeatPeriod() {
+		return heartbeatPeriod;
+	}
+
+	/**
+	 * 心跳的间隔(秒)，心跳和session记录在3个间隔后过期
+	 *
+	 * @param heartbeatPeriod
+	 */
+	public void setHeartbeatPeriod(int heartbeatPeriod) {
+		Assert.isTrue(heartbeatPeriod > 0, "heartbeatPeriod must be greater than 0");
+		this.heartbeatPeriod = heartbeatPeriod;
+	}
+
+	/**
+	 * 心跳和session记录的过期时间(秒)
+	 *
+	 * @return
+	 */
+	protected int getExpire() {
+		return heartbeatPeriod * 3;
+	}
+
+	protected String getKey(String sessionId) {
+		return keyPrefix + sessionId;
+	}
+
+	protected String getNodeKey(String nodeId) {
+		return keyPrefix + "node:" + nodeId;
+	}
+
+	/**
+	 * 获取session所在的节点
+	 *
+	 * @param sessionId
+	 * @return 不存在返回空
+	 */
+	@Nullable
+	public String getNodeId(String sessionId) {
+		return storage.get(getKey(sessionId));
+	}
+
+	/**
+	 * 节点的心跳是否还存在
+	 *
+	 * @param nodeId
+	 * @return
+	 */
+	public boolean isAlive(String nodeId) {
+		return storage.isExist(getNodeKey(nodeId));
+	}
+
+	@Override
+	public void addSession(Session session) {
+		start();
+		super.addSession(session);
+		setOwnership(session.getId());
+	}
+
+	@Override
+	public void removeSession(String sessionId) {
+		super.removeSession(sessionId);
+		removeOwnership(sessionId, nodeId);
+	}
+
+	/**
+	 * 记录session在此节点上
+	 *
+	 * @param sessionId
+	 */
+	protected void setOwnership(String sessionId) {
+		storage.set(getKey(sessionId), getExpire(), nodeId);
+	}
+
+	/**
+	 * 刷新session记录的过期时间，由心跳调用
+	 *
+	 * @param sessionId
+	 */
+	protected void refreshOwnership(String sessionId) {
+		storage.touch(getKey(sessionId), getExpire());
+	}
+
+	/**
+	 * 如果session还属于指定节点就删除记录(可能已经在其他节点重新连接了)，必须是原子的比较并删除
+	 *
+	 * @param sessionId
+	 * @param nodeId
+	 * @return 是否删除了
+	 */
+	protected abstract boolean removeOwnership(String sessionId, String nodeId);
+
+	private void start() {
+		if (started) {
+			return;
+		}
+
+		synchronized (this) {
+			if (!started) {
+				startup();
+				started = true;
+			}
+		}
+	}
+
+	/**
+	 * 第一次记录session前同步调用，返回前必须已经可以接收其他节点转发的消息<br/>
+	 * 默认写入心跳并定时刷新
+	 */
+	protected void startup() {
+		heartbeat();
+		heartbeatExecutor = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+			Thread thread = new Thread(runnable, getClass().getSimpleName() + "-heartbeat-" + nodeId);
+			thread.setDaemon(true);
+			return thread;
+		});
+		heartbeatExecutor.scheduleAtFixedRate(() -> {
+			try {
+				heartbeat();
+			} catch (Throwable e) {
+				logger.error(e, "Node [{}] heartbeat error", nodeId);
+			}
+		}, heartbeatPeriod, heartbeatPeriod, TimeUnit.SECONDS);
+	}
+
+	private void heartbeat() {
+		storage.set(getNodeKey(nodeId), getExpire(), nodeId);
+		Enumeration<String> sessionIds = sessionIds();
+		while (sessionIds.hasMoreElements()) {
+			refreshOwnership(sessionIds.nextElement());
+		}
+	}
+
+	@Override
+	public void sendMessage(String sessionId, Message<?> message) throws IOException {
+		Session session = getSession(sessionId);
+		if (session != null) {
+			if (session.isOpen()) {
+				session.sendMessage(message);
+			} else {
+				logNotOpenSession(sessionId);
+			}
+			return;
+		}
+
+		String targetNodeId = getNodeId(sessionId);
+		if (targetNodeId == null || targetNodeId.equals(nodeId)) {
+			logNotOpenSession(sessionId);
+			return;
+		}
+
+		enqueue(targetNodeId, new SessionMessage(sessionId, message));
+	}
+
+	/**
+	 * 发送给本节点的session并转发给其他所有节点
+	 */
+	@Override
+	public void sendMessageToAll(Message<?> message) {
+		super.sendMessageToAll(message);
+		try {
+			publish(null, Collections.singletonList(new SessionMessage(null, message)));
+		} catch (Throwable e) {
+			logger.error(e, "Broadcast message [{}] error", message);
+		}
+	}
+
+	/**
+	 * 收到其他节点转发过来的消息
+	 *
+	 * @param messages
+	 */
+	public void onMessages(List<SessionMessage> messages) {
+		for (SessionMessage sessionMessage : messages) {
+			if (sessionMessage.getSessionId() == null) {
+				super.sendMessageToAll(sessionMessage.getMessage());
+				continue;
+			}
+
+			Session session = getSession(sessionMessage.getSessionId());
+			if (session == null || !session.isOpen()) {
+				// 此节点可能重启过，记录已经失效
+				removeOwnership(sessionMessage.getSessionId(), nodeId);
+				logNotOpenSession(sessionMessage.getSessionId());
+				continue;
+			}
+
+			try {
+				session.sendMessage(sessionMessage.getMessage());
+			} catch (Throwable e) {
+				logSendMessageError(e, sessionMessage.getSessionId(), sessionMessage.getMessage());
+			}
+		}
+	}
+
+	private void enqueue(String targetNodeId, SessionMessage message) {
+		// 在compute中入队，空闲的Batch被移除后不会再有消息加入
+		batchMap.compute(targetNodeId, (key, batch) -> {
+			if (batch == null) {
+				batch = new Batch(key);
+			}
+			batch.queue.add(message);
+			return batch;
+		}).schedule();
+	}
+
+	/**
+	 * 转发给其他节点
+	 *
+	 * @param nodeId   为空表示发送给其他所有的节点
+	 * @param messages
+	 * @return 是否有节点接收
+	 * @throws IOException
+	 */
+	protected abstract boolean publish(@Nullable String nodeId, List<SessionMessage> messages) throws IOException;
+
+	@Override
+	protected Logger getLogger() {
+		return logger;
+	}
+
+	public void destroy() throws Exception {
+		if (heartbeatExecutor != null) {
+			heartbeatExecutor.shutdownNow();
+			try {
+				storage.delete(getNodeKey(nodeId));
+			} catch (Throwable e) {
+				logger.error(e, "Delete node [{}] heartbeat error", nodeId);
+			}
+		}
+		executorService.shutdown();
+		executorService.awaitTermination(3, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * 发往同一个节点的消息，同一时间只有一个线程在转发，转发期间加入的消息在下一次一起转发<br/>
+	 * 转发完没有新的消息时从batchMap中移除，所以不会因为节点的变化而一直增长
+	 */
+	private final class Batch {
+		private final String targetNodeId;
+		private final ConcurrentLinkedQueue<SessionMessage> queue = new ConcurrentLinkedQueue<SessionMessage>();
+		private final AtomicBoolean draining = new AtomicBoolean(false);
+
+		Batch(String targetNodeId) {
+			this.targetNodeId = targetNodeId;
+		}
+
+		void schedule() {
+			if (draining.compareAndSet(false, true)) {
+				try {
+					executorService.execute(() -> drain());
+				} catch (RejectedExecutionException e) {
+					// 已经关闭了，在当前线程中转发
+					drain();
+				}
+			}
+		}
+
+		void drain() {
+			try {
+				List<SessionMessage> messages = new ArrayList<SessionMessage>();
+				SessionMessage message;
+				while ((message = queue.poll()) != null) {
+					messages.add(message);
+					if (messages.size() >= batchSize || queue.isEmpty()) {
+						publish(messages);
+						messages = new ArrayList<SessionMessage>();
+					}
+				}
+			} finally {
+				draining.set(false);
+			}
+
+			// 在重置draining前可能有新的消息入队
+			if (!queue.isEmpty()) {
+				schedule();
+				return;
+			}
+
+			batchMap.computeIfPresent(targetNodeId,
+					(key, batch) -> batch == this && queue.isEmpty() && !draining.get() ? null : batch);
+		}
+
+		private void publish(List<SessionMessage> messages) {
+			boolean published;
+			try {
+				published = DistributedSessionManager.this.publish(targetNodeId, messages);
+			} catch (Throwable e) {
+				for (SessionMessage message : messages) {
+					logSendMessageError(e, message.getSessionId(), message.getMessage());
+				}
+				return;
+			}
+
+			if (published) {
+				return;
+			}
+
+			boolean alive;
+			try {
+				alive = isAlive(targetNodeId);
+			} catch (Throwable e) {
+				logger.error(e, "Check node [{}] heartbeat error", targetNodeId);
+				alive = true;
+			}
+
+			if (alive) {
+				// 节点还在，可能正在重新订阅，保留session记录
+				logger.warn("Node [{}] is alive but did not receive {} messages", targetNodeId, messages.size());
+				return;
+			}
+
+			// 目标节点已经不存在了
+			for (SessionMessage message : messages) {
+				removeOwnership(message.getSessionId(), targetNodeId);
+				logNotOpenSession(message.getSessionId());
+			}
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package scw.messageing.session;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+
+import scw.core.Assert;
+import scw.lang.Nullable;
+import scw.messageing.BinaryFragmentMessage;
+import scw.messageing.BinaryMessage;
+import scw.messageing.FragmentMessage;
+import scw.messageing.Message;
+import scw.messageing.ObjectFragmentMessage;
+import scw.messageing.ObjectMessage;
+import scw.messageing.TextFragmentMessage;
+import scw.messageing.TextMessage;
+
+/**
+ * 需要转发到其他节点的消息<br/>
+ * 消息本身不能直接使用java序列化(BinaryMessage中的ByteBuffer不可序列化)，所以按消息类型写入负载
+ *
+ * @author shuchaowen
+ *
+ */
+public final class SessionMessage implements Serializable {
+	private static final long serialVersionUID = 1L;
+	private static final byte TEXT = 0;
+	private static final byte BINARY = 1;
+	private static final byte OBJECT = 2;
+
+	private final String sessionId;
+	private transient Message<?> message;
+
+	/**
+	 * @param sessionId 为空表示发送给所有的session
+	 * @param message
+	 */
+	public SessionMessage(@Nullable String sessionId, Message<?> message) {
+		Assert.requiredArgument(message != null, "message");
+		this.sessionId = sessionId;
+		this.message = message;
+	}
+
+	@Nullable
+	public String getSessionId() {
+		return sessionId;
+	}
+
+	public Message<?> getMessage() {
+		return message;
+	}
+
+	private void writeObject(ObjectOutputStream output) throws IOException {
+		output.defaultWriteObject();
+		output.writeBoolean(message instanceof FragmentMessage);
+		if (message instanceof FragmentMessage) {
+			output.writeBoolean(((FragmentMessage<?>) message).isLast());
+		}
+
+		if (message instanceof TextMessage) {
+			output.writeByte(TEXT);
+			output.writeObject(((TextMessage) message).getPayload());
+		} else if (message instanceof BinaryMessage) {
+			output.writeByte(BINARY);
+			// 不改变原消息的position
+			ByteBuffer buffer = ((BinaryMessage) message).getPayload().duplicate();
+			byte[] bytes = new byte[buffer.remaining()];
+			buffer.get(bytes);
+			output.writeInt(bytes.length);
+			output.write(bytes);
+		} else {
+			output.writeByte(OBJECT);
+			output.writeObject(message.getPayload());
+			output.writeInt(message.getPayloadLength());
+		}
+	}
+
+	private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
+		input.defaultReadObject();
+		boolean fragment = input.readBoolean();
+		boolean last = fragment ? input.readBoolean() : true;
+		byte type = input.readByte();
+		switch (type) {
+		case TEXT:
+			String text = (String) input.readObject();
+			this.message = fragment ? new TextFragmentMessage(text, last) : new TextMessage(text);
+			break;
+		case BINARY:
+			byte[] bytes = new byte[input.readInt()];
+			input.readFully(bytes);
+			this.message = fragment ? new BinaryFragmentMessage(bytes, last) : new BinaryMessage(bytes);
+			break;
+		case OBJECT:
+			Object payload = input.readObject();
+			int length = input.readInt();
+			this.message = fragment ? new ObjectFragmentMessage<Object>(payload, length, last)
+					: new ObjectMessage<Object>(payload, length);
+			break;
+		default:
+			throw new IOException("Unknown message type: " + type);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "sessionId=" + sessionId + ", message=" + message;
+	}
+}
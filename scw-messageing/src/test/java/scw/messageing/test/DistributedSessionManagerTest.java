@@ -0,0 +1,285 @@
+package scw.messageing.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import scw.data.TemporaryStorage;
+import scw.data.memory.MemoryDataOperations;
+import scw.io.JavaSerializer;
+import scw.messageing.BinaryFragmentMessage;
+import scw.messageing.BinaryMessage;
+import scw.messageing.Message;
+import scw.messageing.TextMessage;
+import scw.messageing.session.DistributedSessionManager;
+import scw.messageing.session.Session;
+import scw.messageing.session.SessionMessage;
+
+public class DistributedSessionManagerTest {
+
+	@Test
+	public void route() throws Exception {
+		Map<String, TestSessionManager> nodes = new ConcurrentHashMap<String, TestSessionManager>();
+		TemporaryStorage storage = new MemoryDataOperations();
+		TestSessionManager node1 = new TestSessionManager("node1", storage, nodes);
+		TestSessionManager node2 = new TestSessionManager("node2", storage, nodes);
+		try {
+			TestSession a = new TestSession("a", 1);
+			TestSession b = new TestSession("b", 1);
+			node1.addSession(a);
+			node2.addSession(b);
+			assertEquals("node2", node1.getNodeId("b"));
+
+			// 本节点的session直接发送
+			node1.sendMessage("a", new TextMessage("local"));
+			assertEquals("local", a.messages.get(0).getPayload());
+			assertEquals(0, node1.publishCount.get());
+
+			node1.sendMessage("b", new TextMessage("remote"));
+			assertTrue(b.latch.await(3, TimeUnit.SECONDS));
+			assertEquals("remote", b.messages.get(0).getPayload());
+
+			// 广播
+			a.reset(1);
+			b.reset(1);
+			node2.sendMessageToAll(new TextMessage("all"));
+			assertTrue(a.latch.await(3, TimeUnit.SECONDS));
+			assertEquals("all", a.messages.get(0).getPayload());
+			assertEquals("all", b.messages.get(0).getPayload());
+
+			node2.removeSession("b");
+			assertNull(node1.getNodeId("b"));
+		} finally {
+			node1.destroy();
+			node2.destroy();
+		}
+	}
+
+	/**
+	 * 转发期间发往同一个节点的消息会合并
+	 */
+	@Test
+	public void batch() throws Exception {
+		Map<String, TestSessionManager> nodes = new ConcurrentHashMap<String, TestSessionManager>();
+		TemporaryStorage storage = new MemoryDataOperations();
+		TestSessionManager node1 = new TestSessionManager("node1", storage, nodes);
+		TestSessionManager node2 = new TestSessionManager("node2", storage, nodes);
+		try {
+			int count = 1000;
+			TestSession b = new TestSession("b", count);
+			node2.addSession(b);
+			node1.publishDelay = 10;
+			for (int i = 0; i < count; i++) {
+				node1.sendMessage("b", new TextMessage(String.valueOf(i)));
+			}
+			assertTrue(b.latch.await(10, TimeUnit.SECONDS));
+			for (int i = 0; i < count; i++) {
+				assertEquals(String.valueOf(i), b.messages.get(i).getPayload());
+			}
+			assertTrue(node1.publishCount.get() < count / 10);
+			System.out.println("messages: " + count + ", publish: " + node1.publishCount.get());
+		} finally {
+			node1.destroy();
+			node2.destroy();
+		}
+	}
+
+	/**
+	 * 目标节点的心跳不存在时删除记录
+	 */
+	@Test
+	public void deadNode() throws Exception {
+		Map<String, TestSessionManager> nodes = new ConcurrentHashMap<String, TestSessionManager>();
+		TemporaryStorage storage = new MemoryDataOperations();
+		TestSessionManager node1 = new TestSessionManager("node1", storage, nodes);
+		TestSessionManager node2 = new TestSessionManager("node2", storage, nodes);
+		try {
+			node2.addSession(new TestSession("b", 1));
+			assertTrue(node1.isAlive("node2"));
+			nodes.remove("node2");
+			storage.delete(node2.getNodeKey("node2"));
+			node1.sendMessage("b", new TextMessage("lost"));
+			long deadline = System.currentTimeMillis() + 3000;
+			while (node1.getNodeId("b") != null && System.currentTimeMillis() < deadline) {
+				TimeUnit.MILLISECONDS.sleep(10);
+			}
+			assertNull(node1.getNodeId("b"));
+		} finally {
+			node1.destroy();
+			node2.destroy();
+		}
+	}
+
+	/**
+	 * 节点还有心跳但是没有订阅者(正在重新订阅)时保留记录
+	 */
+	@Test
+	public void unsubscribedNode() throws Exception {
+		Map<String, TestSessionManager> nodes = new ConcurrentHashMap<String, TestSessionManager>();
+		TemporaryStorage storage = new MemoryDataOperations();
+		TestSessionManager node1 = new TestSessionManager("node1", storage, nodes);
+		TestSessionManager node2 = new TestSessionManager("node2", storage, nodes);
+		try {
+			node2.addSession(new TestSession("b", 1));
+			nodes.remove("node2");
+			node1.sendMessage("b", new TextMessage("lost"));
+			long deadline = System.currentTimeMillis() + 3000;
+			while (node1.publishCount.get() == 0 && System.currentTimeMillis() < deadline) {
+				TimeUnit.MILLISECONDS.sleep(10);
+			}
+			TimeUnit.MILLISECONDS.sleep(100);
+			assertEquals(1, node1.publishCount.get());
+			assertEquals("node2", node1.getNodeId("b"));
+		} finally {
+			node1.destroy();
+			node2.destroy();
+		}
+	}
+
+	/**
+	 * session记录随心跳刷新，节点宕机(不再刷新)后过期
+	 */
+	@Test
+	public void ownershipExpire() throws Exception {
+		Map<String, TestSessionManager> nodes = new ConcurrentHashMap<String, TestSessionManager>();
+		TemporaryStorage storage = new MemoryDataOperations();
+		TestSessionManager node1 = new TestSessionManager("node1", storage, nodes);
+		TestSessionManager node2 = new TestSessionManager("node2", storage, nodes);
+		node2.setHeartbeatPeriod(1);
+		try {
+			node2.addSession(new TestSession("b", 1));
+			TimeUnit.SECONDS.sleep(4);
+			assertEquals("node2", node1.getNodeId("b"));
+
+			// 停止心跳，模拟节点宕机
+			node2.destroy();
+			long deadline = System.currentTimeMillis() + 5000;
+			while (node1.getNodeId("b") != null && System.currentTimeMillis() < deadline) {
+				TimeUnit.MILLISECONDS.sleep(100);
+			}
+			assertNull(node1.getNodeId("b"));
+		} finally {
+			node1.destroy();
+			node2.destroy();
+		}
+	}
+
+	@Test
+	public void serialize() throws Exception {
+		byte[] bytes = new byte[] { 1, 2, 3, 4 };
+		SessionMessage message = new SessionMessage("a", new BinaryFragmentMessage(bytes, 1, 2, false));
+		SessionMessage copy = JavaSerializer.INSTANCE.deserialize(JavaSerializer.INSTANCE.serialize(message));
+		assertEquals("a", copy.getSessionId());
+		assertTrue(copy.getMessage() instanceof BinaryFragmentMessage);
+		assertEquals(new BinaryMessage(bytes, 1, 2), new BinaryMessage(((BinaryMessage) copy.getMessage()).getPayload()));
+		assertEquals(false, ((BinaryFragmentMessage) copy.getMessage()).isLast());
+
+		copy = JavaSerializer.INSTANCE.deserialize(JavaSerializer.INSTANCE.serialize(new SessionMessage(null, new TextMessage("text"))));
+		assertNull(copy.getSessionId());
+		assertEquals(new TextMessage("text"), copy.getMessage());
+	}
+
+	private static class TestSessionManager extends DistributedSessionManager {
+		private final Map<String, TestSessionManager> nodes;
+		private final AtomicInteger publishCount = new AtomicInteger();
+		private volatile long publishDelay;
+
+		public TestSessionManager(String nodeId, TemporaryStorage storage, Map<String, TestSessionManager> nodes) {
+			super(nodeId, storage);
+			this.nodes = nodes;
+			nodes.put(nodeId, this);
+		}
+
+		@Override
+		protected String getNodeKey(String nodeId) {
+			return super.getNodeKey(nodeId);
+		}
+
+		@Override
+		protected boolean removeOwnership(String sessionId, String nodeId) {
+			synchronized (getStorage()) {
+				if (nodeId.equals(getStorage().get(getKey(sessionId)))) {
+					return getStorage().delete(getKey(sessionId));
+				}
+				return false;
+			}
+		}
+
+		@Override
+		protected boolean publish(String nodeId, List<SessionMessage> messages) throws IOException {
+			publishCount.incrementAndGet();
+			try {
+				TimeUnit.MILLISECONDS.sleep(publishDelay);
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			}
+
+			// 与网络传输一样序列化后再接收
+			List<SessionMessage> received;
+			try {
+				received = JavaSerializer.INSTANCE.deserialize(JavaSerializer.INSTANCE.serialize(messages));
+			} catch (ClassNotFoundException e) {
+				throw new IOException(e);
+			}
+
+			if (nodeId == null) {
+				for (TestSessionManager node : nodes.values()) {
+					if (node != this) {
+						node.onMessages(received);
+					}
+				}
+				return true;
+			}
+
+			TestSessionManager node = nodes.get(nodeId);
+			if (node == null) {
+				return false;
+			}
+			node.onMessages(received);
+			return true;
+		}
+	}
+
+	private static class TestSession implements Session {
+		private final String id;
+		private volatile List<Message<?>> messages;
+		private volatile CountDownLatch latch;
+
+		public TestSession(String id, int count) {
+			this.id = id;
+			reset(count);
+		}
+
+		void reset(int count) {
+			this.messages = new CopyOnWriteArrayList<Message<?>>();
+			this.latch = new CountDownLatch(count);
+		}
+
+		public void close() throws IOException {
+		}
+
+		public String getId() {
+			return id;
+		}
+
+		public boolean isOpen() {
+			return true;
+		}
+
+		public void sendMessage(Message<?> message) throws IOException {
+			messages.add(message);
+			latch.countDown();
+		}
+	}
+}
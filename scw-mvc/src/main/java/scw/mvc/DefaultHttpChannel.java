@@ -19,6 +19,7 @@ import scw.security.session.UserSessionFactory;
 import scw.util.Decorator;
 import scw.util.XUtils;
 import scw.value.Value;
+import scw.web.CachingServerHttpRequest;
 import scw.web.ServerHttpRequest;
 import scw.web.ServerHttpResponse;
 import scw.web.message.RequestBeanFactory;
@@ -67,7 +68,20 @@ public class DefaultHttpChannel extends RequestBeanFactory implements HttpChanne
 			logger.trace("destroy channel: {}", toString());
 		}
 
-		super.destroy();
+		try {
+			super.destroy();
+		} finally {
+			// 删除缓存请求体的临时文件
+			CachingServerHttpRequest cachingServerHttpRequest = XUtils.getDelegate(getRequest(),
+					CachingServerHttpRequest.class);
+			if (cachingServerHttpRequest != null) {
+				try {
+					cachingServerHttpRequest.close();
+				} catch (IOException e) {
+					logger.error(e, "close request error: {}", toString());
+				}
+			}
+		}
 	}
 
 	public final long getCreateTime() {
@@ -47,6 +47,14 @@ public class MysqlDialect extends AbstractSqlDialect {
 
 	private static Logger logger = LoggerFactory.getLogger(MysqlDialect.class);
 
+	/**
+	 * mysql驱动只有在fetchSize为{@link Integer#MIN_VALUE}时才会逐行读取，否则会将结果全部加载到内存中
+	 */
+	@Override
+	public int getStreamingFetchSize() {
+		return Integer.MIN_VALUE;
+	}
+
 	public SqlType getSqlType(java.lang.Class<?> type) {
 		if (ClassUtils.isString(type) || type.isEnum()) {
 			return MysqlTypes.VARCHAR;
@@ -492,6 +500,78 @@ public class MysqlDialect extends AbstractSqlDialect {
 				sql.getParams()));
 	}
 
+	@Override
+	public PaginationSql toKeysetPaginationSql(String tableName, Class<?> entityClass, List<Field> keys,
+			boolean desc, Sql condition, Object[] lastKeys, int limit) throws SqlDialectException {
+		if (CollectionUtils.isEmpty(keys)) {
+			throw new SqlDialectException("not found keys: " + entityClass);
+		}
+
+		if (lastKeys != null && lastKeys.length != keys.size()) {
+			throw new SqlDialectException("keys=" + keys.size() + ", lastKeys=" + Arrays.toString(lastKeys));
+		}
+
+		StringBuilder from = new StringBuilder();
+		from.append(" from ");
+		keywordProcessing(from, tableName);
+		List<Object> conditionParams = new ArrayList<Object>();
+		if (condition != null) {
+			from.append(WHERE).append("(").append(condition.getSql()).append(")");
+			if (condition.getParams() != null) {
+				conditionParams.addAll(Arrays.asList(condition.getParams()));
+			}
+		}
+
+		Sql countSql = new SimpleSql("select count(*)" + from, conditionParams.toArray());
+		StringBuilder sb = new StringBuilder();
+		sb.append("select *").append(from);
+		List<Object> params = new ArrayList<Object>(conditionParams);
+		if (lastKeys != null) {
+			sb.append(condition == null ? WHERE : AND);
+			String operator = desc ? "<" : ">";
+			sb.append("(");
+			if (keys.size() > 1) {
+				// 先用第一个键限定范围，方便使用索引
+				appendFieldName(sb, keys.get(0).getGetter());
+				sb.append(operator).append("=?").append(AND);
+				params.add(lastKeys[0]);
+			}
+
+			// (k1 > ?) or (k1 = ? and k2 > ?) or ...
+			sb.append("(");
+			for (int i = 0; i < keys.size(); i++) {
+				if (i > 0) {
+					sb.append(OR);
+				}
+
+				sb.append("(");
+				for (int j = 0; j < i; j++) {
+					appendFieldName(sb, keys.get(j).getGetter());
+					sb.append("=?").append(AND);
+					params.add(lastKeys[j]);
+				}
+				appendFieldName(sb, keys.get(i).getGetter());
+				sb.append(operator).append("?");
+				params.add(lastKeys[i]);
+				sb.append(")");
+			}
+			sb.append("))");
+		}
+
+		sb.append(" order by ");
+		for (int i = 0; i < keys.size(); i++) {
+			if (i > 0) {
+				sb.append(",");
+			}
+			appendFieldName(sb, keys.get(i).getGetter());
+			if (desc) {
+				sb.append(" desc");
+			}
+		}
+		sb.append(" limit ").append(limit);
+		return new PaginationSql(countSql, new SimpleSql(sb.toString(), params.toArray()));
+	}
+
 	@Override
 	public Sql getInIds(String tableName, Class<?> entityClass,
 			Object[] primaryKeys, Collection<?> inPrimaryKeys)
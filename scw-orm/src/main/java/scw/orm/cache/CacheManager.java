@@ -1,5 +1,9 @@
 package scw.orm.cache;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
 import scw.orm.EntityOperations;
 
 public interface CacheManager extends EntityOperations {
@@ -11,4 +15,26 @@ public interface CacheManager extends EntityOperations {
 	 * @return
 	 */
 	boolean isKeepLooking(Class<?> entityClass, Object... ids);
+
+	/**
+	 * 记录不存在的数据(防止缓存穿透)
+	 * 
+	 * @param entityClass
+	 * @param ids
+	 */
+	default void saveAbsent(Class<?> entityClass, Object... ids) {
+	}
+
+	/**
+	 * 批量获取缓存中存在的数据
+	 * 
+	 * @param entityClass
+	 * @param inPrimaryKeys
+	 * @param primaryKeys
+	 * @return 只包含缓存中存在的数据
+	 */
+	default <K, V> Map<K, V> getInIds(Class<? extends V> entityClass, Collection<? extends K> inPrimaryKeys,
+			Object... primaryKeys) {
+		return Collections.emptyMap();
+	}
 }
@@ -0,0 +1,436 @@
+package scw.orm.cache;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+
+import scw.core.Assert;
+import scw.core.LRULinkedHashMap;
+import scw.data.TemporaryStorage;
+import scw.io.Serializer;
+import scw.io.SerializerException;
+import scw.io.SerializerUtils;
+import scw.lang.Nullable;
+import scw.mapper.Field;
+import scw.orm.ObjectKeyFormat;
+import scw.orm.ObjectRelationalMapping;
+import scw.transaction.DefaultTransactionLifecycle;
+import scw.transaction.Transaction;
+import scw.transaction.TransactionManager;
+import scw.transaction.TransactionUtils;
+
+/**
+ * 两级实体缓存，本地一级(有大小限制的LRU)在前，{@link TemporaryStorage}(如redis、memcached)二级在后<br/>
+ * 以表(实体类)+主键作为缓存的key，会缓存不存在的记录，在update、saveOrUpdate、delete时使缓存失效<br/>
+ * {@link scw.orm.sql.DefaultSqlTemplate}在写入数据库成功后才放入缓存，并在写入前后各使缓存失效一次<br/>
+ * 存在事务时放入缓存会推迟到事务提交后，使缓存失效会在事务结束(提交或回滚)后再执行一次<br/>
+ * 一级缓存保存的是序列化后的快照，每次读取都会返回新的实体对象
+ *
+ * @author shuchaowen
+ *
+ */
+public class DefaultCacheManager implements CacheManager {
+	private static final String DEFAULT_KEY_PREFIX = "orm:";
+
+	private final ObjectKeyFormat objectKeyFormat;
+	private final TemporaryStorage storage;
+	private final LRULinkedHashMap<String, LocalEntry> localCache;
+	private final Serializer serializer = SerializerUtils.getSerializer();
+	private String keyPrefix = DEFAULT_KEY_PREFIX;
+	/**
+	 * 二级缓存的过期时间(秒)，0表示不过期<br/>
+	 * 默认1小时，即使出现并发写入导致的脏数据也只会存在有限的时间
+	 */
+	private int exp = 60 * 60;
+	/**
+	 * 不存在的记录在二级缓存中的过期时间(秒)
+	 */
+	private int absentExp = 60;
+	/**
+	 * 一级缓存的过期时间(毫秒)，多个节点时一级缓存只能依靠过期来感知其他节点的修改
+	 */
+	private long localExpire = 10 * 1000L;
+
+	private final AtomicLong localHitCount = new AtomicLong();
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong absentHitCount = new AtomicLong();
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	/**
+	 * @param objectKeyFormat 一般使用SqlDialect
+	 * @param storage
+	 * @param localMaxSize 一级缓存的最大数量
+	 */
+	public DefaultCacheManager(ObjectKeyFormat objectKeyFormat, TemporaryStorage storage, int localMaxSize) {
+		Assert.requiredArgument(objectKeyFormat != null, "objectKeyFormat");
+		Assert.requiredArgument(storage != null, "storage");
+		Assert.isTrue(localMaxSize >= 0, "localMaxSize must be greater than or equal to 0");
+		this.objectKeyFormat = objectKeyFormat;
+		this.storage = storage;
+		this.localCache = new LRULinkedHashMap<String, LocalEntry>(localMaxSize, Math.min(localMaxSize, 1024) + 1,
+				0.75f, true);
+	}
+
+	public String getKeyPrefix() {
+		return keyPrefix;
+	}
+
+	public void setKeyPrefix(String keyPrefix) {
+		this.keyPrefix = keyPrefix == null ? "" : keyPrefix;
+	}
+
+	public int getExp() {
+		return exp;
+	}
+
+	public void setExp(int exp) {
+		this.exp = exp;
+	}
+
+	public int getAbsentExp() {
+		return absentExp;
+	}
+
+	public void setAbsentExp(int absentExp) {
+		this.absentExp = absentExp;
+	}
+
+	public long getLocalExpire() {
+		return localExpire;
+	}
+
+	public void setLocalExpire(long localExpire) {
+		this.localExpire = localExpire;
+	}
+
+	protected String getKeyByIds(Class<?> entityClass, Object... ids) {
+		return keyPrefix + objectKeyFormat.getObjectKeyByIds(entityClass, Arrays.asList(ids));
+	}
+
+	protected <T> String getKeyByEntity(Class<? extends T> entityClass, T entity) {
+		return keyPrefix + objectKeyFormat.getObjectKey(entityClass, entity);
+	}
+
+	private LocalEntry getLocal(String key) {
+		synchronized (localCache) {
+			LocalEntry entry = localCache.get(key);
+			if (entry != null && entry.isExpired()) {
+				localCache.remove(key);
+				return null;
+			}
+			return entry;
+		}
+	}
+
+	private void putLocal(String key, Object value) {
+		if (localCache.getMaxCapacity() == 0) {
+			return;
+		}
+
+		// 保存快照，调用方修改实体对象不会影响缓存
+		Object snapshot = value == Absent.INSTANCE ? value : serializer.serialize(value);
+		LocalEntry entry = new LocalEntry(snapshot, localExpire <= 0 ? 0 : (System.currentTimeMillis() + localExpire));
+		synchronized (localCache) {
+			boolean evict = localCache.size() >= localCache.getMaxCapacity() && !localCache.containsKey(key);
+			localCache.put(key, entry);
+			if (evict) {
+				evictionCount.incrementAndGet();
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T getLocalValue(LocalEntry entry) {
+		try {
+			return (T) serializer.deserialize((byte[]) entry.value);
+		} catch (ClassNotFoundException e) {
+			throw new SerializerException(e);
+		}
+	}
+
+	private void removeLocal(String key) {
+		synchronized (localCache) {
+			localCache.remove(key);
+		}
+	}
+
+	/**
+	 * @return 不存在事务或事务未激活时返回空
+	 */
+	@Nullable
+	private Transaction getActiveTransaction() {
+		TransactionManager manager = TransactionUtils.getManager();
+		if (!manager.hasTransaction()) {
+			return null;
+		}
+
+		Transaction transaction = manager.getTransaction();
+		return transaction.isActive() ? transaction : null;
+	}
+
+	private void put(String key, Object value) {
+		put(key, value, exp);
+	}
+
+	private void put(final String key, Object value, final int exp) {
+		Transaction transaction = getActiveTransaction();
+		if (transaction == null) {
+			putLocal(key, value);
+			storage.set(key, exp, value);
+			return;
+		}
+
+		// 事务未提交时其他事务看不到这次写入，回滚后也不应该留在缓存中
+		final Object snapshot = value == Absent.INSTANCE ? value : SerializerUtils.clone(value);
+		transaction.addLifecycle(new DefaultTransactionLifecycle() {
+			@Override
+			public void afterCommit() {
+				putLocal(key, snapshot);
+				storage.set(key, exp, snapshot);
+			}
+		});
+	}
+
+	private boolean invalidate(final String key) {
+		removeLocal(key);
+		storage.delete(key);
+
+		Transaction transaction = getActiveTransaction();
+		if (transaction != null) {
+			// 事务期间其他的查询可能把旧数据重新放入缓存
+			transaction.addLifecycle(new DefaultTransactionLifecycle() {
+				@Override
+				public void complete() {
+					removeLocal(key);
+					storage.delete(key);
+				}
+			});
+		}
+		return true;
+	}
+
+	@Override
+	public <T> boolean save(Class<? extends T> entityClass, T entity) {
+		// 主键还未生成(如自增主键)，无法缓存
+		if (hasNullPrimaryKey(entityClass, entity)) {
+			return true;
+		}
+
+		put(getKeyByEntity(entityClass, entity), entity);
+		return true;
+	}
+
+	private boolean hasNullPrimaryKey(Class<?> entityClass, Object entity) {
+		if (objectKeyFormat instanceof ObjectRelationalMapping) {
+			for (Field field : ((ObjectRelationalMapping) objectKeyFormat).getPrimaryKeys(entityClass)) {
+				if (field.getGetter().get(entity) == null) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public <T> boolean delete(Class<? extends T> entityClass, T entity) {
+		return invalidate(getKeyByEntity(entityClass, entity));
+	}
+
+	@Override
+	public boolean deleteById(Class<?> entityClass, Object... ids) {
+		return invalidate(getKeyByIds(entityClass, ids));
+	}
+
+	@Override
+	public <T> boolean update(Class<? extends T> entityClass, T entity) {
+		return invalidate(getKeyByEntity(entityClass, entity));
+	}
+
+	@Override
+	public <T> boolean saveOrUpdate(Class<? extends T> entityClass, T entity) {
+		if (hasNullPrimaryKey(entityClass, entity)) {
+			return true;
+		}
+		return invalidate(getKeyByEntity(entityClass, entity));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T getById(Class<? extends T> entityClass, Object... ids) {
+		String key = getKeyByIds(entityClass, ids);
+		LocalEntry entry = getLocal(key);
+		if (entry != null) {
+			localHitCount.incrementAndGet();
+			if (entry.value == Absent.INSTANCE) {
+				absentHitCount.incrementAndGet();
+				return null;
+			}
+			hitCount.incrementAndGet();
+			return getLocalValue(entry);
+		}
+
+		Object value = storage.get(key);
+		if (value == null) {
+			missCount.incrementAndGet();
+			return null;
+		}
+
+		putLocal(key, value);
+		if (value instanceof Absent) {
+			absentHitCount.incrementAndGet();
+			return null;
+		}
+		hitCount.incrementAndGet();
+		return (T) value;
+	}
+
+	@Override
+	public boolean isKeepLooking(Class<?> entityClass, Object... ids) {
+		// getById会将二级缓存中的结果放入一级缓存，所以这里只需要检查一级缓存
+		LocalEntry entry = getLocal(getKeyByIds(entityClass, ids));
+		return entry == null || entry.value != Absent.INSTANCE;
+	}
+
+	@Override
+	public void saveAbsent(Class<?> entityClass, Object... ids) {
+		put(getKeyByIds(entityClass, ids), Absent.INSTANCE, absentExp);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <K, V> Map<K, V> getInIds(Class<? extends V> entityClass, Collection<? extends K> inPrimaryKeys,
+			Object... primaryKeys) {
+		Map<String, K> keyMap = objectKeyFormat.getInIdsKeyMap(entityClass, inPrimaryKeys, primaryKeys);
+		if (keyMap.isEmpty()) {
+			return Collections.emptyMap();
+		}
+
+		Map<K, V> result = new LinkedHashMap<K, V>(keyMap.size());
+		List<String> remoteKeys = new ArrayList<String>();
+		for (Entry<String, K> keyEntry : keyMap.entrySet()) {
+			String key = keyPrefix + keyEntry.getKey();
+			LocalEntry entry = getLocal(key);
+			if (entry == null) {
+				remoteKeys.add(key);
+				continue;
+			}
+
+			localHitCount.incrementAndGet();
+			if (entry.value == Absent.INSTANCE) {
+				absentHitCount.incrementAndGet();
+			} else {
+				hitCount.incrementAndGet();
+				result.put(keyEntry.getValue(), (V) getLocalValue(entry));
+			}
+		}
+
+		if (!remoteKeys.isEmpty()) {
+			Map<String, Object> values = storage.get(remoteKeys);
+			for (String key : remoteKeys) {
+				Object value = values == null ? null : values.get(key);
+				if (value == null) {
+					missCount.incrementAndGet();
+					continue;
+				}
+
+				putLocal(key, value);
+				if (value instanceof Absent) {
+					absentHitCount.incrementAndGet();
+				} else {
+					hitCount.incrementAndGet();
+					result.put(keyMap.get(key.substring(keyPrefix.length())), (V) value);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 清空一级缓存
+	 */
+	public void clearLocal() {
+		synchronized (localCache) {
+			localCache.clear();
+		}
+	}
+
+	public int getLocalSize() {
+		synchronized (localCache) {
+			return localCache.size();
+		}
+	}
+
+	/**
+	 * 命中的数量(包含一级和二级缓存, 不包含不存在的记录)
+	 *
+	 * @return
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * 一级缓存命中的数量(包含不存在的记录)
+	 *
+	 * @return
+	 */
+	public long getLocalHitCount() {
+		return localHitCount.get();
+	}
+
+	/**
+	 * 命中了不存在的记录的数量
+	 *
+	 * @return
+	 */
+	public long getAbsentHitCount() {
+		return absentHitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * 一级缓存因容量不足而淘汰的数量
+	 *
+	 * @return
+	 */
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	private final class LocalEntry {
+		private final Object value;
+		private final long expireTime;
+
+		LocalEntry(Object value, long expireTime) {
+			this.value = value;
+			this.expireTime = expireTime;
+		}
+
+		boolean isExpired() {
+			return expireTime > 0 && System.currentTimeMillis() > expireTime;
+		}
+	}
+
+	/**
+	 * 用于标记记录不存在
+	 */
+	static final class Absent implements Serializable {
+		private static final long serialVersionUID = 1L;
+		static final Absent INSTANCE = new Absent();
+
+		private Object readResolve() {
+			return INSTANCE;
+		}
+	}
+}
@@ -118,9 +118,10 @@ public abstract class AbstractSqlDialect extends DefaultObjectRelationalMapping
 			if (primaryKeys == null || primaryKeys.length == 0) {
 				ids = new Object[] { k };
 			} else {
-				ids = new Object[primaryKeys.length];
+				// primaryKeys是前面的主键，k是最后一个主键
+				ids = new Object[primaryKeys.length + 1];
 				System.arraycopy(primaryKeys, 0, ids, 0, primaryKeys.length);
-				ids[ids.length - 1] = k;
+				ids[primaryKeys.length] = k;
 			}
 			keyMap.put(getObjectKeyByIds(clazz, Arrays.asList(ids)), k);
 		}
@@ -1,8 +1,10 @@
 package scw.orm.sql;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -11,13 +13,22 @@ import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
 
 import scw.aop.support.ProxyUtils;
 import scw.convert.ConversionService;
 import scw.convert.TypeDescriptor;
+import scw.codec.support.Base64;
+import scw.core.Assert;
+import scw.core.Constants;
+import scw.core.utils.CollectionUtils;
 import scw.core.utils.StringUtils;
 import scw.env.Sys;
 import scw.json.JSONUtils;
+import scw.json.JsonArray;
 import scw.lang.Nullable;
 import scw.logger.Logger;
 import scw.logger.LoggerFactory;
@@ -26,20 +37,29 @@ import scw.mapper.Fields;
 import scw.orm.cache.CacheManager;
 import scw.orm.generator.DefaultGeneratorProcessor;
 import scw.orm.generator.GeneratorProcessor;
+import scw.orm.sql.annotation.IndexOrder;
+import scw.orm.sql.annotation.IndexType;
 import scw.orm.sql.convert.SmartMapperProcessor;
 import scw.sql.ConnectionFactory;
 import scw.sql.DefaultSqlOperations;
 import scw.sql.Sql;
+import scw.sql.SqlException;
+import scw.sql.SqlUtils;
 import scw.util.Pagination;
 import scw.util.stream.Cursor;
 import scw.util.stream.Processor;
 
 public class DefaultSqlTemplate extends DefaultSqlOperations implements SqlTemplate {
 	private static Logger logger = LoggerFactory.getLogger(DefaultSqlTemplate.class);
+	/**
+	 * 批量操作时每批的数量
+	 */
+	private static final int DEFAULT_BATCH_SIZE = Sys.env.getValue("sql.batch.size", int.class, 1000);
 	private final SqlDialect sqlDialect;
 	private ConversionService conversionService;
 	private CacheManager cacheManager;
 	private GeneratorProcessor generatorProcessor;
+	private int batchSize = DEFAULT_BATCH_SIZE;
 
 	public DefaultSqlTemplate(ConnectionFactory connectionFactory, SqlDialect sqlDialect) {
 		super(connectionFactory);
@@ -55,6 +75,15 @@ public class DefaultSqlTemplate extends DefaultSqlOperations implements SqlTempl
 		this.generatorProcessor = generatorProcessor;
 	}
 
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		Assert.requiredArgument(batchSize > 0, "batchSize");
+		this.batchSize = batchSize;
+	}
+
 	public SqlDialect getSqlDialect() {
 		return sqlDialect;
 	}
@@ -122,92 +151,310 @@ public class DefaultSqlTemplate extends DefaultSqlOperations implements SqlTempl
 		}
 	}
 
-	@Override
-	public <T> boolean save(String tableName, Class<? extends T> entityClass, T entity) {
-		generatorProcessor.process(entityClass, entity);
+	/**
+	 * 数据库写入成功后再放入缓存，写入失败或自增主键未回填时不缓存
+	 */
+	private <T> void saveCache(Class<? extends T> entityClass, T entity) {
 		CacheManager cacheManager = getCacheManager();
-		if (cacheManager != null) {
-			if (!cacheManager.save(entityClass, entity)) {
-				logger.error("save [{}] to cache error: {}", entityClass,
-						JSONUtils.getJsonSupport().toJSONString(entity));
-				return false;
+		if (cacheManager == null) {
+			return;
+		}
+
+		for (Field field : sqlDialect.getFields(entityClass)) {
+			if (sqlDialect.isAutoIncrement(field.getSetter())) {
+				Object id = field.getGetter().get(entity);
+				if (id == null || (id instanceof Number && ((Number) id).longValue() == 0)) {
+					return;
+				}
 			}
 		}
 
+		if (!cacheManager.save(entityClass, entity)) {
+			logger.error("save [{}] to cache error: {}", entityClass,
+					JSONUtils.getJsonSupport().toJSONString(entity));
+		}
+	}
+
+	/**
+	 * 执行sql前后各使缓存失效一次，防止执行期间并发的查询把旧数据重新放入缓存
+	 * 
+	 * @param invalidator 使缓存失效
+	 * @param executor    执行sql
+	 * @param operation   用于日志
+	 * @param entityClass
+	 * @param value       用于日志
+	 * @return
+	 */
+	private boolean invalidateAround(Predicate<CacheManager> invalidator, BooleanSupplier executor,
+			String operation, Class<?> entityClass, Object value) {
+		CacheManager cacheManager = getCacheManager();
+		if (cacheManager != null && !invalidator.test(cacheManager)) {
+			logger.error("{} [{}] to cache error: {}", operation, entityClass, value);
+			return false;
+		}
+
+		boolean success = executor.getAsBoolean();
+		if (cacheManager != null && !invalidator.test(cacheManager)) {
+			logger.error("{} [{}] to cache error: {}", operation, entityClass, value);
+		}
+		return success;
+	}
+
+	@Override
+	public <T> boolean save(String tableName, Class<? extends T> entityClass, T entity) {
+		generatorProcessor.process(entityClass, entity);
 		String tName = getTableName(tableName, entityClass, entity);
 		Sql sql = sqlDialect.save(tName, entityClass, entity);
-		return prepare(sql).process((ps) -> {
+		boolean success = prepare(sql).process((ps) -> {
 			int updateCount = ps.executeUpdate();
 			setAutoIncrementLastId(updateCount, sql, ps.getConnection(), tName, entityClass, entity);
 			return updateCount;
 		}) > 0;
+		if (success) {
+			saveCache(entityClass, entity);
+		}
+		return success;
 	}
 
 	@Override
 	public <T> boolean saveOrUpdate(String tableName, Class<? extends T> entityClass, T entity) {
 		generatorProcessor.process(entityClass, entity);
-		CacheManager cacheManager = getCacheManager();
-		if (cacheManager != null) {
-			if (!cacheManager.saveOrUpdate(entityClass, entity)) {
-				logger.error("saveOrUpdate [{}] to cache error: {}", entityClass,
-						JSONUtils.getJsonSupport().toJSONString(entity));
-				return false;
-			}
-		}
-
 		String tName = getTableName(tableName, entityClass, entity);
 		Sql sql = sqlDialect.toSaveOrUpdateSql(tName, entityClass, entity);
-		return prepare(sql).process((ps) -> {
-			int updateCount = ps.executeUpdate();
-			setAutoIncrementLastId(updateCount, sql, ps.getConnection(), tName, entityClass, entity);
-			return updateCount;
-		}) > 0;
+		return invalidateAround((cacheManager) -> cacheManager.saveOrUpdate(entityClass, entity),
+				() -> prepare(sql).process((ps) -> {
+					int updateCount = ps.executeUpdate();
+					setAutoIncrementLastId(updateCount, sql, ps.getConnection(), tName, entityClass, entity);
+					return updateCount;
+				}) > 0, "saveOrUpdate", entityClass, entity);
 	}
 
 	@Override
 	public <T> boolean delete(String tableName, Class<? extends T> entityClass, T entity) {
-		CacheManager cacheManager = getCacheManager();
-		if (cacheManager != null) {
-			if (!cacheManager.delete(entity)) {
-				logger.error("delete [{}] to cache error: {}", entityClass,
-						JSONUtils.getJsonSupport().toJSONString(entity));
-				return false;
-			}
-		}
-
 		Class<?> clazz = getUserEntityClass(entity.getClass());
 		Sql sql = sqlDialect.delete(getTableName(tableName, clazz, entity), clazz, entity);
-		return prepare(sql).update() > 0;
+		return invalidateAround((cacheManager) -> cacheManager.delete(entity), () -> prepare(sql).update() > 0,
+				"delete", entityClass, entity);
 	}
 
 	@Override
 	public boolean deleteById(String tableName, Class<?> entityClass, Object... ids) {
+		Class<?> clazz = getUserEntityClass(entityClass);
+		Sql sql = sqlDialect.deleteById(getTableName(tableName, clazz, null), clazz, ids);
+		return invalidateAround((cacheManager) -> cacheManager.deleteById(entityClass, ids),
+				() -> prepare(sql).update() > 0, "deleteById", entityClass, Arrays.toString(ids));
+	}
+
+	@Override
+	public <T> boolean update(String tableName, Class<? extends T> entityClass, T entity) {
+		Class<?> clazz = getUserEntityClass(entity.getClass());
+		Sql sql = sqlDialect.update(getTableName(tableName, clazz, entity), clazz, entity);
+		return invalidateAround((cacheManager) -> cacheManager.update(entityClass, entity),
+				() -> prepare(sql).update() > 0, "update", entityClass, entity);
+	}
+
+	@Override
+	public <T> int saveAll(String tableName, Class<? extends T> entityClass, Collection<? extends T> entities) {
+		if (CollectionUtils.isEmpty(entities)) {
+			return 0;
+		}
+
+		List<T> list = new ArrayList<T>(entities.size());
+		for (T entity : entities) {
+			generatorProcessor.process(entityClass, entity);
+			list.add(entity);
+		}
+
+		Field autoIncrementField = null;
+		for (Field field : sqlDialect.getFields(entityClass)) {
+			if (sqlDialect.isAutoIncrement(field.getSetter())) {
+				autoIncrementField = field;
+				break;
+			}
+		}
+		int count = executeBatch(tableName, entityClass, list,
+				(tName, entity) -> sqlDialect.save(tName, entityClass, entity), autoIncrementField);
+
+		// 批量写入成功后再放入缓存，自增主键未回填的无法缓存
 		CacheManager cacheManager = getCacheManager();
 		if (cacheManager != null) {
-			if (!cacheManager.deleteById(entityClass, ids)) {
-				logger.error("deleteById [{}] to cache error: {}", entityClass, Arrays.toString(ids));
-				return false;
+			for (T entity : list) {
+				if (autoIncrementField != null) {
+					Object id = autoIncrementField.getGetter().get(entity);
+					if (id == null || (id instanceof Number && ((Number) id).longValue() == 0)) {
+						continue;
+					}
+				}
+
+				if (!cacheManager.save(entityClass, entity)) {
+					logger.error("save [{}] to cache error: {}", entityClass,
+							JSONUtils.getJsonSupport().toJSONString(entity));
+				}
 			}
 		}
+		return count;
+	}
 
-		Class<?> clazz = getUserEntityClass(entityClass);
-		Sql sql = sqlDialect.deleteById(getTableName(tableName, clazz, null), clazz, ids);
-		return prepare(sql).update() > 0;
+	@Override
+	public <T> int updateAll(String tableName, Class<? extends T> entityClass, Collection<? extends T> entities) {
+		if (CollectionUtils.isEmpty(entities)) {
+			return 0;
+		}
+
+		CacheManager cacheManager = getCacheManager();
+		List<T> list = new ArrayList<T>(entities.size());
+		for (T entity : entities) {
+			if (cacheManager != null && !cacheManager.update(entityClass, entity)) {
+				logger.error("update [{}] to cache error: {}", entityClass, entity);
+				continue;
+			}
+			list.add(entity);
+		}
+
+		int count = executeBatch(tableName, entityClass, list, (tName, entity) -> {
+			Class<?> clazz = getUserEntityClass(entity.getClass());
+			return sqlDialect.update(tName, clazz, entity);
+		}, null);
+
+		// 写入后再失效一次，防止执行期间并发的查询把旧数据重新放入缓存
+		if (cacheManager != null) {
+			for (T entity : list) {
+				if (!cacheManager.update(entityClass, entity)) {
+					logger.error("update [{}] to cache error: {}", entityClass, entity);
+				}
+			}
+		}
+		return count;
 	}
 
 	@Override
-	public <T> boolean update(String tableName, Class<? extends T> entityClass, T entity) {
+	public <T> int saveOrUpdateAll(String tableName, Class<? extends T> entityClass,
+			Collection<? extends T> entities) {
+		if (CollectionUtils.isEmpty(entities)) {
+			return 0;
+		}
+
 		CacheManager cacheManager = getCacheManager();
+		List<T> list = new ArrayList<T>(entities.size());
+		for (T entity : entities) {
+			generatorProcessor.process(entityClass, entity);
+			if (cacheManager != null && !cacheManager.saveOrUpdate(entityClass, entity)) {
+				logger.error("saveOrUpdate [{}] to cache error: {}", entityClass,
+						JSONUtils.getJsonSupport().toJSONString(entity));
+				continue;
+			}
+			list.add(entity);
+		}
+
+		int count = executeBatch(tableName, entityClass, list,
+				(tName, entity) -> sqlDialect.toSaveOrUpdateSql(tName, entityClass, entity), null);
+
+		// 写入后再失效一次，防止执行期间并发的查询把旧数据重新放入缓存
 		if (cacheManager != null) {
-			if (!cacheManager.update(entityClass, entity)) {
-				logger.error("update [{}] to cache error: {}", entityClass, entity);
-				return false;
+			for (T entity : list) {
+				if (!cacheManager.saveOrUpdate(entityClass, entity)) {
+					logger.error("saveOrUpdate [{}] to cache error: {}", entityClass,
+							JSONUtils.getJsonSupport().toJSONString(entity));
+				}
 			}
 		}
+		return count;
+	}
 
-		Class<?> clazz = getUserEntityClass(entity.getClass());
-		Sql sql = sqlDialect.update(getTableName(tableName, clazz, entity), clazz, entity);
-		return prepare(sql).update() > 0;
+	/**
+	 * 按生成的sql分组，每组使用同一个PreparedStatement分批执行
+	 * 
+	 * @param tableName
+	 * @param entityClass
+	 * @param entities
+	 * @param sqlFactory
+	 * @param autoIncrementField 不为空时通过getGeneratedKeys回填
+	 * @return 受影响的行数
+	 */
+	private <T> int executeBatch(String tableName, Class<? extends T> entityClass, List<T> entities,
+			BiFunction<String, T, Sql> sqlFactory, @Nullable Field autoIncrementField) {
+		if (entities.isEmpty()) {
+			return 0;
+		}
+
+		Map<String, List<BatchEntry<T>>> groups = new LinkedHashMap<String, List<BatchEntry<T>>>();
+		for (T entity : entities) {
+			Sql sql = sqlFactory.apply(getTableName(tableName, entityClass, entity), entity);
+			groups.computeIfAbsent(sql.getSql(), (key) -> new ArrayList<BatchEntry<T>>())
+					.add(new BatchEntry<T>(sql, entity));
+		}
+
+		try {
+			return process((connection) -> {
+				int count = 0;
+				for (Entry<String, List<BatchEntry<T>>> entry : groups.entrySet()) {
+					count += executeBatch(connection, entry.getKey(), entry.getValue(), autoIncrementField);
+				}
+				return count;
+			});
+		} catch (Throwable e) {
+			if (e instanceof SqlException) {
+				throw (SqlException) e;
+			}
+			throw new SqlException(groups.keySet().toString(), e);
+		}
+	}
+
+	private <T> int executeBatch(Connection connection, String sql, List<BatchEntry<T>> entries,
+			@Nullable Field autoIncrementField) throws SQLException {
+		if (logger.isDebugEnabled()) {
+			logger.debug("batch size {}: {}", entries.size(), sql);
+		}
+
+		int count = 0;
+		PreparedStatement ps = autoIncrementField == null ? connection.prepareStatement(sql)
+				: connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+		try {
+			for (int begin = 0; begin < entries.size(); begin += batchSize) {
+				List<BatchEntry<T>> chunk = entries.subList(begin, Math.min(entries.size(), begin + batchSize));
+				for (BatchEntry<T> entry : chunk) {
+					SqlUtils.setSqlParams(ps, entry.sql.getParams());
+					ps.addBatch();
+				}
+
+				for (int updateCount : ps.executeBatch()) {
+					if (updateCount > 0) {
+						count += updateCount;
+					} else if (updateCount == Statement.SUCCESS_NO_INFO) {
+						count++;
+					}
+				}
+
+				if (autoIncrementField != null) {
+					setGeneratedKeys(ps, sql, chunk, autoIncrementField);
+				}
+			}
+		} finally {
+			ps.close();
+		}
+		return count;
+	}
+
+	private <T> void setGeneratedKeys(PreparedStatement ps, String sql, List<BatchEntry<T>> chunk,
+			Field autoIncrementField) throws SQLException {
+		ResultSet resultSet = ps.getGeneratedKeys();
+		if (resultSet == null) {
+			logger.warn("Generated keys are not supported, execute: {}", sql);
+			return;
+		}
+
+		try {
+			for (BatchEntry<T> entry : chunk) {
+				if (!resultSet.next()) {
+					// 一些驱动(如sqlite)批量执行时只会返回最后一个id
+					logger.warn("The number of generated keys is less than {}, execute: {}", chunk.size(), sql);
+					break;
+				}
+				autoIncrementField.getSetter().set(entry.entity, resultSet.getObject(1), getConversionService());
+			}
+		} finally {
+			resultSet.close();
+		}
 	}
 
 	@Override
@@ -222,8 +469,12 @@ public class DefaultSqlTemplate extends DefaultSqlOperations implements SqlTempl
 			Class<?> clazz = getUserEntityClass(entityClass);
 			Sql sql = sqlDialect.toSelectByIdsSql(getTableName(tableName, clazz, null), clazz, ids);
 			value = query(entityClass, sql).first();
-			if (value != null && cacheManager != null) {
-				cacheManager.save(value);
+			if (cacheManager != null) {
+				if (value == null) {
+					cacheManager.saveAbsent(entityClass, ids);
+				} else {
+					cacheManager.save(value);
+				}
 			}
 		}
 		return value;
@@ -254,6 +505,97 @@ public class DefaultSqlTemplate extends DefaultSqlOperations implements SqlTempl
 		return pagination;
 	}
 
+	@Override
+	public <T> KeysetPagination<T> keysetPaginationQuery(String tableName, Class<? extends T> entityClass,
+			String indexName, Sql condition, String token, int limit, boolean count) {
+		if (limit <= 0) {
+			throw new RuntimeException("limit=" + limit);
+		}
+
+		Class<?> clazz = getUserEntityClass(entityClass);
+		List<Field> keys = new ArrayList<Field>();
+		boolean desc = false;
+		boolean unique = true;
+		if (StringUtils.isNotEmpty(indexName)) {
+			List<IndexInfo> indexs = null;
+			for (Entry<IndexInfo, List<IndexInfo>> entry : sqlDialect.getIndexInfoMap(clazz).entrySet()) {
+				if (indexName.equals(entry.getKey().getName())) {
+					indexs = entry.getValue();
+					break;
+				}
+			}
+
+			if (indexs == null) {
+				throw new SqlDialectException("not found index [" + indexName + "] in " + clazz);
+			}
+
+			for (IndexInfo indexInfo : indexs) {
+				keys.add(indexInfo.getColumn());
+			}
+			desc = indexs.get(0).getOrder() == IndexOrder.DESC;
+			unique = indexs.get(0).getType() == IndexType.UNIQUE;
+		}
+
+		if (keys.isEmpty() || !unique) {
+			HashSet<String> names = new HashSet<String>();
+			for (Field key : keys) {
+				names.add(sqlDialect.getName(key.getGetter()));
+			}
+
+			for (Field primaryKey : sqlDialect.getPrimaryKeys(clazz)) {
+				if (names.add(sqlDialect.getName(primaryKey.getGetter()))) {
+					keys.add(primaryKey);
+				}
+			}
+		}
+
+		Object[] lastKeys = StringUtils.isEmpty(token) ? null : decodeKeysetToken(keys, token);
+		String tName = getTableName(tableName, clazz, null);
+		// 多查一条用于判断是否还有下一页
+		PaginationSql paginationSql = sqlDialect.toKeysetPaginationSql(tName, clazz, keys, desc, condition, lastKeys,
+				limit + 1);
+		Cursor<T> cursor = query(entityClass, paginationSql.getResultSql());
+		List<T> list = cursor.shared();
+		String nextToken = null;
+		if (list.size() > limit) {
+			list = new ArrayList<T>(list.subList(0, limit));
+			nextToken = encodeKeysetToken(keys, list.get(limit - 1));
+		}
+
+		Long totalCount = count ? query(Long.class, paginationSql.getCountSql()).first() : null;
+		return new KeysetPagination<T>(limit, list, nextToken, totalCount);
+	}
+
+	private String encodeKeysetToken(List<Field> keys, Object entity) {
+		Object[] values = new Object[keys.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = keys.get(i).getGetter().get(entity);
+		}
+		String json = JSONUtils.getJsonSupport().toJSONString(values);
+		return Base64.DEFAULT.encode(json.getBytes(Constants.UTF_8));
+	}
+
+	private Object[] decodeKeysetToken(List<Field> keys, String token) {
+		JsonArray jsonArray;
+		try {
+			byte[] bytes = Base64.DEFAULT.decode(token);
+			jsonArray = bytes == null ? null : JSONUtils.getJsonSupport().parseArray(new String(bytes, Constants.UTF_8));
+		} catch (RuntimeException e) {
+			throw new SqlDialectException("Illegal token: " + token, e);
+		}
+
+		if (jsonArray == null || jsonArray.size() != keys.size()) {
+			throw new SqlDialectException("Illegal token: " + token);
+		}
+
+		Object[] values = new Object[keys.size()];
+		for (int i = 0; i < values.length; i++) {
+			Object value = jsonArray.getValue(i).getAsObject(keys.get(i).getGetter().getGenericType());
+			values[i] = sqlDialect.toDataBaseValue(value);
+		}
+		return values;
+	}
+
 	public TableChanges getTableChanges(Class<?> tableClass, String tableName) {
 		String tName = getTableName(tableName, tableClass, null);
 		TableStructureMapping tableStructureMapping = sqlDialect.getTableStructureMapping(tableClass, tName);
@@ -299,6 +641,61 @@ public class DefaultSqlTemplate extends DefaultSqlOperations implements SqlTempl
 	@Override
 	public <K, V> Map<K, V> getInIds(String tableName, Class<? extends V> entityClass,
 			Collection<? extends K> inPrimaryKeys, Object... primaryKeys) {
+		CacheManager cacheManager = getCacheManager();
+		if (cacheManager == null || CollectionUtils.isEmpty(inPrimaryKeys)) {
+			return queryInIds(tableName, entityClass, inPrimaryKeys, primaryKeys);
+		}
+
+		Map<K, V> cacheMap = cacheManager.getInIds(entityClass, inPrimaryKeys, primaryKeys);
+		List<K> notFoundList = new ArrayList<K>();
+		for (K k : inPrimaryKeys) {
+			if (cacheMap.containsKey(k)) {
+				continue;
+			}
+
+			if (cacheManager.isKeepLooking(entityClass, getInIdsPrimaryKeys(k, primaryKeys))) {
+				notFoundList.add(k);
+			}
+		}
+
+		Map<K, V> dbMap = notFoundList.isEmpty() ? Collections.emptyMap()
+				: queryInIds(tableName, entityClass, notFoundList, primaryKeys);
+		for (K k : notFoundList) {
+			V value = dbMap.get(k);
+			if (value == null) {
+				cacheManager.saveAbsent(entityClass, getInIdsPrimaryKeys(k, primaryKeys));
+			} else {
+				cacheManager.save(value);
+			}
+		}
+
+		Map<K, V> map = new LinkedHashMap<K, V>(inPrimaryKeys.size());
+		for (K k : inPrimaryKeys) {
+			V value = cacheMap.get(k);
+			if (value == null) {
+				value = dbMap.get(k);
+			}
+
+			if (value != null) {
+				map.put(k, value);
+			}
+		}
+		return map;
+	}
+
+	private static Object[] getInIdsPrimaryKeys(Object inPrimaryKey, Object... primaryKeys) {
+		if (primaryKeys == null || primaryKeys.length == 0) {
+			return new Object[] { inPrimaryKey };
+		}
+
+		Object[] ids = new Object[primaryKeys.length + 1];
+		System.arraycopy(primaryKeys, 0, ids, 0, primaryKeys.length);
+		ids[primaryKeys.length] = inPrimaryKey;
+		return ids;
+	}
+
+	private <K, V> Map<K, V> queryInIds(String tableName, Class<? extends V> entityClass,
+			Collection<? extends K> inPrimaryKeys, Object... primaryKeys) {
 		String tName = getTableName(tableName, entityClass, null);
 		Sql sql = sqlDialect.getInIds(tName, entityClass, primaryKeys, inPrimaryKeys);
 		Cursor<V> cursor = query(entityClass, sql);
@@ -315,4 +712,14 @@ public class DefaultSqlTemplate extends DefaultSqlOperations implements SqlTempl
 		}
 		return map;
 	}
+
+	private static final class BatchEntry<T> {
+		private final Sql sql;
+		private final T entity;
+
+		BatchEntry(Sql sql, T entity) {
+			this.sql = sql;
+			this.entity = entity;
+		}
+	}
 }
@@ -0,0 +1,65 @@
+package scw.orm.sql;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+import scw.lang.Nullable;
+
+/**
+ * 键集(seek)分页的结果<br/>
+ * 不支持跳页，只能通过{@link #getNextToken()}获取下一页
+ * 
+ * @author shuchaowen
+ *
+ * @param <T>
+ */
+public class KeysetPagination<T> implements Serializable {
+	private static final long serialVersionUID = 1L;
+	private final int limit;
+	private final List<T> data;
+	private final String nextToken;
+	private final Long totalCount;
+
+	public KeysetPagination(int limit, List<T> data, @Nullable String nextToken, @Nullable Long totalCount) {
+		this.limit = limit;
+		this.data = data;
+		this.nextToken = nextToken;
+		this.totalCount = totalCount;
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	public List<T> getData() {
+		if (data == null) {
+			return Collections.emptyList();
+		}
+		return data;
+	}
+
+	/**
+	 * 获取下一页时使用的token，这是一个不透明的值，不应该解析或修改它
+	 * 
+	 * @return 为空说明没有下一页了
+	 */
+	@Nullable
+	public String getNextToken() {
+		return nextToken;
+	}
+
+	public boolean hasNext() {
+		return nextToken != null;
+	}
+
+	/**
+	 * 总数量
+	 * 
+	 * @return 未统计时为空
+	 */
+	@Nullable
+	public Long getTotalCount() {
+		return totalCount;
+	}
+}
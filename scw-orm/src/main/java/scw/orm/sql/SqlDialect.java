@@ -6,6 +6,7 @@ import java.util.Map;
 
 import scw.convert.TypeDescriptor;
 import scw.core.annotation.AnnotatedElementUtils;
+import scw.lang.Nullable;
 import scw.mapper.Field;
 import scw.mapper.FieldDescriptor;
 import scw.orm.ObjectKeyFormat;
@@ -46,6 +47,16 @@ public interface SqlDialect extends ObjectKeyFormat, ObjectRelationalMapping{
 
 	Object toDataBaseValue(Object value, TypeDescriptor sourceType);
 
+	/**
+	 * 流式查询时使用的fetchSize
+	 * 
+	 * @see scw.sql.StreamingSqlStatementProcessor
+	 * @return
+	 */
+	default int getStreamingFetchSize() {
+		return 1000;
+	}
+
 	String getCharsetName(FieldDescriptor fieldDescriptor);
 
 	String getComment(Field field);
@@ -70,6 +81,22 @@ public interface SqlDialect extends ObjectKeyFormat, ObjectRelationalMapping{
 
 	PaginationSql toPaginationSql(Sql sql, long start, int limit) throws SqlDialectException;
 
+	/**
+	 * 键集(seek)分页，使用上一页最后一行的键作为条件，不需要扫描并丢弃前面的数据
+	 * 
+	 * @param tableName
+	 * @param entityClass
+	 * @param keys       排序的键，组合起来必须是唯一的
+	 * @param desc       是否是降序
+	 * @param condition  其他的查询条件(不包含where)，可以为空
+	 * @param lastKeys   上一页最后一行的键的值，为空说明是第一页
+	 * @param limit
+	 * @return
+	 * @throws SqlDialectException
+	 */
+	PaginationSql toKeysetPaginationSql(String tableName, Class<?> entityClass, List<Field> keys, boolean desc,
+			@Nullable Sql condition, @Nullable Object[] lastKeys, int limit) throws SqlDialectException;
+
 	Sql getInIds(String tableName, Class<?> entityClass, Object[] primaryKeys, Collection<?> inPrimaryKeys)
 			throws SqlDialectException;
 
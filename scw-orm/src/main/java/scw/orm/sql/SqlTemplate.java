@@ -13,6 +13,7 @@ import scw.orm.MaxValueFactory;
 import scw.sql.Sql;
 import scw.sql.SqlOperations;
 import scw.sql.SqlStatementProcessor;
+import scw.sql.StreamingSqlStatementProcessor;
 import scw.util.Pagination;
 import scw.util.stream.Cursor;
 
@@ -84,6 +85,52 @@ public interface SqlTemplate extends EntityOperations, SqlOperations, MaxValueFa
 
 	<T> boolean saveOrUpdate(@Nullable String tableName, Class<? extends T> entityClass, T entity);
 
+	default <T> int saveAll(Class<? extends T> entityClass, Collection<? extends T> entities) {
+		return saveAll(null, entityClass, entities);
+	}
+
+	/**
+	 * 批量保存，相同的sql会使用同一个PreparedStatement通过addBatch分批执行<br/>
+	 * 自增字段的值通过getGeneratedKeys获取(需要驱动支持批量返回)
+	 * 
+	 * @param tableName
+	 * @param entityClass
+	 * @param entities
+	 * @return 受影响的行数
+	 */
+	<T> int saveAll(@Nullable String tableName, Class<? extends T> entityClass, Collection<? extends T> entities);
+
+	default <T> int updateAll(Class<? extends T> entityClass, Collection<? extends T> entities) {
+		return updateAll(null, entityClass, entities);
+	}
+
+	/**
+	 * 批量更新
+	 * 
+	 * @see #saveAll(String, Class, Collection)
+	 * @param tableName
+	 * @param entityClass
+	 * @param entities
+	 * @return 受影响的行数
+	 */
+	<T> int updateAll(@Nullable String tableName, Class<? extends T> entityClass, Collection<? extends T> entities);
+
+	default <T> int saveOrUpdateAll(Class<? extends T> entityClass, Collection<? extends T> entities) {
+		return saveOrUpdateAll(null, entityClass, entities);
+	}
+
+	/**
+	 * 批量保存或更新，不会回填自增字段的值
+	 * 
+	 * @see #saveAll(String, Class, Collection)
+	 * @param tableName
+	 * @param entityClass
+	 * @param entities
+	 * @return 受影响的行数
+	 */
+	<T> int saveOrUpdateAll(@Nullable String tableName, Class<? extends T> entityClass,
+			Collection<? extends T> entities);
+
 	@Nullable
 	@Override
 	default <T> T getById(Class<? extends T> entityClass, Object... ids) {
@@ -141,8 +188,51 @@ public interface SqlTemplate extends EntityOperations, SqlOperations, MaxValueFa
 		return query(TypeDescriptor.valueOf(resultType), sql);
 	}
 
+	/**
+	 * 流式查询，结果会逐行(分批)从数据库中读取并映射，适合导出大量数据<br/>
+	 * 返回的结果在迭代完成或调用close后才会释放连接，所以应该使用try-with-resources
+	 * 
+	 * @see SqlDialect#getStreamingFetchSize()
+	 * @param resultType
+	 * @param sql
+	 * @return
+	 */
+	default <T> Cursor<T> streamQuery(TypeDescriptor resultType, Sql sql) {
+		return query(resultType, sql,
+				new StreamingSqlStatementProcessor(this, getSqlDialect().getStreamingFetchSize()));
+	}
+
+	default <T> Cursor<T> streamQuery(Class<? extends T> resultType, Sql sql) {
+		return streamQuery(TypeDescriptor.valueOf(resultType), sql);
+	}
+
 	<T> Pagination<T> paginationQuery(TypeDescriptor resultType, Sql sql, long page, int limit);
 
+	/**
+	 * 使用主键进行键集(seek)分页，只有第一页会统计总数
+	 * 
+	 * @see #keysetPaginationQuery(String, Class, String, Sql, String, int, boolean)
+	 */
+	default <T> KeysetPagination<T> keysetPaginationQuery(Class<? extends T> entityClass, @Nullable Sql condition,
+			@Nullable String token, int limit) {
+		return keysetPaginationQuery(null, entityClass, null, condition, token, limit, token == null);
+	}
+
+	/**
+	 * 键集(seek)分页，每一页都是从上一页的最后一行开始通过索引查找，页数再大也不会变慢
+	 * 
+	 * @param tableName
+	 * @param entityClass
+	 * @param indexName   使用的索引名称({@link scw.orm.sql.annotation.Index#name()})，为空时使用主键，非唯一索引会追加主键保证顺序是唯一的
+	 * @param condition   其他的查询条件(不包含where)
+	 * @param token       上一页返回的{@link KeysetPagination#getNextToken()}，为空时查询第一页
+	 * @param limit
+	 * @param count       是否统计总数
+	 * @return
+	 */
+	<T> KeysetPagination<T> keysetPaginationQuery(@Nullable String tableName, Class<? extends T> entityClass,
+			@Nullable String indexName, @Nullable Sql condition, @Nullable String token, int limit, boolean count);
+
 	default <T> Pagination<T> paginationQuery(Class<? extends T> resultType, Sql sql, long page, int limit) {
 		return paginationQuery(TypeDescriptor.valueOf(resultType), sql, page, limit);
 	}
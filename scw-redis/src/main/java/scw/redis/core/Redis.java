@@ -48,6 +48,15 @@ public class Redis implements RedisConnectionFactory<String, String> {
 		return targetConnectionFactory;
 	}
 
+	/**
+	 * 需要独占一个连接时使用(如订阅)
+	 * 
+	 * @return
+	 */
+	public RedisConnectionFactory<byte[], byte[]> getBinaryConnectionFactory() {
+		return targetConnectionFactory;
+	}
+
 	public CASOperations getCASOperations() {
 		return new RedisCASOperations(getObjectCommands());
 	}
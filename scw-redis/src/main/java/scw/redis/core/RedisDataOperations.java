@@ -1,19 +1,39 @@
 package scw.redis.core;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import scw.context.annotation.Provider;
+import scw.core.Constants;
 import scw.core.utils.CollectionUtils;
 import scw.data.DataOperations;
+import scw.io.ResourceUtils;
 import scw.redis.core.RedisStringCommands.ExpireOption;
-
+import scw.value.AnyValue;
+
+/**
+ * 批量操作使用mset或lua脚本实现，只需要一次网络交互<br/>
+ * 注意：在集群模式下批量操作的key需要在同一个slot中
+ * 
+ * @author shuchaowen
+ *
+ */
 @Provider
 public class RedisDataOperations implements DataOperations {
+	private static final String MSET_SCRIPT = ResourceUtils
+			.getContent(ResourceUtils.getSystemResource("/scw/redis/core/mset.script"), Constants.UTF_8);
+	private static final String TOUCH_SCRIPT = ResourceUtils
+			.getContent(ResourceUtils.getSystemResource("/scw/redis/core/touch.script"), Constants.UTF_8);
+	private static final String MINCR_SCRIPT = ResourceUtils
+			.getContent(ResourceUtils.getSystemResource("/scw/redis/core/mincr.script"), Constants.UTF_8);
+
 	private final Redis redisTemplete;
 
 	public RedisDataOperations(Redis redisTemplate) {
@@ -124,4 +144,59 @@ public class RedisDataOperations implements DataOperations {
 		return redisTemplete.decr(key, delta, initialValue, 0);
 	}
 
+	@SuppressWarnings("unchecked")
+	@Override
+	public void set(Map<String, ?> valueMap, int exp) {
+		if (CollectionUtils.isEmpty(valueMap)) {
+			return;
+		}
+
+		if (exp <= 0) {
+			redisTemplete.getObjectCommands().mset((Map<String, Object>) valueMap);
+			return;
+		}
+
+		List<byte[]> keys = new ArrayList<byte[]>(valueMap.size());
+		List<byte[]> args = new ArrayList<byte[]>(valueMap.size() + 1);
+		args.add(redisTemplete.getValueCodec().encode(String.valueOf(exp)));
+		for (Entry<String, ?> entry : valueMap.entrySet()) {
+			keys.add(redisTemplete.getKeyCodec().encode(entry.getKey()));
+			args.add(redisTemplete.getSerializer().serialize(entry.getValue()));
+		}
+		redisTemplete.getBinaryCommands().eval(redisTemplete.getKeyCodec().encode(MSET_SCRIPT), keys, args);
+	}
+
+	@Override
+	public long touch(Collection<String> keys, int exp) {
+		if (CollectionUtils.isEmpty(keys)) {
+			return 0;
+		}
+
+		Object value = redisTemplete.eval(TOUCH_SCRIPT, new ArrayList<String>(keys),
+				Arrays.asList(String.valueOf(exp)));
+		return new AnyValue(value).getAsLongValue();
+	}
+
+	@Override
+	public Map<String, Long> incr(Map<String, Long> deltaMap) {
+		if (CollectionUtils.isEmpty(deltaMap)) {
+			return Collections.emptyMap();
+		}
+
+		List<String> keys = new ArrayList<String>(deltaMap.size());
+		List<String> args = new ArrayList<String>(deltaMap.size());
+		for (Entry<String, Long> entry : deltaMap.entrySet()) {
+			keys.add(entry.getKey());
+			args.add(String.valueOf(entry.getValue()));
+		}
+
+		List<Object> values = redisTemplete.eval(MINCR_SCRIPT, keys, args);
+		Map<String, Long> valueMap = new LinkedHashMap<String, Long>(keys.size());
+		Iterator<String> keyIterator = keys.iterator();
+		Iterator<Object> valueIterator = values.iterator();
+		while (keyIterator.hasNext() && valueIterator.hasNext()) {
+			valueMap.put(keyIterator.next(), new AnyValue(valueIterator.next()).getAsLong());
+		}
+		return valueMap;
+	}
 }
@@ -0,0 +1,44 @@
+package scw.redis.core.limit;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import scw.context.annotation.Provider;
+import scw.core.Assert;
+import scw.core.Constants;
+import scw.io.ResourceUtils;
+import scw.redis.core.Redis;
+import scw.security.limit.CountLimitAlgorithm;
+import scw.security.limit.RateLimiter;
+import scw.value.AnyValue;
+
+/**
+ * 使用redis实现的限流器，每次获取许可都是一次原子的lua脚本调用<br/>
+ * 使用redis服务器的时间，不受各个节点时钟差异的影响
+ *
+ * @author shuchaowen
+ *
+ */
+@Provider(value = RateLimiter.class)
+public final class RedisRateLimiter implements RateLimiter {
+	private static final String RATE_LIMIT_SCRIPT = ResourceUtils
+			.getContent(ResourceUtils.getSystemResource("/scw/redis/core/rateLimit.script"), Constants.UTF_8);
+
+	private final Redis redis;
+
+	public RedisRateLimiter(Redis redis) {
+		this.redis = redis;
+	}
+
+	@Override
+	public boolean tryAcquire(String key, CountLimitAlgorithm algorithm, long maxCount, long period,
+			TimeUnit timeUnit) {
+		Assert.requiredArgument(key != null, "key");
+		Assert.requiredArgument(algorithm != null, "algorithm");
+		long periodMillis = Math.max(1, timeUnit.toMillis(period));
+		Object value = redis.eval(RATE_LIMIT_SCRIPT, Collections.singletonList(key),
+				Arrays.asList(algorithm.name(), String.valueOf(maxCount), String.valueOf(periodMillis)));
+		return new AnyValue(value).getAsLongValue() == 1;
+	}
+}
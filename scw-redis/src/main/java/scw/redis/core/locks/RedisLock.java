@@ -1,50 +1,150 @@
 package scw.redis.core.locks;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.concurrent.TimeUnit;
 
 import scw.core.Constants;
 import scw.io.ResourceUtils;
+import scw.lang.Nullable;
 import scw.locks.RenewableLock;
 import scw.redis.core.Redis;
-import scw.redis.core.RedisStringCommands.ExpireOption;
-import scw.redis.core.SetOption;
+import scw.redis.core.locks.RedisLockNotifier.Waiters;
+import scw.value.AnyValue;
 
+/**
+ * 加锁、续期、解锁都是原子的lua脚本<br/>
+ * 加锁成功时会返回一个单调递增的fencing token，可以用于在存储层拒绝过期的锁持有者的写入<br/>
+ * 如果存在{@link RedisLockNotifier}，等待锁的线程会在锁释放时被唤醒，否则按{@link #getSleepTime()}轮询
+ *
+ * @author shuchaowen
+ *
+ */
 public final class RedisLock extends RenewableLock {
-	private static final String UNLOCK_SCRIPT = ResourceUtils.getContent(ResourceUtils.getSystemResource("/scw/data/redis/lock.script"),
-			Constants.UTF_8);
+	private static final String TRY_LOCK_SCRIPT = ResourceUtils
+			.getContent(ResourceUtils.getSystemResource("/scw/redis/core/tryLock.script"), Constants.UTF_8);
+	private static final String RENEWAL_SCRIPT = ResourceUtils
+			.getContent(ResourceUtils.getSystemResource("/scw/redis/core/renewal.script"), Constants.UTF_8);
+	private static final String UNLOCK_SCRIPT = ResourceUtils
+			.getContent(ResourceUtils.getSystemResource("/scw/redis/core/lock.script"), Constants.UTF_8);
+	/**
+	 * 没有收到通知时最长的等待时间(毫秒), 防止因消息丢失而一直等待
+	 */
+	private static final long MAX_WAIT_TIME = 1000L;
+
 	private final Redis redis;
 	private final String key;
 	private final String id;
+	private final RedisLockNotifier notifier;
+	private volatile long fencingToken = -1;
 
 	public RedisLock(Redis redis, String key, String id, TimeUnit timeUnit, long timeout) {
+		this(redis, key, id, timeUnit, timeout, null);
+	}
+
+	public RedisLock(Redis redis, String key, String id, TimeUnit timeUnit, long timeout,
+			@Nullable RedisLockNotifier notifier) {
 		super(timeUnit, timeout);
 		this.redis = redis;
 		this.key = key;
 		this.id = id;
+		this.notifier = notifier;
 	}
 
-	public boolean tryLock() {
-		boolean b = redis.set(key, id, ExpireOption.EX, getTimeout(TimeUnit.SECONDS), SetOption.NX);
-		if(b){
+	/**
+	 * 保存fencing token的key, 使用hash tag保证在集群中与锁在同一个slot
+	 *
+	 * @return
+	 */
+	private String getFencingKey() {
+		return "{" + key + "}:fencing";
+	}
+
+	/**
+	 * 获取当前持有的锁的fencing token
+	 *
+	 * @return 未持有锁时返回-1
+	 */
+	public long getFencingToken() {
+		return fencingToken;
+	}
+
+	/**
+	 * 尝试加锁
+	 *
+	 * @return 大于0表示加锁成功(fencing token)，否则为锁剩余的过期时间的相反数(毫秒)
+	 */
+	private long acquire() {
+		Object value = redis.eval(TRY_LOCK_SCRIPT, Arrays.asList(key, getFencingKey()),
+				Arrays.asList(id, String.valueOf(getTimeout(TimeUnit.MILLISECONDS))));
+		long result = new AnyValue(value).getAsLongValue();
+		if (result > 0) {
+			fencingToken = result;
 			autoRenewal();
 		}
-		return b;
+		return result;
+	}
+
+	public boolean tryLock() {
+		return acquire() > 0;
+	}
+
+	@Override
+	public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+		return tryLock(System.currentTimeMillis() + unit.toMillis(time));
+	}
+
+	@Override
+	public void lockInterruptibly() throws InterruptedException {
+		tryLock(Long.MAX_VALUE);
+	}
+
+	private boolean tryLock(long deadline) throws InterruptedException {
+		Waiters waiters = notifier == null ? null : notifier.register(key);
+		try {
+			while (true) {
+				// 在加锁前获取version, 避免丢失加锁失败后到开始等待之间的通知
+				long version = waiters == null ? 0 : waiters.getVersion();
+				long result = acquire();
+				if (result > 0) {
+					return true;
+				}
+
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					return false;
+				}
+
+				if (Thread.interrupted()) {
+					throw new InterruptedException();
+				}
+
+				if (waiters == null) {
+					TimeUnit.MILLISECONDS.sleep(Math.min(remaining, getSleepTime()));
+				} else {
+					// 最多等到锁过期
+					long ttl = -result;
+					long wait = Math.min(remaining, ttl > 0 ? Math.min(ttl, MAX_WAIT_TIME) : MAX_WAIT_TIME);
+					waiters.await(version, wait);
+				}
+			}
+		} finally {
+			if (waiters != null) {
+				notifier.unregister(key);
+			}
+		}
 	}
 
 	public void unlock() {
 		cancelAutoRenewal();
+		fencingToken = -1;
 		redis.eval(UNLOCK_SCRIPT, Collections.singletonList(key),
-				Collections.singletonList(id));
-		//boolean b = values.length == 0 ? false : values[0].getAsBooleanValue();
+				notifier == null ? Collections.singletonList(id) : Arrays.asList(id, notifier.getChannel()));
 	}
 
 	public boolean renewal(long time, TimeUnit unit) {
-		if(!id.equals(redis.get(key))){
-			return false;
-		}
-		
-		Boolean b = redis.set(key, id, ExpireOption.EX, unit.toSeconds(time), SetOption.XX);
-		return b == null? false:b;
+		Object value = redis.eval(RENEWAL_SCRIPT, Collections.singletonList(key),
+				Arrays.asList(id, String.valueOf(unit.toMillis(time))));
+		return new AnyValue(value).getAsLongValue() == 1;
 	}
 }
@@ -2,7 +2,9 @@ package scw.redis.core.locks;
 
 import java.util.concurrent.TimeUnit;
 
+import scw.context.Destroy;
 import scw.context.annotation.Provider;
+import scw.lang.Nullable;
 import scw.locks.LockFactory;
 import scw.locks.RenewableLock;
 import scw.locks.RenewableLockFactory;
@@ -10,15 +12,32 @@ import scw.redis.core.Redis;
 import scw.util.XUtils;
 
 @Provider(value = LockFactory.class)
-public final class RedisLockFactory extends RenewableLockFactory {
+public final class RedisLockFactory extends RenewableLockFactory implements Destroy {
 	private final Redis redis;
+	private final RedisLockNotifier notifier;
 
 	public RedisLockFactory(Redis redis) {
+		this(redis, new RedisLockNotifier(redis));
+	}
+
+	/**
+	 * @param redis
+	 * @param notifier 为空时等待锁的线程会一直轮询
+	 */
+	public RedisLockFactory(Redis redis, @Nullable RedisLockNotifier notifier) {
 		this.redis = redis;
+		this.notifier = notifier;
 	}
 
 	@Override
 	public RenewableLock getLock(String name, TimeUnit timeUnit, long timeout) {
-		return new RedisLock(redis, name, XUtils.getUUID(), timeUnit, timeout);
+		return new RedisLock(redis, name, XUtils.getUUID(), timeUnit, timeout, notifier);
+	}
+
+	@Override
+	public void destroy() {
+		if (notifier != null) {
+			notifier.destroy();
+		}
 	}
 }
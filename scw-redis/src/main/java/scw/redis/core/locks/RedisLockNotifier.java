@@ -0,0 +1,147 @@
+package scw.redis.core.locks;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import scw.context.Destroy;
+import scw.core.Assert;
+import scw.logger.Logger;
+import scw.logger.LoggerFactory;
+import scw.redis.core.Message;
+import scw.redis.core.MessageListener;
+import scw.redis.core.Redis;
+import scw.redis.core.RedisConnection;
+import scw.redis.core.Subscription;
+
+/**
+ * 通过redis的发布订阅通知锁已经释放，等待锁的线程被唤醒后再去尝试加锁，而不是一直轮询<br/>
+ * 第一次等待时才会开始订阅(会占用一个连接)，订阅断开后会自动重连
+ *
+ * @author shuchaowen
+ *
+ */
+public final class RedisLockNotifier implements Destroy, Runnable {
+	private static Logger logger = LoggerFactory.getLogger(RedisLockNotifier.class);
+	public static final String DEFAULT_CHANNEL = "scw:redis:lock:release";
+
+	private final ConcurrentHashMap<String, Waiters> waitersMap = new ConcurrentHashMap<String, Waiters>();
+	private final AtomicBoolean started = new AtomicBoolean(false);
+	private final Redis redis;
+	private final String channel;
+	private volatile boolean running = true;
+	private volatile RedisConnection<String, String> connection;
+
+	public RedisLockNotifier(Redis redis) {
+		this(redis, DEFAULT_CHANNEL);
+	}
+
+	public RedisLockNotifier(Redis redis, String channel) {
+		Assert.requiredArgument(redis != null, "redis");
+		Assert.requiredArgument(channel != null, "channel");
+		this.redis = redis;
+		this.channel = channel;
+	}
+
+	public String getChannel() {
+		return channel;
+	}
+
+	Waiters register(String key) {
+		if (started.compareAndSet(false, true)) {
+			Thread thread = new Thread(this, getClass().getSimpleName() + "-" + channel);
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		return waitersMap.compute(key, (k, waiters) -> {
+			if (waiters == null) {
+				waiters = new Waiters();
+			}
+			waiters.count++;
+			return waiters;
+		});
+	}
+
+	void unregister(String key) {
+		waitersMap.computeIfPresent(key, (k, waiters) -> --waiters.count == 0 ? null : waiters);
+	}
+
+	@Override
+	public void run() {
+		MessageListener<String, String> listener = new MessageListener<String, String>() {
+
+			@Override
+			public void onMessage(Message<String, String> message, String pattern) {
+				Waiters waiters = waitersMap.get(message.getBody());
+				if (waiters != null) {
+					waiters.signal();
+				}
+			}
+		};
+
+		while (running) {
+			try (RedisConnection<String, String> connection = redis.getConnection()) {
+				this.connection = connection;
+				// 阻塞直到取消订阅或连接断开
+				connection.subscribe(listener, channel);
+			} catch (Throwable e) {
+				if (!running) {
+					break;
+				}
+
+				logger.error(e, "Subscribe lock channel [{}] error, retry after 1 second", channel);
+				try {
+					TimeUnit.SECONDS.sleep(1);
+				} catch (InterruptedException e1) {
+					break;
+				}
+			} finally {
+				this.connection = null;
+			}
+		}
+	}
+
+	@Override
+	public void destroy() {
+		running = false;
+		RedisConnection<String, String> connection = this.connection;
+		if (connection != null) {
+			try {
+				Subscription<String, String> subscription = connection.getSubscription();
+				if (subscription != null) {
+					subscription.unsubscribe();
+				}
+			} catch (Throwable e) {
+				logger.error(e, "Unsubscribe lock channel [{}] error", channel);
+			}
+		}
+	}
+
+	/**
+	 * 等待同一个锁的线程
+	 */
+	static final class Waiters {
+		// 只在ConcurrentHashMap.compute中修改
+		private int count;
+		private long version;
+
+		synchronized long getVersion() {
+			return version;
+		}
+
+		/**
+		 * 如果在获取version后已经收到通知就不再等待
+		 */
+		synchronized void await(long version, long timeoutMillis) throws InterruptedException {
+			if (this.version == version && timeoutMillis > 0) {
+				wait(timeoutMillis);
+			}
+		}
+
+		synchronized void signal() {
+			version++;
+			notifyAll();
+		}
+	}
+}
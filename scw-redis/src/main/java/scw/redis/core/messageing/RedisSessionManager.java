@@ -0,0 +1,247 @@
+package scw.redis.core.messageing;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import scw.core.Assert;
+import scw.core.Constants;
+import scw.io.JavaSerializer;
+import scw.io.ResourceUtils;
+import scw.io.Serializer;
+import scw.lang.Nullable;
+import scw.logger.Logger;
+import scw.logger.LoggerFactory;
+import scw.messageing.session.DistributedSessionManager;
+import scw.messageing.session.SessionMessage;
+import scw.redis.core.Message;
+import scw.redis.core.MessageListener;
+import scw.redis.core.Redis;
+import scw.redis.core.RedisConnection;
+import scw.redis.core.Subscription;
+import scw.value.AnyValue;
+
+/**
+ * 使用redis保存session所在的节点，通过redis的发布订阅转发消息<br/>
+ * 每个节点订阅自己的频道和广播频道，第一次添加session时才会开始订阅(会占用一个连接)并等待订阅成功，订阅断开后会自动重连<br/>
+ * session记录使用字符串保存，删除时使用lua脚本比较并删除
+ *
+ * @author shuchaowen
+ *
+ */
+public class RedisSessionManager extends DistributedSessionManager implements Runnable {
+	private static Logger logger = LoggerFactory.getLogger(RedisSessionManager.class);
+	public static final String DEFAULT_CHANNEL_PREFIX = "scw:messageing:channel:";
+	private static final String COMPARE_AND_DELETE_SCRIPT = ResourceUtils
+			.getContent(ResourceUtils.getSystemResource("/scw/redis/core/compareAndDelete.script"), Constants.UTF_8);
+
+	private final Redis redis;
+	private final String channelPrefix;
+	private final String channel;
+	private final String broadcastChannel;
+	private final AtomicBoolean started = new AtomicBoolean(false);
+	private Serializer serializer = JavaSerializer.INSTANCE;
+	private long subscribeTimeout = 10000;
+	private volatile boolean running = true;
+	private volatile RedisConnection<byte[], byte[]> connection;
+
+	public RedisSessionManager(Redis redis, String nodeId) {
+		this(redis, nodeId, DEFAULT_CHANNEL_PREFIX);
+	}
+
+	public RedisSessionManager(Redis redis, String nodeId, String channelPrefix) {
+		super(nodeId, redis.getDataOperations());
+		Assert.requiredArgument(channelPrefix != null, "channelPrefix");
+		this.redis = redis;
+		this.channelPrefix = channelPrefix;
+		this.channel = getChannel(nodeId);
+		this.broadcastChannel = channelPrefix + "broadcast";
+	}
+
+	public Serializer getSerializer() {
+		return serializer;
+	}
+
+	/**
+	 * 默认使用java序列化, 消息中的对象负载需要可以被此序列化
+	 *
+	 * @param serializer
+	 */
+	public void setSerializer(Serializer serializer) {
+		Assert.requiredArgument(serializer != null, "serializer");
+		this.serializer = serializer;
+	}
+
+	public long getSubscribeTimeout() {
+		return subscribeTimeout;
+	}
+
+	/**
+	 * 第一次添加session时等待订阅成功的最长时间(毫秒)
+	 *
+	 * @param subscribeTimeout
+	 */
+	public void setSubscribeTimeout(long subscribeTimeout) {
+		Assert.requiredArgument(subscribeTimeout > 0, "subscribeTimeout");
+		this.subscribeTimeout = subscribeTimeout;
+	}
+
+	/**
+	 * 节点订阅的频道
+	 *
+	 * @param nodeId
+	 * @return
+	 */
+	protected String getChannel(String nodeId) {
+		return channelPrefix + "node:" + nodeId;
+	}
+
+	@Override
+	protected void startup() {
+		if (started.compareAndSet(false, true)) {
+			Thread thread = new Thread(this, getClass().getSimpleName() + "-" + getNodeId());
+			thread.setDaemon(true);
+			thread.start();
+		}
+		awaitSubscribed();
+		super.startup();
+	}
+
+	/**
+	 * 向自己的频道发送空消息，有接收者说明已经订阅成功(自己发出的消息会被忽略)
+	 */
+	private void awaitSubscribed() {
+		long deadline = System.currentTimeMillis() + subscribeTimeout;
+		while (true) {
+			try {
+				if (publish(getNodeId(), Collections.emptyList())) {
+					return;
+				}
+			} catch (IOException e) {
+				throw new IllegalStateException("Subscribe session channel [" + channel + "] error", e);
+			}
+
+			if (System.currentTimeMillis() > deadline) {
+				throw new IllegalStateException("Subscribe session channel [" + channel + "] timeout");
+			}
+
+			try {
+				TimeUnit.MILLISECONDS.sleep(10);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while subscribing session channel [" + channel + "]");
+			}
+		}
+	}
+
+	@Override
+	public String getNodeId(String sessionId) {
+		return redis.get(getKey(sessionId));
+	}
+
+	@Override
+	protected void setOwnership(String sessionId) {
+		redis.setex(getKey(sessionId), getExpire(), getNodeId());
+	}
+
+	@Override
+	protected void refreshOwnership(String sessionId) {
+		redis.expire(getKey(sessionId), getExpire());
+	}
+
+	@Override
+	protected boolean removeOwnership(String sessionId, String nodeId) {
+		Object value = redis.eval(COMPARE_AND_DELETE_SCRIPT, Arrays.asList(getKey(sessionId)), Arrays.asList(nodeId));
+		return new AnyValue(value).getAsLongValue() == 1;
+	}
+
+	@Override
+	protected boolean publish(@Nullable String nodeId, List<SessionMessage> messages) throws IOException {
+		String targetChannel = nodeId == null ? broadcastChannel : getChannel(nodeId);
+		byte[] body = serializer.serialize(new Envelope(getNodeId(), new ArrayList<SessionMessage>(messages)));
+		Long count = redis.getBinaryCommands().publish(redis.getKeyCodec().encode(targetChannel), body);
+		return count == null || count > 0;
+	}
+
+	@Override
+	public void run() {
+		MessageListener<byte[], byte[]> listener = new MessageListener<byte[], byte[]>() {
+
+			@Override
+			public void onMessage(Message<byte[], byte[]> message, byte[] pattern) {
+				Envelope envelope;
+				try {
+					envelope = serializer.deserialize(message.getBody());
+				} catch (Throwable e) {
+					logger.error(e, "Deserialize session messages error, channel [{}]",
+							redis.getKeyCodec().decode(message.getChannel()));
+					return;
+				}
+
+				// 自己发出的广播在发送时已经处理过了
+				if (getNodeId().equals(envelope.nodeId)) {
+					return;
+				}
+				onMessages(envelope.messages);
+			}
+		};
+
+		while (running) {
+			try (RedisConnection<byte[], byte[]> connection = redis.getBinaryConnectionFactory().getConnection()) {
+				this.connection = connection;
+				// 阻塞直到取消订阅或连接断开
+				connection.subscribe(listener, redis.getKeyCodec().encode(channel),
+						redis.getKeyCodec().encode(broadcastChannel));
+			} catch (Throwable e) {
+				if (!running) {
+					break;
+				}
+
+				logger.error(e, "Subscribe session channel [{}] error, retry after 1 second", channel);
+				try {
+					TimeUnit.SECONDS.sleep(1);
+				} catch (InterruptedException e1) {
+					break;
+				}
+			} finally {
+				this.connection = null;
+			}
+		}
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		running = false;
+		RedisConnection<byte[], byte[]> connection = this.connection;
+		if (connection != null) {
+			try {
+				Subscription<byte[], byte[]> subscription = connection.getSubscription();
+				if (subscription != null) {
+					subscription.unsubscribe();
+				}
+			} catch (Throwable e) {
+				logger.error(e, "Unsubscribe session channel [{}] error", channel);
+			}
+		}
+		super.destroy();
+	}
+
+	private static final class Envelope implements Serializable {
+		private static final long serialVersionUID = 1L;
+		/**
+		 * 发送消息的节点
+		 */
+		private final String nodeId;
+		private final ArrayList<SessionMessage> messages;
+
+		Envelope(String nodeId, ArrayList<SessionMessage> messages) {
+			this.nodeId = nodeId;
+			this.messages = messages;
+		}
+	}
+}
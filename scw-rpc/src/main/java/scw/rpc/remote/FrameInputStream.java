@@ -0,0 +1,156 @@
+package scw.rpc.remote;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * 读取{@link FrameOutputStream}写出的数据，每一块验证通过后才会返回
+ * 
+ * @see StreamingRemoteMessageCodec
+ * @author shuchaowen
+ *
+ */
+final class FrameInputStream extends InputStream {
+	private final DataInputStream in;
+	private final StreamingRemoteMessageCodec codec;
+	private final Cipher cipher;
+	private final SecretKeySpec key;
+	private byte[] chunk = new byte[0];
+	private byte[] buffer = new byte[0];
+	private int position;
+	private int limit;
+	private int index;
+	private boolean finished;
+
+	FrameInputStream(InputStream in, StreamingRemoteMessageCodec codec) throws IOException {
+		this.in = new DataInputStream(in);
+		this.codec = codec;
+		byte version;
+		byte flags;
+		try {
+			version = this.in.readByte();
+			flags = this.in.readByte();
+		} catch (EOFException e) {
+			throw new RemoteMessageCodecException("Incomplete message");
+		}
+
+		if (version != StreamingRemoteMessageCodec.VERSION) {
+			throw new RemoteMessageCodecException("Unsupported version: " + version);
+		}
+
+		boolean encrypted = (flags & StreamingRemoteMessageCodec.FLAG_ENCRYPTED) != 0;
+		if (encrypted != codec.isEncrypted()) {
+			throw new RemoteMessageCodecException(
+					encrypted ? "Message is encrypted but no secret key" : "Message is not encrypted");
+		}
+
+		this.cipher = codec.createCipher();
+		if (cipher == null) {
+			this.key = null;
+		} else {
+			byte[] salt = new byte[StreamingRemoteMessageCodec.SALT_LENGTH];
+			readFully(salt, salt.length);
+			this.key = codec.deriveKey(salt);
+		}
+	}
+
+	private void readFully(byte[] b, int len) throws IOException {
+		try {
+			in.readFully(b, 0, len);
+		} catch (EOFException e) {
+			throw new RemoteMessageCodecException("Incomplete message");
+		}
+	}
+
+	private boolean fill() throws IOException {
+		while (position == limit) {
+			if (finished) {
+				return false;
+			}
+
+			int header;
+			try {
+				header = in.readInt();
+			} catch (EOFException e) {
+				// 没有读到最后一块说明数据被截断了
+				throw new RemoteMessageCodecException("Incomplete message");
+			}
+
+			boolean last = (header & StreamingRemoteMessageCodec.LAST_CHUNK) != 0;
+			int length = header & ~StreamingRemoteMessageCodec.LAST_CHUNK;
+			if (length > StreamingRemoteMessageCodec.MAX_CHUNK_SIZE) {
+				throw new RemoteMessageCodecException("Chunk too large: " + length);
+			}
+
+			if (cipher == null) {
+				if (buffer.length < length) {
+					buffer = new byte[length];
+				}
+				readFully(buffer, length);
+				limit = length;
+			} else {
+				if (length < StreamingRemoteMessageCodec.TAG_LENGTH) {
+					throw new RemoteMessageCodecException("Illegal chunk length: " + length);
+				}
+
+				if (chunk.length < length) {
+					chunk = new byte[length];
+					buffer = new byte[length];
+				}
+				readFully(chunk, length);
+				codec.initCipher(cipher, Cipher.DECRYPT_MODE, key, index, last);
+				try {
+					limit = cipher.doFinal(chunk, 0, length, buffer, 0);
+				} catch (GeneralSecurityException e) {
+					throw new RemoteMessageCodecException(e);
+				}
+			}
+			position = 0;
+			index++;
+			finished = last;
+		}
+		return true;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!fill()) {
+			return -1;
+		}
+		return buffer[position++] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+
+		if (!fill()) {
+			return -1;
+		}
+
+		int n = Math.min(len, limit - position);
+		System.arraycopy(buffer, position, b, off, n);
+		position += n;
+		return n;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return limit - position;
+	}
+
+	/**
+	 * 不关闭源流
+	 */
+	@Override
+	public void close() throws IOException {
+	}
+}
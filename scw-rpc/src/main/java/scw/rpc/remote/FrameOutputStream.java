@@ -0,0 +1,148 @@
+package scw.rpc.remote;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * 将写入的数据分块后写入到目标流
+ * 
+ * @see StreamingRemoteMessageCodec
+ * @author shuchaowen
+ *
+ */
+final class FrameOutputStream extends OutputStream {
+	private static final SecureRandom RANDOM = new SecureRandom();
+
+	private final OutputStream out;
+	private final StreamingRemoteMessageCodec codec;
+	private final Cipher cipher;
+	private final byte[] buffer;
+	private final byte[] encrypted;
+	private final SecretKeySpec key;
+	private final byte[] header = new byte[4];
+	private int count;
+	private int index;
+	private boolean finished;
+
+	FrameOutputStream(OutputStream out, StreamingRemoteMessageCodec codec) throws IOException {
+		this.out = out;
+		this.codec = codec;
+		this.cipher = codec.createCipher();
+		this.buffer = new byte[codec.getChunkSize()];
+		if (cipher == null) {
+			this.encrypted = null;
+			this.key = null;
+			out.write(new byte[] { StreamingRemoteMessageCodec.VERSION, 0 });
+		} else {
+			this.encrypted = new byte[buffer.length + StreamingRemoteMessageCodec.TAG_LENGTH];
+			byte[] salt = new byte[StreamingRemoteMessageCodec.SALT_LENGTH];
+			RANDOM.nextBytes(salt);
+			this.key = codec.deriveKey(salt);
+			out.write(new byte[] { StreamingRemoteMessageCodec.VERSION, StreamingRemoteMessageCodec.FLAG_ENCRYPTED });
+			out.write(salt);
+		}
+	}
+
+	private void ensureOpen() throws IOException {
+		if (finished) {
+			throw new IOException("Stream finished");
+		}
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		ensureOpen();
+		if (count == buffer.length) {
+			writeChunk(buffer, 0, count, false);
+			count = 0;
+		}
+		buffer[count++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		ensureOpen();
+		while (len > 0) {
+			if (count == buffer.length) {
+				writeChunk(buffer, 0, count, false);
+				count = 0;
+			}
+
+			// 不加密且没有缓存的数据时直接写出，不需要复制
+			if (count == 0 && len > buffer.length && cipher == null) {
+				writeChunk(b, off, buffer.length, false);
+				off += buffer.length;
+				len -= buffer.length;
+				continue;
+			}
+
+			int n = Math.min(len, buffer.length - count);
+			System.arraycopy(b, off, buffer, count, n);
+			count += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	private void writeChunk(byte[] b, int off, int len, boolean last) throws IOException {
+		if (cipher == null) {
+			writeHeader(len, last);
+			out.write(b, off, len);
+		} else {
+			codec.initCipher(cipher, Cipher.ENCRYPT_MODE, key, index, last);
+			int length;
+			try {
+				length = cipher.doFinal(b, off, len, encrypted, 0);
+			} catch (GeneralSecurityException e) {
+				throw new IOException(e);
+			}
+			writeHeader(length, last);
+			out.write(encrypted, 0, length);
+		}
+		index++;
+	}
+
+	private void writeHeader(int length, boolean last) throws IOException {
+		int value = last ? (length | StreamingRemoteMessageCodec.LAST_CHUNK) : length;
+		header[0] = (byte) (value >>> 24);
+		header[1] = (byte) (value >>> 16);
+		header[2] = (byte) (value >>> 8);
+		header[3] = (byte) value;
+		out.write(header);
+	}
+
+	/**
+	 * 写出最后一块，可以重复调用
+	 * 
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		if (finished) {
+			return;
+		}
+
+		finished = true;
+		writeChunk(buffer, 0, count, true);
+		count = 0;
+		out.flush();
+	}
+
+	@Override
+	public void flush() throws IOException {
+		// 只有写满一块或结束时才会写出，这里只刷新已经写出的数据
+		out.flush();
+	}
+
+	/**
+	 * 序列化器可能会关闭流，这里只结束写入，不关闭目标流
+	 */
+	@Override
+	public void close() throws IOException {
+		finish();
+	}
+}
@@ -0,0 +1,184 @@
+package scw.rpc.remote;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import scw.codec.support.CharsetCodec;
+import scw.core.Assert;
+import scw.io.Serializer;
+import scw.io.SerializerUtils;
+import scw.lang.Nullable;
+import scw.net.message.InputMessage;
+import scw.net.message.OutputMessage;
+
+/**
+ * 流式的编解码，序列化的数据直接写入输出流，不会先转为byte[]再进行Base64等字符串转换<br/>
+ * 数据被分为多个带长度前缀的块，如果存在secretKey每个块使用AES-GCM单独加密和验证(块的序号和是否是最后一块也参与验证，防止重排和截断)<br/>
+ * 每条消息使用随机的salt通过HKDF-SHA256派生出单独的AES-256密钥，块的序号作为nonce，所以不同的消息之间不会出现nonce重复<br/>
+ * 帧格式：version(1) + flags(1) + [salt(16)] + {length(4, 最高位表示最后一块) + data}*
+ * 
+ * @author shuchaowen
+ *
+ */
+public class StreamingRemoteMessageCodec implements RemoteMessageCodec {
+	static final byte VERSION = 2;
+	static final byte FLAG_ENCRYPTED = 1;
+	static final int LAST_CHUNK = 0x80000000;
+	static final int SALT_LENGTH = 16;
+	static final int NONCE_LENGTH = 12;
+	static final int TAG_LENGTH = 16;
+	/**
+	 * 读取时允许的最大块的长度，防止恶意的长度前缀导致分配大量内存
+	 */
+	static final int MAX_CHUNK_SIZE = 16 * 1024 * 1024;
+	public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+	private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+	private static final String HMAC_ALGORITHM = "HmacSHA256";
+	private static final byte[] HKDF_INFO = CharsetCodec.UTF_8.encode("scw-rpc-streaming-aes-gcm");
+
+	private final Serializer serializer;
+	private final byte[] secretKey;
+	private final int chunkSize;
+
+	public StreamingRemoteMessageCodec() {
+		this((byte[]) null);
+	}
+
+	public StreamingRemoteMessageCodec(@Nullable String secretKey) {
+		this(secretKey == null ? null : CharsetCodec.UTF_8.encode(secretKey));
+	}
+
+	public StreamingRemoteMessageCodec(@Nullable byte[] secretKey) {
+		this(null, secretKey);
+	}
+
+	public StreamingRemoteMessageCodec(@Nullable Serializer serializer, @Nullable byte[] secretKey) {
+		this(serializer, secretKey, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * @param serializer 为空时使用{@link SerializerUtils#getSerializer()}
+	 * @param secretKey  为空时不加密，不为空时作为HKDF的输入密钥，每条消息派生出单独的AES-256密钥
+	 * @param chunkSize  每一块的最大长度
+	 */
+	public StreamingRemoteMessageCodec(@Nullable Serializer serializer, @Nullable byte[] secretKey, int chunkSize) {
+		Assert.requiredArgument(chunkSize > 0 && chunkSize <= MAX_CHUNK_SIZE - TAG_LENGTH, "chunkSize");
+		this.serializer = serializer == null ? SerializerUtils.getSerializer() : serializer;
+		this.secretKey = secretKey == null ? null : secretKey.clone();
+		this.chunkSize = chunkSize;
+	}
+
+	public Serializer getSerializer() {
+		return serializer;
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	public boolean isEncrypted() {
+		return secretKey != null;
+	}
+
+	@Nullable
+	Cipher createCipher() throws IOException {
+		if (secretKey == null) {
+			return null;
+		}
+
+		try {
+			return Cipher.getInstance(TRANSFORMATION);
+		} catch (GeneralSecurityException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * 使用HKDF-SHA256(RFC 5869)派生出这条消息的密钥
+	 * 
+	 * @param salt 每条消息随机生成，写在帧头中
+	 * @return
+	 * @throws IOException
+	 */
+	SecretKeySpec deriveKey(byte[] salt) throws IOException {
+		try {
+			// extract
+			Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+			mac.init(new SecretKeySpec(salt, HMAC_ALGORITHM));
+			byte[] prk = mac.doFinal(secretKey);
+
+			// expand, 只需要一个块(32字节)
+			mac.init(new SecretKeySpec(prk, HMAC_ALGORITHM));
+			mac.update(HKDF_INFO);
+			mac.update((byte) 1);
+			return new SecretKeySpec(mac.doFinal(), "AES");
+		} catch (GeneralSecurityException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * 每条消息的密钥都不同，所以块的序号就可以作为nonce
+	 */
+	void initCipher(Cipher cipher, int mode, SecretKeySpec key, int index, boolean last) throws IOException {
+		byte[] nonce = new byte[NONCE_LENGTH];
+		nonce[8] = (byte) (index >>> 24);
+		nonce[9] = (byte) (index >>> 16);
+		nonce[10] = (byte) (index >>> 8);
+		nonce[11] = (byte) index;
+		try {
+			cipher.init(mode, key, new GCMParameterSpec(TAG_LENGTH * 8, nonce));
+		} catch (GeneralSecurityException e) {
+			throw new IOException(e);
+		}
+		cipher.updateAAD(new byte[] { last ? (byte) 1 : 0 });
+	}
+
+	public void write(OutputMessage output, Object message) throws IOException, RemoteMessageCodecException {
+		OutputStream os = output.getOutputStream();
+		try {
+			FrameOutputStream frame = new FrameOutputStream(os, this);
+			serializer.serialize(frame, message);
+			frame.finish();
+		} finally {
+			os.close();
+		}
+	}
+
+	public Object read(InputMessage input) throws IOException, RemoteMessageCodecException {
+		InputStream is = input.getInputStream();
+		try {
+			return serializer.deserialize(new FrameInputStream(is, this));
+		} catch (ClassNotFoundException e) {
+			throw new RemoteMessageCodecException(e);
+		} finally {
+			is.close();
+		}
+	}
+
+	public void encode(OutputMessage output, RemoteRequestMessage requestMessage)
+			throws IOException, RemoteMessageCodecException {
+		write(output, requestMessage);
+	}
+
+	public RemoteResponseMessage decode(InputMessage input, RemoteRequestMessage requestMessage)
+			throws IOException, RemoteMessageCodecException {
+		return (RemoteResponseMessage) read(input);
+	}
+
+	public RemoteRequestMessage decode(InputMessage input) throws IOException, RemoteMessageCodecException {
+		return (RemoteRequestMessage) read(input);
+	}
+
+	public void encode(OutputMessage output, RemoteResponseMessage responseMessage,
+			RemoteRequestMessage requestMessage) throws IOException, RemoteMessageCodecException {
+		write(output, responseMessage);
+	}
+}
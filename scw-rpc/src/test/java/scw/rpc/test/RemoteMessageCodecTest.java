@@ -0,0 +1,169 @@
+package scw.rpc.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import scw.io.UnsafeByteArrayOutputStream;
+import scw.net.MimeType;
+import scw.net.message.Headers;
+import scw.net.message.InputMessage;
+import scw.net.message.OutputMessage;
+import scw.rpc.remote.DefaultRemoteMessageCodec;
+import scw.rpc.remote.RemoteMessageCodecException;
+import scw.rpc.remote.StreamingRemoteMessageCodec;
+
+public class RemoteMessageCodecTest {
+	private static final String SECRET_KEY = "12345678";
+
+	private static byte[] random(int size) {
+		byte[] data = new byte[size];
+		new Random(size).nextBytes(data);
+		return data;
+	}
+
+	@Test
+	public void streaming() throws IOException {
+		for (StreamingRemoteMessageCodec codec : new StreamingRemoteMessageCodec[] {
+				new StreamingRemoteMessageCodec(), new StreamingRemoteMessageCodec(null, SECRET_KEY.getBytes(), 1024) }) {
+			for (int size : new int[] { 0, 1, 1024, 1024 * 1024 }) {
+				byte[] data = random(size);
+				MemoryMessage message = new MemoryMessage();
+				codec.write(message, data);
+				assertArrayEquals(data, (byte[]) codec.read(message));
+			}
+		}
+	}
+
+	@Test
+	public void tamper() throws IOException {
+		StreamingRemoteMessageCodec codec = new StreamingRemoteMessageCodec(SECRET_KEY);
+		MemoryMessage message = new MemoryMessage();
+		codec.write(message, random(1024));
+		byte[] body = message.out.toByteArray();
+		body[body.length / 2] ^= 1;
+		try {
+			codec.read(new MemoryMessage(body));
+			fail();
+		} catch (RemoteMessageCodecException e) {
+			// 验证失败
+		}
+
+		// 截断
+		body = message.out.toByteArray();
+		byte[] truncated = new byte[body.length - 20];
+		System.arraycopy(body, 0, truncated, 0, truncated.length);
+		try {
+			codec.read(new MemoryMessage(truncated));
+			fail();
+		} catch (RemoteMessageCodecException e) {
+			// 数据不完整
+		}
+
+		// 每条消息使用不同的salt派生密钥
+		MemoryMessage other = new MemoryMessage();
+		codec.write(other, random(1024));
+		byte[] otherBody = other.out.toByteArray();
+		assertFalse(Arrays.equals(Arrays.copyOfRange(body, 0, 18), Arrays.copyOfRange(otherBody, 0, 18)));
+
+		// 密钥不同
+		try {
+			new StreamingRemoteMessageCodec("87654321").read(new MemoryMessage(body));
+			fail();
+		} catch (RemoteMessageCodecException e) {
+			// 验证失败
+		}
+	}
+
+	/**
+	 * 简单的性能对比(没有使用jmh), 1KB和1MB的消息各编解码多次
+	 */
+	@Test
+	public void benchmark() throws IOException {
+		DefaultRemoteMessageCodec defaultCodec = new DefaultRemoteMessageCodec(SECRET_KEY);
+		StreamingRemoteMessageCodec streamingCodec = new StreamingRemoteMessageCodec(SECRET_KEY);
+		for (int size : new int[] { 1024, 1024 * 1024 }) {
+			byte[] data = random(size);
+			int count = size > 1024 ? 10 : 2000;
+			for (int round = 0; round < 2; round++) {
+				long t = System.nanoTime();
+				for (int i = 0; i < count; i++) {
+					MemoryMessage message = new MemoryMessage();
+					defaultCodec.write(message, data);
+					defaultCodec.read(message);
+				}
+				long defaultTime = System.nanoTime() - t;
+
+				t = System.nanoTime();
+				for (int i = 0; i < count; i++) {
+					MemoryMessage message = new MemoryMessage();
+					streamingCodec.write(message, data);
+					streamingCodec.read(message);
+				}
+				long streamingTime = System.nanoTime() - t;
+				System.out.println("size=" + size + ", count=" + count + ", default=" + defaultTime / 1000000
+						+ "ms, streaming=" + streamingTime / 1000000 + "ms");
+			}
+		}
+	}
+
+	private static class MemoryMessage implements InputMessage, OutputMessage {
+		private final Headers headers = new Headers(false);
+		private final UnsafeByteArrayOutputStream out = new UnsafeByteArrayOutputStream();
+		private final byte[] body;
+		private MimeType contentType;
+		private long contentLength = -1;
+
+		public MemoryMessage() {
+			this(null);
+		}
+
+		public MemoryMessage(byte[] body) {
+			this.body = body;
+		}
+
+		@Override
+		public Headers getHeaders() {
+			return headers;
+		}
+
+		@Override
+		public MimeType getContentType() {
+			return contentType;
+		}
+
+		@Override
+		public long getContentLength() {
+			return contentLength;
+		}
+
+		@Override
+		public void setContentType(MimeType contentType) {
+			this.contentType = contentType;
+		}
+
+		@Override
+		public void setContentLength(long contentLength) {
+			this.contentLength = contentLength;
+		}
+
+		@Override
+		public OutputStream getOutputStream() throws IOException {
+			return out;
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			return new ByteArrayInputStream(body == null ? out.toByteArray() : body);
+		}
+	}
+}
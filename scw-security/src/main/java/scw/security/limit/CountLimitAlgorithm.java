@@ -0,0 +1,22 @@
+package scw.security.limit;
+
+/**
+ * 限流算法
+ * 
+ * @author shuchaowen
+ *
+ */
+public enum CountLimitAlgorithm {
+	/**
+	 * 固定窗口计数，在窗口边界前后最多可能通过2倍的请求
+	 */
+	FIXED_WINDOW,
+	/**
+	 * 滑动窗口计数，使用上一个窗口的计数按剩余时间的比例估算，不会出现边界处的突发
+	 */
+	SLIDING_WINDOW,
+	/**
+	 * 令牌桶，容量为maxCount，每个周期匀速补充maxCount个令牌
+	 */
+	TOKEN_BUCKET
+}
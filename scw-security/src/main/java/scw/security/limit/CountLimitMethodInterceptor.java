@@ -47,19 +47,29 @@ public final class CountLimitMethodInterceptor implements MethodInterceptor, Met
 			return invoker.invoke(args);
 		}
 
-		TemporaryCounter temporaryCounter = instanceFactory.getInstance(countLimitSecurity.counter());
 		CountLimitFactory countLimitFactory = instanceFactory.getInstance(countLimitSecurity.factory());
 		String key = countLimitFactory.getKey(countLimitSecurity, invoker, args);
-		int exp = (int) countLimitSecurity.timeUnit().toSeconds(countLimitSecurity.period());
-		long count = temporaryCounter.incr(key, 1, 1, exp);
-		if (logger.isDebugEnabled()) {
-			logger.debug("count limit key={}, method={}, max={}, count={}", key, invoker.getMethod(),
-					countLimitSecurity.maxCount(), count);
-		}
+		if (countLimitSecurity.algorithm() == CountLimitAlgorithm.FIXED_WINDOW) {
+			TemporaryCounter temporaryCounter = instanceFactory.getInstance(countLimitSecurity.counter());
+			int exp = (int) countLimitSecurity.timeUnit().toSeconds(countLimitSecurity.period());
+			long count = temporaryCounter.incr(key, 1, 1, exp);
+			if (logger.isDebugEnabled()) {
+				logger.debug("count limit key={}, method={}, max={}, count={}", key, invoker.getMethod(),
+						countLimitSecurity.maxCount(), count);
+			}
 
-		if (count > countLimitSecurity.maxCount()) {
-			logger.warn("Too frequent operation max={}, count={}, method={}", key, count, invoker.getMethod());
-			throw new CountLimitException("操作过于频繁");
+			if (count > countLimitSecurity.maxCount()) {
+				logger.warn("Too frequent operation max={}, count={}, method={}", key, count, invoker.getMethod());
+				throw new CountLimitException("操作过于频繁");
+			}
+		} else {
+			RateLimiter rateLimiter = instanceFactory.getInstance(countLimitSecurity.limiter());
+			if (!rateLimiter.tryAcquire(key, countLimitSecurity.algorithm(), countLimitSecurity.maxCount(),
+					countLimitSecurity.period(), countLimitSecurity.timeUnit())) {
+				logger.warn("Too frequent operation key={}, algorithm={}, max={}, method={}", key,
+						countLimitSecurity.algorithm(), countLimitSecurity.maxCount(), invoker.getMethod());
+				throw new CountLimitException("操作过于频繁");
+			}
 		}
 		return invoker.invoke(args);
 	}
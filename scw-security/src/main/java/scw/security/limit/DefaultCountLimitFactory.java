@@ -1,33 +1,62 @@
 package scw.security.limit;
 
+import java.lang.reflect.Method;
+import java.util.Map;
+
 import scw.core.parameter.ParameterDescriptor;
 import scw.core.parameter.ParameterUtils;
 import scw.core.reflect.MethodInvoker;
 import scw.security.limit.annotation.CountLimitParameter;
 import scw.security.limit.annotation.CountLimitSecurity;
+import scw.util.ConcurrentReferenceHashMap;
 
 public class DefaultCountLimitFactory implements CountLimitFactory {
+	/**
+	 * 缓存方法的参数名和{@link CountLimitParameter}，避免每次调用都解析
+	 */
+	private final Map<Method, KeyParameters> cacheMap = new ConcurrentReferenceHashMap<Method, KeyParameters>();
 
 	public String getKey(CountLimitSecurity countLimitSecurity, MethodInvoker invoker, Object[] args) {
-		StringBuilder sb = new StringBuilder();
-		sb.append("count-limit:");
-		sb.append(invoker.getMethod().getName());
-		ParameterDescriptor[] parameterConfigs = ParameterUtils.getParameterDescriptors(invoker.getMethod());
-		for (int i = 0; i < parameterConfigs.length; i++) {
-			ParameterDescriptor config = parameterConfigs[i];
-			boolean b = countLimitSecurity.useAllParameters();
-			CountLimitParameter countLimitParameter = config.getAnnotation(CountLimitParameter.class);
-			if (countLimitParameter != null) {
-				b = countLimitParameter.value();
-			}
+		Method method = invoker.getMethod();
+		KeyParameters keyParameters = cacheMap.get(method);
+		if (keyParameters == null) {
+			keyParameters = new KeyParameters(method);
+			cacheMap.put(method, keyParameters);
+		}
 
+		StringBuilder sb = new StringBuilder(64);
+		sb.append("count-limit:");
+		sb.append(method.getName());
+		for (int i = 0; i < keyParameters.names.length; i++) {
+			boolean b = keyParameters.enables[i] == null ? countLimitSecurity.useAllParameters()
+					: keyParameters.enables[i];
 			if (b) {
 				sb.append("&");
-				sb.append(config.getName());
+				sb.append(keyParameters.names[i]);
 				sb.append("=");
 				sb.append(args[i]);
 			}
 		}
 		return sb.toString();
 	}
+
+	private static final class KeyParameters {
+		private final String[] names;
+		/**
+		 * 为空表示未声明{@link CountLimitParameter}
+		 */
+		private final Boolean[] enables;
+
+		KeyParameters(Method method) {
+			ParameterDescriptor[] parameterDescriptors = ParameterUtils.getParameterDescriptors(method);
+			this.names = new String[parameterDescriptors.length];
+			this.enables = new Boolean[parameterDescriptors.length];
+			for (int i = 0; i < parameterDescriptors.length; i++) {
+				names[i] = parameterDescriptors[i].getName();
+				CountLimitParameter countLimitParameter = parameterDescriptors[i]
+						.getAnnotation(CountLimitParameter.class);
+				enables[i] = countLimitParameter == null ? null : countLimitParameter.value();
+			}
+		}
+	}
 }
@@ -0,0 +1,175 @@
+package scw.security.limit;
+
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import scw.core.Assert;
+
+/**
+ * 进程内的限流器<br/>
+ * 每个key的状态是不可变对象，通过CAS替换，不需要加锁<br/>
+ * 每次请求只顺带检查少量的key来清理过期的状态，清理速度始终快于新增key的速度
+ *
+ * @author shuchaowen
+ *
+ */
+public class LocalRateLimiter implements RateLimiter {
+	/**
+	 * 每次请求最多检查的key的数量
+	 */
+	private static final int SWEEP_SIZE = 16;
+
+	private final ConcurrentHashMap<String, State> stateMap = new ConcurrentHashMap<String, State>();
+	private final AtomicBoolean sweeping = new AtomicBoolean();
+	/**
+	 * 只有获得sweeping的线程才能使用
+	 */
+	private Iterator<Entry<String, State>> sweepIterator;
+
+	public boolean tryAcquire(String key, CountLimitAlgorithm algorithm, long maxCount, long period,
+			TimeUnit timeUnit) {
+		Assert.requiredArgument(key != null, "key");
+		Assert.requiredArgument(algorithm != null, "algorithm");
+		long periodMillis = Math.max(1, timeUnit.toMillis(period));
+		long now = System.currentTimeMillis();
+		sweep(now);
+
+		while (true) {
+			State state = stateMap.get(key);
+			State next = algorithm == CountLimitAlgorithm.TOKEN_BUCKET
+					? TokenBucketState.acquire(state, maxCount, periodMillis, now)
+					: WindowState.acquire(state, algorithm == CountLimitAlgorithm.SLIDING_WINDOW, maxCount,
+							periodMillis, now);
+			if (next == null) {
+				return false;
+			}
+
+			// 状态被其他线程替换或被清理时重试
+			if (state == null ? stateMap.putIfAbsent(key, next) == null : stateMap.replace(key, state, next)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * 当前保存的key的数量
+	 *
+	 * @return
+	 */
+	public int size() {
+		return stateMap.size();
+	}
+
+	private void sweep(long now) {
+		if (!sweeping.compareAndSet(false, true)) {
+			return;
+		}
+
+		try {
+			for (int i = 0; i < SWEEP_SIZE; i++) {
+				if (sweepIterator == null) {
+					sweepIterator = stateMap.entrySet().iterator();
+				}
+
+				if (!sweepIterator.hasNext()) {
+					// 已经检查完一轮，下次重新开始
+					sweepIterator = null;
+					break;
+				}
+
+				Entry<String, State> entry = sweepIterator.next();
+				if (entry.getValue().expireTime < now) {
+					// 只删除检查过的状态，如果已经被更新就保留
+					stateMap.remove(entry.getKey(), entry.getValue());
+				}
+			}
+		} finally {
+			sweeping.set(false);
+		}
+	}
+
+	private static abstract class State {
+		/**
+		 * 超过此时间后状态与不存在时等价
+		 */
+		protected final long expireTime;
+
+		State(long expireTime) {
+			this.expireTime = expireTime;
+		}
+	}
+
+	private static final class WindowState extends State {
+		private final long window;
+		private final long count;
+		private final long previous;
+
+		WindowState(long window, long count, long previous, long expireTime) {
+			super(expireTime);
+			this.window = window;
+			this.count = count;
+			this.previous = previous;
+		}
+
+		/**
+		 * @return 不允许时返回空
+		 */
+		static WindowState acquire(State state, boolean sliding, long maxCount, long period, long now) {
+			long window = now / period;
+			long count = 0;
+			long previous = 0;
+			if (state instanceof WindowState) {
+				WindowState windowState = (WindowState) state;
+				if (windowState.window == window) {
+					count = windowState.count;
+					previous = windowState.previous;
+				} else if (windowState.window == window - 1) {
+					previous = windowState.count;
+				}
+			}
+
+			double estimate = count + 1;
+			if (sliding) {
+				// 上一个窗口在滑动窗口中还剩余的比例
+				estimate += previous * (double) (period - now % period) / period;
+			}
+
+			if (estimate > maxCount) {
+				return null;
+			}
+			return new WindowState(window, count + 1, previous, (window + 2) * period);
+		}
+	}
+
+	private static final class TokenBucketState extends State {
+		private final double tokens;
+		private final long time;
+
+		TokenBucketState(double tokens, long time, long expireTime) {
+			super(expireTime);
+			this.tokens = tokens;
+			this.time = time;
+		}
+
+		static TokenBucketState acquire(State state, long maxCount, long period, long now) {
+			double tokens = maxCount;
+			long time = now;
+			if (state instanceof TokenBucketState) {
+				TokenBucketState tokenBucketState = (TokenBucketState) state;
+				// 时钟回拨时不补充
+				time = Math.max(now, tokenBucketState.time);
+				tokens = Math.min(maxCount,
+						tokenBucketState.tokens + (time - tokenBucketState.time) * (double) maxCount / period);
+			}
+
+			if (tokens < 1) {
+				return null;
+			}
+			// 一个周期后令牌桶一定是满的
+			return new TokenBucketState(tokens - 1, time, time + period);
+		}
+	}
+}
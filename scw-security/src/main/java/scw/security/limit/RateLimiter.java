@@ -0,0 +1,26 @@
+package scw.security.limit;
+
+import java.util.concurrent.TimeUnit;
+
+import scw.beans.annotation.AutoImpl;
+
+/**
+ * 限流器
+ * 
+ * @author shuchaowen
+ *
+ */
+@AutoImpl({ LocalRateLimiter.class })
+public interface RateLimiter {
+	/**
+	 * 尝试获取一次许可
+	 * 
+	 * @param key
+	 * @param algorithm
+	 * @param maxCount  一个周期内允许的最大次数
+	 * @param period
+	 * @param timeUnit
+	 * @return 是否允许
+	 */
+	boolean tryAcquire(String key, CountLimitAlgorithm algorithm, long maxCount, long period, TimeUnit timeUnit);
+}
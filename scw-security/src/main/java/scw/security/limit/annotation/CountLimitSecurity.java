@@ -7,7 +7,9 @@ import java.lang.annotation.Target;
 import java.util.concurrent.TimeUnit;
 
 import scw.data.TemporaryCounter;
+import scw.security.limit.CountLimitAlgorithm;
 import scw.security.limit.CountLimitFactory;
+import scw.security.limit.RateLimiter;
 
 /**
  * 访问次数安全配置
@@ -44,6 +46,18 @@ public @interface CountLimitSecurity {
 	 */
 	public boolean useAllParameters() default false;
 	
+	/**
+	 * 限流算法, 默认使用{@link #counter()}按固定窗口计数
+	 * @return
+	 */
+	public CountLimitAlgorithm algorithm() default CountLimitAlgorithm.FIXED_WINDOW;
+	
+	/**
+	 * 只在算法不是{@link CountLimitAlgorithm#FIXED_WINDOW}时使用
+	 * @return
+	 */
+	public Class<? extends RateLimiter> limiter() default RateLimiter.class;
+	
 	public Class<? extends TemporaryCounter> counter() default TemporaryCounter.class;
 	
 	public Class<? extends CountLimitFactory> factory() default CountLimitFactory.class;
@@ -0,0 +1,103 @@
+package scw.security.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import scw.security.limit.CountLimitAlgorithm;
+import scw.security.limit.LocalRateLimiter;
+
+public class LocalRateLimiterTest {
+
+	/**
+	 * 在窗口边界前后连续请求，固定窗口会通过2倍的请求，滑动窗口不会
+	 */
+	@Test
+	public void boundary() throws InterruptedException {
+		long period = 200;
+		LocalRateLimiter limiter = new LocalRateLimiter();
+		// 等到窗口的后半段
+		long now = System.currentTimeMillis();
+		long wait = period - now % period + period * 3 / 4;
+		TimeUnit.MILLISECONDS.sleep(wait);
+		int fixed = 0;
+		int sliding = 0;
+		for (int i = 0; i < 10; i++) {
+			fixed += limiter.tryAcquire("fixed", CountLimitAlgorithm.FIXED_WINDOW, 10, period,
+					TimeUnit.MILLISECONDS) ? 1 : 0;
+			sliding += limiter.tryAcquire("sliding", CountLimitAlgorithm.SLIDING_WINDOW, 10, period,
+					TimeUnit.MILLISECONDS) ? 1 : 0;
+		}
+
+		// 进入下一个窗口的开始
+		now = System.currentTimeMillis();
+		TimeUnit.MILLISECONDS.sleep(period - now % period + 5);
+		for (int i = 0; i < 10; i++) {
+			fixed += limiter.tryAcquire("fixed", CountLimitAlgorithm.FIXED_WINDOW, 10, period,
+					TimeUnit.MILLISECONDS) ? 1 : 0;
+			sliding += limiter.tryAcquire("sliding", CountLimitAlgorithm.SLIDING_WINDOW, 10, period,
+					TimeUnit.MILLISECONDS) ? 1 : 0;
+		}
+		assertEquals(20, fixed);
+		assertTrue("sliding: " + sliding, sliding <= 12);
+	}
+
+	@Test
+	public void tokenBucket() throws InterruptedException {
+		LocalRateLimiter limiter = new LocalRateLimiter();
+		for (int i = 0; i < 5; i++) {
+			assertTrue(limiter.tryAcquire("token", CountLimitAlgorithm.TOKEN_BUCKET, 5, 500, TimeUnit.MILLISECONDS));
+		}
+		assertFalse(limiter.tryAcquire("token", CountLimitAlgorithm.TOKEN_BUCKET, 5, 500, TimeUnit.MILLISECONDS));
+
+		// 每100毫秒补充一个令牌
+		TimeUnit.MILLISECONDS.sleep(150);
+		assertTrue(limiter.tryAcquire("token", CountLimitAlgorithm.TOKEN_BUCKET, 5, 500, TimeUnit.MILLISECONDS));
+		assertFalse(limiter.tryAcquire("token", CountLimitAlgorithm.TOKEN_BUCKET, 5, 500, TimeUnit.MILLISECONDS));
+	}
+
+	/**
+	 * 多线程同时获取时不会超过限制
+	 */
+	@Test
+	public void concurrent() throws InterruptedException {
+		final LocalRateLimiter limiter = new LocalRateLimiter();
+		final AtomicInteger acquired = new AtomicInteger();
+		final CountDownLatch latch = new CountDownLatch(8);
+		for (int t = 0; t < 8; t++) {
+			new Thread(() -> {
+				for (int i = 0; i < 10000; i++) {
+					if (limiter.tryAcquire("concurrent", CountLimitAlgorithm.TOKEN_BUCKET, 1000, 1,
+							TimeUnit.HOURS)) {
+						acquired.incrementAndGet();
+					}
+				}
+				latch.countDown();
+			}).start();
+		}
+		latch.await();
+		assertEquals(1000, acquired.get());
+	}
+
+	/**
+	 * 过期的状态会在后续的请求中被逐步清理
+	 */
+	@Test
+	public void sweep() throws InterruptedException {
+		LocalRateLimiter limiter = new LocalRateLimiter();
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(limiter.tryAcquire("key" + i, CountLimitAlgorithm.FIXED_WINDOW, 1, 10, TimeUnit.MILLISECONDS));
+		}
+		TimeUnit.MILLISECONDS.sleep(50);
+		for (int i = 0; i < 1000; i++) {
+			limiter.tryAcquire("hot", CountLimitAlgorithm.TOKEN_BUCKET, 1000, 1, TimeUnit.HOURS);
+		}
+		assertEquals(1, limiter.size());
+	}
+}
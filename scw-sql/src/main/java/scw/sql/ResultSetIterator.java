@@ -7,13 +7,20 @@ import java.util.NoSuchElementException;
 
 import scw.logger.Logger;
 import scw.logger.LoggerFactory;
-import scw.util.StaticSupplier;
-import scw.util.Supplier;
 
+/**
+ * 迭代的始终是同一个ResultSet(游标位置不同)，所以每一行都应该在迭代下一行前处理完成
+ * 
+ * @author shuchaowen
+ *
+ */
 public class ResultSetIterator implements Iterator<ResultSet> {
 	private static Logger logger = LoggerFactory.getLogger(ResultSetIterator.class);
 	private final ResultSet resultSet;
-	private Supplier<ResultSet> next;
+	/**
+	 * 已经移动到下一行但还未被获取
+	 */
+	private boolean ready = false;
 	private boolean error = false;
 
 	public ResultSetIterator(ResultSet resultSet) {
@@ -26,13 +33,13 @@ public class ResultSetIterator implements Iterator<ResultSet> {
 			return false;
 		}
 
-		if (next != null) {
+		if (ready) {
 			return true;
 		}
 
 		try {
 			if (resultSet.next()) {
-				this.next = new StaticSupplier<ResultSet>(resultSet);
+				this.ready = true;
 				return true;
 			}
 		} catch (SQLException e) {
@@ -48,8 +55,7 @@ public class ResultSetIterator implements Iterator<ResultSet> {
 			throw new NoSuchElementException("ResultSet");
 		}
 
-		ResultSet rs = next.get();
-		next = null;
-		return rs;
+		ready = false;
+		return resultSet;
 	}
 }
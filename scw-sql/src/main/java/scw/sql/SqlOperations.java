@@ -69,6 +69,20 @@ public interface SqlOperations extends ConnectionFactory, SqlStatementProcessor
 		return prepare(sql).query().stream(processor);
 	}
 
+	/**
+	 * 流式查询，返回的结果在迭代完成或调用close后才会释放连接
+	 * 
+	 * @see StreamingSqlStatementProcessor
+	 * @param sql
+	 * @param fetchSize 每次从数据库读取的行数，具体含义取决于驱动
+	 * @param processor
+	 * @return
+	 */
+	default <T> Cursor<T> streamQuery(Sql sql, int fetchSize,
+			Processor<ResultSet, ? extends T, ? extends Throwable> processor) {
+		return query(sql, new StreamingSqlStatementProcessor(this, fetchSize), processor);
+	}
+
 	default int[] executeBatch(Connection connection, String sql, Collection<Object[]> batchArgs) throws SqlException {
 		try {
 			return SqlUtils.executeBatch(connection, (conn) -> this.statement(conn, new SimpleSql(sql)), batchArgs);
@@ -0,0 +1,42 @@
+package scw.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import scw.core.Assert;
+
+/**
+ * 流式查询，在创建statement后设置fetchSize，结果集会分批从数据库中读取而不是一次性加载到内存中<br/>
+ * 被包装的processor应该使用jdbc默认的方式(只能向前、只读)创建statement，如{@link DefaultSqlStatementProcessor}<br/>
+ * 注意：一些驱动有特殊的要求，如mysql需要fetchSize为{@link Integer#MIN_VALUE}才会逐行读取，在读取完之前该连接不能执行其他的语句
+ * 
+ * @author shuchaowen
+ *
+ */
+public class StreamingSqlStatementProcessor implements SqlStatementProcessor {
+	private final SqlStatementProcessor statementProcessor;
+	private final int fetchSize;
+
+	public StreamingSqlStatementProcessor(SqlStatementProcessor statementProcessor, int fetchSize) {
+		Assert.requiredArgument(statementProcessor != null, "statementProcessor");
+		this.statementProcessor = statementProcessor;
+		this.fetchSize = fetchSize;
+	}
+
+	public int getFetchSize() {
+		return fetchSize;
+	}
+
+	@Override
+	public PreparedStatement statement(Connection connection, Sql sql) throws SQLException {
+		PreparedStatement ps = statementProcessor.statement(connection, sql);
+		try {
+			ps.setFetchSize(fetchSize);
+		} catch (SQLException e) {
+			ps.close();
+			throw e;
+		}
+		return ps;
+	}
+}
@@ -37,6 +37,14 @@ public class SQLiteDialect extends MysqlDialect {
 		}
 	}
 
+	/**
+	 * sqlite的查询本身就是逐行读取的，fetchSize不能小于0
+	 */
+	@Override
+	public int getStreamingFetchSize() {
+		return 0;
+	}
+
 	@Override
 	public Sql toCreateTableSql(String tableName, Class<?> entityClass) throws SqlDialectException {
 		StringBuilder sb = new StringBuilder();
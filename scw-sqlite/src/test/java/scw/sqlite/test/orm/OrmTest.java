@@ -1,12 +1,34 @@
 package scw.sqlite.test.orm;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
 import org.junit.Test;
 
+import scw.data.memory.MemoryDataOperations;
 import scw.db.DB;
+import scw.db.DBManager;
 import scw.env.Sys;
 import scw.json.JSONUtils;
+import scw.orm.cache.DefaultCacheManager;
+import scw.orm.sql.DefaultSqlTemplate;
+import scw.orm.sql.KeysetPagination;
+import scw.sql.SimpleSql;
 import scw.sqlite.SQLiteDB;
+import scw.transaction.Transaction;
+import scw.transaction.TransactionDefinition;
+import scw.transaction.TransactionUtils;
 import scw.util.XUtils;
+import scw.util.stream.Cursor;
 
 public class OrmTest {
 	private DB db = new SQLiteDB(Sys.env.getWorkPath() + "/orm_test.db");
@@ -15,6 +37,12 @@ public class OrmTest {
 		db.createTable(TestTable1.class);
 	}
 
+	@After
+	public void unregister() {
+		// 每个测试方法都会创建新的db并注册表
+		DBManager.unregister(TestTable1.class);
+	}
+
 	private void initData() {
 		for (int i = 0; i < 5; i++) {
 			TestTable1 table1 = db.getById(TestTable1.class, i);
@@ -47,4 +75,202 @@ public class OrmTest {
 		saveOrUpdate();
 		System.out.println(JSONUtils.getJsonSupport().toJSONString(db.getByIdList(TestTable1.class, 1)));
 	}
+
+	@Test
+	public void cache() {
+		DefaultCacheManager cacheManager = new DefaultCacheManager(db.getSqlDialect(), new MemoryDataOperations(), 2);
+		DefaultSqlTemplate template = (DefaultSqlTemplate) db;
+		template.setCacheManager(cacheManager);
+		try {
+			for (int i = 100; i < 103; i++) {
+				db.deleteById(TestTable1.class, i);
+				TestTable1 table1 = new TestTable1();
+				table1.setId(i);
+				table1.setKey("key" + i);
+				table1.setValue(i);
+				db.save(table1);
+			}
+
+			assertEquals("key100", db.getById(TestTable1.class, 100).getKey());
+
+			// 写入失败(主键冲突)时不会放入缓存
+			TestTable1 duplicate = new TestTable1();
+			duplicate.setId(100);
+			duplicate.setKey("duplicate");
+			try {
+				db.save(duplicate);
+			} catch (RuntimeException e) {
+				// ignore
+			}
+			assertEquals("key100", db.getById(TestTable1.class, 100).getKey());
+			assertNull(db.getById(TestTable1.class, -1));
+			assertNull(db.getById(TestTable1.class, -1));
+			assertEquals(1, cacheManager.getAbsentHitCount());
+
+			TestTable1 table1 = db.getById(TestTable1.class, 101);
+			table1.setKey("update");
+			db.update(table1);
+			assertEquals("update", db.getById(TestTable1.class, 101).getKey());
+
+			// 缓存中保存的是快照，修改返回的实体对象不会影响缓存
+			db.getById(TestTable1.class, 101).setKey("modified");
+			assertEquals("update", db.getById(TestTable1.class, 101).getKey());
+
+			Map<Integer, TestTable1> map = db.getInIds(TestTable1.class, Arrays.asList(100, 101, 102, -2));
+			assertEquals(3, map.size());
+			long hitCount = cacheManager.getHitCount();
+			map = db.getInIds(TestTable1.class, Arrays.asList(100, 101, 102));
+			assertEquals(3, map.size());
+			assertEquals(hitCount + 3, cacheManager.getHitCount());
+			System.out.println("hit=" + cacheManager.getHitCount() + ", miss=" + cacheManager.getMissCount()
+					+ ", eviction=" + cacheManager.getEvictionCount());
+		} finally {
+			template.setCacheManager(null);
+		}
+	}
+
+	@Test
+	public void cacheInTransaction() throws Throwable {
+		DefaultCacheManager cacheManager = new DefaultCacheManager(db.getSqlDialect(), new MemoryDataOperations(), 10);
+		DefaultSqlTemplate template = (DefaultSqlTemplate) db;
+		template.setCacheManager(cacheManager);
+		try {
+			db.deleteById(TestTable1.class, 110);
+			db.deleteById(TestTable1.class, 111);
+
+			// 事务回滚后不应该留在缓存中
+			Transaction transaction = TransactionUtils.getManager().getTransaction(TransactionDefinition.DEFAULT);
+			try {
+				TestTable1 table1 = new TestTable1();
+				table1.setId(110);
+				table1.setKey("key110");
+				db.save(table1);
+				assertNull(cacheManager.getById(TestTable1.class, 110));
+			} finally {
+				TransactionUtils.getManager().rollback(transaction);
+			}
+			assertNull(cacheManager.getById(TestTable1.class, 110));
+
+			// 事务提交后才放入缓存
+			transaction = TransactionUtils.getManager().getTransaction(TransactionDefinition.DEFAULT);
+			try {
+				TestTable1 table1 = new TestTable1();
+				table1.setId(111);
+				table1.setKey("key111");
+				db.save(table1);
+				table1.setKey("changed");
+				assertNull(cacheManager.getById(TestTable1.class, 111));
+				TransactionUtils.getManager().commit(transaction);
+			} catch (Throwable e) {
+				TransactionUtils.getManager().rollback(transaction);
+				throw e;
+			}
+			TestTable1 cached = cacheManager.getById(TestTable1.class, 111);
+			assertEquals("key111", cached.getKey());
+		} finally {
+			template.setCacheManager(null);
+		}
+	}
+
+	@Test
+	public void compositeKeyCache() {
+		db.createTable(TestTable2.class, false);
+		DefaultCacheManager cacheManager = new DefaultCacheManager(db.getSqlDialect(), new MemoryDataOperations(), 10);
+		DefaultSqlTemplate template = (DefaultSqlTemplate) db;
+		template.setCacheManager(cacheManager);
+		try {
+			for (int i = 1; i <= 2; i++) {
+				TestTable2 table2 = new TestTable2();
+				table2.setGroupId(1);
+				table2.setId(i);
+				table2.setKey("key" + i);
+				db.saveOrUpdate(table2);
+			}
+
+			Map<Integer, TestTable2> map = db.getInIds(TestTable2.class, Arrays.asList(1, 2, 3), 1);
+			assertEquals(2, map.size());
+			assertEquals("key2", map.get(2).getKey());
+
+			long hitCount = cacheManager.getHitCount();
+			map = db.getInIds(TestTable2.class, Arrays.asList(1, 2, 3), 1);
+			assertEquals(2, map.size());
+			assertEquals(hitCount + 2, cacheManager.getHitCount());
+		} finally {
+			template.setCacheManager(null);
+		}
+	}
+
+	@Test
+	public void stream() {
+		initData();
+		String tableName = db.getSqlDialect().getName(TestTable1.class);
+		long count = 0;
+		try (Cursor<TestTable1> cursor = db.streamQuery(TestTable1.class,
+				new SimpleSql("select * from " + tableName + " order by id"))) {
+			int prev = Integer.MIN_VALUE;
+			Iterator<TestTable1> iterator = cursor.iterator();
+			while (iterator.hasNext()) {
+				TestTable1 table1 = iterator.next();
+				assertTrue(table1.getId() > prev);
+				prev = table1.getId();
+				count++;
+			}
+		}
+		assertTrue(count >= 5);
+	}
+
+	@Test
+	public void batch() {
+		List<TestTable1> list = new ArrayList<TestTable1>();
+		for (int i = 200; i < 210; i++) {
+			db.deleteById(TestTable1.class, i);
+			TestTable1 table1 = new TestTable1();
+			table1.setId(i);
+			table1.setKey("key" + i);
+			table1.setValue(i);
+			list.add(table1);
+		}
+
+		assertEquals(10, db.saveAll(TestTable1.class, list));
+		assertEquals("key205", db.getById(TestTable1.class, 205).getKey());
+
+		for (TestTable1 table1 : list) {
+			table1.setKey("update" + table1.getId());
+		}
+		assertEquals(10, db.updateAll(TestTable1.class, list));
+		assertEquals("update205", db.getById(TestTable1.class, 205).getKey());
+
+		TestTable1 table1 = new TestTable1();
+		table1.setId(210);
+		table1.setKey("key210");
+		list.add(table1);
+		db.saveOrUpdateAll(TestTable1.class, list);
+		assertEquals("key210", db.getById(TestTable1.class, 210).getKey());
+	}
+
+	@Test
+	public void keyset() {
+		for (int i = 300; i < 325; i++) {
+			TestTable1 table1 = new TestTable1();
+			table1.setId(i);
+			table1.setKey("key" + i);
+			table1.setValue(i);
+			db.saveOrUpdate(table1);
+		}
+
+		SimpleSql condition = new SimpleSql("id>=? and id<?", 300, 325);
+		KeysetPagination<TestTable1> pagination = db.keysetPaginationQuery(TestTable1.class, condition, null, 10);
+		assertEquals(Long.valueOf(25), pagination.getTotalCount());
+		assertEquals(300, pagination.getData().get(0).getId());
+		assertTrue(pagination.hasNext());
+
+		pagination = db.keysetPaginationQuery(TestTable1.class, condition, pagination.getNextToken(), 10);
+		assertNull(pagination.getTotalCount());
+		assertEquals(310, pagination.getData().get(0).getId());
+
+		pagination = db.keysetPaginationQuery(TestTable1.class, condition, pagination.getNextToken(), 10);
+		assertEquals(5, pagination.getData().size());
+		assertEquals(324, pagination.getData().get(4).getId());
+		assertFalse(pagination.hasNext());
+	}
 }
@@ -1,10 +1,13 @@
 package scw.sqlite.test.orm;
 
+import java.io.Serializable;
+
 import scw.orm.annotation.PrimaryKey;
 import scw.orm.sql.annotation.Table;
 
 @Table
-public class TestTable1{
+public class TestTable1 implements Serializable {
+	private static final long serialVersionUID = 1L;
 	@PrimaryKey
 	private int id;
 	private String key;
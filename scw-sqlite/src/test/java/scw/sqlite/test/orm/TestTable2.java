@@ -0,0 +1,34 @@
+package scw.sqlite.test.orm;
+
+import java.io.Serializable;
+
+import scw.orm.annotation.PrimaryKey;
+import scw.orm.sql.annotation.Table;
+
+@Table
+public class TestTable2 implements Serializable {
+	private static final long serialVersionUID = 1L;
+	@PrimaryKey
+	private int groupId;
+	@PrimaryKey
+	private int id;
+	private String key;
+	public int getGroupId() {
+		return groupId;
+	}
+	public void setGroupId(int groupId) {
+		this.groupId = groupId;
+	}
+	public int getId() {
+		return id;
+	}
+	public void setId(int id) {
+		this.id = id;
+	}
+	public String getKey() {
+		return key;
+	}
+	public void setKey(String key) {
+		this.key = key;
+	}
+}
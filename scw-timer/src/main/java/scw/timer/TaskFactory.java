@@ -2,6 +2,10 @@ package scw.timer;
 
 import scw.beans.annotation.AutoImpl;
 import scw.core.IteratorCallback;
+import scw.event.EventListener;
+import scw.event.EventRegistration;
+import scw.event.ObjectEvent;
+import scw.lang.Nullable;
 import scw.timer.support.DefaultTaskFactory;
 
 @AutoImpl({ DefaultTaskFactory.class })
@@ -36,4 +40,15 @@ public interface TaskFactory {
 	 * @param iteratorCallback
 	 */
 	void iteratorRegisteredTaskConfig(IteratorCallback<TaskConfig> iteratorCallback);
+
+	/**
+	 * 监听新注册的任务(如其他节点注册的任务)，如果支持监听那么就不需要定时调用{@link #iteratorRegisteredTaskConfig(IteratorCallback)}扫描了
+	 * 
+	 * @param eventListener
+	 * @return 返回空说明不支持监听
+	 */
+	@Nullable
+	default EventRegistration registerListener(EventListener<ObjectEvent<TaskConfig>> eventListener) {
+		return null;
+	}
 }
@@ -3,6 +3,9 @@ package scw.timer.support;
 import java.util.concurrent.ConcurrentHashMap;
 
 import scw.core.IteratorCallback;
+import scw.event.EventListener;
+import scw.event.EventRegistration;
+import scw.event.ObjectEvent;
 import scw.timer.TaskConfig;
 import scw.timer.TaskFactory;
 
@@ -25,4 +28,12 @@ public final class DefaultTaskFactory implements TaskFactory {
 		return;
 	}
 
+	/**
+	 * 任务只存在于本地，不会有新的任务需要扫描
+	 */
+	@Override
+	public EventRegistration registerListener(EventListener<ObjectEvent<TaskConfig>> eventListener) {
+		return EventRegistration.EMPTY;
+	}
+
 }
@@ -1,17 +1,17 @@
 package scw.timer.support;
 
 import java.util.Calendar;
-import java.util.Date;
 import java.util.Map.Entry;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
 
 import scw.context.Destroy;
 import scw.core.IteratorCallback;
 import scw.core.utils.StringUtils;
 import scw.core.utils.XTime;
+import scw.env.Sys;
+import scw.event.EventRegistration;
 import scw.lang.AlreadyExistsException;
 import scw.logger.Logger;
 import scw.logger.LoggerFactory;
@@ -33,11 +33,16 @@ import scw.util.StringMatchers;
  */
 public final class DefaultTimer implements scw.timer.Timer, Destroy {
 	private static Logger logger = LoggerFactory.getLogger(DefaultTimer.class);
+	/**
+	 * 当TaskFactory不支持监听任务的注册时，扫描新任务的间隔(毫秒)
+	 */
+	private static final long SCANNING_PERIOD = Sys.env.getValue("timer.scanning.period", Long.class, 1000L);
 	private final ConcurrentHashMap<String, TaskContext> contextMap = new ConcurrentHashMap<String, TaskContext>();
 	private final TaskLockFactory taskLockFactory;
-	private final java.util.Timer timer;
+	private final TimerScheduler scheduler;
 	private final ExecutorService executorService;
 	private final TaskFactory taskFactory;
+	private final EventRegistration taskConfigRegistration;
 	private StringMatcher matcher = StringMatchers.SIMPLE;
 	
 	public DefaultTimer(ExecutorService executorService, TaskFactory taskFactory){
@@ -45,21 +50,28 @@ public final class DefaultTimer implements scw.timer.Timer, Destroy {
 	}
 
 	public DefaultTimer(TaskLockFactory taskLockFactory, ExecutorService executorService, TaskFactory taskFactory) {
+		this(taskLockFactory, executorService, taskFactory, new JdkTimerScheduler());
+	}
+
+	public DefaultTimer(TaskLockFactory taskLockFactory, ExecutorService executorService, TaskFactory taskFactory,
+			TimerScheduler scheduler) {
 		this.taskLockFactory = taskLockFactory;
-		this.timer = createTimer();
+		this.scheduler = scheduler;
 		this.executorService = executorService;
 		this.taskFactory = taskFactory;
 		Calendar calendar = Calendar.getInstance();
 		calendar.add(Calendar.MINUTE, 1);
 		calendar.set(Calendar.SECOND, 0);
 		calendar.set(Calendar.MILLISECOND, 0);
-		timer.schedule(new CrontabTimerTask(), new Date(calendar.getTimeInMillis()), XTime.ONE_MINUTE);
-		timer.schedule(new ScanningTaskConfigTask(), 0, 1);
-		timer.schedule(new PurgeTimerTask(), XTime.ONE_MINUTE, XTime.ONE_MINUTE);
-	}
-
-	protected Timer createTimer() {
-		return new Timer(getClass().getName(), true);
+		scheduler.schedule(new CrontabTimerTask(), calendar.getTimeInMillis() - System.currentTimeMillis(),
+				XTime.ONE_MINUTE);
+		EventRegistration registration = taskFactory.registerListener((event) -> registerIfAbsent(event.getSource()));
+		if (registration == null) {
+			// 不支持监听，只能定时扫描
+			scheduler.schedule(new ScanningTaskConfigTask(), 0, SCANNING_PERIOD);
+			registration = EventRegistration.EMPTY;
+		}
+		this.taskConfigRegistration = registration;
 	}
 
 	public final StringMatcher getMatcher() {
@@ -100,8 +112,9 @@ public final class DefaultTimer implements scw.timer.Timer, Destroy {
 
 	private TaskContext privateSchedule(ScheduleTaskConfig config, boolean throwError) {
 		DefaultTimerTask defaultTimerTask = new DefaultTimerTask(taskLockFactory, config);
-		java.util.TimerTask timerTask = new DefaultTimerTaskWrapper(defaultTimerTask);
-		TaskContext context = new SimpleTaskContext(timerTask, config);
+		Task timerTask = new DefaultTimerTaskWrapper(defaultTimerTask);
+		AtomicReference<ScheduledTask> scheduledTask = new AtomicReference<ScheduledTask>();
+		TaskContext context = new SimpleTaskContext(scheduledTask, config);
 		if (contextMap.putIfAbsent(config.getTaskId(), context) != null) {
 			if (throwError) {
 				throw new AlreadyExistsException("已经存在此任务:" + config.getTaskId());
@@ -110,10 +123,10 @@ public final class DefaultTimer implements scw.timer.Timer, Destroy {
 		}
 
 		if (config.getPeriod() < 0) {
-			timer.schedule(timerTask, config.getTimeUnit().toMillis(config.getDelay()));
+			scheduledTask.set(scheduler.schedule(timerTask, config.getTimeUnit().toMillis(config.getDelay()), -1));
 		} else {
-			timer.schedule(timerTask, config.getTimeUnit().toMillis(config.getDelay()),
-					config.getTimeUnit().toMillis(config.getPeriod()));
+			scheduledTask.set(scheduler.schedule(timerTask, config.getTimeUnit().toMillis(config.getDelay()),
+					config.getTimeUnit().toMillis(config.getPeriod())));
 		}
 		return context;
 	}
@@ -150,27 +163,30 @@ public final class DefaultTimer implements scw.timer.Timer, Destroy {
 		return privateCrontab(config, true);
 	}
 
-	public void destroy() {
-		timer.cancel();
+	private void registerIfAbsent(TaskConfig config) {
+		TaskContext cacheContext = contextMap.get(config.getTaskId());
+		if (cacheContext == null) {
+			TaskContext taskContext = register(config, false);
+			if (taskContext != null) {
+				logger.debug("动态添加任务：" + config.getTaskId());
+			}
+		}
 	}
 
-	private final class PurgeTimerTask extends TimerTask {
-
-		@Override
-		public void run() {
-			timer.purge();
-		}
+	public void destroy() {
+		taskConfigRegistration.unregister();
+		scheduler.destroy();
 	}
 
-	private final class CrontabTimerTask extends TimerTask {
+	private final class CrontabTimerTask implements Task {
 
 		@Override
-		public void run() {
-			executorService.execute(new CrontabRun(scheduledExecutionTime()));
+		public void run(long executionTime) {
+			executorService.execute(new CrontabRun(executionTime));
 		}
 	}
 
-	private final class DefaultTimerTaskWrapper extends TimerTask {
+	private final class DefaultTimerTaskWrapper implements Task {
 		private final scw.timer.Task task;
 
 		public DefaultTimerTaskWrapper(scw.timer.Task task) {
@@ -178,8 +194,8 @@ public final class DefaultTimer implements scw.timer.Timer, Destroy {
 		}
 
 		@Override
-		public void run() {
-			executorService.execute(new TaskInvoker(scheduledExecutionTime(), task));
+		public void run(long executionTime) {
+			executorService.execute(new TaskInvoker(executionTime, task));
 		}
 	}
 
@@ -223,20 +239,14 @@ public final class DefaultTimer implements scw.timer.Timer, Destroy {
 		}
 	}
 
-	private final class ScanningTaskConfigTask extends TimerTask {
+	private final class ScanningTaskConfigTask implements Task {
 
 		@Override
-		public void run() {
+		public void run(long executionTime) {
 			taskFactory.iteratorRegisteredTaskConfig(new IteratorCallback<TaskConfig>() {
 
 				public boolean iteratorCallback(TaskConfig config) {
-					TaskContext cacheContext = contextMap.get(config.getTaskId());
-					if (cacheContext == null) {
-						TaskContext taskContext = register(config, false);
-						if (taskContext != null) {
-							logger.debug("动态添加任务：" + config.getTaskId());
-						}
-					}
+					registerIfAbsent(config);
 					return true;
 				}
 			});
@@ -302,17 +312,20 @@ public final class DefaultTimer implements scw.timer.Timer, Destroy {
 	}
 
 	private final class SimpleTaskContext implements TaskContext {
-		private final TimerTask timerTask;
+		private final AtomicReference<ScheduledTask> scheduledTask;
 		private final TaskConfig taskConfig;
 
-		public SimpleTaskContext(TimerTask timerTask, TaskConfig taskConfig) {
-			this.timerTask = timerTask;
+		public SimpleTaskContext(AtomicReference<ScheduledTask> scheduledTask, TaskConfig taskConfig) {
+			this.scheduledTask = scheduledTask;
 			this.taskConfig = taskConfig;
 		}
 
 		public boolean cancel() {
 			if (taskFactory.unregister(taskConfig)) {
-				timerTask.cancel();
+				ScheduledTask task = scheduledTask.get();
+				if (task != null) {
+					task.cancel();
+				}
 				return true;
 			}
 			return false;
@@ -0,0 +1,316 @@
+package scw.timer.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import scw.core.Assert;
+import scw.logger.Logger;
+import scw.logger.LoggerFactory;
+import scw.timer.Task;
+
+/**
+ * 使用分层时间轮实现的调度器, 插入和取消的时间复杂度为O(1)<br/>
+ * 只有存在任务的槽才会放入DelayQueue, 调度线程会一直休眠到最近的一个槽到期，不会空转
+ *
+ * @author shuchaowen
+ *
+ */
+public class HashedWheelTimerScheduler implements TimerScheduler, Runnable {
+	private static Logger logger = LoggerFactory.getLogger(HashedWheelTimerScheduler.class);
+
+	private final DelayQueue<Bucket> delayQueue = new DelayQueue<Bucket>();
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final AtomicInteger size = new AtomicInteger();
+	private final TimingWheel timingWheel;
+	private final Thread worker;
+	private volatile boolean running = true;
+
+	public HashedWheelTimerScheduler() {
+		this(1, 512, HashedWheelTimerScheduler.class.getName());
+	}
+
+	/**
+	 * @param tickMs    最底层时间轮每一格的时间(毫秒)
+	 * @param wheelSize 每一层时间轮的格数
+	 * @param name      调度线程的名称
+	 */
+	public HashedWheelTimerScheduler(long tickMs, int wheelSize, String name) {
+		Assert.isTrue(tickMs > 0, "tickMs must be greater than 0");
+		Assert.isTrue(wheelSize > 0, "wheelSize must be greater than 0");
+		this.timingWheel = new TimingWheel(tickMs, wheelSize, System.currentTimeMillis());
+		this.worker = new Thread(this, name);
+		this.worker.setDaemon(true);
+		this.worker.start();
+	}
+
+	/**
+	 * 等待执行的任务数量(包含周期性任务)
+	 *
+	 * @return
+	 */
+	public int size() {
+		return size.get();
+	}
+
+	@Override
+	public ScheduledTask schedule(Task task, long delay, long period) {
+		Assert.requiredArgument(task != null, "task");
+		TimerEntry entry = new TimerEntry(task, System.currentTimeMillis() + Math.max(0, delay), period);
+		lock.readLock().lock();
+		try {
+			size.incrementAndGet();
+			// 已经到期的任务放入当前的槽中，由调度线程执行
+			timingWheel.add(entry, true);
+		} finally {
+			lock.readLock().unlock();
+		}
+		return entry;
+	}
+
+	@Override
+	public void run() {
+		while (running) {
+			Bucket bucket;
+			try {
+				bucket = delayQueue.take();
+			} catch (InterruptedException e) {
+				break;
+			}
+
+			lock.writeLock().lock();
+			try {
+				while (bucket != null) {
+					timingWheel.advanceClock(bucket.getExpiration());
+					bucket.flush();
+					bucket = delayQueue.poll();
+				}
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	private void reinsert(TimerEntry entry) {
+		if (entry.isCancelled()) {
+			return;
+		}
+
+		if (!timingWheel.add(entry, false)) {
+			execute(entry);
+		}
+	}
+
+	private void execute(TimerEntry entry) {
+		try {
+			entry.task.run(entry.expiration);
+		} catch (Throwable e) {
+			logger.error(e, "Execute task error: {}", entry.task);
+		}
+
+		if (entry.period > 0 && !entry.isCancelled()) {
+			entry.expiration = System.currentTimeMillis() + entry.period;
+			reinsert(entry);
+		} else {
+			entry.done();
+		}
+	}
+
+	@Override
+	public void destroy() {
+		running = false;
+		worker.interrupt();
+	}
+
+	private final class TimingWheel {
+		private final long tickMs;
+		private final int wheelSize;
+		private final long interval;
+		private final Bucket[] buckets;
+		private long currentTime;
+		private volatile TimingWheel overflowWheel;
+
+		TimingWheel(long tickMs, int wheelSize, long startMs) {
+			this.tickMs = tickMs;
+			this.wheelSize = wheelSize;
+			this.interval = tickMs * wheelSize;
+			this.buckets = new Bucket[wheelSize];
+			for (int i = 0; i < wheelSize; i++) {
+				buckets[i] = new Bucket();
+			}
+			this.currentTime = startMs - (startMs % tickMs);
+		}
+
+		private TimingWheel getOverflowWheel() {
+			if (overflowWheel == null) {
+				synchronized (this) {
+					if (overflowWheel == null) {
+						overflowWheel = new TimingWheel(interval, wheelSize, currentTime);
+					}
+				}
+			}
+			return overflowWheel;
+		}
+
+		/**
+		 * @param entry
+		 * @param force 已到期的任务是否也放入当前的槽中
+		 * @return 返回false说明任务已经到期
+		 */
+		boolean add(TimerEntry entry, boolean force) {
+			long expiration = entry.expiration;
+			if (expiration < currentTime + tickMs) {
+				if (!force) {
+					return false;
+				}
+				expiration = currentTime;
+			} else if (expiration >= currentTime + interval) {
+				return getOverflowWheel().add(entry, force);
+			}
+
+			long virtualId = expiration / tickMs;
+			Bucket bucket = buckets[(int) (virtualId % wheelSize)];
+			bucket.add(entry);
+			// 槽的到期时间变化了说明它是一个新的槽，需要放入队列
+			if (bucket.setExpiration(virtualId * tickMs)) {
+				delayQueue.offer(bucket);
+			}
+			return true;
+		}
+
+		void advanceClock(long timeMs) {
+			if (timeMs >= currentTime + tickMs) {
+				currentTime = timeMs - (timeMs % tickMs);
+				if (overflowWheel != null) {
+					overflowWheel.advanceClock(currentTime);
+				}
+			}
+		}
+	}
+
+	private final class Bucket implements Delayed {
+		private final AtomicLong expiration = new AtomicLong(-1L);
+		// 哨兵节点，双向循环链表
+		private final TimerEntry root = new TimerEntry(null, -1L, -1L);
+
+		Bucket() {
+			root.next = root;
+			root.prev = root;
+		}
+
+		boolean setExpiration(long expiration) {
+			return this.expiration.getAndSet(expiration) != expiration;
+		}
+
+		long getExpiration() {
+			return expiration.get();
+		}
+
+		synchronized void add(TimerEntry entry) {
+			TimerEntry tail = root.prev;
+			entry.next = root;
+			entry.prev = tail;
+			entry.bucket = this;
+			tail.next = entry;
+			root.prev = entry;
+		}
+
+		synchronized void remove(TimerEntry entry) {
+			if (entry.bucket == this) {
+				entry.next.prev = entry.prev;
+				entry.prev.next = entry.next;
+				entry.next = null;
+				entry.prev = null;
+				entry.bucket = null;
+			}
+		}
+
+		void flush() {
+			List<TimerEntry> entries = new ArrayList<TimerEntry>();
+			synchronized (this) {
+				TimerEntry entry = root.next;
+				while (entry != root) {
+					TimerEntry next = entry.next;
+					entry.next = null;
+					entry.prev = null;
+					entry.bucket = null;
+					entries.add(entry);
+					entry = next;
+				}
+				root.next = root;
+				root.prev = root;
+				expiration.set(-1L);
+			}
+
+			for (TimerEntry entry : entries) {
+				reinsert(entry);
+			}
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(Math.max(getExpiration() - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed o) {
+			return Long.compare(getExpiration(), ((Bucket) o).getExpiration());
+		}
+	}
+
+	private final class TimerEntry implements ScheduledTask {
+		private final Task task;
+		private final long period;
+		private volatile long expiration;
+		private volatile boolean cancelled;
+		private boolean done;
+		private volatile Bucket bucket;
+		private TimerEntry next;
+		private TimerEntry prev;
+
+		TimerEntry(Task task, long expiration, long period) {
+			this.task = task;
+			this.expiration = expiration;
+			this.period = period;
+		}
+
+		synchronized void done() {
+			if (!done) {
+				done = true;
+				size.decrementAndGet();
+			}
+		}
+
+		@Override
+		public boolean cancel() {
+			synchronized (this) {
+				if (cancelled || done) {
+					return false;
+				}
+				cancelled = true;
+			}
+
+			Bucket bucket = this.bucket;
+			while (bucket != null) {
+				bucket.remove(this);
+				Bucket current = this.bucket;
+				if (current == bucket) {
+					break;
+				}
+				bucket = current;
+			}
+			done();
+			return true;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return cancelled;
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package scw.timer.support;
+
+import java.util.Timer;
+import java.util.TimerTask;
+
+import scw.core.utils.XTime;
+import scw.logger.Logger;
+import scw.logger.LoggerFactory;
+import scw.timer.Task;
+
+/**
+ * 使用{@link java.util.Timer}实现的调度器, 插入和取消的时间复杂度为O(log n)
+ * 
+ * @author shuchaowen
+ *
+ */
+public class JdkTimerScheduler implements TimerScheduler {
+	private static Logger logger = LoggerFactory.getLogger(JdkTimerScheduler.class);
+	private final Timer timer;
+
+	public JdkTimerScheduler() {
+		this(new Timer(JdkTimerScheduler.class.getName(), true));
+	}
+
+	public JdkTimerScheduler(Timer timer) {
+		this.timer = timer;
+		// 清理已取消的任务
+		timer.schedule(new TimerTask() {
+
+			@Override
+			public void run() {
+				timer.purge();
+			}
+		}, XTime.ONE_MINUTE, XTime.ONE_MINUTE);
+	}
+
+	@Override
+	public ScheduledTask schedule(Task task, long delay, long period) {
+		TimerTaskWrapper timerTask = new TimerTaskWrapper(task);
+		if (period <= 0) {
+			timer.schedule(timerTask, Math.max(0, delay));
+		} else {
+			timer.schedule(timerTask, Math.max(0, delay), period);
+		}
+		return timerTask;
+	}
+
+	@Override
+	public void destroy() {
+		timer.cancel();
+	}
+
+	private static final class TimerTaskWrapper extends TimerTask implements ScheduledTask {
+		private final Task task;
+		private volatile boolean cancelled;
+
+		public TimerTaskWrapper(Task task) {
+			this.task = task;
+		}
+
+		@Override
+		public void run() {
+			try {
+				task.run(scheduledExecutionTime());
+			} catch (Throwable e) {
+				logger.error(e, "Execute task error: {}", task);
+			}
+		}
+
+		@Override
+		public boolean cancel() {
+			cancelled = true;
+			return super.cancel();
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return cancelled;
+		}
+	}
+}
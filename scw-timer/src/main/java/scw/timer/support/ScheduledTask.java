@@ -0,0 +1,18 @@
+package scw.timer.support;
+
+/**
+ * {@link TimerScheduler}调度中的任务
+ * 
+ * @author shuchaowen
+ *
+ */
+public interface ScheduledTask {
+	/**
+	 * 取消任务
+	 * 
+	 * @return 是否取消成功
+	 */
+	boolean cancel();
+
+	boolean isCancelled();
+}
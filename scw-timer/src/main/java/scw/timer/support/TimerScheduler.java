@@ -0,0 +1,27 @@
+package scw.timer.support;
+
+import scw.beans.annotation.AutoImpl;
+import scw.context.Destroy;
+import scw.timer.Task;
+
+/**
+ * {@link DefaultTimer}使用的调度器
+ * 
+ * @author shuchaowen
+ * @see JdkTimerScheduler
+ * @see HashedWheelTimerScheduler
+ */
+@AutoImpl({ JdkTimerScheduler.class })
+public interface TimerScheduler extends Destroy {
+	/**
+	 * 调度一个任务，任务应该是轻量的(例如只是提交到线程池)，因为它会在调度线程中执行
+	 * 
+	 * @param task   执行时传入的是计划执行的时间
+	 * @param delay  延迟(毫秒)
+	 * @param period 间隔(毫秒)，小于等于0表示只执行一次
+	 * @return
+	 */
+	ScheduledTask schedule(Task task, long delay, long period);
+
+	void destroy();
+}
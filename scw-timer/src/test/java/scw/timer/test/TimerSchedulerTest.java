@@ -0,0 +1,92 @@
+package scw.timer.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import scw.timer.Task;
+import scw.timer.support.HashedWheelTimerScheduler;
+import scw.timer.support.JdkTimerScheduler;
+import scw.timer.support.ScheduledTask;
+import scw.timer.support.TimerScheduler;
+
+public class TimerSchedulerTest {
+	private static final int PENDING = 100000;
+
+	@Test
+	public void wheel() throws InterruptedException {
+		HashedWheelTimerScheduler scheduler = new HashedWheelTimerScheduler();
+		try {
+			CountDownLatch latch = new CountDownLatch(3);
+			scheduler.schedule((executionTime) -> latch.countDown(), 10, -1);
+			scheduler.schedule((executionTime) -> latch.countDown(), 0, -1);
+			// 超过最底层时间轮的范围
+			scheduler.schedule((executionTime) -> latch.countDown(), 1200, -1);
+
+			AtomicInteger cancelledCount = new AtomicInteger();
+			ScheduledTask cancelled = scheduler.schedule((executionTime) -> cancelledCount.incrementAndGet(), 50, -1);
+			assertTrue(cancelled.cancel());
+			assertFalse(cancelled.cancel());
+
+			AtomicInteger periodCount = new AtomicInteger();
+			ScheduledTask period = scheduler.schedule((executionTime) -> periodCount.incrementAndGet(), 0, 10);
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+			period.cancel();
+			assertTrue(periodCount.get() > 1);
+			assertEquals(0, cancelledCount.get());
+			// 任务执行完成后才会从size中减去
+			for (int i = 0; i < 100 && scheduler.size() > 0; i++) {
+				Thread.sleep(10);
+			}
+			assertEquals(0, scheduler.size());
+		} finally {
+			scheduler.destroy();
+		}
+	}
+
+	@Test
+	public void throughput() {
+		TimerScheduler jdk = new JdkTimerScheduler();
+		TimerScheduler wheel = new HashedWheelTimerScheduler();
+		try {
+			// 预热
+			for (int i = 0; i < 5; i++) {
+				test(jdk, PENDING);
+				test(wheel, PENDING);
+			}
+			System.out.println("jdk timer " + PENDING + " pending schedule/cancel: " + test(jdk, PENDING) + "ms");
+			System.out.println("timing wheel " + PENDING + " pending schedule/cancel: " + test(wheel, PENDING) + "ms");
+		} finally {
+			jdk.destroy();
+			wheel.destroy();
+		}
+	}
+
+	private static long test(TimerScheduler scheduler, int size) {
+		Task task = (executionTime) -> {
+		};
+		Random random = new Random(size);
+		long[] delays = new long[size];
+		for (int i = 0; i < size; i++) {
+			delays[i] = 60000 + random.nextInt(10 * 60000);
+		}
+
+		ScheduledTask[] tasks = new ScheduledTask[size];
+		long t = System.currentTimeMillis();
+		for (int i = 0; i < size; i++) {
+			tasks[i] = scheduler.schedule(task, delays[i], -1);
+		}
+
+		for (ScheduledTask scheduledTask : tasks) {
+			scheduledTask.cancel();
+		}
+		return System.currentTimeMillis() - t;
+	}
+}
@@ -1,55 +1,330 @@
 package scw.web;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
+import scw.core.Assert;
+import scw.env.Sys;
 import scw.http.HttpMethod;
 import scw.io.IOUtils;
 import scw.io.UnsafeByteArrayInputStream;
+import scw.io.UnsafeByteArrayOutputStream;
+import scw.lang.Nullable;
 import scw.util.XUtils;
 
 /**
- * 缓存请求体，未处理内存溢出的情况
- * 
+ * 缓存请求体，可以多次调用{@link #getInputStream()}<br/>
+ * 请求体不超过内存阈值时缓存在内存中，超过后写入临时文件并通过{@link FileChannel}重复读取<br/>
+ * 超过最大大小的请求体会抛出{@link IOException}，请求结束后需要调用{@link #close()}删除临时文件
+ *
  * @author shuchaowen
  *
  */
-public class CachingServerHttpRequest extends ServerHttpRequestWrapper {
+public class CachingServerHttpRequest extends ServerHttpRequestWrapper implements AutoCloseable {
+	private static final int BUFFER_SIZE = 1024 * 4;
+
+	/**
+	 * 默认的内存阈值(字节)，默认1M
+	 */
+	public static final int DEFAULT_MEMORY_THRESHOLD = Sys.env.getValue("web.request.caching.memory.threshold",
+			int.class, 1024 * 1024);
+
+	/**
+	 * 默认的请求体最大大小(字节)，默认100M，小于0时不限制
+	 */
+	public static final long DEFAULT_MAX_SIZE = Sys.env.getValue("web.request.caching.max.size", long.class,
+			100L * 1024 * 1024);
+
+	private final int memoryThreshold;
+	private final long maxSize;
+	private final File directory;
 
 	public CachingServerHttpRequest(ServerHttpRequest targetRequest) {
+		this(targetRequest, DEFAULT_MEMORY_THRESHOLD, null);
+	}
+
+	/**
+	 * @param targetRequest
+	 * @param memoryThreshold 超过此大小(字节)的请求体写入临时文件
+	 * @param directory       临时文件目录，为空时使用系统临时目录
+	 */
+	public CachingServerHttpRequest(ServerHttpRequest targetRequest, int memoryThreshold,
+			@Nullable File directory) {
+		this(targetRequest, memoryThreshold, DEFAULT_MAX_SIZE, directory);
+	}
+
+	/**
+	 * @param targetRequest
+	 * @param memoryThreshold 超过此大小(字节)的请求体写入临时文件
+	 * @param maxSize         请求体最大大小(字节)，小于0时不限制
+	 * @param directory       临时文件目录，为空时使用系统临时目录
+	 */
+	public CachingServerHttpRequest(ServerHttpRequest targetRequest, int memoryThreshold, long maxSize,
+			@Nullable File directory) {
 		super(targetRequest, true);
+		Assert.requiredArgument(memoryThreshold >= 0, "memoryThreshold");
+		this.memoryThreshold = memoryThreshold;
+		this.maxSize = maxSize;
+		this.directory = directory;
+	}
+
+	public final int getMemoryThreshold() {
+		return memoryThreshold;
+	}
+
+	public final long getMaxSize() {
+		return maxSize;
 	}
 
+	private boolean cached;
+	/**
+	 * 缓存失败的原因，输入流已经被读取过，之后的调用都应该失败
+	 */
+	private IOException cacheException;
 	private byte[] bytes;
+	private Path file;
+	private FileChannel fileChannel;
 
-	public byte[] getBytes() throws IOException {
-		CachingServerHttpRequest cachingServerHttpRequest = XUtils.getDelegate(wrappedTarget,
-				CachingServerHttpRequest.class);
-		if (cachingServerHttpRequest != null) {
-			return cachingServerHttpRequest.getBytes();
+	private CachingServerHttpRequest getDelegate() {
+		return XUtils.getDelegate(wrappedTarget, CachingServerHttpRequest.class);
+	}
+
+	private void cache() throws IOException {
+		if (cached) {
+			if (cacheException != null) {
+				throw cacheException;
+			}
+			return;
 		}
 
+		cached = true;
 		if (getMethod() == HttpMethod.GET) {
-			return null;
+			return;
+		}
+
+		try {
+			readBody();
+		} catch (IOException e) {
+			cacheException = e;
+			throw e;
 		}
+	}
 
+	private void readBody() throws IOException {
 		InputStream inputStream = super.getInputStream();
 		if (inputStream == null) {
-			return null;
+			return;
 		}
 
-		if (bytes == null) {
-			bytes = IOUtils.toByteArray(inputStream);
+		long contentLength = getContentLength();
+		checkSize(contentLength);
+		UnsafeByteArrayOutputStream buffer = null;
+		if (contentLength < 0 || contentLength <= memoryThreshold) {
+			buffer = new UnsafeByteArrayOutputStream(
+					contentLength < 0 ? 256 : Math.max(1, (int) contentLength));
+			int len;
+			// 阈值为Integer.MAX_VALUE时加1会溢出
+			byte[] b = new byte[(int) Math.min(BUFFER_SIZE, memoryThreshold + 1L)];
+			while ((len = inputStream.read(b)) != -1) {
+				buffer.write(b, 0, len);
+				checkSize(buffer.size());
+				if (buffer.size() > memoryThreshold) {
+					break;
+				}
+			}
+
+			if (buffer.size() <= memoryThreshold) {
+				this.bytes = buffer.toByteArray();
+				return;
+			}
+		}
+
+		spill(buffer, inputStream);
+	}
+
+	private void spill(@Nullable UnsafeByteArrayOutputStream buffer, InputStream inputStream) throws IOException {
+		file = directory == null ? Files.createTempFile("request", ".body")
+				: Files.createTempFile(directory.toPath(), "request", ".body");
+		try {
+			fileChannel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+					StandardOpenOption.DELETE_ON_CLOSE);
+			long size = 0;
+			if (buffer != null) {
+				size = buffer.size();
+				write(buffer.toByteBuffer());
+			}
+
+			ByteBuffer byteBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+			byte[] b = byteBuffer.array();
+			int len;
+			while ((len = inputStream.read(b)) != -1) {
+				size += len;
+				checkSize(size);
+				byteBuffer.clear();
+				byteBuffer.limit(len);
+				write(byteBuffer);
+			}
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+	}
+
+	private void checkSize(long size) throws IOException {
+		if (maxSize >= 0 && size > maxSize) {
+			throw new IOException("Request body exceeds the maximum size: " + maxSize);
+		}
+	}
+
+	private void write(ByteBuffer byteBuffer) throws IOException {
+		while (byteBuffer.hasRemaining()) {
+			fileChannel.write(byteBuffer);
+		}
+	}
+
+	/**
+	 * 请求体是否写入了临时文件
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public boolean isSpilled() throws IOException {
+		CachingServerHttpRequest delegate = getDelegate();
+		if (delegate != null) {
+			return delegate.isSpilled();
+		}
+
+		cache();
+		return fileChannel != null;
+	}
+
+	/**
+	 * 只应该用于内存中的请求体，如果请求体已写入临时文件会读取全部内容到内存中<br/>
+	 * 可能超过内存阈值的请求体应该使用{@link #getInputStream()}
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public byte[] getBytes() throws IOException {
+		CachingServerHttpRequest delegate = getDelegate();
+		if (delegate != null) {
+			return delegate.getBytes();
+		}
+
+		cache();
+		if (fileChannel != null) {
+			return IOUtils.toByteArray(new FileChannelInputStream(fileChannel));
 		}
 		return bytes;
 	}
 
 	@Override
 	public InputStream getInputStream() throws IOException {
-		byte[] bytes = getBytes();
+		CachingServerHttpRequest delegate = getDelegate();
+		if (delegate != null) {
+			return delegate.getInputStream();
+		}
+
+		cache();
+		if (fileChannel != null) {
+			return new FileChannelInputStream(fileChannel);
+		}
+
 		if (bytes == null) {
 			return null;
 		}
 		return new UnsafeByteArrayInputStream(bytes);
 	}
+
+	/**
+	 * 删除临时文件
+	 */
+	public void close() throws IOException {
+		CachingServerHttpRequest delegate = getDelegate();
+		if (delegate != null) {
+			delegate.close();
+			return;
+		}
+
+		bytes = null;
+		try {
+			if (fileChannel != null) {
+				fileChannel.close();
+			}
+		} finally {
+			fileChannel = null;
+			if (file != null) {
+				Files.deleteIfExists(file);
+				file = null;
+			}
+		}
+	}
+
+	/**
+	 * 使用绝对位置读取，多个输入流之间互不影响，关闭输入流不会关闭文件
+	 *
+	 * @author shuchaowen
+	 *
+	 */
+	private static final class FileChannelInputStream extends InputStream {
+		private final FileChannel fileChannel;
+		private long position;
+		private long mark;
+
+		FileChannelInputStream(FileChannel fileChannel) {
+			this.fileChannel = fileChannel;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			return read(b, 0, 1) == -1 ? -1 : (b[0] & 0xff);
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+
+			int count = fileChannel.read(ByteBuffer.wrap(b, off, len), position);
+			if (count > 0) {
+				position += count;
+			}
+			return count;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skip = Math.max(0, Math.min(n, fileChannel.size() - position));
+			position += skip;
+			return skip;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return (int) Math.min(Integer.MAX_VALUE, Math.max(0, fileChannel.size() - position));
+		}
+
+		@Override
+		public boolean markSupported() {
+			return true;
+		}
+
+		@Override
+		public synchronized void mark(int readlimit) {
+			this.mark = position;
+		}
+
+		@Override
+		public synchronized void reset() throws IOException {
+			this.position = mark;
+		}
+	}
 }
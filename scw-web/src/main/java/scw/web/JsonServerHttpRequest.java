@@ -1,7 +1,11 @@
 package scw.web;
 
+import java.io.File;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
 
 import scw.core.Constants;
 import scw.core.utils.StringUtils;
@@ -12,11 +16,13 @@ import scw.json.JSONUtils;
 import scw.json.JsonArray;
 import scw.json.JsonElement;
 import scw.json.JsonObject;
+import scw.lang.Nullable;
 import scw.logger.Logger;
 import scw.logger.LoggerFactory;
 
 /**
- * 一个json请求
+ * 一个json请求<br/>
+ * 从{@link #getInputStream()}流式解析，写入临时文件的大请求体不会被读取到一个字节数组中
  * 
  * @author shuchaowen
  *
@@ -29,6 +35,10 @@ public class JsonServerHttpRequest extends CachingServerHttpRequest {
 		super(targetRequest);
 	}
 
+	public JsonServerHttpRequest(ServerHttpRequest targetRequest, int memoryThreshold, @Nullable File directory) {
+		super(targetRequest, memoryThreshold, directory);
+	}
+
 	public JSONSupport getJsonSupport() {
 		return jsonSupport == null ? JSONUtils.getJsonSupport() : jsonSupport;
 	}
@@ -46,28 +56,40 @@ public class JsonServerHttpRequest extends CachingServerHttpRequest {
 				charsetName = Constants.UTF_8.name();
 			}
 
-			byte[] bytes = null;
+			Charset charset;
 			try {
-				bytes = getBytes();
-			} catch (IOException e) {
-				logger.error(e, "Unable to get request body");
+				charset = Charset.forName(charsetName);
+			} catch (IllegalArgumentException e) {
+				logger.error(e, "Unsupported character {}", charsetName);
+				json = EmptyJsonElement.INSTANCE;
+				return json;
 			}
 
-			if (bytes == null) {
+			JsonElement jsonElement;
+			try {
+				InputStream inputStream = getInputStream();
+				if (inputStream == null) {
+					json = EmptyJsonElement.INSTANCE;
+					return json;
+				}
+
+				Reader reader = new InputStreamReader(inputStream, charset);
+				try {
+					jsonElement = getJsonSupport().parseJson(reader);
+				} finally {
+					reader.close();
+				}
+			} catch (IOException e) {
+				logger.error(e, "Unable to get request body");
 				json = EmptyJsonElement.INSTANCE;
 				return json;
 			}
 
-			String text;
-			try {
-				text = new String(bytes, charsetName);
-			} catch (UnsupportedEncodingException e) {
-				logger.error(e, "Unsupported character {}", charsetName);
+			if (jsonElement == null) {
 				json = EmptyJsonElement.INSTANCE;
 				return json;
 			}
 
-			JsonElement jsonElement = getJsonSupport().parseJson(text);
 			if (jsonElement.isJsonArray()) {
 				json = jsonElement.getAsJsonArray();
 			} else if (jsonElement.isJsonObject()) {
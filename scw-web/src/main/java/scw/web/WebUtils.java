@@ -16,7 +16,6 @@ import scw.dom.DomUtils;
 import scw.http.HttpCookie;
 import scw.http.HttpMethod;
 import scw.http.HttpStatus;
-import scw.io.IOUtils;
 import scw.io.Resource;
 import scw.json.JSONUtils;
 import scw.json.JsonArray;
@@ -33,6 +32,7 @@ import scw.value.AnyValue;
 import scw.value.EmptyValue;
 import scw.value.StringValue;
 import scw.value.Value;
+import scw.web.resource.StaticResourceWriter;
 import scw.web.support.DefaultHttpService;
 
 public final class WebUtils {
@@ -69,8 +69,9 @@ public final class WebUtils {
 	}
 
 	/**
-	 * 写入一个静态资源
+	 * 写入一个静态资源，支持ETag、Range和预压缩的.br/.gz文件
 	 * 
+	 * @see StaticResourceWriter
 	 * @param request
 	 * @param response
 	 * @param resource
@@ -79,19 +80,7 @@ public final class WebUtils {
 	 */
 	public static void writeStaticResource(ServerHttpRequest request, ServerHttpResponse response, Resource resource,
 			MimeType mimeType) throws IOException {
-		if (resource == null || !resource.exists()) {
-			response.sendError(HttpStatus.NOT_FOUND.value(), "The resource does not exist!");
-			return;
-		}
-
-		if (mimeType != null) {
-			response.setContentType(mimeType);
-		}
-
-		if (!isExpired(request, response, resource.lastModified())) {
-			return;
-		}
-		IOUtils.copy(resource.getInputStream(), response.getOutputStream());
+		StaticResourceWriter.INSTANCE.write(request, response, resource, mimeType);
 	}
 
 	/**
@@ -50,6 +50,14 @@ public class HttpPattern implements ServerHttpRequestAccept, Cloneable,
 		return pathMatcher == null ? DEFAULT_PATH_MATCHER : pathMatcher;
 	}
 
+	/**
+	 * 是否使用的是默认的路径匹配规则
+	 * @return
+	 */
+	boolean isDefaultPathMatcher() {
+		return pathMatcher == null;
+	}
+
 	public String getPath() {
 		return path;
 	}
@@ -67,7 +75,8 @@ public class HttpPattern implements ServerHttpRequestAccept, Cloneable,
 			return true;
 		}
 
-		return getPathMatcher().isPattern(path);
+		// 路径变量({id})同样需要通过pattern进行匹配
+		return getPathMatcher().isPattern(path) || (path.indexOf('{') != -1 && path.indexOf('}') != -1);
 	}
 
 	@Override
@@ -10,6 +10,11 @@ import scw.web.ServerHttpRequest;
 public class HttpPatternRegistry<T> {
 	private Map<String, Map<String, ServerHttpRequestAccepts<T>>> serviceMap = new HashMap<String, Map<String, ServerHttpRequestAccepts<T>>>();
 	private ServerHttpRequestAccepts<InternalHttpService<T>> services = new ServerHttpRequestAccepts<InternalHttpService<T>>();
+	/**
+	 * 由services编译而来的路由树，每次注册/取消注册时重建
+	 */
+	private volatile HttpPatternTree<InternalHttpService<T>> tree = new HttpPatternTree<InternalHttpService<T>>(
+			services, (service) -> service.getPattern());
 
 	public HttpPatternRegsitration<T> register(T service)
 			throws AlreadyExistsException {
@@ -19,13 +24,14 @@ public class HttpPatternRegistry<T> {
 			if (!services.add(config)) {
 				throw new AlreadyExistsException(service.toString());
 			}
+			rebuildTree();
 
 			return new HttpPatternRegsitration<T>(null, service) {
 
 				@Override
 				public boolean unregister() {
 					synchronized (services) {
-						return services.remove(config);
+						return removeService(config);
 					}
 				}
 			};
@@ -46,13 +52,14 @@ public class HttpPatternRegistry<T> {
 				if (!services.add(config)) {
 					throw new AlreadyExistsException(service.toString());
 				}
+				rebuildTree();
 
 				return new HttpPatternRegsitration<T>(pattern, service) {
 
 					@Override
 					public boolean unregister() {
 						synchronized (services) {
-							return services.remove(config);
+							return removeService(config);
 						}
 					}
 				};
@@ -100,6 +107,19 @@ public class HttpPatternRegistry<T> {
 		}
 	}
 
+	private void rebuildTree() {
+		this.tree = new HttpPatternTree<InternalHttpService<T>>(services,
+				(service) -> service.getPattern());
+	}
+
+	private boolean removeService(InternalHttpService<T> service) {
+		if (services.remove(service)) {
+			rebuildTree();
+			return true;
+		}
+		return false;
+	}
+
 	private static class InternalHttpService<T> implements
 			ServerHttpRequestAccept, OrderSourceProvider {
 		private final T service;
@@ -126,6 +146,10 @@ public class HttpPatternRegistry<T> {
 			return service;
 		}
 
+		public HttpPattern getPattern() {
+			return pattern;
+		}
+
 		@Override
 		public Object getOrderSource(Object obj) {
 			return service;
@@ -150,7 +174,7 @@ public class HttpPatternRegistry<T> {
 	public T get(ServerHttpRequest request) {
 		T service = getMappingService(request);
 		if (service == null) {
-			InternalHttpService<T> internalHttpService = services.get(request);
+			InternalHttpService<T> internalHttpService = tree.get(request);
 			if (internalHttpService != null) {
 				return internalHttpService.getService();
 			}
@@ -0,0 +1,206 @@
+package scw.web.pattern;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import scw.core.utils.StringUtils;
+import scw.web.ServerHttpRequest;
+
+/**
+ * 按路径段构建的前缀树，用于在注册时预编译pattern<br/>
+ * 查找时只对可能匹配的候选项调用{@link ServerHttpRequestAccept#accept(ServerHttpRequest)}，候选项按注册时的顺序进行判断，所以结果与逐个扫描一致
+ *
+ * @author shuchaowen
+ *
+ * @param <T>
+ */
+class HttpPatternTree<T extends ServerHttpRequestAccept> {
+	private static final String PATH_SEPARATOR = "/";
+	private static final String CATCH_ALL = "**";
+
+	private final Node<T> root = new Node<T>();
+
+	/**
+	 * @param services 已经排好序的服务
+	 * @param patternResolver 获取服务对应的pattern, 返回空表示无法索引(任何路径都可能匹配)
+	 */
+	HttpPatternTree(Iterable<? extends T> services, PatternResolver<? super T> patternResolver) {
+		int index = 0;
+		for (T service : services) {
+			Candidate<T> candidate = new Candidate<T>(index++, service);
+			HttpPattern pattern = patternResolver.getPattern(service);
+			if (pattern == null || pattern.getPath() == null || !pattern.isDefaultPathMatcher()) {
+				root.addCatchAll(candidate);
+				continue;
+			}
+			insert(tokenize(pattern.getPath()), candidate);
+		}
+		root.compile();
+	}
+
+	private static String[] tokenize(String path) {
+		//与AntPathMatcher的默认分割方式保持一致
+		return StringUtils.tokenizeToStringArray(path, PATH_SEPARATOR, false, true);
+	}
+
+	private static boolean isWildcard(String segment) {
+		return segment.indexOf('*') != -1 || segment.indexOf('?') != -1 || segment.indexOf('{') != -1;
+	}
+
+	private void insert(String[] segments, Candidate<T> candidate) {
+		Node<T> node = root;
+		for (String segment : segments) {
+			if (CATCH_ALL.equals(segment)) {
+				// **之后的部分交由accept进行完整的匹配
+				node.addCatchAll(candidate);
+				return;
+			}
+
+			node = isWildcard(segment) ? node.getWildcard() : node.getChild(segment);
+		}
+		node.addTerminal(candidate);
+	}
+
+	public T get(ServerHttpRequest request) {
+		String path = request.getPath();
+		if (path == null) {
+			return null;
+		}
+
+		String[] segments = tokenize(path);
+		List<Candidate<T>> candidates = new ArrayList<Candidate<T>>(4);
+		collect(root, segments, 0, path.endsWith(PATH_SEPARATOR), candidates);
+		if (candidates.isEmpty()) {
+			return null;
+		}
+
+		if (candidates.size() > 1) {
+			Collections.sort(candidates);
+		}
+
+		for (Candidate<T> candidate : candidates) {
+			if (candidate.service.accept(request)) {
+				return candidate.service;
+			}
+		}
+		return null;
+	}
+
+	private static <T extends ServerHttpRequestAccept> void collect(Node<T> node, String[] segments, int index,
+			boolean endsWithSeparator, List<Candidate<T>> candidates) {
+		addAll(candidates, node.catchAlls);
+		if (index == segments.length) {
+			addAll(candidates, node.terminals);
+			// AntPathMatcher中 /a/* 可以匹配 /a/
+			if (endsWithSeparator && node.wildcard != null) {
+				addAll(candidates, node.wildcard.terminals);
+			}
+			return;
+		}
+
+		if (node.children != null) {
+			Node<T> child = node.children.get(segments[index]);
+			if (child != null) {
+				collect(child, segments, index + 1, endsWithSeparator, candidates);
+			}
+		}
+
+		if (node.wildcard != null) {
+			collect(node.wildcard, segments, index + 1, endsWithSeparator, candidates);
+		}
+	}
+
+	private static <T> void addAll(List<Candidate<T>> candidates, Candidate<T>[] array) {
+		for (Candidate<T> candidate : array) {
+			candidates.add(candidate);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static final class Node<T extends ServerHttpRequestAccept> {
+		private Map<String, Node<T>> children;
+		private Node<T> wildcard;
+		private List<Candidate<T>> terminalList;
+		private List<Candidate<T>> catchAllList;
+		private Candidate<T>[] terminals = new Candidate[0];
+		private Candidate<T>[] catchAlls = new Candidate[0];
+
+		Node<T> getChild(String segment) {
+			if (children == null) {
+				children = new HashMap<String, Node<T>>(4);
+			}
+
+			Node<T> node = children.get(segment);
+			if (node == null) {
+				node = new Node<T>();
+				children.put(segment, node);
+			}
+			return node;
+		}
+
+		Node<T> getWildcard() {
+			if (wildcard == null) {
+				wildcard = new Node<T>();
+			}
+			return wildcard;
+		}
+
+		void addTerminal(Candidate<T> candidate) {
+			if (terminalList == null) {
+				terminalList = new ArrayList<Candidate<T>>(2);
+			}
+			terminalList.add(candidate);
+		}
+
+		void addCatchAll(Candidate<T> candidate) {
+			if (catchAllList == null) {
+				catchAllList = new ArrayList<Candidate<T>>(2);
+			}
+			catchAllList.add(candidate);
+		}
+
+		void compile() {
+			if (terminalList != null) {
+				terminals = terminalList.toArray(new Candidate[0]);
+				terminalList = null;
+			}
+
+			if (catchAllList != null) {
+				catchAlls = catchAllList.toArray(new Candidate[0]);
+				catchAllList = null;
+			}
+
+			if (children != null) {
+				for (Node<T> child : children.values()) {
+					child.compile();
+				}
+			}
+
+			if (wildcard != null) {
+				wildcard.compile();
+			}
+		}
+	}
+
+	private static final class Candidate<T> implements Comparable<Candidate<T>> {
+		private final int index;
+		private final T service;
+
+		Candidate(int index, T service) {
+			this.index = index;
+			this.service = service;
+		}
+
+		@Override
+		public int compareTo(Candidate<T> o) {
+			return Integer.compare(index, o.index);
+		}
+	}
+
+	interface PatternResolver<T> {
+		HttpPattern getPattern(T service);
+	}
+}
@@ -1,6 +1,8 @@
 package scw.web.pattern;
 
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -10,7 +12,7 @@ import scw.logger.LoggerFactory;
 import scw.web.HttpService;
 import scw.web.ServerHttpRequest;
 
-public class ServerHttpRequestAccepts<T> implements Comparator<T>, ServerHttpRequestAccept {
+public class ServerHttpRequestAccepts<T> implements Comparator<T>, ServerHttpRequestAccept, Iterable<T> {
 	private static Logger logger = LoggerFactory.getLogger(ServerHttpRequestAccepts.class);
 	private Set<T> services = new TreeSet<T>(this);
 
@@ -56,6 +58,14 @@ public class ServerHttpRequestAccepts<T> implements Comparator<T>, ServerHttpReq
 		return services.isEmpty();
 	}
 
+	/**
+	 * 按排序后的顺序迭代
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return Collections.unmodifiableSet(services).iterator();
+	}
+
 	public T get(ServerHttpRequest request) {
 		for (T service : services) {
 			if (service instanceof ServerHttpRequestAccept) {
@@ -27,17 +27,24 @@ public class StaticResourceHttpService implements HttpService, ServerHttpRequest
 			return false;
 		}
 
-		if (request.getMethod() != HttpMethod.GET) {
+		if (request.getMethod() != HttpMethod.GET && request.getMethod() != HttpMethod.HEAD) {
 			return false;
 		}
 
 		Resource resource = resourceLoader.getResource(request.getPath());
-		return resource != null && resource.exists();
+		if (!StaticResourceWriter.INSTANCE.exists(resource)) {
+			return false;
+		}
+		request.setAttribute(Resource.class.getName(), resource);
+		return true;
 	}
 
 	@Override
 	public void service(ServerHttpRequest request, ServerHttpResponse response) throws IOException {
-		Resource resource = resourceLoader.getResource(request.getPath());
+		Resource resource = (Resource) request.getAttribute(Resource.class.getName());
+		if (resource == null) {
+			resource = resourceLoader.getResource(request.getPath());
+		}
 		MimeType mimeType = resourceLoader.getMimeType(resource);
 		WebUtils.writeStaticResource(request, response, resource, mimeType);
 	}
@@ -0,0 +1,382 @@
+package scw.web.resource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import scw.core.Assert;
+import scw.core.utils.StringUtils;
+import scw.http.HttpHeaders;
+import scw.http.HttpMethod;
+import scw.http.HttpRange;
+import scw.http.HttpStatus;
+import scw.io.Resource;
+import scw.lang.Nullable;
+import scw.logger.Logger;
+import scw.logger.LoggerFactory;
+import scw.net.MimeType;
+import scw.util.ConcurrentReferenceHashMap;
+import scw.web.ServerHttpRequest;
+import scw.web.ServerHttpResponse;
+import scw.web.WebUtils;
+
+/**
+ * 输出静态资源<br/>
+ * 缓存资源是否存在、长度、修改时间和ETag，支持If-None-Match/If-Modified-Since、单个Range的部分响应(多个Range时返回完整内容)，
+ * 客户端支持时优先返回同目录下预先压缩好的.br/.gz文件<br/>
+ * 文件使用{@link FileChannel#transferTo(long, long, WritableByteChannel)}输出，如果容器的{@link ServerHttpResponse#writableChannel()}是socket或文件通道就不需要经过堆内存
+ *
+ * @author shuchaowen
+ *
+ */
+public class StaticResourceWriter {
+	private static Logger logger = LoggerFactory.getLogger(StaticResourceWriter.class);
+	public static final StaticResourceWriter INSTANCE = new StaticResourceWriter();
+
+	/**
+	 * 按优先级排列的预压缩格式: 编码, 文件后缀
+	 */
+	private static final String[][] ENCODINGS = { { "br", ".br" }, { "gzip", ".gz" } };
+
+	private final Map<Resource, Metadata> cache = new ConcurrentReferenceHashMap<Resource, Metadata>();
+	private long cacheExpire = 5000;
+	private boolean precompressed = true;
+	private int bufferSize = 8192;
+
+	public long getCacheExpire() {
+		return cacheExpire;
+	}
+
+	/**
+	 * 资源信息缓存的时间(毫秒), 小于等于0时不缓存
+	 *
+	 * @param cacheExpire
+	 */
+	public void setCacheExpire(long cacheExpire) {
+		this.cacheExpire = cacheExpire;
+	}
+
+	public boolean isPrecompressed() {
+		return precompressed;
+	}
+
+	/**
+	 * 是否查找预先压缩好的.br/.gz文件, 默认是true
+	 *
+	 * @param precompressed
+	 */
+	public void setPrecompressed(boolean precompressed) {
+		this.precompressed = precompressed;
+	}
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	public void setBufferSize(int bufferSize) {
+		Assert.requiredArgument(bufferSize > 0, "bufferSize");
+		this.bufferSize = bufferSize;
+	}
+
+	/**
+	 * 使用缓存判断资源是否存在
+	 *
+	 * @param resource
+	 * @return
+	 */
+	public boolean exists(@Nullable Resource resource) {
+		return resource != null && getMetadata(resource).exists;
+	}
+
+	public void clearCache() {
+		cache.clear();
+	}
+
+	private Metadata getMetadata(Resource resource) {
+		Metadata metadata = cache.get(resource);
+		long now = System.currentTimeMillis();
+		if (metadata == null || now - metadata.checkTime > cacheExpire) {
+			metadata = load(resource, null, now);
+			if (cacheExpire > 0) {
+				cache.put(resource, metadata);
+			}
+		}
+		return metadata;
+	}
+
+	private Metadata load(Resource resource, @Nullable String encoding, long now) {
+		if (!resource.exists()) {
+			return new Metadata(resource, false, encoding, now);
+		}
+
+		Metadata metadata = new Metadata(resource, true, encoding, now);
+		try {
+			metadata.length = resource.contentLength();
+		} catch (IOException e) {
+			metadata.length = -1;
+		}
+
+		try {
+			metadata.lastModified = resource.lastModified();
+		} catch (IOException e) {
+			metadata.lastModified = -1;
+		}
+
+		if (resource.isFile()) {
+			try {
+				metadata.file = resource.getFile();
+			} catch (IOException e) {
+				// 使用输入流
+			}
+		}
+
+		if (metadata.length >= 0 && metadata.lastModified >= 0) {
+			metadata.etag = "\"" + Long.toHexString(metadata.lastModified) + "-" + Long.toHexString(metadata.length)
+					+ (encoding == null ? "" : ("-" + encoding)) + "\"";
+		}
+
+		if (encoding == null && precompressed && StringUtils.isNotEmpty(resource.getName())) {
+			for (String[] variant : ENCODINGS) {
+				try {
+					Resource compressed = resource.createRelative(resource.getName() + variant[1]);
+					if (compressed != null && compressed.exists()) {
+						if (metadata.variants == null) {
+							metadata.variants = new ArrayList<Metadata>(ENCODINGS.length);
+						}
+						metadata.variants.add(load(compressed, variant[0], now));
+					}
+				} catch (IOException e) {
+					// 不支持相对路径
+				}
+			}
+		}
+		return metadata;
+	}
+
+	public void write(ServerHttpRequest request, ServerHttpResponse response, @Nullable Resource resource,
+			@Nullable MimeType mimeType) throws IOException {
+		Metadata metadata = resource == null ? null : getMetadata(resource);
+		if (metadata == null || !metadata.exists) {
+			response.sendError(HttpStatus.NOT_FOUND.value(), "The resource does not exist!");
+			return;
+		}
+
+		if (mimeType != null) {
+			response.setContentType(mimeType);
+		}
+
+		HttpHeaders headers = response.getHeaders();
+		Metadata content = metadata;
+		if (metadata.variants != null) {
+			headers.setVary(Collections.singletonList(HttpHeaders.ACCEPT_ENCODING));
+			String acceptEncoding = request.getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING);
+			for (Metadata variant : metadata.variants) {
+				if (isAcceptEncoding(acceptEncoding, variant.encoding)) {
+					headers.set(HttpHeaders.CONTENT_ENCODING, variant.encoding);
+					content = variant;
+					break;
+				}
+			}
+		}
+
+		if (content.etag != null) {
+			headers.setETag(content.etag);
+		}
+
+		List<String> ifNoneMatch = request.getHeaders().getIfNoneMatch();
+		if (content.etag != null && !ifNoneMatch.isEmpty()) {
+			// If-None-Match的优先级高于If-Modified-Since
+			headers.setLastModified(content.lastModified);
+			if (ifNoneMatch.contains(content.etag) || ifNoneMatch.contains("*")) {
+				response.setStatusCode(HttpStatus.NOT_MODIFIED);
+				return;
+			}
+		} else if (!WebUtils.isExpired(request, response, content.lastModified)) {
+			return;
+		}
+
+		long start = 0;
+		long count = content.length;
+		if (content.length >= 0) {
+			headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+			HttpRange range = getRange(request, content);
+			if (range != null) {
+				start = range.getRangeStart(content.length);
+				long end = range.getRangeEnd(content.length);
+				if (start >= content.length || start > end) {
+					headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + content.length);
+					response.setStatusCode(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+					return;
+				}
+
+				count = end - start + 1;
+				response.setStatusCode(HttpStatus.PARTIAL_CONTENT);
+				headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + content.length);
+			}
+			response.setContentLength(count);
+		}
+
+		if (request.getMethod() == HttpMethod.HEAD) {
+			return;
+		}
+
+		if (content.file != null) {
+			transferTo(content.file, start, count, response);
+		} else {
+			copy(content.resource, start, count, response.getOutputStream());
+		}
+	}
+
+	/**
+	 * 只支持一个范围，其他情况(If-Range不匹配、格式错误、多个范围)返回空表示输出全部内容
+	 */
+	@Nullable
+	private HttpRange getRange(ServerHttpRequest request, Metadata metadata) {
+		HttpHeaders headers = request.getHeaders();
+		if (!headers.containsKey(HttpHeaders.RANGE)) {
+			return null;
+		}
+
+		String ifRange = headers.getFirst(HttpHeaders.IF_RANGE);
+		if (ifRange != null) {
+			if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+				if (!ifRange.equals(metadata.etag)) {
+					return null;
+				}
+			} else {
+				long date;
+				try {
+					date = headers.getFirstDate(HttpHeaders.IF_RANGE);
+				} catch (IllegalArgumentException e) {
+					return null;
+				}
+
+				if (date < 0 || date / 1000 != metadata.lastModified / 1000) {
+					return null;
+				}
+			}
+		}
+
+		List<HttpRange> ranges;
+		try {
+			ranges = headers.getRange();
+		} catch (IllegalArgumentException e) {
+			if (logger.isDebugEnabled()) {
+				logger.debug(e, "Ignore range: {}", headers.getFirst(HttpHeaders.RANGE));
+			}
+			return null;
+		}
+		return ranges.size() == 1 ? ranges.get(0) : null;
+	}
+
+	private static boolean isAcceptEncoding(@Nullable String acceptEncoding, String encoding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+
+		for (String value : StringUtils.tokenizeToStringArray(acceptEncoding, ",")) {
+			String[] parts = StringUtils.tokenizeToStringArray(value, ";");
+			if (parts.length == 0 || !parts[0].equalsIgnoreCase(encoding)) {
+				continue;
+			}
+
+			// q=0或格式错误表示不接受
+			for (int i = 1; i < parts.length; i++) {
+				String parameter = parts[i].replace(" ", "");
+				if (!parameter.startsWith("q=")) {
+					continue;
+				}
+
+				double quality;
+				try {
+					quality = Double.parseDouble(parameter.substring(2));
+				} catch (NumberFormatException e) {
+					return false;
+				}
+
+				if (!(quality > 0)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	private void transferTo(File file, long start, long count, ServerHttpResponse response) throws IOException {
+		FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			// 不能关闭，会关闭响应的输出流
+			WritableByteChannel target = response.writableChannel();
+			long position = start;
+			long remaining = count < 0 ? fileChannel.size() - start : count;
+			while (remaining > 0) {
+				long transferred = fileChannel.transferTo(position, remaining, target);
+				if (transferred <= 0) {
+					// 文件被截断
+					break;
+				}
+				position += transferred;
+				remaining -= transferred;
+			}
+		} finally {
+			fileChannel.close();
+		}
+	}
+
+	private void copy(Resource resource, long start, long count, OutputStream output) throws IOException {
+		InputStream input = resource.getInputStream();
+		try {
+			long skip = start;
+			while (skip > 0) {
+				long skipped = input.skip(skip);
+				if (skipped <= 0) {
+					return;
+				}
+				skip -= skipped;
+			}
+
+			byte[] buffer = new byte[bufferSize];
+			long remaining = count;
+			while (remaining != 0) {
+				int len = input.read(buffer, 0, remaining < 0 ? buffer.length : (int) Math.min(buffer.length, remaining));
+				if (len == -1) {
+					break;
+				}
+				output.write(buffer, 0, len);
+				if (remaining > 0) {
+					remaining -= len;
+				}
+			}
+		} finally {
+			input.close();
+		}
+	}
+
+	private static final class Metadata {
+		private final Resource resource;
+		private final boolean exists;
+		private final String encoding;
+		private final long checkTime;
+		private long length = -1;
+		private long lastModified = -1;
+		private String etag;
+		private File file;
+		private List<Metadata> variants;
+
+		Metadata(Resource resource, boolean exists, String encoding, long checkTime) {
+			this.resource = resource;
+			this.exists = exists;
+			this.encoding = encoding;
+			this.checkTime = checkTime;
+		}
+	}
+}
@@ -14,6 +14,7 @@ import scw.web.ServerHttpResponse;
 import scw.web.WebUtils;
 import scw.web.pattern.HttpPatternRegistry;
 import scw.web.pattern.ServerHttpRequestAccept;
+import scw.web.resource.StaticResourceWriter;
 
 public class StaticResourceRegistry extends HttpPatternRegistry<String>
 		implements HttpService, ServerHttpRequestAccept {
@@ -39,7 +40,7 @@ public class StaticResourceRegistry extends HttpPatternRegistry<String>
 	@Override
 	public boolean accept(ServerHttpRequest request) {
 		Resource resource = getResource(request);
-		if (resource == null || !resource.exists()) {
+		if (!StaticResourceWriter.INSTANCE.exists(resource)) {
 			return false;
 		}
 		request.setAttribute(Resource.class.getName(), resource);
@@ -0,0 +1,117 @@
+package scw.web.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.Test;
+
+import scw.http.HttpMethod;
+import scw.io.IOUtils;
+import scw.web.CachingServerHttpRequest;
+import scw.web.ServerHttpRequest;
+
+public class CachingServerHttpRequestTest {
+
+	@Test
+	public void memory() throws IOException {
+		byte[] body = new byte[100];
+		new Random().nextBytes(body);
+		File directory = Files.createTempDirectory("request").toFile();
+		try (CachingServerHttpRequest request = new CachingServerHttpRequest(createRequest(body, -1), 1024,
+				directory)) {
+			assertArrayEquals(body, IOUtils.toByteArray(request.getInputStream()));
+			assertArrayEquals(body, IOUtils.toByteArray(request.getInputStream()));
+			assertFalse(request.isSpilled());
+			assertEquals(0, directory.list().length);
+		} finally {
+			directory.delete();
+		}
+	}
+
+	@Test
+	public void spill() throws IOException {
+		byte[] body = new byte[100 * 1024];
+		new Random().nextBytes(body);
+		File directory = Files.createTempDirectory("request").toFile();
+		for (long contentLength : new long[] { -1, 1024, body.length }) {
+			CachingServerHttpRequest request = new CachingServerHttpRequest(createRequest(body, contentLength),
+					1024, directory);
+			try {
+				assertArrayEquals(body, IOUtils.toByteArray(request.getInputStream()));
+				// 可以重复读取
+				assertArrayEquals(body, IOUtils.toByteArray(request.getInputStream()));
+				assertArrayEquals(body, request.getBytes());
+				assertTrue(request.isSpilled());
+			} finally {
+				request.close();
+			}
+			assertEquals(0, directory.list().length);
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void maxSize() throws IOException {
+		byte[] body = new byte[100 * 1024];
+		File directory = Files.createTempDirectory("request").toFile();
+		// 依次为：写入临时文件时超出、内存中超出、请求头的长度超出
+		long[][] cases = { { -1, 1024 }, { -1, 1024 * 1024 }, { body.length, 1024 * 1024 } };
+		for (long[] c : cases) {
+			CachingServerHttpRequest request = new CachingServerHttpRequest(createRequest(body, c[0]), (int) c[1],
+					50 * 1024, directory);
+			try {
+				request.getInputStream();
+				fail();
+			} catch (IOException e) {
+				// 之后的调用也会失败，不会返回不完整的请求体
+				try {
+					request.getBytes();
+					fail();
+				} catch (IOException e1) {
+				}
+			} finally {
+				request.close();
+			}
+			assertEquals(0, directory.list().length);
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void maxMemoryThreshold() throws IOException {
+		byte[] body = new byte[100];
+		new Random().nextBytes(body);
+		try (CachingServerHttpRequest request = new CachingServerHttpRequest(createRequest(body, -1),
+				Integer.MAX_VALUE, null)) {
+			assertArrayEquals(body, request.getBytes());
+			assertFalse(request.isSpilled());
+		}
+	}
+
+	private static ServerHttpRequest createRequest(byte[] body, long contentLength) {
+		ByteArrayInputStream inputStream = new ByteArrayInputStream(body);
+		return (ServerHttpRequest) Proxy.newProxyInstance(CachingServerHttpRequestTest.class.getClassLoader(),
+				new Class<?>[] { ServerHttpRequest.class }, (proxy, m, args) -> {
+					switch (m.getName()) {
+					case "getMethod":
+						return HttpMethod.POST;
+					case "getInputStream":
+						return inputStream;
+					case "getContentLength":
+						return contentLength;
+					default:
+						return null;
+					}
+				});
+	}
+}
@@ -0,0 +1,105 @@
+package scw.web.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import scw.web.ServerHttpRequest;
+import scw.web.WebUtils;
+import scw.web.pattern.HttpPattern;
+import scw.web.pattern.HttpPatternRegistry;
+
+public class HttpPatternRegistryTest {
+	@Test
+	public void route() {
+		HttpPatternRegistry<String> registry = new HttpPatternRegistry<String>();
+		registry.register(new HttpPattern("/user/{id}", "GET"), "user");
+		registry.register(new HttpPattern("/user/*/orders", "GET"), "orders");
+		registry.register(new HttpPattern("/static/**", "GET"), "static");
+		registry.register(new HttpPattern("/list/*", "GET"), "list");
+		registry.register(new HttpPattern("/**/*.json", null), "json");
+
+		ServerHttpRequest request = createRequest("GET", "/user/1");
+		assertEquals("user", registry.get(request));
+		assertEquals("1", WebUtils.getRestfulParameterMap(request).get("id"));
+		assertEquals("orders", registry.get(createRequest("GET", "/user/1/orders")));
+		assertEquals("static", registry.get(createRequest("GET", "/static")));
+		assertEquals("static", registry.get(createRequest("GET", "/static/js/a.js")));
+		assertEquals("list", registry.get(createRequest("GET", "/list/")));
+		assertEquals("json", registry.get(createRequest("POST", "/a/b/c.json")));
+		assertNull(registry.get(createRequest("POST", "/user/1")));
+		assertNull(registry.get(createRequest("GET", "/user/1/orders/2")));
+	}
+
+	@Test
+	public void benchmark() {
+		for (int size : new int[] { 10, 100, 1000 }) {
+			HttpPatternRegistry<String> registry = new HttpPatternRegistry<String>();
+			List<HttpPattern> patterns = new ArrayList<HttpPattern>();
+			for (int i = 0; i < size; i++) {
+				HttpPattern pattern = new HttpPattern("/module" + i + "/item/*", "GET");
+				patterns.add(pattern);
+				registry.register(pattern, "service" + i);
+			}
+
+			ServerHttpRequest request = createRequest("GET", "/module" + (size - 1) + "/item/1");
+			int count = Math.max(1000, 100000 / size);
+			// 预热
+			scan(patterns, request, count);
+			lookup(registry, request, count);
+
+			long scan = scan(patterns, request, count);
+			long tree = lookup(registry, request, count);
+			System.out.println("routes=" + size + ", scan=" + scan / count + "ns/op, tree=" + tree / count
+					+ "ns/op");
+			assertEquals("service" + (size - 1), registry.get(request));
+		}
+	}
+
+	private static long scan(List<HttpPattern> patterns, ServerHttpRequest request, int count) {
+		long t = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			for (HttpPattern pattern : patterns) {
+				if (pattern.accept(request)) {
+					break;
+				}
+			}
+		}
+		return System.nanoTime() - t;
+	}
+
+	private static long lookup(HttpPatternRegistry<String> registry, ServerHttpRequest request, int count) {
+		long t = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			registry.get(request);
+		}
+		return System.nanoTime() - t;
+	}
+
+	private static ServerHttpRequest createRequest(String method, String path) {
+		Map<Object, Object> attributes = new HashMap<Object, Object>();
+		return (ServerHttpRequest) Proxy.newProxyInstance(HttpPatternRegistryTest.class.getClassLoader(),
+				new Class<?>[] { ServerHttpRequest.class }, (proxy, m, args) -> {
+					switch (m.getName()) {
+					case "getPath":
+						return path;
+					case "getRawMethod":
+						return method;
+					case "setAttribute":
+						attributes.put(args[0], args[1]);
+						return null;
+					case "getAttribute":
+						return attributes.get(args[0]);
+					default:
+						return null;
+					}
+				});
+	}
+}
@@ -0,0 +1,67 @@
+package scw.web.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+import scw.http.HttpMethod;
+import scw.json.JsonObject;
+import scw.web.JsonServerHttpRequest;
+import scw.web.ServerHttpRequest;
+
+public class JsonServerHttpRequestTest {
+
+	/**
+	 * 写入临时文件的请求体直接从输入流解析，不会调用getBytes()
+	 */
+	@Test
+	public void spill() throws IOException {
+		StringBuilder sb = new StringBuilder("{\"name\":\"spill\",\"values\":[");
+		for (int i = 0; i < 10000; i++) {
+			sb.append(i == 0 ? "" : ",").append(i);
+		}
+		sb.append("]}");
+		byte[] body = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+		File directory = Files.createTempDirectory("request").toFile();
+		try (JsonServerHttpRequest request = new JsonServerHttpRequest(createRequest(body), 1024, directory) {
+			@Override
+			public byte[] getBytes() throws IOException {
+				throw new AssertionError("The request body should not be loaded into a byte array");
+			}
+		}) {
+			JsonObject json = request.getJsonObject();
+			assertTrue(request.isSpilled());
+			assertEquals("spill", json.getValue("name").getAsString());
+			assertEquals(10000, json.getJsonArray("values").size());
+			assertEquals(9999, json.getJsonArray("values").getValue(9999).getAsIntValue());
+		} finally {
+			directory.delete();
+		}
+	}
+
+	private static ServerHttpRequest createRequest(byte[] body) {
+		ByteArrayInputStream inputStream = new ByteArrayInputStream(body);
+		return (ServerHttpRequest) Proxy.newProxyInstance(JsonServerHttpRequestTest.class.getClassLoader(),
+				new Class<?>[] { ServerHttpRequest.class }, (proxy, m, args) -> {
+					switch (m.getName()) {
+					case "getMethod":
+						return HttpMethod.POST;
+					case "getInputStream":
+						return inputStream;
+					case "getContentLength":
+						return (long) body.length;
+					default:
+						return null;
+					}
+				});
+	}
+}
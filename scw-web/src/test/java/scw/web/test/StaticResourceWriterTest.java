@@ -0,0 +1,163 @@
+package scw.web.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+import scw.http.HttpHeaders;
+import scw.http.HttpMethod;
+import scw.http.HttpStatus;
+import scw.http.MediaType;
+import scw.io.FileSystemResource;
+import scw.io.Resource;
+import scw.net.MimeType;
+import scw.web.ServerHttpRequest;
+import scw.web.ServerHttpResponse;
+import scw.web.resource.StaticResourceWriter;
+
+public class StaticResourceWriterTest {
+
+	@Test
+	public void write() throws IOException {
+		File directory = Files.createTempDirectory("static").toFile();
+		File file = new File(directory, "a.txt");
+		Files.write(file.toPath(), "0123456789".getBytes(StandardCharsets.UTF_8));
+		File gzip = new File(directory, "a.txt.gz");
+		Files.write(gzip.toPath(), "gzip".getBytes(StandardCharsets.UTF_8));
+		try {
+			StaticResourceWriter writer = new StaticResourceWriter();
+			Resource resource = new FileSystemResource(file);
+
+			Response response = write(writer, resource, new HttpHeaders());
+			assertEquals(200, response.status);
+			assertEquals("0123456789", response.body());
+			assertEquals("bytes", response.headers.getFirst(HttpHeaders.ACCEPT_RANGES));
+			assertEquals(10, response.headers.getContentLength());
+			String etag = response.headers.getETag();
+
+			HttpHeaders headers = new HttpHeaders();
+			headers.set(HttpHeaders.RANGE, "bytes=2-4");
+			response = write(writer, resource, headers);
+			assertEquals(HttpStatus.PARTIAL_CONTENT.value(), response.status);
+			assertEquals("234", response.body());
+			assertEquals("bytes 2-4/10", response.headers.getFirst(HttpHeaders.CONTENT_RANGE));
+
+			headers.set(HttpHeaders.RANGE, "bytes=-3");
+			assertEquals("789", write(writer, resource, headers).body());
+
+			headers.set(HttpHeaders.RANGE, "bytes=20-");
+			response = write(writer, resource, headers);
+			assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value(), response.status);
+			assertEquals("bytes */10", response.headers.getFirst(HttpHeaders.CONTENT_RANGE));
+
+			// 多个范围时返回全部内容
+			headers.set(HttpHeaders.RANGE, "bytes=0-1,4-5");
+			response = write(writer, resource, headers);
+			assertEquals(200, response.status);
+			assertEquals("0123456789", response.body());
+
+			headers = new HttpHeaders();
+			headers.set(HttpHeaders.IF_NONE_MATCH, etag);
+			response = write(writer, resource, headers);
+			assertEquals(HttpStatus.NOT_MODIFIED.value(), response.status);
+			assertEquals("", response.body());
+
+			headers = new HttpHeaders();
+			headers.set(HttpHeaders.ACCEPT_ENCODING, "br;q=0, gzip, deflate");
+			response = write(writer, resource, headers);
+			assertEquals("gzip", response.body());
+			assertEquals("gzip", response.headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+			assertEquals(HttpHeaders.ACCEPT_ENCODING, response.headers.getFirst(HttpHeaders.VARY));
+
+			// q值格式错误时不使用此编码
+			headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip;q=abc");
+			response = write(writer, resource, headers);
+			assertEquals("0123456789", response.body());
+			assertNull(response.headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+
+			headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+			writer.setPrecompressed(false);
+			writer.clearCache();
+			response = write(writer, resource, headers);
+			assertEquals("0123456789", response.body());
+			assertNull(response.headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+		} finally {
+			file.delete();
+			gzip.delete();
+			directory.delete();
+		}
+	}
+
+	private static Response write(StaticResourceWriter writer, Resource resource, HttpHeaders headers)
+			throws IOException {
+		Response response = new Response();
+		writer.write(createRequest(headers), response.proxy, resource, MimeType.valueOf("text/plain"));
+		return response;
+	}
+
+	private static ServerHttpRequest createRequest(HttpHeaders headers) {
+		return (ServerHttpRequest) Proxy.newProxyInstance(StaticResourceWriterTest.class.getClassLoader(),
+				new Class<?>[] { ServerHttpRequest.class }, (proxy, m, args) -> {
+					switch (m.getName()) {
+					case "getHeaders":
+						return headers;
+					case "getMethod":
+						return HttpMethod.GET;
+					case "getRawMethod":
+						return "GET";
+					case "getPath":
+						return "/a.txt";
+					default:
+						return null;
+					}
+				});
+	}
+
+	private static final class Response {
+		private final HttpHeaders headers = new HttpHeaders();
+		private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		private int status = 200;
+		private final ServerHttpResponse proxy = (ServerHttpResponse) Proxy.newProxyInstance(
+				StaticResourceWriterTest.class.getClassLoader(), new Class<?>[] { ServerHttpResponse.class },
+				(proxy, m, args) -> {
+					switch (m.getName()) {
+					case "getHeaders":
+						return headers;
+					case "getOutputStream":
+						return output;
+					case "writableChannel":
+						return Channels.newChannel(output);
+					case "setStatusCode":
+						status = ((HttpStatus) args[0]).value();
+						return null;
+					case "setStatus":
+					case "sendError":
+						status = (Integer) args[0];
+						return null;
+					case "getStatus":
+						return status;
+					case "setContentType":
+						headers.setContentType(new MediaType((MimeType) args[0]));
+						return null;
+					case "setContentLength":
+						headers.setContentLength((Long) args[0]);
+						return null;
+					default:
+						return null;
+					}
+				});
+
+		String body() {
+			return new String(output.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+}